@@ -64,6 +64,18 @@ public class GitAnalysis { // NOPMD
   @ConfigProperty(name = "explorviz.gitanalysis.calculate-metrics", defaultValue = "true")
   /* default */ boolean calculateMetricsProperty; // NOCS
 
+  @ConfigProperty(name = "explorviz.gitanalysis.metric-collectors")
+  /* default */ Optional<String> metricCollectorsProperty; // NOCS
+
+  @ConfigProperty(name = "explorviz.gitanalysis.analysis-tiers")
+  /* default */ Optional<String> analysisTiersProperty; // NOCS
+
+  @ConfigProperty(name = "explorviz.gitanalysis.declarations-only", defaultValue = "false")
+  /* default */ boolean declarationsOnlyProperty; // NOCS
+
+  @ConfigProperty(name = "explorviz.gitanalysis.checkout-free", defaultValue = "false")
+  /* default */ boolean checkoutFreeProperty; // NOCS
+
   @ConfigProperty(name = "explorviz.gitanalysis.start-commit-sha1")
   /* default */ Optional<String> startCommitProperty; // NOCS
 
@@ -101,6 +113,10 @@ public class GitAnalysis { // NOPMD
         .excludeFromAnalysisExpressions(excludeFromAnalysisExpressionsProperty)
         .applicationRoot(applicationRootProperty)
         .calculateMetrics(calculateMetricsProperty)
+        .metricCollectors(metricCollectorsProperty)
+        .analysisTiers(analysisTiersProperty)
+        .declarationsOnly(declarationsOnlyProperty)
+        .checkoutFree(checkoutFreeProperty)
         .startCommit(startCommitProperty)
         .endCommit(endCommitProperty)
         .commitAnalysisLimit(commitAnalysisLimitProperty)
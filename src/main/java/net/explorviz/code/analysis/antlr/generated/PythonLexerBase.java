@@ -1,6 +1,7 @@
 package net.explorviz.code.analysis.antlr.generated;
 
 import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Deque;
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CommonToken;
@@ -23,6 +24,17 @@ public abstract class PythonLexerBase extends Lexer {
     super(input);
   }
 
+  @Override
+  public void reset() {
+    super.reset();
+    _indents.clear();
+    _opened = 0;
+    _firstTokensInd = 0;
+    _lastTokenInd = 0;
+    Arrays.fill(_buffer, null);
+    _lastToken = null;
+  }
+
   @Override
   public void emit(Token token) {
     super.setToken(token);
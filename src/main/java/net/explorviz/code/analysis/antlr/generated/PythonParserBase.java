@@ -10,6 +10,12 @@ public abstract class PythonParserBase extends Parser {
     super(input);
   }
 
+  @Override
+  public void reset() {
+    super.reset();
+    Version = PythonVersion.Autodetect;
+  }
+
   protected boolean CheckVersion(int version) {
     return Version == PythonVersion.Autodetect || version == Version.getValue();
   }
@@ -48,6 +48,16 @@ public abstract class TypeScriptLexerBase extends Lexer {
     super(input);
   }
 
+  @Override
+  public void reset() {
+    super.reset();
+    scopeStrictModes.clear();
+    lastToken = null;
+    useStrictCurrent = useStrictDefault;
+    templateDepth = 0;
+    bracesDepth = 0;
+  }
+
   public boolean getStrictDefault() {
     return useStrictDefault;
   }
@@ -19,6 +19,10 @@ public class AnalysisRequest {
 
   private boolean sendToRemote = true;
   private boolean calculateMetrics = true;
+  private String metricCollectors;
+  private String analysisTiers;
+  private boolean declarationsOnly;
+  private boolean checkoutFree;
   private String startCommit;
   private String endCommit;
   private Integer commitAnalysisLimit;
@@ -109,6 +113,38 @@ public class AnalysisRequest {
     this.calculateMetrics = calculateMetrics;
   }
 
+  public String getMetricCollectors() {
+    return metricCollectors;
+  }
+
+  public void setMetricCollectors(final String metricCollectors) {
+    this.metricCollectors = metricCollectors;
+  }
+
+  public String getAnalysisTiers() {
+    return analysisTiers;
+  }
+
+  public void setAnalysisTiers(final String analysisTiers) {
+    this.analysisTiers = analysisTiers;
+  }
+
+  public boolean isDeclarationsOnly() {
+    return declarationsOnly;
+  }
+
+  public void setDeclarationsOnly(final boolean declarationsOnly) {
+    this.declarationsOnly = declarationsOnly;
+  }
+
+  public boolean isCheckoutFree() {
+    return checkoutFree;
+  }
+
+  public void setCheckoutFree(final boolean checkoutFree) {
+    this.checkoutFree = checkoutFree;
+  }
+
   public String getStartCommit() {
     return startCommit;
   }
@@ -164,6 +200,10 @@ public class AnalysisRequest {
         .includeInAnalysisExpressions(Optional.ofNullable(includeInAnalysisExpressions))
         .excludeFromAnalysisExpressions(Optional.ofNullable(excludeFromAnalysisExpressions))
         .calculateMetrics(calculateMetrics)
+        .metricCollectors(Optional.ofNullable(metricCollectors))
+        .analysisTiers(Optional.ofNullable(analysisTiers))
+        .declarationsOnly(declarationsOnly)
+        .checkoutFree(checkoutFree)
         .startCommit(Optional.ofNullable(startCommit))
         .endCommit(Optional.ofNullable(endCommit))
         .commitAnalysisLimit(Optional.ofNullable(commitAnalysisLimit))
@@ -11,13 +11,25 @@ import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.sse.Sse;
 import jakarta.ws.rs.sse.SseEventSink;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import net.explorviz.code.analysis.cache.FileDataCache;
+import net.explorviz.code.analysis.cache.HeaderCache;
 import net.explorviz.code.analysis.export.DataExporter;
 import net.explorviz.code.analysis.export.GrpcExporter;
 import net.explorviz.code.analysis.export.JsonExporter;
+import net.explorviz.code.analysis.parser.AntlrCppParserService;
+import net.explorviz.code.analysis.parser.AntlrParserService;
+import net.explorviz.code.analysis.parser.AntlrPythonParserService;
+import net.explorviz.code.analysis.parser.AntlrTypeScriptParserService;
+import net.explorviz.code.analysis.parser.DfaCacheManager;
+import net.explorviz.code.analysis.parser.ParseBudget;
 import net.explorviz.code.analysis.service.AnalysisConfig;
 import net.explorviz.code.analysis.service.AnalysisProgressState;
 import net.explorviz.code.analysis.service.AnalysisStatusService;
 import net.explorviz.code.analysis.service.ConcurrentAnalysisService;
+import net.explorviz.code.analysis.service.IoExecutor;
+import net.explorviz.code.analysis.service.ParserPool;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,6 +54,36 @@ public class AnalysisResource {
   @Inject
   /* default */ AnalysisStatusService analysisStatusService; // NOCS
 
+  @Inject
+  /* default */ FileDataCache fileDataCache; // NOCS
+
+  @Inject
+  /* default */ HeaderCache headerCache; // NOCS
+
+  @Inject
+  /* default */ ParserPool parserPool; // NOCS
+
+  @Inject
+  /* default */ IoExecutor ioExecutor; // NOCS
+
+  @Inject
+  /* default */ ParseBudget parseBudget; // NOCS
+
+  @Inject
+  /* default */ AntlrParserService javaParserService; // NOCS
+
+  @Inject
+  /* default */ AntlrTypeScriptParserService tsParserService; // NOCS
+
+  @Inject
+  /* default */ AntlrPythonParserService pythonParserService; // NOCS
+
+  @Inject
+  /* default */ AntlrCppParserService cppParserService; // NOCS
+
+  @Inject
+  /* default */ DfaCacheManager dfaCacheManager; // NOCS
+
   /**
    * Triggers a Git repository analysis with the provided configuration. The
    * request is queued and processed
@@ -136,4 +178,28 @@ public class AnalysisResource {
       final Sse sse) {
     analysisStatusService.subscribeToStateUpdates(landscapeToken, eventSink, sse);
   }
+
+  /**
+   * Returns internal counters of the analysis, e.g. the hit rate of the file data cache.
+   *
+   * @return the counters grouped by component
+   */
+  @GET
+  @Path("/metrics")
+  @Produces(MediaType.APPLICATION_JSON)
+  public Response getMetrics() {
+    final Map<String, Object> metrics = new LinkedHashMap<>();
+    metrics.put("fileDataCache", fileDataCache.getStats());
+    fileDataCache.getStoreStats().ifPresent(stats -> metrics.put("fileDataStore", stats));
+    metrics.put("headerCache", headerCache.getStats());
+    metrics.put("parserPool", parserPool.getStats());
+    metrics.put("ioExecutor", ioExecutor.getStats());
+    metrics.put("parseBudget", parseBudget.getStats());
+    metrics.put("prediction", Map.of("java", javaParserService.getPredictionStats(),
+        "typescript", tsParserService.getPredictionStats(),
+        "python", pythonParserService.getPredictionStats(),
+        "cpp", cppParserService.getPredictionStats()));
+    metrics.put("dfaCache", dfaCacheManager.getStats());
+    return Response.ok(metrics).build();
+  }
 }
@@ -0,0 +1,13 @@
+package net.explorviz.code.analysis.cache;
+
+/**
+ * Snapshot of the counters of a cache.
+ *
+ * @param entries   the current amount of entries
+ * @param bytes     the current size of all entries in bytes
+ * @param hits      the amount of lookups that found an entry
+ * @param misses    the amount of lookups that found no entry
+ * @param evictions the amount of entries removed to stay within the limits
+ */
+public record CacheStats(long entries, long bytes, long hits, long misses, long evictions) {
+}
@@ -0,0 +1,206 @@
+package net.explorviz.code.analysis.cache;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import net.explorviz.code.proto.FileData;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Content-addressed, size-bounded LRU cache for analyzed files. Entries are stored without the
+ * fields that depend on the commit (path, author, modifications, landscape token and repository
+ * name), so a result can be reused whenever the same blob shows up again, e.g. on reverts or when a
+ * branch is analyzed again. If configured, the {@link PersistentFileDataStore} is used as second
+ * level behind the in-memory entries.
+ */
+@ApplicationScoped
+public class FileDataCache {
+
+  /**
+   * Version of the analyzers, increment whenever the produced {@link FileData} changes, so no stale
+   * results are reused.
+   */
+  public static final String ANALYZER_VERSION = "1";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(FileDataCache.class);
+
+  @ConfigProperty(name = "explorviz.gitanalysis.cache.enabled", defaultValue = "true")
+  /* default */ boolean enabled; // NOCS
+
+  @ConfigProperty(name = "explorviz.gitanalysis.cache.max-entries", defaultValue = "10000")
+  /* default */ long maxEntries; // NOCS
+
+  @ConfigProperty(name = "explorviz.gitanalysis.cache.max-bytes", defaultValue = "268435456")
+  /* default */ long maxBytes; // NOCS
+
+  @Inject
+  /* default */ PersistentFileDataStore store; // NOCS
+
+  private final Map<FileDataCacheKey, FileData> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long currentBytes;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * Creates a cache configured by the application properties.
+   */
+  public FileDataCache() {
+    // configured by field injection
+  }
+
+  /**
+   * Creates a cache with the given limits.
+   *
+   * @param maxEntries the maximum amount of entries
+   * @param maxBytes   the maximum size of all entries in bytes
+   */
+  public FileDataCache(final long maxEntries, final long maxBytes) {
+    this(maxEntries, maxBytes, null);
+  }
+
+  /**
+   * Creates a cache with the given limits backed by the given store.
+   *
+   * @param maxEntries the maximum amount of entries
+   * @param maxBytes   the maximum size of all entries in bytes
+   * @param store      the persistent second level, may be null
+   */
+  public FileDataCache(final long maxEntries, final long maxBytes,
+      final PersistentFileDataStore store) {
+    this.enabled = true;
+    this.maxEntries = maxEntries;
+    this.maxBytes = maxBytes;
+    this.store = store;
+  }
+
+  /**
+   * Returns the cached result for the given key. On a miss, the persistent store is asked and a
+   * found result is kept in memory.
+   *
+   * @param key the key of the analyzed blob
+   * @return the cached result without commit-specific fields, or empty
+   */
+  public Optional<FileData> get(final FileDataCacheKey key) {
+    if (!enabled) {
+      return Optional.empty();
+    }
+    final FileData fileData;
+    synchronized (entries) {
+      fileData = entries.get(key);
+    }
+    if (fileData != null) {
+      hits.increment();
+      return Optional.of(fileData);
+    }
+    misses.increment();
+    if (store == null) {
+      return Optional.empty();
+    }
+    final Optional<FileData> stored = store.get(key);
+    stored.ifPresent(storedData -> putInMemory(key, storedData));
+    return stored;
+  }
+
+  /**
+   * Stores the result of an analysis. Commit-specific fields are removed before storing.
+   *
+   * @param key      the key of the analyzed blob
+   * @param fileData the result of the analysis
+   */
+  public void put(final FileDataCacheKey key, final FileData fileData) {
+    if (!enabled) {
+      return;
+    }
+    final FileData stripped = stripCommitFields(fileData);
+    putInMemory(key, stripped);
+    if (store != null) {
+      store.put(key, stripped);
+    }
+  }
+
+  private void putInMemory(final FileDataCacheKey key, final FileData stripped) {
+    final long size = stripped.getSerializedSize();
+    if (size > maxBytes) {
+      return;
+    }
+    synchronized (entries) {
+      final FileData previous = entries.put(key, stripped);
+      if (previous != null) {
+        currentBytes -= previous.getSerializedSize();
+      }
+      currentBytes += size;
+      evict();
+    }
+  }
+
+  private void evict() {
+    final Iterator<Map.Entry<FileDataCacheKey, FileData>> iterator = entries.entrySet().iterator();
+    while ((entries.size() > maxEntries || currentBytes > maxBytes) && iterator.hasNext()) {
+      final Map.Entry<FileDataCacheKey, FileData> eldest = iterator.next();
+      currentBytes -= eldest.getValue().getSerializedSize();
+      iterator.remove();
+      evictions.increment();
+    }
+  }
+
+  /**
+   * Removes all entries, the counters are kept.
+   */
+  public void clear() {
+    synchronized (entries) {
+      entries.clear();
+      currentBytes = 0;
+    }
+    LOGGER.atDebug().log("File data cache cleared");
+  }
+
+  /**
+   * Returns a snapshot of the persistent store's counters.
+   *
+   * @return the statistics of the store, or empty if no store is configured
+   */
+  public Optional<CacheStats> getStoreStats() {
+    if (store == null || !store.isEnabled()) {
+      return Optional.empty();
+    }
+    return Optional.of(store.getStats());
+  }
+
+  /**
+   * Returns a snapshot of the cache's counters.
+   *
+   * @return the current statistics
+   */
+  public CacheStats getStats() {
+    synchronized (entries) {
+      return new CacheStats(entries.size(), currentBytes, hits.sum(), misses.sum(),
+          evictions.sum());
+    }
+  }
+
+  /**
+   * Removes all fields that depend on the commit or analysis the file was found in.
+   *
+   * @param fileData the analyzed file
+   * @return the file data containing only content-derived fields
+   */
+  public static FileData stripCommitFields(final FileData fileData) {
+    return fileData.toBuilder()
+        .clearFilePath()
+        .clearLastEditor()
+        .clearAddedLines()
+        .clearModifiedLines()
+        .clearDeletedLines()
+        .clearLandscapeToken()
+        .clearRepositoryName()
+        .build();
+  }
+}
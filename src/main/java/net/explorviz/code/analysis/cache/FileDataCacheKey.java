@@ -0,0 +1,18 @@
+package net.explorviz.code.analysis.cache;
+
+import net.explorviz.code.proto.Language;
+import org.eclipse.jgit.lib.ObjectId;
+
+/**
+ * Key of a cached analysis result. Blobs are immutable, so the blob id together with the analyzer
+ * that processed it identifies the result.
+ *
+ * @param blobId          the id of the analyzed blob
+ * @param language        the language the blob was analyzed as
+ * @param analyzerVersion the version of the analyzers, see {@link FileDataCache#ANALYZER_VERSION}
+ * @param path            the path of the file for analyzers whose result depends on it, otherwise
+ *                        empty
+ */
+public record FileDataCacheKey(ObjectId blobId, Language language, String analyzerVersion,
+                               String path) {
+}
@@ -0,0 +1,232 @@
+package net.explorviz.code.analysis.cache;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import net.explorviz.code.proto.FileData;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache for analyzed C/C++ headers, which are few but large, touched by many commits and slow to
+ * parse with the CPP14 grammar. Headers are kept apart from the {@link FileDataCache}, so the churn
+ * of ordinary sources does not evict them. The cached {@link FileData} includes the
+ * {@code #include} list as import names. <br>
+ * A header is parsed at most once: concurrent lookups of the same blob, e.g. from commits analyzed
+ * in parallel, share the running analysis instead of starting their own. If configured, the
+ * {@link PersistentFileDataStore} keeps the headers across analyses and restarts.
+ */
+@ApplicationScoped
+public class HeaderCache {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(HeaderCache.class);
+
+  @ConfigProperty(name = "explorviz.gitanalysis.cache.headers.enabled", defaultValue = "true")
+  /* default */ boolean enabled; // NOCS
+
+  @ConfigProperty(name = "explorviz.gitanalysis.cache.headers.max-entries",
+      defaultValue = "2000")
+  /* default */ long maxEntries; // NOCS
+
+  @ConfigProperty(name = "explorviz.gitanalysis.cache.headers.max-bytes",
+      defaultValue = "67108864")
+  /* default */ long maxBytes; // NOCS
+
+  @Inject
+  /* default */ PersistentFileDataStore store; // NOCS
+
+  private final Map<FileDataCacheKey, FileData> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final Map<FileDataCacheKey, CompletableFuture<FileData>> running =
+      new ConcurrentHashMap<>();
+  private long currentBytes;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * Creates a cache configured by the application properties.
+   */
+  public HeaderCache() {
+    // configured by field injection
+  }
+
+  /**
+   * Creates a cache with the given limits backed by the given store.
+   *
+   * @param maxEntries the maximum amount of headers
+   * @param maxBytes   the maximum size of all headers in bytes
+   * @param store      the persistent second level, may be null
+   */
+  public HeaderCache(final long maxEntries, final long maxBytes,
+      final PersistentFileDataStore store) {
+    this.enabled = true;
+    this.maxEntries = maxEntries;
+    this.maxBytes = maxBytes;
+    this.store = store;
+  }
+
+  /**
+   * Returns true if the file is a C/C++ header by its name.
+   *
+   * @param fileName the name or path of the file
+   * @return if the file is a header
+   */
+  public static boolean isHeader(final String fileName) {
+    final String lowerCase = fileName.toLowerCase(Locale.ROOT);
+    return lowerCase.endsWith(".h") || lowerCase.endsWith(".hpp") || lowerCase.endsWith(".hxx");
+  }
+
+  /**
+   * Returns true if headers are cached.
+   *
+   * @return if the cache is enabled
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Returns the analysis result of the header, starting the given analysis only if neither the
+   * memory, the persistent store nor a concurrent analysis of the same blob has it. A concurrent
+   * lookup gets the running analysis instead of waiting for it. The persistent store is read on the
+   * calling thread, so call this off the parser threads.
+   *
+   * @param key      the key of the header's blob
+   * @param analysis starts the analysis of the header, which may complete with {@code null} if
+   *                 the header can't be analyzed
+   * @param io       runs the writes to the persistent store and the retry of a failed concurrent
+   *                 analysis
+   * @return completes with the result of the given analysis if it ran, otherwise with the cached
+   *     result without commit-specific fields, {@code null} if the header can't be analyzed
+   */
+  public CompletableFuture<FileData> getOrAnalyze(final FileDataCacheKey key,
+      final Supplier<CompletableFuture<FileData>> analysis, final Executor io) {
+    if (!enabled) {
+      return analysis.get();
+    }
+    final FileData cached = getFromMemory(key);
+    if (cached != null) {
+      hits.increment();
+      return CompletableFuture.completedFuture(cached);
+    }
+
+    final CompletableFuture<FileData> own = new CompletableFuture<>();
+    final CompletableFuture<FileData> other = running.putIfAbsent(key, own);
+    if (other != null) {
+      hits.increment();
+      // if the other analysis fails, try on our own
+      return other.exceptionallyComposeAsync(error -> analysis.get(), io);
+    }
+
+    final CompletableFuture<FileData> analyzed;
+    try {
+      // the previous analysis might have finished between the lookup and the registration
+      final FileData finished = getFromMemory(key);
+      if (finished != null) {
+        hits.increment();
+        complete(key, own, finished);
+        return CompletableFuture.completedFuture(finished);
+      }
+      misses.increment();
+      final Optional<FileData> stored = store == null ? Optional.empty() : store.get(key);
+      if (stored.isPresent()) {
+        putInMemory(key, stored.get());
+        complete(key, own, stored.get());
+        return CompletableFuture.completedFuture(stored.get());
+      }
+      analyzed = analysis.get();
+    } catch (RuntimeException e) {
+      own.completeExceptionally(e);
+      running.remove(key, own);
+      throw e;
+    }
+
+    return analyzed.thenApplyAsync(fileData -> {
+      if (fileData == null) {
+        complete(key, own, null);
+        return null;
+      }
+      final FileData stripped = FileDataCache.stripCommitFields(fileData);
+      putInMemory(key, stripped);
+      if (store != null) {
+        store.put(key, stripped);
+      }
+      complete(key, own, stripped);
+      return fileData;
+    }, io).whenComplete((fileData, error) -> {
+      if (error != null) {
+        own.completeExceptionally(error);
+        running.remove(key, own);
+      }
+    });
+  }
+
+  private void complete(final FileDataCacheKey key, final CompletableFuture<FileData> own,
+      final FileData fileData) {
+    own.complete(fileData);
+    running.remove(key, own);
+  }
+
+  private FileData getFromMemory(final FileDataCacheKey key) {
+    synchronized (entries) {
+      return entries.get(key);
+    }
+  }
+
+  private void putInMemory(final FileDataCacheKey key, final FileData stripped) {
+    final long size = stripped.getSerializedSize();
+    if (size > maxBytes) {
+      return;
+    }
+    synchronized (entries) {
+      final FileData previous = entries.put(key, stripped);
+      if (previous != null) {
+        currentBytes -= previous.getSerializedSize();
+      }
+      currentBytes += size;
+      final Iterator<Map.Entry<FileDataCacheKey, FileData>> iterator =
+          entries.entrySet().iterator();
+      while ((entries.size() > maxEntries || currentBytes > maxBytes) && iterator.hasNext()) {
+        final Map.Entry<FileDataCacheKey, FileData> eldest = iterator.next();
+        currentBytes -= eldest.getValue().getSerializedSize();
+        iterator.remove();
+        evictions.increment();
+      }
+    }
+  }
+
+  /**
+   * Removes all headers, the counters are kept.
+   */
+  public void clear() {
+    synchronized (entries) {
+      entries.clear();
+      currentBytes = 0;
+    }
+    LOGGER.atDebug().log("Header cache cleared");
+  }
+
+  /**
+   * Returns a snapshot of the cache's counters. Lookups answered by a concurrent analysis count
+   * as hits.
+   *
+   * @return the current statistics
+   */
+  public CacheStats getStats() {
+    synchronized (entries) {
+      return new CacheStats(entries.size(), currentBytes, hits.sum(), misses.sum(),
+          evictions.sum());
+    }
+  }
+}
@@ -0,0 +1,411 @@
+package net.explorviz.code.analysis.cache;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+import net.explorviz.code.proto.FileData;
+import net.explorviz.code.proto.Language;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only, memory-mapped store of analysis results that survives restarts and can be shared by
+ * several agent processes on the same host. <br>
+ * The store consists of a data file holding the serialized {@link FileData} entries and an index
+ * file mapping {@link FileDataCacheKey keys} to their position in the data file. Writers append
+ * the data first and the index entry afterwards while holding an exclusive file lock, so readers
+ * never see an index entry pointing to incomplete data. Both the index entries and the data are
+ * checksummed, broken entries left behind by a crash are ignored. Readers map the index and only
+ * re-scan the part appended since their last scan, which happens on a miss.
+ */
+@ApplicationScoped
+public class PersistentFileDataStore {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PersistentFileDataStore.class);
+
+  private static final String DATA_FILE = "filedata-v2.dat";
+  private static final String INDEX_FILE = "filedata-v2.idx";
+  private static final String LOCK_FILE = "filedata-v2.lock";
+  // key length, offset, length, data checksum and entry checksum besides the key itself
+  private static final int INDEX_ENTRY_OVERHEAD = Integer.BYTES + Long.BYTES + Integer.BYTES
+      + Integer.BYTES + Integer.BYTES;
+
+  @ConfigProperty(name = "explorviz.gitanalysis.cache.store-path")
+  /* default */ Optional<String> storePathProperty; // NOCS
+
+  private final Map<FileDataCacheKey, long[]> index = new ConcurrentHashMap<>();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  private Path directory;
+  private volatile boolean initialized;
+  private volatile boolean usable;
+  private FileChannel dataChannel;
+  private FileChannel indexChannel;
+  private FileChannel lockChannel;
+  private volatile MappedByteBuffer dataMap;
+  private long indexPosition;
+
+  /**
+   * Creates a store configured by the application properties.
+   */
+  public PersistentFileDataStore() {
+    // configured by field injection
+  }
+
+  /**
+   * Creates a store located in the given directory.
+   *
+   * @param directory the directory holding the store's files
+   */
+  public PersistentFileDataStore(final Path directory) {
+    this.directory = directory;
+    this.storePathProperty = Optional.of(directory.toString());
+  }
+
+  private boolean open() {
+    if (initialized) {
+      return usable;
+    }
+    synchronized (this) {
+      if (!initialized) {
+        usable = openFiles();
+        initialized = true;
+      }
+      return usable;
+    }
+  }
+
+  private boolean openFiles() {
+    if (storePathProperty == null || storePathProperty.isEmpty()
+        || storePathProperty.get().isBlank()) {
+      return false;
+    }
+    try {
+      if (directory == null) {
+        directory = Path.of(storePathProperty.get());
+      }
+      Files.createDirectories(directory);
+      dataChannel = FileChannel.open(directory.resolve(DATA_FILE), StandardOpenOption.CREATE,
+          StandardOpenOption.READ, StandardOpenOption.WRITE);
+      indexChannel = FileChannel.open(directory.resolve(INDEX_FILE), StandardOpenOption.CREATE,
+          StandardOpenOption.READ, StandardOpenOption.WRITE);
+      lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE,
+          StandardOpenOption.WRITE);
+      scanIndex(false);
+      LOGGER.atInfo().addArgument(index.size()).addArgument(directory)
+          .log("Opened persistent analysis store with {} entries at {}");
+      return true;
+    } catch (IOException e) {
+      LOGGER.atError().addArgument(directory).addArgument(e.getMessage())
+          .log("Could not open persistent analysis store at {}, continuing without: {}");
+      closeQuietly();
+      return false;
+    }
+  }
+
+  /**
+   * Returns true if a store path is configured and the store could be opened.
+   *
+   * @return if the store is usable
+   */
+  public boolean isEnabled() {
+    return open();
+  }
+
+  /**
+   * Returns the stored result for the given key. On a miss, entries appended by other processes
+   * since the last scan are read first.
+   *
+   * @param key the key of the analyzed blob
+   * @return the stored result, or empty
+   */
+  public Optional<FileData> get(final FileDataCacheKey key) {
+    if (!open()) {
+      return Optional.empty();
+    }
+    long[] location = index.get(key);
+    if (location == null) {
+      try {
+        synchronized (this) {
+          scanIndex(false);
+        }
+      } catch (IOException e) {
+        LOGGER.atWarn().addArgument(e.getMessage()).log("Could not read analysis store index: {}");
+      }
+      location = index.get(key);
+    }
+    if (location == null) {
+      misses.increment();
+      return Optional.empty();
+    }
+    try {
+      final byte[] data = read(location[0], (int) location[1]);
+      if (checksum(data) == (int) location[2]) {
+        final FileData fileData = FileData.parseFrom(data);
+        hits.increment();
+        return Optional.of(fileData);
+      }
+      LOGGER.atWarn().addArgument(key.blobId().name()).log("Corrupt entry for blob {} ignored");
+    } catch (InvalidProtocolBufferException e) {
+      LOGGER.atWarn().addArgument(key.blobId().name()).log("Corrupt entry for blob {} ignored");
+    } catch (IOException e) {
+      LOGGER.atWarn().addArgument(e.getMessage()).log("Could not read analysis store: {}");
+    }
+    misses.increment();
+    return Optional.empty();
+  }
+
+  /**
+   * Appends a result to the store, unless it is already present.
+   *
+   * @param key      the key of the analyzed blob
+   * @param fileData the result without commit-specific fields
+   */
+  public void put(final FileDataCacheKey key, final FileData fileData) {
+    if (!open() || index.containsKey(key)) {
+      return;
+    }
+    final byte[] data = fileData.toByteArray();
+    try {
+      synchronized (this) {
+        try (FileLock ignored = lockChannel.lock()) {
+          // another process might have stored it in the meantime
+          scanIndex(true);
+          if (index.containsKey(key)) {
+            return;
+          }
+          final long offset = dataChannel.size();
+          writeFully(dataChannel, ByteBuffer.wrap(data), offset);
+
+          final int dataChecksum = checksum(data);
+          final ByteBuffer entry = encodeIndexEntry(key, offset, data.length, dataChecksum);
+          writeFully(indexChannel, entry, indexPosition);
+          indexPosition += entry.capacity();
+          index.put(key, new long[] {offset, data.length, dataChecksum});
+        }
+      }
+    } catch (IOException e) {
+      LOGGER.atWarn().addArgument(e.getMessage()).log("Could not write analysis store: {}");
+    }
+  }
+
+  /**
+   * Returns a snapshot of the store's counters.
+   *
+   * @return the current statistics, the store does not evict
+   */
+  public CacheStats getStats() {
+    long bytes = 0;
+    if (open()) {
+      try {
+        bytes = dataChannel.size();
+      } catch (IOException e) {
+        // keep zero
+      }
+    }
+    return new CacheStats(index.size(), bytes, hits.sum(), misses.sum(), 0);
+  }
+
+  /**
+   * Reads all index entries appended since the last scan. An incomplete or corrupt entry at the end
+   * stops the scan, it gets truncated by the next writer holding the lock. The scan position always
+   * stays at the start of an entry, so an entry another process is still writing is read completely
+   * by a later scan.
+   *
+   * @param holdingLock true if the caller holds the exclusive lock of the store
+   */
+  private void scanIndex(final boolean holdingLock) throws IOException {
+    final long size = indexChannel.size();
+    if (size <= indexPosition) {
+      return;
+    }
+    indexPosition = scanEntries(indexPosition, size);
+    // readers simply stop at the valid part, only the writer may remove a broken tail
+    if (holdingLock && indexPosition < size) {
+      // no other process writes while the lock is held, validate all entries before cutting
+      final long validEnd = scanEntries(0, size);
+      if (validEnd < size) {
+        LOGGER.atWarn().log("Removing incomplete entry from analysis store index");
+        indexChannel.truncate(validEnd);
+      }
+      indexPosition = validEnd;
+    }
+  }
+
+  /**
+   * Adds the valid entries between the given entry boundary and the size to the index.
+   *
+   * @return the position after the last valid entry
+   */
+  private long scanEntries(final long from, final long size) throws IOException {
+    final MappedByteBuffer buffer = indexChannel.map(FileChannel.MapMode.READ_ONLY, from,
+        size - from);
+    while (buffer.remaining() >= Integer.BYTES) {
+      final int start = buffer.position();
+      final int keyLength = buffer.getInt();
+      if (keyLength < 0 || buffer.remaining() < keyLength + INDEX_ENTRY_OVERHEAD - Integer.BYTES) {
+        buffer.position(start);
+        break;
+      }
+      final byte[] keyBytes = new byte[keyLength];
+      buffer.get(keyBytes);
+      final long offset = buffer.getLong();
+      final int length = buffer.getInt();
+      final int dataChecksum = buffer.getInt();
+      final int checksum = buffer.getInt();
+      if (checksum != checksum(keyBytes, offset, length, dataChecksum)) {
+        buffer.position(start);
+        break;
+      }
+      final FileDataCacheKey key = decodeKey(keyBytes);
+      if (key != null) {
+        index.putIfAbsent(key, new long[] {offset, length, dataChecksum});
+      }
+    }
+    return from + buffer.position();
+  }
+
+  private byte[] read(final long offset, final int length) throws IOException {
+    final byte[] bytes = new byte[length];
+    synchronized (this) {
+      if (dataMap == null || offset + length > dataMap.capacity()) {
+        final long size = dataChannel.size();
+        if (size <= Integer.MAX_VALUE) {
+          dataMap = dataChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+      }
+    }
+    final MappedByteBuffer map = dataMap;
+    if (map != null && offset + length <= map.capacity()) {
+      map.duplicate().position((int) offset).get(bytes);
+      return bytes;
+    }
+    // files beyond 2 GiB can not be mapped as a whole
+    final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    long position = offset;
+    while (buffer.hasRemaining()) {
+      final int read = dataChannel.read(buffer, position);
+      if (read < 0) {
+        throw new IOException("Unexpected end of analysis store");
+      }
+      position += read;
+    }
+    return bytes;
+  }
+
+  private static void writeFully(final FileChannel channel, final ByteBuffer buffer,
+      final long position) throws IOException {
+    long current = position;
+    while (buffer.hasRemaining()) {
+      current += channel.write(buffer, current);
+    }
+  }
+
+  /* package */ static ByteBuffer encodeIndexEntry(final FileDataCacheKey key,
+      final long offset, final int length, final int dataChecksum) throws IOException {
+    final byte[] keyBytes = encodeKey(key);
+    final ByteBuffer entry = ByteBuffer.allocate(keyBytes.length + INDEX_ENTRY_OVERHEAD);
+    entry.putInt(keyBytes.length).put(keyBytes).putLong(offset).putInt(length)
+        .putInt(dataChecksum).putInt(checksum(keyBytes, offset, length, dataChecksum));
+    entry.flip();
+    return entry;
+  }
+
+  /* package */ static int checksum(final byte[] data) {
+    final CRC32 crc = new CRC32();
+    crc.update(data);
+    return (int) crc.getValue();
+  }
+
+  private static int checksum(final byte[] keyBytes, final long offset, final int length,
+      final int dataChecksum) {
+    final CRC32 crc = new CRC32();
+    crc.update(keyBytes);
+    crc.update(ByteBuffer.allocate(Long.BYTES + Integer.BYTES + Integer.BYTES).putLong(offset)
+        .putInt(length).putInt(dataChecksum).flip());
+    return (int) crc.getValue();
+  }
+
+  private static byte[] encodeKey(final FileDataCacheKey key) throws IOException {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      final byte[] rawId = new byte[Constants.OBJECT_ID_LENGTH];
+      key.blobId().copyRawTo(rawId, 0);
+      out.write(rawId);
+      out.writeInt(key.language().getNumber());
+      writeString(out, key.analyzerVersion());
+      writeString(out, key.path());
+    }
+    return bytes.toByteArray();
+  }
+
+  private static void writeString(final DataOutputStream out, final String value)
+      throws IOException {
+    // plain UTF-8, as modified UTF-8 differs for supplementary characters and is limited to 64 KiB
+    final byte[] utf = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(utf.length);
+    out.write(utf);
+  }
+
+  private static FileDataCacheKey decodeKey(final byte[] bytes) {
+    final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    final ObjectId blobId = ObjectId.fromRaw(bytes, 0);
+    buffer.position(Constants.OBJECT_ID_LENGTH);
+    final Language language = Language.forNumber(buffer.getInt());
+    final String analyzerVersion = readString(buffer);
+    final String path = readString(buffer);
+    return language == null ? null
+        : new FileDataCacheKey(blobId, language, analyzerVersion, path);
+  }
+
+  private static String readString(final ByteBuffer buffer) {
+    final byte[] utf = new byte[buffer.getInt()];
+    buffer.get(utf);
+    return new String(utf, StandardCharsets.UTF_8);
+  }
+
+  private void closeQuietly() {
+    for (final FileChannel channel : new FileChannel[] {dataChannel, indexChannel, lockChannel}) {
+      if (channel != null) {
+        try {
+          channel.close();
+        } catch (IOException e) {
+          // nothing left to do
+        }
+      }
+    }
+    dataChannel = null;
+    indexChannel = null;
+    lockChannel = null;
+    dataMap = null;
+  }
+
+  /**
+   * Closes the store's files.
+   */
+  @PreDestroy
+  public synchronized void close() {
+    usable = false;
+    closeQuietly();
+  }
+}
@@ -0,0 +1,75 @@
+package net.explorviz.code.analysis.collector;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.Set;
+import net.explorviz.code.analysis.handler.AbstractFileDataHandler;
+import net.explorviz.code.analysis.handler.MethodDataHandler;
+import net.explorviz.code.analysis.listener.CyclomaticComplexityListener;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+
+/**
+ * Calculates the cyclomatic complexity (McCabe) of every function as one plus its decisions.
+ * Decisions of nested functions count for the nested function only. The file gets the sum of its
+ * functions.
+ */
+public class CyclomaticComplexityCollector implements MetricCollector {
+
+  private final Deque<int[]> functions = new ArrayDeque<>();
+  private long fileComplexity;
+  private boolean hasFunctions;
+
+  @Override
+  public Set<NodeKind> getKinds() {
+    return EnumSet.of(NodeKind.FUNCTION, NodeKind.DECISION);
+  }
+
+  @Override
+  public void enter(final NodeKind kind, final ParserRuleContext ctx,
+      final AbstractFileDataHandler file) {
+    if (kind == NodeKind.FUNCTION) {
+      functions.push(new int[] {1});
+    } else {
+      count();
+    }
+  }
+
+  @Override
+  public void exit(final NodeKind kind, final ParserRuleContext ctx,
+      final AbstractFileDataHandler file) {
+    if (kind != NodeKind.FUNCTION) {
+      return;
+    }
+    final int complexity = functions.pop()[0];
+    final MethodDataHandler function = file.getFunction(ctx);
+    if (function != null) {
+      function.addMetric(CyclomaticComplexityListener.CYCLOMATIC_COMPLEXITY,
+          String.valueOf(complexity));
+      fileComplexity += complexity;
+      hasFunctions = true;
+    }
+  }
+
+  @Override
+  public void visitToken(final NodeKind kind, final Token token,
+      final AbstractFileDataHandler file) {
+    count();
+  }
+
+  @Override
+  public void finish(final AbstractFileDataHandler file) {
+    if (hasFunctions) {
+      file.addMetric(CyclomaticComplexityListener.CYCLOMATIC_COMPLEXITY,
+          String.valueOf(fileComplexity));
+    }
+  }
+
+  private void count() {
+    // decisions outside of functions, e.g. in module level code, are not attributed
+    if (!functions.isEmpty()) {
+      functions.peek()[0]++;
+    }
+  }
+}
@@ -0,0 +1,118 @@
+package net.explorviz.code.analysis.collector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import net.explorviz.code.analysis.handler.AbstractFileDataHandler;
+import net.explorviz.code.analysis.listener.CompositeParseTreeListener;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+/**
+ * Notifies all {@link MetricCollector collectors} of a file during a single walk of its parse
+ * tree. Each rule and token is looked up in the precomputed dispatch table of the grammar, so
+ * nodes no collector registered for cost a single array access. The collectors are finished when
+ * the root of the tree is exited. <br>
+ * The listener is meant to be walked together with the file data listener, see
+ * {@link #withCollectors}, which binds the
+ * functions the collectors add their metrics to.
+ */
+public final class FusedCollectorListener implements ParseTreeListener {
+
+  private final List<MetricCollector> collectors;
+  private final AbstractFileDataHandler file;
+  private final GrammarProfile.Route[][] ruleRoutes;
+  private final GrammarProfile.Route[][] tokenRoutes;
+
+  /**
+   * Creates a listener notifying the given collectors.
+   *
+   * @param profile    the profile of the file's grammar
+   * @param collectors the collectors, used for this file only
+   * @param file       the data of the file
+   */
+  public FusedCollectorListener(final GrammarProfile profile,
+      final List<MetricCollector> collectors, final AbstractFileDataHandler file) {
+    this.collectors = List.copyOf(collectors);
+    this.file = file;
+    final List<Set<NodeKind>> kinds = new ArrayList<>(collectors.size());
+    for (final MetricCollector collector : collectors) {
+      kinds.add(collector.getKinds());
+    }
+    final GrammarProfile.DispatchTable table = profile.dispatchTable(kinds);
+    this.ruleRoutes = table.rules();
+    this.tokenRoutes = table.tokens();
+  }
+
+  /**
+   * Returns a listener walking the given collectors along with the file data listener, which
+   * runs first so the collectors find the functions it bound.
+   *
+   * @param listener   the file data listener
+   * @param profile    the profile of the file's grammar
+   * @param collectors the names of the collectors, none to walk the file data listener only
+   * @param file       the data of the file
+   * @return the listener to walk
+   */
+  public static ParseTreeListener withCollectors(final ParseTreeListener listener,
+      final GrammarProfile profile, final Set<String> collectors,
+      final AbstractFileDataHandler file) {
+    if (collectors.isEmpty()) {
+      return listener;
+    }
+    return new CompositeParseTreeListener(listener, List.of(
+        new FusedCollectorListener(profile, MetricCollectors.create(collectors), file)));
+  }
+
+  @Override
+  public void enterEveryRule(final ParserRuleContext ctx) {
+    final GrammarProfile.Route[] routes = ruleRoutes[ctx.getRuleIndex()];
+    if (routes == null) {
+      return;
+    }
+    for (final GrammarProfile.Route route : routes) {
+      if (route.filter() == null || route.filter().test(ctx)) {
+        collectors.get(route.collector()).enter(route.kind(), ctx, file);
+      }
+    }
+  }
+
+  @Override
+  public void exitEveryRule(final ParserRuleContext ctx) {
+    final GrammarProfile.Route[] routes = ruleRoutes[ctx.getRuleIndex()];
+    if (routes != null) {
+      for (int i = routes.length - 1; i >= 0; i--) {
+        final GrammarProfile.Route route = routes[i];
+        if (route.filter() == null || route.filter().test(ctx)) {
+          collectors.get(route.collector()).exit(route.kind(), ctx, file);
+        }
+      }
+    }
+    if (ctx.getParent() == null) {
+      for (final MetricCollector collector : collectors) {
+        collector.finish(file);
+      }
+    }
+  }
+
+  @Override
+  public void visitTerminal(final TerminalNode node) {
+    final int type = node.getSymbol().getType();
+    if (type < 0 || type >= tokenRoutes.length || tokenRoutes[type] == null) {
+      return;
+    }
+    final int parentRule = ((ParserRuleContext) node.getParent()).getRuleIndex();
+    for (final GrammarProfile.Route route : tokenRoutes[type]) {
+      if (route.parentRule() < 0 || route.parentRule() == parentRule) {
+        collectors.get(route.collector()).visitToken(route.kind(), node.getSymbol(), file);
+      }
+    }
+  }
+
+  @Override
+  public void visitErrorNode(final ErrorNode node) {
+    // error nodes are no decisions, nestings or functions
+  }
+}
@@ -0,0 +1,158 @@
+package net.explorviz.code.analysis.collector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Vocabulary;
+
+/**
+ * Describes which rules and tokens of a grammar belong to which {@link NodeKind}, so collectors
+ * can be written once for all grammars. A rule can be restricted to some of its alternatives by a
+ * filter. <br>
+ * The profile turns the kinds the collectors of a walk registered for into per-rule and per-token
+ * dispatch tables. These only depend on the kinds, so they are computed once and shared by all
+ * walks with the same collectors.
+ */
+public final class GrammarProfile {
+
+  private final String name;
+  private final int ruleCount;
+  private final int tokenTypeCount;
+  private final List<Entry> rules = new ArrayList<>();
+  private final List<Entry> tokens = new ArrayList<>();
+  private final Map<List<Set<NodeKind>>, DispatchTable> tables = new ConcurrentHashMap<>();
+
+  /**
+   * A rule or token type belonging to a kind.
+   */
+  private record Entry(NodeKind kind, int index, Predicate<ParserRuleContext> filter,
+      int parentRule) {
+  }
+
+  /**
+   * A collector to notify about a node, identified by its position in the walk's collectors.
+   *
+   * @param collector  the position of the collector
+   * @param kind       the kind the node belongs to
+   * @param filter     the alternatives of the rule belonging to the kind, {@code null} for all
+   * @param parentRule the rule a token must be part of, {@code -1} for any
+   */
+  /* default */ record Route(int collector, NodeKind kind, Predicate<ParserRuleContext> filter,
+      int parentRule) {
+  }
+
+  /**
+   * The routes of all rules and token types, indexed by the rule index and token type.
+   */
+  /* default */ record DispatchTable(Route[][] rules, Route[][] tokens) {
+  }
+
+  /**
+   * Creates an empty profile of a grammar.
+   *
+   * @param name       the name of the grammar
+   * @param ruleNames  the rule names of the grammar's parser
+   * @param vocabulary the vocabulary of the grammar
+   */
+  public GrammarProfile(final String name, final String[] ruleNames,
+      final Vocabulary vocabulary) {
+    this.name = name;
+    this.ruleCount = ruleNames.length;
+    this.tokenTypeCount = vocabulary.getMaxTokenType() + 1;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Adds a rule to a kind.
+   *
+   * @param kind      the kind
+   * @param ruleIndex the index of the rule
+   * @return this profile
+   */
+  public GrammarProfile rule(final NodeKind kind, final int ruleIndex) {
+    return rule(kind, ruleIndex, null);
+  }
+
+  /**
+   * Adds the alternatives of a rule matching the filter to a kind.
+   *
+   * @param kind      the kind
+   * @param ruleIndex the index of the rule
+   * @param filter    the alternatives belonging to the kind
+   * @return this profile
+   */
+  public GrammarProfile rule(final NodeKind kind, final int ruleIndex,
+      final Predicate<ParserRuleContext> filter) {
+    rules.add(new Entry(kind, ruleIndex, filter, -1));
+    return this;
+  }
+
+  /**
+   * Adds token types to a kind.
+   *
+   * @param kind       the kind
+   * @param tokenTypes the token types
+   * @return this profile
+   */
+  public GrammarProfile tokens(final NodeKind kind, final int... tokenTypes) {
+    for (final int tokenType : tokenTypes) {
+      tokens.add(new Entry(kind, tokenType, null, -1));
+    }
+    return this;
+  }
+
+  /**
+   * Adds a token type to a kind if the token is part of the given rule, e.g. to tell a boolean
+   * operator from the same token in a declaration.
+   *
+   * @param kind       the kind
+   * @param tokenType  the token type
+   * @param parentRule the index of the rule the token must be part of
+   * @return this profile
+   */
+  public GrammarProfile token(final NodeKind kind, final int tokenType, final int parentRule) {
+    tokens.add(new Entry(kind, tokenType, null, parentRule));
+    return this;
+  }
+
+  /**
+   * Returns the dispatch table for collectors registered for the given kinds.
+   *
+   * @param kinds the kinds of each collector, in the order of the collectors
+   * @return the dispatch table
+   */
+  /* default */ DispatchTable dispatchTable(final List<Set<NodeKind>> kinds) {
+    return tables.computeIfAbsent(List.copyOf(kinds), key -> new DispatchTable(
+        routes(rules, ruleCount, key), routes(tokens, tokenTypeCount, key)));
+  }
+
+  private static Route[][] routes(final List<Entry> entries, final int size,
+      final List<Set<NodeKind>> kinds) {
+    final List<List<Route>> routes = new ArrayList<>(Collections.nCopies(size, null));
+    for (int collector = 0; collector < kinds.size(); collector++) {
+      for (final Entry entry : entries) {
+        if (kinds.get(collector).contains(entry.kind())) {
+          if (routes.get(entry.index()) == null) {
+            routes.set(entry.index(), new ArrayList<>());
+          }
+          routes.get(entry.index()).add(new Route(collector, entry.kind(), entry.filter(),
+              entry.parentRule()));
+        }
+      }
+    }
+    final Route[][] table = new Route[size][];
+    for (int i = 0; i < size; i++) {
+      // nodes without routes are skipped by a null check
+      table[i] = routes.get(i) == null ? null : routes.get(i).toArray(new Route[0]);
+    }
+    return table;
+  }
+}
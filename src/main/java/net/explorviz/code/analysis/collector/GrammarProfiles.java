@@ -0,0 +1,107 @@
+package net.explorviz.code.analysis.collector;
+
+import net.explorviz.code.analysis.antlr.generated.CPP14Parser;
+import net.explorviz.code.analysis.antlr.generated.PythonParser;
+import net.explorviz.code.analysis.antlr.generated.TypeScriptParser;
+import org.antlr.v4.runtime.ParserRuleContext;
+
+/**
+ * The {@link GrammarProfile profiles} of the grammars analyzed with ANTLR listeners. Decisions
+ * are the nodes counted by McCabe: conditionals, loops, cases, catch clauses, conditional
+ * expressions and short-circuit operators. Nestings are the statements opening a nested block.
+ */
+public final class GrammarProfiles {
+
+  public static final GrammarProfile TYPESCRIPT = new GrammarProfile("TypeScript",
+      TypeScriptParser.ruleNames, TypeScriptParser.VOCABULARY)
+      .rule(NodeKind.FUNCTION, TypeScriptParser.RULE_functionDeclaration)
+      .rule(NodeKind.FUNCTION, TypeScriptParser.RULE_propertyMemberDeclaration,
+          ctx -> ctx instanceof TypeScriptParser.MethodDeclarationExpressionContext)
+      .rule(NodeKind.FUNCTION, TypeScriptParser.RULE_constructorDeclaration)
+      .rule(NodeKind.FUNCTION, TypeScriptParser.RULE_arrowFunctionDeclaration)
+      // the other alternatives wrap a function or arrow function declaration
+      .rule(NodeKind.FUNCTION, TypeScriptParser.RULE_anonymousFunction,
+          ctx -> ((TypeScriptParser.AnonymousFunctionContext) ctx).functionBody() != null)
+      .rule(NodeKind.FUNCTION, TypeScriptParser.RULE_getAccessor)
+      .rule(NodeKind.FUNCTION, TypeScriptParser.RULE_setAccessor)
+      .rule(NodeKind.FUNCTION, TypeScriptParser.RULE_generatorMethod)
+      .rule(NodeKind.FUNCTION, TypeScriptParser.RULE_generatorFunctionDeclaration)
+      .rule(NodeKind.DECISION, TypeScriptParser.RULE_ifStatement)
+      .rule(NodeKind.DECISION, TypeScriptParser.RULE_iterationStatement)
+      .rule(NodeKind.DECISION, TypeScriptParser.RULE_caseClause)
+      .rule(NodeKind.DECISION, TypeScriptParser.RULE_catchProduction)
+      .rule(NodeKind.DECISION, TypeScriptParser.RULE_singleExpression,
+          ctx -> ctx instanceof TypeScriptParser.TernaryExpressionContext
+              || isKeywordStatement(ctx))
+      .tokens(NodeKind.DECISION, TypeScriptParser.And, TypeScriptParser.Or,
+          TypeScriptParser.NullCoalesce)
+      // blocks instead of statements, as the block of a keyword statement is its sibling
+      .rule(NodeKind.NESTING, TypeScriptParser.RULE_block)
+      .rule(NodeKind.NESTING, TypeScriptParser.RULE_switchStatement)
+      .rule(NodeKind.NESTING, TypeScriptParser.RULE_caseClause)
+      .rule(NodeKind.NESTING, TypeScriptParser.RULE_defaultClause);
+
+  public static final GrammarProfile PYTHON = new GrammarProfile("Python",
+      PythonParser.ruleNames, PythonParser.VOCABULARY)
+      .rule(NodeKind.FUNCTION, PythonParser.RULE_funcdef)
+      .rule(NodeKind.FUNCTION, PythonParser.RULE_test,
+          ctx -> ((PythonParser.TestContext) ctx).LAMBDA() != null)
+      .rule(NodeKind.DECISION, PythonParser.RULE_compound_stmt,
+          ctx -> ctx instanceof PythonParser.If_stmtContext
+              || ctx instanceof PythonParser.While_stmtContext
+              || ctx instanceof PythonParser.For_stmtContext)
+      .rule(NodeKind.DECISION, PythonParser.RULE_elif_clause)
+      .rule(NodeKind.DECISION, PythonParser.RULE_except_clause)
+      .rule(NodeKind.DECISION, PythonParser.RULE_test,
+          ctx -> ((PythonParser.TestContext) ctx).IF() != null)
+      .rule(NodeKind.DECISION, PythonParser.RULE_comp_for)
+      .rule(NodeKind.DECISION, PythonParser.RULE_comp_iter,
+          ctx -> ((PythonParser.Comp_iterContext) ctx).IF() != null)
+      .tokens(NodeKind.DECISION, PythonParser.AND, PythonParser.OR)
+      .rule(NodeKind.NESTING, PythonParser.RULE_compound_stmt,
+          ctx -> ctx instanceof PythonParser.If_stmtContext
+              || ctx instanceof PythonParser.While_stmtContext
+              || ctx instanceof PythonParser.For_stmtContext
+              || ctx instanceof PythonParser.Try_stmtContext
+              || ctx instanceof PythonParser.With_stmtContext);
+
+  public static final GrammarProfile CPP = new GrammarProfile("C++",
+      CPP14Parser.ruleNames, CPP14Parser.VOCABULARY)
+      .rule(NodeKind.FUNCTION, CPP14Parser.RULE_functionDefinition)
+      .rule(NodeKind.FUNCTION, CPP14Parser.RULE_lambdaExpression)
+      .rule(NodeKind.DECISION, CPP14Parser.RULE_selectionStatement,
+          ctx -> ((CPP14Parser.SelectionStatementContext) ctx).If() != null)
+      .rule(NodeKind.DECISION, CPP14Parser.RULE_iterationStatement)
+      .rule(NodeKind.DECISION, CPP14Parser.RULE_labeledStatement,
+          ctx -> ((CPP14Parser.LabeledStatementContext) ctx).Case() != null)
+      .rule(NodeKind.DECISION, CPP14Parser.RULE_handler)
+      .rule(NodeKind.DECISION, CPP14Parser.RULE_conditionalExpression,
+          ctx -> ((CPP14Parser.ConditionalExpressionContext) ctx).Question() != null)
+      // && and || are also part of rvalue references and fold expressions
+      .token(NodeKind.DECISION, CPP14Parser.AndAnd, CPP14Parser.RULE_logicalAndExpression)
+      .token(NodeKind.DECISION, CPP14Parser.OrOr, CPP14Parser.RULE_logicalOrExpression)
+      .rule(NodeKind.NESTING, CPP14Parser.RULE_selectionStatement)
+      .rule(NodeKind.NESTING, CPP14Parser.RULE_iterationStatement)
+      .rule(NodeKind.NESTING, CPP14Parser.RULE_tryBlock)
+      .rule(NodeKind.NESTING, CPP14Parser.RULE_labeledStatement,
+          ctx -> ((CPP14Parser.LabeledStatementContext) ctx).Identifier() == null);
+
+  private GrammarProfiles() {
+    // utility class
+  }
+
+  /**
+   * The TypeScript grammar accepts keywords as identifiers, so many {@code if}, {@code for},
+   * {@code while} and {@code catch} statements are parsed as an expression statement calling the
+   * keyword, followed by the block of the statement.
+   */
+  private static boolean isKeywordStatement(final ParserRuleContext ctx) {
+    if (!(ctx instanceof TypeScriptParser.IdentifierExpressionContext expression)
+        || expression.singleExpression() == null) {
+      return false;
+    }
+    final int keyword = expression.identifierName().getStart().getType();
+    return keyword == TypeScriptParser.If || keyword == TypeScriptParser.For
+        || keyword == TypeScriptParser.While || keyword == TypeScriptParser.Catch;
+  }
+}
@@ -0,0 +1,69 @@
+package net.explorviz.code.analysis.collector;
+
+import java.util.Set;
+import net.explorviz.code.analysis.handler.AbstractFileDataHandler;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+
+/**
+ * Collects a metric during the walk of a parse tree. A collector only registers for the
+ * {@link NodeKind kinds} of nodes it needs and is notified by the {@link FusedCollectorListener}
+ * of the file, so any number of collectors share a single walk. A collector instance is used for
+ * one file only.
+ */
+public interface MetricCollector {
+
+  /**
+   * Returns the kinds of nodes the collector is notified about.
+   *
+   * @return the kinds of nodes
+   */
+  Set<NodeKind> getKinds();
+
+  /**
+   * Called when a node of one of the collector's kinds is entered. A node belonging to several
+   * kinds is entered once per kind.
+   *
+   * @param kind the kind of the node
+   * @param ctx  the node
+   * @param file the data of the file
+   */
+  default void enter(final NodeKind kind, final ParserRuleContext ctx,
+      final AbstractFileDataHandler file) {
+    // nothing to do by default
+  }
+
+  /**
+   * Called when a node of one of the collector's kinds is exited, in reverse order of
+   * {@link #enter(NodeKind, ParserRuleContext, AbstractFileDataHandler)}.
+   *
+   * @param kind the kind of the node
+   * @param ctx  the node
+   * @param file the data of the file
+   */
+  default void exit(final NodeKind kind, final ParserRuleContext ctx,
+      final AbstractFileDataHandler file) {
+    // nothing to do by default
+  }
+
+  /**
+   * Called for a token of one of the collector's kinds, e.g. a boolean operator.
+   *
+   * @param kind  the kind of the token
+   * @param token the token
+   * @param file  the data of the file
+   */
+  default void visitToken(final NodeKind kind, final Token token,
+      final AbstractFileDataHandler file) {
+    // nothing to do by default
+  }
+
+  /**
+   * Called after the walk, e.g. to add file level metrics.
+   *
+   * @param file the data of the file
+   */
+  default void finish(final AbstractFileDataHandler file) {
+    // nothing to do by default
+  }
+}
@@ -0,0 +1,74 @@
+package net.explorviz.code.analysis.collector;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The known {@link MetricCollector collectors} by name and the selection of collectors for an
+ * analysis.
+ */
+public final class MetricCollectors {
+
+  public static final String CYCLOMATIC_COMPLEXITY = "cyclomatic-complexity";
+  public static final String NESTING_DEPTH = "nesting-depth";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MetricCollectors.class);
+  private static final Map<String, Supplier<MetricCollector>> COLLECTORS = new LinkedHashMap<>();
+
+  static {
+    COLLECTORS.put(CYCLOMATIC_COMPLEXITY, CyclomaticComplexityCollector::new);
+    COLLECTORS.put(NESTING_DEPTH, NestingDepthCollector::new);
+  }
+
+  private MetricCollectors() {
+    // utility class
+  }
+
+  /**
+   * Selects collectors by a comma separated list of names. Without names all collectors are
+   * selected, unknown names are ignored.
+   *
+   * @param names the comma separated names
+   * @return the sorted names of the selected collectors
+   */
+  public static Set<String> select(final Optional<String> names) {
+    if (names.isEmpty() || names.get().isBlank()) {
+      return new TreeSet<>(COLLECTORS.keySet());
+    }
+    final Set<String> selection = new TreeSet<>();
+    for (final String name : names.get().split(",")) {
+      final String trimmed = name.trim();
+      if (COLLECTORS.containsKey(trimmed)) {
+        selection.add(trimmed);
+      } else if (!trimmed.isEmpty()) {
+        LOGGER.atWarn().addArgument(trimmed).log("Unknown metric collector: {}");
+      }
+    }
+    return selection;
+  }
+
+  /**
+   * Creates new instances of the given collectors, to be used for a single file.
+   *
+   * @param names the names of the collectors
+   * @return the collectors
+   */
+  public static List<MetricCollector> create(final Set<String> names) {
+    final List<MetricCollector> collectors = new ArrayList<>(names.size());
+    for (final String name : names) {
+      final Supplier<MetricCollector> collector = COLLECTORS.get(name);
+      if (collector != null) {
+        collectors.add(collector.get());
+      }
+    }
+    return collectors;
+  }
+}
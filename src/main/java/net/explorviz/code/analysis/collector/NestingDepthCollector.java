@@ -0,0 +1,53 @@
+package net.explorviz.code.analysis.collector;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.Set;
+import net.explorviz.code.analysis.handler.AbstractFileDataHandler;
+import net.explorviz.code.analysis.handler.MethodDataHandler;
+import net.explorviz.code.analysis.listener.NestedBlockDepthListener;
+import org.antlr.v4.runtime.ParserRuleContext;
+
+/**
+ * Calculates the deepest nesting of statements in every function. Like for Java, the body of the
+ * function is the first level. Nested functions start at the first level again.
+ */
+public class NestingDepthCollector implements MetricCollector {
+
+  private final Deque<int[]> functions = new ArrayDeque<>();
+
+  @Override
+  public Set<NodeKind> getKinds() {
+    return EnumSet.of(NodeKind.FUNCTION, NodeKind.NESTING);
+  }
+
+  @Override
+  public void enter(final NodeKind kind, final ParserRuleContext ctx,
+      final AbstractFileDataHandler file) {
+    if (kind == NodeKind.FUNCTION) {
+      // current and maximum depth
+      functions.push(new int[] {1, 1});
+    } else if (!functions.isEmpty()) {
+      final int[] depth = functions.peek();
+      depth[0]++;
+      depth[1] = Math.max(depth[1], depth[0]);
+    }
+  }
+
+  @Override
+  public void exit(final NodeKind kind, final ParserRuleContext ctx,
+      final AbstractFileDataHandler file) {
+    if (kind != NodeKind.FUNCTION) {
+      if (!functions.isEmpty()) {
+        functions.peek()[0]--;
+      }
+      return;
+    }
+    final int maxDepth = functions.pop()[1];
+    final MethodDataHandler function = file.getFunction(ctx);
+    if (function != null) {
+      function.addMetric(NestedBlockDepthListener.NESTED_BLOCK_DEPTH, String.valueOf(maxDepth));
+    }
+  }
+}
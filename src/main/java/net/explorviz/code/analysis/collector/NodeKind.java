@@ -0,0 +1,23 @@
+package net.explorviz.code.analysis.collector;
+
+/**
+ * The kinds of parse tree nodes a {@link MetricCollector} can register for. Which rules and tokens
+ * of a grammar belong to a kind is described by its {@link GrammarProfile}.
+ */
+public enum NodeKind {
+
+  /**
+   * A function, method, constructor or lambda with a body of its own.
+   */
+  FUNCTION,
+
+  /**
+   * A branch of the control flow, e.g. an if, a loop, a case, a catch or a boolean operator.
+   */
+  DECISION,
+
+  /**
+   * A statement nesting the statements of its body one level deeper.
+   */
+  NESTING
+}
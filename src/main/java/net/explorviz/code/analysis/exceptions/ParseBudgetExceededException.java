@@ -0,0 +1,29 @@
+package net.explorviz.code.analysis.exceptions;
+
+import java.io.Serial;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+
+/**
+ * Exception cancelling the analysis of a file that exceeds its parse budget.
+ */
+public class ParseBudgetExceededException extends ParseCancellationException {
+
+  @Serial
+  private static final long serialVersionUID = 1_340_672_117;
+
+  private final String reason;
+
+  public ParseBudgetExceededException(final String reason, final String message) {
+    super(message);
+    this.reason = reason;
+  }
+
+  /**
+   * Returns the limit that was exceeded, e.g. {@code maxTokens}.
+   *
+   * @return the name of the limit
+   */
+  public String getReason() {
+    return reason;
+  }
+}
@@ -25,24 +25,6 @@ public final class DirectoryFinder {
   private DirectoryFinder() {
   }
 
-  /**
-   * Searches and return the relative path to the directory matching the search string.
-   *
-   * @param paths a list of search strings for the paths.
-   * @param root  the path the return should be relative to
-   * @return the directories matching the search strings
-   * @throws NotFoundException thrown if no directory matches the given search string
-   */
-  public static List<String> getRelativeDirectory(final List<String> paths,
-      final String root)
-      throws NotFoundException {
-    final List<String> relativePaths = new ArrayList<>();
-    for (final String path : getDirectories(root, paths)) {
-      relativePaths.add(path.replace(root, ""));
-    }
-    return relativePaths;
-  }
-
   /**
    * Searches and return the absolute path to the directory matching the search string.
    *
@@ -1,8 +1,8 @@
 package net.explorviz.code.analysis.git;
 
 import net.explorviz.code.analysis.handler.AbstractFileDataHandler;
+import net.explorviz.code.analysis.service.CommitAnalysisContext;
 import net.explorviz.code.analysis.types.FileDescriptor;
-import org.eclipse.jgit.revwalk.RevCommit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -13,35 +13,19 @@ public final class GitMetricCollector {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(GitMetricCollector.class);
 
-  private static final ThreadLocal<String> AUTHOR_CACHE = ThreadLocal.withInitial(() -> "");
-
   private GitMetricCollector() {
   }
 
 
   /**
-   * Resets the author, call once per commit before calling
-   * {@link GitMetricCollector#addCommitGitMetrics(AbstractFileDataHandler, RevCommit)}.
-   */
-  public static void resetAuthor() {
-    AUTHOR_CACHE.remove();
-  }
-
-  /**
-   * Adds git metrics that are valid for all files within a commit. For performance reasons, some data gets cached.
-   * before calling this method for a commit, call {@link GitMetricCollector#resetAuthor()} once for every new commit.
+   * Adds git metrics that are valid for all files within a commit.
    *
    * @param fileDataHandler the fileDataHandler to add the metric to
-   * @param commit          the current commit
+   * @param context         the context of the current commit
    */
   public static void addCommitGitMetrics(final AbstractFileDataHandler fileDataHandler,
-      final RevCommit commit) {
-    String author = AUTHOR_CACHE.get();
-    if (author.isBlank()) {
-      author = commit.getAuthorIdent().getEmailAddress();
-      AUTHOR_CACHE.set(author);
-    }
-    fileDataHandler.setAuthor(author);
+      final CommitAnalysisContext context) {
+    fileDataHandler.setAuthor(context.author());
   }
 
 
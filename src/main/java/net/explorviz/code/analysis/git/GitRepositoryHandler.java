@@ -18,6 +18,7 @@ import net.explorviz.code.analysis.FileIO;
 import net.explorviz.code.analysis.exceptions.NotFoundException;
 import net.explorviz.code.analysis.exceptions.PropertyNotDefinedException;
 import net.explorviz.code.analysis.service.AnalysisConfig;
+import net.explorviz.code.analysis.types.BlobContent;
 import net.explorviz.code.analysis.types.FileDescriptor;
 import net.explorviz.code.analysis.types.RemoteRepositoryObject;
 import net.explorviz.code.analysis.types.Triple;
@@ -31,20 +32,20 @@ import org.eclipse.jgit.diff.DiffEntry;
 import org.eclipse.jgit.diff.DiffFormatter;
 import org.eclipse.jgit.diff.Edit;
 import org.eclipse.jgit.diff.EditList;
+import org.eclipse.jgit.errors.LargeObjectException;
 import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.ObjectLoader;
 import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.patch.FileHeader;
 import org.eclipse.jgit.revwalk.RevCommit;
-import org.eclipse.jgit.revwalk.RevTree;
 import org.eclipse.jgit.transport.CredentialsProvider;
 import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
-import org.eclipse.jgit.treewalk.AbstractTreeIterator;
-import org.eclipse.jgit.treewalk.CanonicalTreeParser;
 import org.eclipse.jgit.treewalk.TreeWalk;
-import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
 import org.eclipse.jgit.treewalk.filter.TreeFilter;
 import org.eclipse.jgit.util.io.DisabledOutputStream;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
@@ -66,17 +67,21 @@ public class GitRepositoryHandler { // NOPMD
 
   private Git git;
 
+  private boolean checkoutFree;
+  private PathRestriction pathRestriction;
+
   public static String getCurrentRepositoryPath() {
     return repositoryPath;
   }
 
-  private static AbstractTreeIterator prepareTreeParser(final Repository repository,
-      final RevTree tree) throws IOException {
-    final CanonicalTreeParser treeParser = new CanonicalTreeParser();
-    try (ObjectReader reader = repository.newObjectReader()) {
-      treeParser.reset(reader, tree.getId());
-    }
-    return treeParser;
+  /**
+   * Returns true if the currently opened repository is analyzed without a working tree, either
+   * because it was requested or because the repository is bare.
+   *
+   * @return if checkouts must be avoided
+   */
+  public boolean isCheckoutFree() {
+    return checkoutFree;
   }
 
   /**
@@ -138,6 +143,44 @@ public class GitRepositoryHandler { // NOPMD
 
   }
 
+  /**
+   * Reads a blob directly from the object database. The size is taken from the object header, so
+   * neither a checkout nor a working tree is required. The returned bytes must not be modified.
+   * Callers should check {@link #getBlobSize(ObjectId, Repository)} first, the whole content is
+   * held in memory.
+   *
+   * @param blobId The {@link ObjectId}.
+   * @param repo   The {@link Repository}.
+   * @return The content of the blob.
+   * @throws IOException          Thrown if JGit cannot open the Git repo or the blob.
+   * @throws LargeObjectException Thrown if the blob does not fit into a byte array.
+   */
+  public static BlobContent getBlob(final ObjectId blobId, final Repository repo)
+      throws IOException {
+    try (ObjectReader objectReader = repo.newObjectReader()) {
+      final ObjectLoader objectLoader = objectReader.open(blobId, Constants.OBJ_BLOB);
+      // the content is only read, so the loader's buffer can be used without a copy; blobs too
+      // large for JGit's cache are copied from the stream unless they exceed the array limit
+      return new BlobContent(blobId, objectLoader.getSize(),
+          objectLoader.getCachedBytes(Integer.MAX_VALUE));
+    }
+  }
+
+  /**
+   * Returns the size of a blob from its object header, without reading the content.
+   *
+   * @param blobId The {@link ObjectId}.
+   * @param repo   The {@link Repository}.
+   * @return The size of the blob in bytes.
+   * @throws IOException Thrown if JGit cannot open the Git repo or the blob.
+   */
+  public static long getBlobSize(final ObjectId blobId, final Repository repo)
+      throws IOException {
+    try (ObjectReader objectReader = repo.newObjectReader()) {
+      return objectReader.getObjectSize(blobId, Constants.OBJ_BLOB);
+    }
+  }
+
   /**
    * Takes a relative path and converts it to an absolute path on host system.
    *
@@ -216,6 +259,11 @@ public class GitRepositoryHandler { // NOPMD
             .log("Performing shallow clone with depth: {}");
       }
 
+      if (remoteRepositoryObject.isNoCheckout()) {
+        cloneCommand.setNoCheckout(true);
+        LOGGER.atInfo().log("Cloning without checkout, files are read from the object database");
+      }
+
       this.git = cloneCommand.call();
       repositoryPath = new File(repoPath).getAbsolutePath();
       return this.git.getRepository();
@@ -252,8 +300,8 @@ public class GitRepositoryHandler { // NOPMD
    * @return returns an opened git {@link Repository}
    * @throws IOException gets thrown if JGit cannot open the Git repository.
    */
-  private Repository openGitRepository(final String repositoryPath, final String branchName)
-      throws IOException, GitAPIException {
+  private Repository openGitRepository(final String repositoryPath, final String branchName,
+      final boolean noCheckout) throws IOException, GitAPIException {
 
     final File localRepositoryDirectory = new File(repositoryPath);
 
@@ -266,7 +314,12 @@ public class GitRepositoryHandler { // NOPMD
       return null;
     }
     this.git = Git.open(localRepositoryDirectory);
-    if (!branchName.isBlank()) {
+    if (noCheckout || this.git.getRepository().isBare()) {
+      if (!branchName.isBlank() && resolveBranchRef(this.git.getRepository(), branchName) == null) {
+        LOGGER.error("The given branch name <{}> was not found", branchName);
+        throw new RefNotFoundException(branchName);
+      }
+    } else if (!branchName.isBlank()) {
       try {
         if ("true".equals(System.getenv("GITLAB_CI"))) {
           this.git.checkout().setName(branchName).setCreateBranch(true)
@@ -309,10 +362,12 @@ public class GitRepositoryHandler { // NOPMD
       LOGGER.atInfo().log("No local repository given, using remote");
       return this.downloadGitRepository(remoteRepositoryObject);
     } else if (new File(localRepositoryPath).isAbsolute()) {
-      return this.openGitRepository(localRepositoryPath, remoteRepositoryObject.getBranchName());
+      return this.openGitRepository(localRepositoryPath, remoteRepositoryObject.getBranchName(),
+          remoteRepositoryObject.isNoCheckout());
     } else {
       String absolutePath = GitRepositoryHandler.convertRelativeToAbsolutePath(localRepositoryPath);
-      return this.openGitRepository(absolutePath, remoteRepositoryObject.getBranchName());
+      return this.openGitRepository(absolutePath, remoteRepositoryObject.getBranchName(),
+          remoteRepositoryObject.isNoCheckout());
     }
   }
 
@@ -359,10 +414,62 @@ public class GitRepositoryHandler { // NOPMD
 
     final Integer depth = config.commitAnalysisLimit().isPresent() ? config.commitAnalysisLimit().get() + 1 : null;
 
-    return getGitRepository(config.repoPath().orElse(""),
-        new RemoteRepositoryObject(config.repoRemoteUrl().orElse(""),
-            repoLocalStoragePathProperty.orElse(""), credentialsProvider,
-            config.branch().orElse(""), depth));
+    final RemoteRepositoryObject remoteRepositoryObject = new RemoteRepositoryObject(
+        config.repoRemoteUrl().orElse(""), repoLocalStoragePathProperty.orElse(""),
+        credentialsProvider, config.branch().orElse(""), depth);
+    remoteRepositoryObject.setNoCheckout(config.checkoutFree());
+
+    final Repository repository = getGitRepository(config.repoPath().orElse(""),
+        remoteRepositoryObject);
+    this.checkoutFree = repository != null && (config.checkoutFree() || repository.isBare());
+    return repository;
+  }
+
+  /**
+   * Resolves the full name of the ref to analyze without relying on a checked out HEAD. Local
+   * branches are preferred over remote tracking branches of {@code origin}. If no branch name is
+   * given, the ref HEAD points to is used, falling back to {@code origin/HEAD} for clones without
+   * checkout.
+   *
+   * @param repository the current repository
+   * @param branchName the short or full name of the branch, may be blank
+   * @return the full ref name, or null if it could not be resolved
+   * @throws IOException thrown if the ref database cannot be read
+   */
+  public static String resolveBranchRef(final Repository repository, final String branchName)
+      throws IOException {
+    if (branchName.isBlank()) {
+      final Ref head = repository.exactRef(Constants.HEAD);
+      if (head != null && head.getObjectId() != null) {
+        return head.getTarget().getName();
+      }
+      final Ref remoteHead = repository.exactRef(Constants.R_REMOTES + "origin/" + Constants.HEAD);
+      return remoteHead == null || remoteHead.getObjectId() == null ? null
+          : remoteHead.getTarget().getName();
+    }
+    for (final String candidate : List.of(Constants.R_HEADS + branchName,
+        Constants.R_REMOTES + "origin/" + branchName, branchName)) {
+      final Ref ref = repository.exactRef(candidate);
+      if (ref != null && ref.getObjectId() != null) {
+        return ref.getName();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the short branch name of a full ref name, stripping {@code refs/heads/} as well as
+   * {@code refs/remotes/origin/}.
+   *
+   * @param fullBranch the full ref name
+   * @return the short branch name
+   */
+  public static String getShortBranchName(final String fullBranch) {
+    final String remotePrefix = Constants.R_REMOTES + "origin/";
+    if (fullBranch.startsWith(remotePrefix)) {
+      return fullBranch.substring(remotePrefix.length());
+    }
+    return Repository.shortenRefName(fullBranch);
   }
 
   /**
@@ -382,10 +489,35 @@ public class GitRepositoryHandler { // NOPMD
   public Triple<List<FileDescriptor>, List<FileDescriptor>, List<FileDescriptor>> listDiff(
       final Repository repository, final Optional<RevCommit> oldCommit, final RevCommit newCommit,
       final String pathRestrictions) throws GitAPIException, IOException, NotFoundException {
+    return listDiff(repository, oldCommit, newCommit, pathRestrictions, TreeFilter.ALL);
+  }
+
+  /**
+   * Returns the changed filenames between two given commits, only considering the files passing
+   * the given filter. The filter is applied during the tree walk, so no diff is computed for the
+   * other files.
+   *
+   * @param repository       the current repository
+   * @param oldCommit        the old commit, as a baseline for the difference
+   *                         calculation
+   * @param newCommit        the new commit, gets checked against the old commit
+   * @param pathRestrictions comma sep. list of search strings specifying the
+   *                         folders to analyze
+   * @param fileFilter       the filter for the files, e.g. a {@link GlobTreeFilter}
+   * @return triple of FileDescriptor specifying modified, delete and added files
+   * @throws GitAPIException   thrown if git encounters an exception
+   * @throws IOException       thrown if files are not available
+   * @throws NotFoundException thrown if the restrictionPath was not found
+   */
+  public Triple<List<FileDescriptor>, List<FileDescriptor>, List<FileDescriptor>> listDiff(
+      final Repository repository, final Optional<RevCommit> oldCommit, final RevCommit newCommit,
+      final String pathRestrictions, final TreeFilter fileFilter)
+      throws GitAPIException, IOException, NotFoundException {
     if (pathRestrictions == null || pathRestrictions.isEmpty()) {
-      return listDiff(repository, oldCommit, newCommit, new ArrayList<>());
+      return listDiff(repository, oldCommit, newCommit, new ArrayList<>(), fileFilter);
     }
-    return listDiff(repository, oldCommit, newCommit, Arrays.asList(pathRestrictions.split(",")));
+    return listDiff(repository, oldCommit, newCommit, Arrays.asList(pathRestrictions.split(",")),
+        fileFilter);
   }
 
   /**
@@ -403,32 +535,40 @@ public class GitRepositoryHandler { // NOPMD
       final Repository repository, // NOPMD
       final Optional<RevCommit> oldCommit, final RevCommit newCommit,
       final List<String> pathRestrictions) throws GitAPIException, IOException, NotFoundException {
+    return listDiff(repository, oldCommit, newCommit, pathRestrictions, TreeFilter.ALL);
+  }
+
+  private Triple<List<FileDescriptor>, List<FileDescriptor>, List<FileDescriptor>> listDiff(
+      final Repository repository, // NOPMD
+      final Optional<RevCommit> oldCommit, final RevCommit newCommit,
+      final List<String> pathRestrictions, final TreeFilter fileFilter)
+      throws IOException, NotFoundException {
     final List<FileDescriptor> modifiedObjectIdList = new ArrayList<>();
     final List<FileDescriptor> deletedObjectIdList = new ArrayList<>();
     List<FileDescriptor> addedObjectIdList = new ArrayList<>();
 
-    final TreeFilter filter = getSourceFileTreeFilter(pathRestrictions);
+    final TreeFilter filter = AndTreeFilter.create(
+        getSourceFileTreeFilter(repository, newCommit, pathRestrictions), fileFilter);
 
     if (oldCommit.isEmpty()) {
       addedObjectIdList = listFilesInCommit(repository, newCommit, filter);
     } else {
-      final List<DiffEntry> diffs = this.git.diff()
-          .setOldTree(prepareTreeParser(repository, oldCommit.get().getTree()))
-          .setNewTree(prepareTreeParser(repository, newCommit.getTree())).setPathFilter(filter)
-          .call();
-
-      for (final DiffEntry diff : diffs) {
-        if (diff.getChangeType().equals(DiffEntry.ChangeType.DELETE)) {
-          putInList2(repository, diff, deletedObjectIdList);
-          continue;
-        } else if (diff.getChangeType().equals(DiffEntry.ChangeType.RENAME)) {
-          putInList(repository, diff, addedObjectIdList);
-        } else if (diff.getChangeType().equals(DiffEntry.ChangeType.COPY)) {
-          putInList(repository, diff, addedObjectIdList);
-        } else if (diff.getChangeType().equals(DiffEntry.ChangeType.MODIFY)) {
-          putInList(repository, diff, modifiedObjectIdList);
-        } else if (diff.getChangeType().equals(DiffEntry.ChangeType.ADD)) {
-          putInList(repository, diff, addedObjectIdList);
+      // a single diff session per commit, the reader and the formatter's content source are
+      // shared by the tree scan and all entries
+      try (ObjectReader reader = repository.newObjectReader();
+          DiffFormatter diffFormatter = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
+        diffFormatter.setReader(reader, repository.getConfig());
+        diffFormatter.setPathFilter(filter);
+        final List<DiffEntry> diffs = diffFormatter.scan(oldCommit.get().getTree(),
+            newCommit.getTree());
+
+        for (final DiffEntry diff : diffs) {
+          switch (diff.getChangeType()) {
+            case DELETE -> putDeletedInList(diff, deletedObjectIdList);
+            case MODIFY -> putInList(diffFormatter, diff, modifiedObjectIdList);
+            case ADD, RENAME, COPY -> putInList(diffFormatter, diff, addedObjectIdList);
+            default -> LOGGER.atTrace().addArgument(diff).log("Ignoring diff entry {}");
+          }
         }
       }
     }
@@ -436,36 +576,26 @@ public class GitRepositoryHandler { // NOPMD
         modifiedObjectIdList, deletedObjectIdList, addedObjectIdList);
   }
 
-  private void putInList(final Repository repository, final DiffEntry diff,
+  private void putInList(final DiffFormatter diffFormatter, final DiffEntry diff,
       final List<FileDescriptor> objectIdList)
       throws IOException {
-    Triple<Integer, Integer, Integer> mods;
-    try (DiffFormatter diffFormatter = new DiffFormatter(// NOPMD
-        DisabledOutputStream.INSTANCE)) {
-      diffFormatter.setRepository(repository);
-      final FileHeader fileHeader = diffFormatter.toFileHeader(diff);
-      mods = countModifications(fileHeader.toEditList()); // TODO: don't need to do that when deleted
-    }
+    final FileHeader fileHeader = diffFormatter.toFileHeader(diff);
+    // binary files carry no edit list, the formatter detects them without diffing the content
+    final Triple<Integer, Integer, Integer> mods =
+        fileHeader.getPatchType() == FileHeader.PatchType.BINARY ? null
+            : countModifications(fileHeader.toEditList());
     final String[] parts = diff.getNewPath().split("/");
     objectIdList.add(
         new FileDescriptor(diff.getNewId().toObjectId(), parts[parts.length - 1], diff.getNewPath(),
             mods));
   }
 
-  private void putInList2(final Repository repository, final DiffEntry diff,
-      final List<FileDescriptor> objectIdList)
-      throws IOException {
-    Triple<Integer, Integer, Integer> mods;
-    try (DiffFormatter diffFormatter = new DiffFormatter(// NOPMD
-        DisabledOutputStream.INSTANCE)) {
-      diffFormatter.setRepository(repository);
-      final FileHeader fileHeader = diffFormatter.toFileHeader(diff);
-      mods = countModifications(fileHeader.toEditList()); // TODO: don't need to do that when deleted
-    }
+  private void putDeletedInList(final DiffEntry diff, final List<FileDescriptor> objectIdList) {
+    // the modifications of deleted files are never reported, so no edit list is needed
     final String[] parts = diff.getOldPath().split("/");
     objectIdList.add(
-        new FileDescriptor(diff.getOldId().toObjectId(), parts[parts.length - 1], diff.getOldPath(),
-            mods));
+        new FileDescriptor(diff.getOldId().toObjectId(), parts[parts.length - 1],
+            diff.getOldPath()));
   }
 
   private Triple<Integer, Integer, Integer> countModifications(final EditList editList) {
@@ -502,7 +632,8 @@ public class GitRepositoryHandler { // NOPMD
   public List<FileDescriptor> listFilesInCommit(final Repository repository, // NOPMD
       final RevCommit commit, final List<String> pathRestrictions)
       throws IOException, NotFoundException {
-    return listFilesInCommit(repository, commit, getSourceFileTreeFilter(pathRestrictions));
+    return listFilesInCommit(repository, commit,
+        getSourceFileTreeFilter(repository, commit, pathRestrictions));
   }
 
   /**
@@ -522,7 +653,7 @@ public class GitRepositoryHandler { // NOPMD
   public List<FileDescriptor> listFilesInCommit(final Repository repository, // NOPMD
       final RevCommit commit, final String pathRestrictions) throws IOException, NotFoundException {
     return listFilesInCommit(repository, commit,
-        getSourceFileTreeFilter(Arrays.asList(pathRestrictions.split(","))));
+        getSourceFileTreeFilter(repository, commit, Arrays.asList(pathRestrictions.split(","))));
   }
 
   private List<FileDescriptor> listFilesInCommit(final Repository repository, // NOPMD
@@ -542,27 +673,23 @@ public class GitRepositoryHandler { // NOPMD
 
   }
 
-  private TreeFilter getSourceFileTreeFilter(final List<String> pathRestrictions)
-      throws NotFoundException {
-    if (pathRestrictions.isEmpty() || pathRestrictions.size() == 1 && pathRestrictions.get(0)
-        .isBlank()) {
-      LOGGER.atInfo().log("No path restrictions provided. Analyzing all files.");
-      return TreeFilter.ALL;
-    } else {
-      LOGGER.atInfo().addArgument(pathRestrictions).log("Applying path restrictions: {}");
-      final List<String> pathList = DirectoryFinder.getRelativeDirectory(pathRestrictions,
-          getCurrentRepositoryPath());
-      final List<String> newPathList = new ArrayList<>();
-      for (final String path : pathList) {
-        newPathList.add(path.replaceFirst("^\\\\|/", "").replaceAll("\\\\", "/"));
-      }
-
-      if (newPathList.isEmpty()) {
-        return TreeFilter.ALL;
+  private TreeFilter getSourceFileTreeFilter(final Repository repository, final RevCommit commit,
+      final List<String> pathRestrictions) throws NotFoundException {
+    if (this.pathRestriction == null
+        || !this.pathRestriction.getSearchPaths().equals(pathRestrictions)) {
+      this.pathRestriction = new PathRestriction(pathRestrictions);
+      if (this.pathRestriction.isUnrestricted()) {
+        LOGGER.atInfo().log("No path restrictions provided. Analyzing all files.");
       } else {
-        return PathFilterGroup.createFromStrings(newPathList);
+        LOGGER.atInfo().addArgument(pathRestrictions).log("Applying path restrictions: {}");
       }
     }
+    try {
+      // resolved against the commit's tree, so the working tree is never walked
+      return this.pathRestriction.getTreeFilter(repository, commit.getTree());
+    } catch (IOException e) {
+      throw new NotFoundException("Couldn't find path");
+    }
   }
 
   public boolean isUnreachableCommit(final Optional<String> commitId, final String branch) {
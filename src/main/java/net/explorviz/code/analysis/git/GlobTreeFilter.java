@@ -0,0 +1,306 @@
+package net.explorviz.code.analysis.git;
+
+import java.nio.file.FileSystems;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tree filter for the include and exclude expressions of an analysis. A file is included if it
+ * matches one of the include expressions (or none is given) and none of the exclude expressions.
+ * <br>
+ * The expressions are split into path segments and merged into a trie, so matching a path takes
+ * time proportional to its length instead of the number of expressions. Because the trie is
+ * matched segment by segment, whole subtrees are skipped during the tree walk if no file below
+ * them can be included, or if an exclude expression like {@code vendor/**} matches all of them.
+ * Expressions that can not be split into segments (regular expressions and {@code **} within a
+ * segment) are matched against the whole path as before.
+ */
+public final class GlobTreeFilter extends TreeFilter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(GlobTreeFilter.class);
+
+  private static final String GLOB_PREFIX = "glob:";
+  private static final String REGEX_PREFIX = "regex:";
+  private static final String ANY_DEPTH = "**";
+
+  private final PatternSet includes;
+  private final PatternSet excludes;
+
+  private GlobTreeFilter(final PatternSet includes, final PatternSet excludes) {
+    super();
+    this.includes = includes;
+    this.excludes = excludes;
+  }
+
+  /**
+   * Creates the filter for the given comma separated expressions. Expressions without a
+   * {@code glob:} or {@code regex:} prefix are used as glob, malformed expressions are ignored.
+   *
+   * @param includeExpressions the expressions a file must match one of to be analyzed
+   * @param excludeExpressions the expressions a file must not match to be analyzed
+   * @return the filter, {@link TreeFilter#ALL} if no expression is given
+   */
+  public static TreeFilter create(final Optional<String> includeExpressions,
+      final Optional<String> excludeExpressions) {
+    final PatternSet includes = PatternSet.compile(includeExpressions);
+    final PatternSet excludes = PatternSet.compile(excludeExpressions);
+    if (includes.isEmpty() && excludes.isEmpty()) {
+      return TreeFilter.ALL;
+    }
+    return new GlobTreeFilter(includes, excludes);
+  }
+
+  @Override
+  public boolean include(final TreeWalk walker) {
+    final String path = walker.getPathString();
+    final String[] segments = path.split("/");
+    if (walker.isSubtree()) {
+      // enter the subtree, unless nothing below it can be analyzed
+      if (!includes.isEmpty() && !includes.canMatchBelow(segments)) {
+        LOGGER.atTrace().addArgument(path).log("Directory {} can not match any include pattern.");
+        return false;
+      }
+      if (excludes.matchesAllBelow(segments)) {
+        LOGGER.atTrace().addArgument(path).log("Directory {} matches an exclude pattern.");
+        return false;
+      }
+      return true;
+    }
+    if (!includes.isEmpty() && !includes.matches(path, segments)) {
+      LOGGER.atDebug().addArgument(path)
+          .log("File {} does not match any restrict pattern. Skipping.");
+      return false;
+    }
+    if (excludes.matches(path, segments)) {
+      LOGGER.atDebug().addArgument(path).log("File {} matches an exclude pattern. Skipping.");
+      return false;
+    }
+    return true;
+  }
+
+  @Override
+  public boolean shouldBeRecursive() {
+    return true;
+  }
+
+  @Override
+  public TreeFilter clone() { // NOPMD
+    // immutable, can be shared between walks
+    return this;
+  }
+
+  @Override
+  public String toString() {
+    return "GLOB(include: " + includes + ", exclude: " + excludes + ")";
+  }
+
+  /**
+   * Node of the segment trie. A node reached by a {@code **} segment loops on itself, as such a
+   * segment matches one or more path segments.
+   */
+  private static final class Node {
+
+    private final Map<String, Node> literals = new HashMap<>();
+    private final Map<String, Node> wildcards = new HashMap<>();
+    private final Map<String, PathMatcher> wildcardMatchers = new HashMap<>();
+    private Node anyDepth;
+    private boolean loops;
+    private boolean terminal;
+
+    private Node child(final String segment) {
+      if (ANY_DEPTH.equals(segment)) {
+        if (anyDepth == null) {
+          anyDepth = new Node();
+          anyDepth.loops = true;
+        }
+        return anyDepth;
+      }
+      if (isWildcard(segment)) {
+        wildcardMatchers.computeIfAbsent(segment,
+            key -> FileSystems.getDefault().getPathMatcher(GLOB_PREFIX + key));
+        return wildcards.computeIfAbsent(segment, key -> new Node());
+      }
+      return literals.computeIfAbsent(segment, key -> new Node());
+    }
+
+    private void step(final String segment, final List<Node> next) {
+      if (loops) {
+        addOnce(next, this);
+      }
+      final Node literal = literals.get(segment);
+      if (literal != null) {
+        addOnce(next, literal);
+      }
+      if (!wildcards.isEmpty()) {
+        for (final Map.Entry<String, Node> wildcard : wildcards.entrySet()) {
+          if (wildcardMatchers.get(wildcard.getKey()).matches(Paths.get(segment))) {
+            addOnce(next, wildcard.getValue());
+          }
+        }
+      }
+      if (anyDepth != null) {
+        addOnce(next, anyDepth);
+      }
+    }
+
+    private static void addOnce(final List<Node> nodes, final Node node) {
+      for (final Node existing : nodes) {
+        if (existing == node) { // NOPMD
+          return;
+        }
+      }
+      nodes.add(node);
+    }
+  }
+
+  /**
+   * Compiled set of expressions.
+   */
+  private static final class PatternSet {
+
+    private final Node root = new Node();
+    private final List<PathMatcher> fallbackMatchers = new ArrayList<>();
+    private final List<String> expressions = new ArrayList<>();
+
+    private static PatternSet compile(final Optional<String> patternsString) {
+      final PatternSet patternSet = new PatternSet();
+      if (patternsString.isEmpty() || patternsString.get().isBlank()) {
+        return patternSet;
+      }
+      for (final String glob : patternsString.get().split(",")) {
+        if (!glob.trim().isEmpty()) {
+          try {
+            patternSet.add(glob.trim());
+          } catch (final IllegalArgumentException e) { // NOPMD
+            LOGGER.atError().addArgument(glob).log("Malformed glob/regex expression: {}");
+          }
+        }
+      }
+      return patternSet;
+    }
+
+    private void add(final String expression) {
+      final String pattern = expression.startsWith(GLOB_PREFIX)
+          ? expression.substring(GLOB_PREFIX.length()) : expression;
+      if (expression.startsWith(REGEX_PREFIX) || !isSegmentPattern(pattern)) {
+        fallbackMatchers.add(FileSystems.getDefault().getPathMatcher(
+            expression.startsWith(REGEX_PREFIX) ? expression : GLOB_PREFIX + pattern));
+      } else {
+        // validate before changing the trie, so a malformed expression leaves no partial path
+        FileSystems.getDefault().getPathMatcher(GLOB_PREFIX + pattern);
+        Node node = root;
+        for (final String segment : pattern.split("/")) {
+          node = node.child(segment);
+        }
+        node.terminal = true;
+      }
+      expressions.add(expression);
+    }
+
+    /**
+     * Patterns go into the trie if every segment is either {@code **} or free of {@code **} and
+     * no brace group spans several segments.
+     */
+    private static boolean isSegmentPattern(final String pattern) {
+      if (pattern.isEmpty() || pattern.startsWith("/") || pattern.endsWith("/")
+          || pattern.contains("//")) {
+        return false;
+      }
+      for (final String segment : pattern.split("/")) {
+        if (!ANY_DEPTH.equals(segment) && segment.contains(ANY_DEPTH)
+            || segment.indexOf('{') != segment.lastIndexOf('{')
+            || segment.indexOf('{') >= 0 != segment.indexOf('}') >= 0
+            || segment.indexOf('[') >= 0 != segment.indexOf(']') >= 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private boolean isEmpty() {
+      return expressions.isEmpty();
+    }
+
+    private List<Node> walk(final String[] segments) {
+      List<Node> states = new ArrayList<>();
+      states.add(root);
+      for (final String segment : segments) {
+        final List<Node> next = new ArrayList<>();
+        for (final Node state : states) {
+          state.step(segment, next);
+        }
+        if (next.isEmpty()) {
+          return next;
+        }
+        states = next;
+      }
+      return states;
+    }
+
+    private boolean matches(final String path, final String[] segments) {
+      for (final Node state : walk(segments)) {
+        if (state.terminal) {
+          return true;
+        }
+      }
+      return matchesFallback(path);
+    }
+
+    private boolean matchesFallback(final String path) {
+      if (!fallbackMatchers.isEmpty()) {
+        final java.nio.file.Path filePath = Paths.get(path);
+        for (final PathMatcher matcher : fallbackMatchers) {
+          if (matcher.matches(filePath)) {
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+
+    private boolean canMatchBelow(final String[] directorySegments) {
+      return !fallbackMatchers.isEmpty() || !walk(directorySegments).isEmpty();
+    }
+
+    private boolean matchesAllBelow(final String[] directorySegments) {
+      for (final Node state : walk(directorySegments)) {
+        // a trailing ** matches every path with at least one more segment
+        if (state.anyDepth != null && state.anyDepth.terminal) {
+          return true;
+        }
+        if (state.loops && state.terminal) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public String toString() {
+      return expressions.toString();
+    }
+  }
+
+  private static boolean isWildcard(final String segment) {
+    for (int i = 0; i < segment.length(); i++) {
+      switch (segment.charAt(i)) {
+        case '*', '?', '[', '{', '\\' -> {
+          return true;
+        }
+        default -> {
+          // literal character
+        }
+      }
+    }
+    return false;
+  }
+}
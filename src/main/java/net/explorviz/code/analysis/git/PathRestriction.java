@@ -0,0 +1,167 @@
+package net.explorviz.code.analysis.git;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Path restrictions of an analysis, resolved against the git trees of the analyzed commits. <br>
+ * The search strings are compiled once. Resolved directories are remembered per subtree id, so
+ * for the next commit only the subtrees that changed are read again, and the tree filter is only
+ * rebuilt if the set of matching directories changed.
+ */
+public final class PathRestriction {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PathRestriction.class);
+
+  // bounds the memory of long histories, the cache is simply started over when exceeded
+  private static final int MAX_CACHED_SUBTREES = 65_536;
+
+  private final List<String> searchPaths;
+  private final List<PathMatcher> matchers = new ArrayList<>();
+
+  // matching directories below a subtree, keyed by the subtree's path and id
+  private final Map<SubtreeKey, List<String>> resolvedSubtrees = new HashMap<>();
+  private ObjectId lastTreeId;
+  private Set<String> lastDirectories;
+  private TreeFilter lastFilter;
+
+  private record SubtreeKey(String path, ObjectId treeId) {
+  }
+
+  /**
+   * Compiles the given search strings. Strings without a {@code glob:} or {@code regex:} prefix
+   * are used as glob.
+   *
+   * @param searchPaths the search strings of the directories to analyze, blank entries are ignored
+   */
+  public PathRestriction(final List<String> searchPaths) {
+    this.searchPaths = List.copyOf(searchPaths);
+    for (final String searchPath : searchPaths) {
+      if (searchPath.isBlank()) {
+        continue;
+      }
+      String glob = searchPath;
+      if (!glob.startsWith("glob:") && !glob.startsWith("regex:")) {
+        glob = "glob:" + glob;
+      }
+      matchers.add(FileSystems.getDefault().getPathMatcher(glob));
+    }
+  }
+
+  /**
+   * Returns the search strings this restriction was compiled from.
+   *
+   * @return the search strings
+   */
+  public List<String> getSearchPaths() {
+    return searchPaths;
+  }
+
+  /**
+   * Returns true if no search string is given, so all files are analyzed.
+   *
+   * @return if the restriction does not restrict anything
+   */
+  public boolean isUnrestricted() {
+    return matchers.isEmpty();
+  }
+
+  /**
+   * Returns the filter for the files below the matching directories of the given tree. If no
+   * directory matches, all files pass.
+   *
+   * @param repository the repository containing the tree
+   * @param tree       the root tree of the analyzed commit
+   * @return the filter for the files to analyze
+   * @throws IOException if the tree could not be read
+   */
+  public synchronized TreeFilter getTreeFilter(final Repository repository, final RevTree tree)
+      throws IOException {
+    if (isUnrestricted()) {
+      return TreeFilter.ALL;
+    }
+    if (tree.getId().equals(lastTreeId)) {
+      return lastFilter;
+    }
+    final Set<String> directories = new TreeSet<>(resolveDirectories(repository, tree));
+    if (!directories.equals(lastDirectories)) {
+      LOGGER.atDebug().addArgument(directories).log("Restricting analysis to directories {}");
+      lastFilter = directories.isEmpty() ? TreeFilter.ALL
+          : PathFilterGroup.createFromStrings(directories);
+      lastDirectories = directories;
+    }
+    lastTreeId = tree.getId().copy();
+    return lastFilter;
+  }
+
+  /**
+   * Returns all directories of the given tree matching one of the search strings.
+   *
+   * @param repository the repository containing the tree
+   * @param tree       the root tree to search
+   * @return the matching directories, relative to the repository's root
+   * @throws IOException if the tree could not be read
+   */
+  public synchronized List<String> resolveDirectories(final Repository repository,
+      final RevTree tree) throws IOException {
+    if (resolvedSubtrees.size() > MAX_CACHED_SUBTREES) {
+      resolvedSubtrees.clear();
+    }
+    try (ObjectReader reader = repository.newObjectReader()) {
+      return new ArrayList<>(resolveSubtree(reader, "", tree.getId()));
+    }
+  }
+
+  private List<String> resolveSubtree(final ObjectReader reader, final String path,
+      final ObjectId treeId) throws IOException {
+    final SubtreeKey key = new SubtreeKey(path, treeId.copy());
+    List<String> directories = resolvedSubtrees.get(key);
+    if (directories == null) {
+      directories = new ArrayList<>();
+      final CanonicalTreeParser parser = new CanonicalTreeParser(null, reader, treeId);
+      while (!parser.eof()) {
+        if (FileMode.TREE.equals(parser.getEntryRawMode())) {
+          final String childPath = path.isEmpty() ? parser.getEntryPathString()
+              : path + "/" + parser.getEntryPathString();
+          if (matches(Paths.get(childPath))) {
+            LOGGER.atTrace().addArgument(childPath)
+                .log("Directory matched glob and was added to set: {}");
+            directories.add(childPath);
+          }
+          directories.addAll(resolveSubtree(reader, childPath, parser.getEntryObjectId()));
+        }
+        parser.next();
+      }
+      resolvedSubtrees.put(key, directories);
+    }
+    return directories;
+  }
+
+  private boolean matches(final Path directory) {
+    for (final PathMatcher matcher : matchers) {
+      if (matcher.matches(directory)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,100 @@
+package net.explorviz.code.analysis.git;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.eclipse.jgit.events.ListenerHandle;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefDatabase;
+import org.eclipse.jgit.lib.Repository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Index of the tags of a repository by the commit they point to. Annotated tags are peeled, so
+ * they are found by their target commit as well. The index is built once and only rebuilt if the
+ * tags changed. JGit reports every change of a ref, including the detached {@code HEAD} moved by
+ * each checkout, so a reported change only triggers a comparison of the tag refs.
+ */
+public final class TagIndex implements AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TagIndex.class);
+
+  private final Repository repository;
+  private final ListenerHandle listenerHandle;
+  private volatile boolean refsChanged = true;
+  private Map<String, ObjectId> tagRefs;
+  private Map<ObjectId, List<String>> tagsByCommit = Map.of();
+  private int rebuilds;
+
+  /**
+   * Creates the index for the given repository, the tags are read on first use.
+   *
+   * @param repository the repository whose tags are indexed
+   */
+  public TagIndex(final Repository repository) {
+    this.repository = repository;
+    this.listenerHandle = repository.getListenerList()
+        .addRefsChangedListener(event -> refsChanged = true);
+  }
+
+  /**
+   * Returns the full names of all tags pointing to the given commit.
+   *
+   * @param commitId the id of the commit
+   * @return the names of the tags, empty if there are none
+   * @throws IOException if the tags could not be read
+   */
+  public synchronized List<String> getTags(final AnyObjectId commitId) throws IOException {
+    if (refsChanged) {
+      // reset before reading, so changes during the rebuild trigger another one
+      refsChanged = false;
+      final RefDatabase refDatabase = repository.getRefDatabase();
+      final List<Ref> tags = refDatabase.getRefsByPrefix(Constants.R_TAGS);
+      final Map<String, ObjectId> currentTagRefs = new HashMap<>();
+      for (final Ref tag : tags) {
+        currentTagRefs.put(tag.getName(), tag.getObjectId());
+      }
+      if (!currentTagRefs.equals(tagRefs)) {
+        tagRefs = currentTagRefs;
+        tagsByCommit = indexTags(refDatabase, tags);
+        rebuilds++;
+      }
+    }
+    return tagsByCommit.getOrDefault(commitId.toObjectId(), List.of());
+  }
+
+  /**
+   * Returns how often the index was built.
+   *
+   * @return the number of builds
+   */
+  /* package */ synchronized int getRebuilds() {
+    return rebuilds;
+  }
+
+  private static Map<ObjectId, List<String>> indexTags(final RefDatabase refDatabase,
+      final List<Ref> tags) throws IOException {
+    final Map<ObjectId, List<String>> index = new HashMap<>();
+    for (final Ref tag : tags) {
+      final Ref peeled = refDatabase.peel(tag);
+      final ObjectId target = peeled.getPeeledObjectId() == null ? peeled.getObjectId()
+          : peeled.getPeeledObjectId();
+      if (target != null) {
+        index.computeIfAbsent(target, key -> new ArrayList<>()).add(tag.getName());
+      }
+    }
+    LOGGER.atDebug().addArgument(tags.size()).log("Indexed {} tags");
+    return index;
+  }
+
+  @Override
+  public void close() {
+    listenerHandle.remove();
+  }
+}
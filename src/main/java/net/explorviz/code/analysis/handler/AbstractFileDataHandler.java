@@ -1,11 +1,15 @@
 package net.explorviz.code.analysis.handler;
 
+import java.util.IdentityHashMap;
+import java.util.Map;
 import net.explorviz.code.proto.FileData;
+import org.antlr.v4.runtime.tree.ParseTree;
 
 public abstract class AbstractFileDataHandler {
 
   protected final FileData.Builder builder;
   protected final String fileName;
+  private final Map<ParseTree, MethodDataHandler> functionsByNode = new IdentityHashMap<>();
 
   protected AbstractFileDataHandler(final String fileName) {
     this.fileName = fileName;
@@ -51,6 +55,27 @@ public abstract class AbstractFileDataHandler {
         : null;
   }
 
+  /**
+   * Remembers the data of the function declared by the given node of the parse tree, so metric
+   * collectors walking the same tree can add their metrics to it.
+   *
+   * @param node         the node declaring the function
+   * @param functionData the data of the function
+   */
+  public void bindFunction(final ParseTree node, final MethodDataHandler functionData) {
+    functionsByNode.put(node, functionData);
+  }
+
+  /**
+   * Returns the data of the function declared by the given node of the parse tree.
+   *
+   * @param node the node declaring the function
+   * @return the function's data, {@code null} if no function was bound to the node
+   */
+  public MethodDataHandler getFunction(final ParseTree node) {
+    return functionsByNode.get(node);
+  }
+
   public void setModifications(final int modifiedLines, final int addedLines,
       final int deletedLines) {
     builder.setModifiedLines(modifiedLines);
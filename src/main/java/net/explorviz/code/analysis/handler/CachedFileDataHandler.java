@@ -0,0 +1,26 @@
+package net.explorviz.code.analysis.handler;
+
+import net.explorviz.code.proto.FileData;
+
+/**
+ * Handler wrapping an already analyzed {@link FileData}, e.g. taken from a cache. Only the
+ * commit-specific fields are set again.
+ */
+public class CachedFileDataHandler extends AbstractFileDataHandler {
+
+  /**
+   * Creates a handler for a previously analyzed file found at the given path.
+   *
+   * @param fileName the path of the file in the current commit
+   * @param fileData the analysis result of the file's content
+   */
+  public CachedFileDataHandler(final String fileName, final FileData fileData) {
+    super(fileName);
+    builder.mergeFrom(fileData).setFilePath(fileName);
+  }
+
+  @Override
+  public FileData getProtoBufObject() {
+    return builder.build();
+  }
+}
@@ -100,6 +100,28 @@ public class JavaFileDataHandler extends AbstractFileDataHandler
     return methodStack.peek();
   }
 
+  /**
+   * Returns the data of the method currently entered.
+   *
+   * @return the method's data, {@code null} if no method of the current class is entered
+   */
+  public MethodDataHandler getCurrentMethodData() {
+    if (methodStack.isEmpty() || classStack.isEmpty()) {
+      return null;
+    }
+    final ClassDataHandler classData = getCurrentClassData();
+    return classData == null ? null : classData.getMethod(methodStack.peek());
+  }
+
+  /**
+   * Returns the data of the class currently entered.
+   *
+   * @return the class's data, {@code null} if no class is entered
+   */
+  public ClassDataHandler findCurrentClassData() {
+    return classStack.isEmpty() ? null : getCurrentClassData();
+  }
+
   public void enterMethod(final String methodFqn) {
     methodStack.push(methodFqn);
   }
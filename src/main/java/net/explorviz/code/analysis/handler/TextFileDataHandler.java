@@ -1,5 +1,6 @@
 package net.explorviz.code.analysis.handler;
 
+import net.explorviz.code.analysis.types.TextStats;
 import net.explorviz.code.proto.FileData;
 import net.explorviz.code.proto.Language;
 
@@ -18,19 +19,12 @@ public class TextFileDataHandler extends AbstractFileDataHandler {
   /**
    * Calculate and add basic metrics for the text file.
    *
-   * @param content The file content
+   * @param stats The text metrics of the file content
    */
-  public void calculateMetrics(final String content) {
-    if (content == null || content.isEmpty()) {
-      addMetric("loc", "0");
-      addMetric("size", "0");
-      return;
-    }
-
-    final long loc = content.lines().count();
-    addMetric("loc", String.valueOf(loc));
+  public void calculateMetrics(final TextStats stats) {
+    addMetric("loc", String.valueOf(stats.lines()));
 
     // Add file size in bytes
-    addMetric("size", String.valueOf(content.length()));
+    addMetric("size", String.valueOf(stats.size()));
   }
 }
@@ -0,0 +1,96 @@
+package net.explorviz.code.analysis.listener;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.TerminalNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Forwards the events of a single walk to several listeners, so additional data can be collected
+ * from a parse tree without walking it again. Rules are entered in the order of the listeners and
+ * exited in reverse order, so the additional listeners can rely on the state the primary listener
+ * set up for the current rule, e.g. the class and method entered in the file data handler. <br>
+ * A failing additional listener is detached and the walk continues, as it only contributes
+ * metrics. Failures of the primary listener are thrown.
+ */
+public final class CompositeParseTreeListener implements ParseTreeListener {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CompositeParseTreeListener.class);
+
+  private final ParseTreeListener primary;
+  private final List<ParseTreeListener> additional;
+
+  /**
+   * Creates a listener forwarding to the given listeners.
+   *
+   * @param primary    the listener collecting the file data
+   * @param additional the listeners collecting additional data, e.g. metrics
+   */
+  public CompositeParseTreeListener(final ParseTreeListener primary,
+      final List<? extends ParseTreeListener> additional) {
+    this.primary = primary;
+    this.additional = new ArrayList<>(additional);
+  }
+
+  @Override
+  public void enterEveryRule(final ParserRuleContext ctx) {
+    primary.enterEveryRule(ctx);
+    ctx.enterRule(primary);
+    for (int i = 0; i < additional.size(); i++) {
+      final ParseTreeListener listener = additional.get(i);
+      try {
+        listener.enterEveryRule(ctx);
+        ctx.enterRule(listener);
+      } catch (RuntimeException e) { // NOPMD
+        detach(listener, ctx, e);
+        i--;
+      }
+    }
+  }
+
+  @Override
+  public void exitEveryRule(final ParserRuleContext ctx) {
+    for (int i = additional.size() - 1; i >= 0; i--) {
+      final ParseTreeListener listener = additional.get(i);
+      try {
+        ctx.exitRule(listener);
+        listener.exitEveryRule(ctx);
+      } catch (RuntimeException e) { // NOPMD
+        detach(listener, ctx, e);
+      }
+    }
+    ctx.exitRule(primary);
+    primary.exitEveryRule(ctx);
+  }
+
+  @Override
+  public void visitTerminal(final TerminalNode node) {
+    primary.visitTerminal(node);
+    for (final ParseTreeListener listener : additional) {
+      listener.visitTerminal(node);
+    }
+  }
+
+  @Override
+  public void visitErrorNode(final ErrorNode node) {
+    primary.visitErrorNode(node);
+    for (final ParseTreeListener listener : additional) {
+      listener.visitErrorNode(node);
+    }
+  }
+
+  private void detach(final ParseTreeListener listener, final ParserRuleContext ctx,
+      final RuntimeException cause) {
+    // Catch everything and proceed, as these are only the metrics, the analysis has to continue
+    additional.remove(listener);
+    LOGGER.atError()
+        .addArgument(listener.getClass().getSimpleName())
+        .addArgument(ctx.getStart() == null ? -1 : ctx.getStart().getLine())
+        .setCause(cause)
+        .log("Listener {} failed at line {} and was detached");
+  }
+}
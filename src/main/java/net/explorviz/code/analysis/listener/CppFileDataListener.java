@@ -7,7 +7,6 @@ import net.explorviz.code.analysis.antlr.generated.CPP14ParserBaseListener;
 import net.explorviz.code.analysis.handler.CppFileDataHandler;
 import net.explorviz.code.analysis.handler.MethodDataHandler;
 import org.antlr.v4.runtime.CommonTokenStream;
-import org.antlr.v4.runtime.ParserRuleContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -21,6 +20,7 @@ public class CppFileDataListener extends CPP14ParserBaseListener implements Comm
 
   private final CppFileDataHandler fileDataHandler;
   private final CommonTokenStream tokens;
+  private final LineIndex lineIndex;
   private int functionCount = 0;
   private int variableCount = 0;
 
@@ -28,13 +28,14 @@ public class CppFileDataListener extends CPP14ParserBaseListener implements Comm
       final CommonTokenStream tokens) {
     this.fileDataHandler = fileDataHandler;
     this.tokens = tokens;
+    this.lineIndex = new LineIndex(tokens, "//");
   }
 
   @Override
   public void enterTranslationUnit(final CPP14Parser.TranslationUnitContext ctx) {
     // Calculate total source SLOC and CLOC for the entire file
-    final int sloc = getSloc(tokens);
-    final int cloc = getCloc(ctx);
+    final int sloc = lineIndex.sloc();
+    final int cloc = lineIndex.cloc();
 
     fileDataHandler.addMetric(SLOC, String.valueOf(sloc));
     fileDataHandler.addMetric(CLOC, String.valueOf(cloc));
@@ -169,7 +170,7 @@ public class CppFileDataListener extends CPP14ParserBaseListener implements Comm
 
       // Calculate class SLOC and LOC
       final int classLoc = calculateLoc(ctx);
-      classData.addMetric(SLOC, String.valueOf(getSloc(ctx, tokens)));
+      classData.addMetric(SLOC, String.valueOf(lineIndex.sloc(ctx)));
       classData.addMetric(LOC, String.valueOf(classLoc));
 
       // Handle base classes
@@ -211,7 +212,7 @@ public class CppFileDataListener extends CPP14ParserBaseListener implements Comm
       final var classData = fileDataHandler.getCurrentClassData();
       if (classData != null) {
         classData.setIsEnum();
-        classData.addMetric(SLOC, String.valueOf(getSloc(ctx, tokens)));
+        classData.addMetric(SLOC, String.valueOf(lineIndex.sloc(ctx)));
         classData.addMetric(LOC, String.valueOf(calculateLoc(ctx)));
       }
 
@@ -291,6 +292,8 @@ public class CppFileDataListener extends CPP14ParserBaseListener implements Comm
           }
         }
 
+        fileDataHandler.bindFunction(ctx, methodData);
+
         // Add modifiers
         addFunctionModifiers(methodData, ctx);
 
@@ -302,7 +305,7 @@ public class CppFileDataListener extends CPP14ParserBaseListener implements Comm
           methodData.setLines(ctx.start.getLine(), ctx.stop.getLine());
         }
 
-        methodData.addMetric(SLOC, String.valueOf(getSloc(ctx, tokens)));
+        methodData.addMetric(SLOC, String.valueOf(lineIndex.sloc(ctx)));
         methodData.addMetric(LOC, String.valueOf(functionLoc));
 
         LOGGER.atTrace()
@@ -318,11 +321,12 @@ public class CppFileDataListener extends CPP14ParserBaseListener implements Comm
         // Treat it as a global function for now since the class context is not
         // available
         final var methodHandler = fileDataHandler.addGlobalFunction(qualifiedName, returnType);
+        fileDataHandler.bindFunction(ctx, methodHandler);
 
         if (ctx.start != null && ctx.stop != null) {
           methodHandler.setLines(ctx.start.getLine(), ctx.stop.getLine());
         }
-        methodHandler.addMetric(SLOC, String.valueOf(getSloc(ctx, tokens)));
+        methodHandler.addMetric(SLOC, String.valueOf(lineIndex.sloc(ctx)));
         methodHandler.addMetric(LOC, String.valueOf(functionLoc));
 
         addFunctionParameters(methodHandler, ctx.declarator());
@@ -332,11 +336,12 @@ public class CppFileDataListener extends CPP14ParserBaseListener implements Comm
             .log("Out-of-class method definition: {}");
       } else {
         final var methodHandler = fileDataHandler.addGlobalFunction(functionName, returnType);
+        fileDataHandler.bindFunction(ctx, methodHandler);
 
         if (ctx.start != null && ctx.stop != null) {
           methodHandler.setLines(ctx.start.getLine(), ctx.stop.getLine());
         }
-        methodHandler.addMetric(SLOC, String.valueOf(getSloc(ctx, tokens)));
+        methodHandler.addMetric(SLOC, String.valueOf(lineIndex.sloc(ctx)));
         methodHandler.addMetric(LOC, String.valueOf(functionLoc));
 
         addFunctionParameters(methodHandler, ctx.declarator());
@@ -831,41 +836,10 @@ public class CppFileDataListener extends CPP14ParserBaseListener implements Comm
     return false;
   }
 
-  /**
-   * Get comment lines of code by counting tokens on the hidden channel.
-   */
   @Override
   public void enterSimpleDeclaration(final CPP14Parser.SimpleDeclarationContext ctx) {
     if (ctx.initDeclaratorList() != null) {
       variableCount += ctx.initDeclaratorList().initDeclarator().size();
     }
   }
-
-  private int getCloc(final ParserRuleContext ctx) {
-    if (ctx == null || tokens == null) {
-      return 0;
-    }
-
-    int commentLines = 0;
-
-    for (int i = 0; i < tokens.size(); i++) {
-      final var token = tokens.get(i);
-
-      // Comments are on the HIDDEN channel
-      if (token.getChannel() != 0) {
-        final String tokenText = token.getText();
-
-        if (tokenText != null) {
-          if (tokenText.trim().startsWith("//")) {
-            commentLines++;
-          } else if (tokenText.trim().startsWith("/*")) {
-            final long newlines = tokenText.chars().filter(ch -> ch == '\n').count();
-            commentLines += (int) newlines + 1;
-          }
-        }
-      }
-    }
-
-    return commentLines;
-  }
 }
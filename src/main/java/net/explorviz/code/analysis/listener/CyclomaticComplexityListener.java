@@ -0,0 +1,257 @@
+package net.explorviz.code.analysis.listener;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import net.explorviz.code.analysis.antlr.generated.Java20Parser;
+import net.explorviz.code.analysis.antlr.generated.Java20ParserBaseListener;
+import net.explorviz.code.analysis.handler.ClassDataHandler;
+import net.explorviz.code.analysis.handler.JavaFileDataHandler;
+import net.explorviz.code.analysis.handler.MethodDataHandler;
+
+/**
+ * Listener calculating the cyclomatic complexity for methods, classes and the file. Decisions are
+ * counted like the {@code CyclomaticComplexityVisitor} does on the JavaParser tree, so both yield
+ * the same values for methods. Must be walked after a {@link JavaFileDataListener}, see
+ * {@link CompositeParseTreeListener}.
+ */
+public class CyclomaticComplexityListener extends Java20ParserBaseListener { // NOPMD
+
+  public static final String CYCLOMATIC_COMPLEXITY = "cyclomatic_complexity";
+  public static final String CYCLOMATIC_COMPLEXITY_WEIGHTED = "cyclomatic_complexity_weighted";
+
+  private final JavaFileDataHandler fileDataHandler;
+  private final Deque<TypeFrame> types = new ArrayDeque<>();
+  private final Deque<MemberFrame> members = new ArrayDeque<>();
+  private int fileComplexity;
+  private boolean hasTypes;
+
+  /**
+   * A class, interface or enum and the complexity of its members.
+   */
+  private static final class TypeFrame {
+
+    private final ClassDataHandler classData;
+    private int complexity;
+    private int countedMembers;
+
+    private TypeFrame(final ClassDataHandler classData) {
+      this.classData = classData;
+    }
+  }
+
+  /**
+   * A method, constructor or field and its decisions.
+   */
+  private static final class MemberFrame {
+
+    private final MethodDataHandler methodData;
+    private int decisions;
+
+    private MemberFrame(final MethodDataHandler methodData) {
+      this.methodData = methodData;
+    }
+  }
+
+  public CyclomaticComplexityListener(final JavaFileDataHandler fileDataHandler) {
+    this.fileDataHandler = fileDataHandler;
+  }
+
+  private void enterType() {
+    types.push(new TypeFrame(fileDataHandler.findCurrentClassData()));
+  }
+
+  private void exitType() {
+    final TypeFrame type = types.pop();
+    final int complexity = Math.max(1, type.complexity);
+    final int weighted = type.countedMembers == 0 ? complexity
+        : complexity / type.countedMembers;
+    if (type.classData != null) {
+      type.classData.addMetric(CYCLOMATIC_COMPLEXITY, String.valueOf(complexity));
+      type.classData.addMetric(CYCLOMATIC_COMPLEXITY_WEIGHTED, String.valueOf(weighted));
+    }
+    fileComplexity += complexity;
+    hasTypes = true;
+  }
+
+  private void enterMember(final MethodDataHandler methodData) {
+    members.push(new MemberFrame(methodData));
+  }
+
+  private void exitMember() {
+    final MemberFrame member = members.pop();
+    if (member.methodData != null) {
+      member.methodData.addMetric(CYCLOMATIC_COMPLEXITY,
+          String.valueOf(Math.max(1, member.decisions)));
+    }
+    if (member.decisions > 0 && !types.isEmpty()) {
+      types.peek().complexity += member.decisions;
+      types.peek().countedMembers++;
+    }
+  }
+
+  private void count(final int decisions) {
+    if (!members.isEmpty()) {
+      members.peek().decisions += decisions;
+    }
+  }
+
+  @Override
+  public void exitCompilationUnit(final Java20Parser.CompilationUnitContext ctx) {
+    if (hasTypes) {
+      fileDataHandler.addMetric(CYCLOMATIC_COMPLEXITY, String.valueOf(fileComplexity));
+    }
+  }
+
+  @Override
+  public void enterNormalClassDeclaration(final Java20Parser.NormalClassDeclarationContext ctx) {
+    enterType();
+  }
+
+  @Override
+  public void exitNormalClassDeclaration(final Java20Parser.NormalClassDeclarationContext ctx) {
+    exitType();
+  }
+
+  @Override
+  public void enterNormalInterfaceDeclaration(
+      final Java20Parser.NormalInterfaceDeclarationContext ctx) {
+    enterType();
+  }
+
+  @Override
+  public void exitNormalInterfaceDeclaration(
+      final Java20Parser.NormalInterfaceDeclarationContext ctx) {
+    exitType();
+  }
+
+  @Override
+  public void enterEnumDeclaration(final Java20Parser.EnumDeclarationContext ctx) {
+    enterType();
+  }
+
+  @Override
+  public void exitEnumDeclaration(final Java20Parser.EnumDeclarationContext ctx) {
+    exitType();
+  }
+
+  @Override
+  public void enterFieldDeclaration(final Java20Parser.FieldDeclarationContext ctx) {
+    // decisions in initializers count for the class only
+    enterMember(null);
+  }
+
+  @Override
+  public void exitFieldDeclaration(final Java20Parser.FieldDeclarationContext ctx) {
+    exitMember();
+  }
+
+  @Override
+  public void enterMethodDeclaration(final Java20Parser.MethodDeclarationContext ctx) {
+    enterMember(fileDataHandler.getCurrentMethodData());
+  }
+
+  @Override
+  public void exitMethodDeclaration(final Java20Parser.MethodDeclarationContext ctx) {
+    exitMember();
+  }
+
+  @Override
+  public void enterInterfaceMethodDeclaration(
+      final Java20Parser.InterfaceMethodDeclarationContext ctx) {
+    enterMember(fileDataHandler.getCurrentMethodData());
+  }
+
+  @Override
+  public void exitInterfaceMethodDeclaration(
+      final Java20Parser.InterfaceMethodDeclarationContext ctx) {
+    exitMember();
+  }
+
+  @Override
+  public void enterConstructorDeclaration(final Java20Parser.ConstructorDeclarationContext ctx) {
+    enterMember(fileDataHandler.getCurrentMethodData());
+  }
+
+  @Override
+  public void exitConstructorDeclaration(final Java20Parser.ConstructorDeclarationContext ctx) {
+    exitMember();
+  }
+
+  @Override
+  public void enterIfThenStatement(final Java20Parser.IfThenStatementContext ctx) {
+    count(1);
+  }
+
+  @Override
+  public void enterIfThenElseStatement(final Java20Parser.IfThenElseStatementContext ctx) {
+    count(2);
+  }
+
+  @Override
+  public void enterIfThenElseStatementNoShortIf(
+      final Java20Parser.IfThenElseStatementNoShortIfContext ctx) {
+    count(2);
+  }
+
+  @Override
+  public void enterWhileStatement(final Java20Parser.WhileStatementContext ctx) {
+    count(1);
+  }
+
+  @Override
+  public void enterWhileStatementNoShortIf(
+      final Java20Parser.WhileStatementNoShortIfContext ctx) {
+    count(1);
+  }
+
+  @Override
+  public void enterBasicForStatement(final Java20Parser.BasicForStatementContext ctx) {
+    count(1);
+  }
+
+  @Override
+  public void enterBasicForStatementNoShortIf(
+      final Java20Parser.BasicForStatementNoShortIfContext ctx) {
+    count(1);
+  }
+
+  @Override
+  public void enterEnhancedForStatement(final Java20Parser.EnhancedForStatementContext ctx) {
+    count(1);
+  }
+
+  @Override
+  public void enterEnhancedForStatementNoShortIf(
+      final Java20Parser.EnhancedForStatementNoShortIfContext ctx) {
+    count(1);
+  }
+
+  @Override
+  public void enterSwitchBlockStatementGroup(
+      final Java20Parser.SwitchBlockStatementGroupContext ctx) {
+    // every statement of a case counts
+    if (ctx.blockStatements() != null) {
+      count(ctx.blockStatements().blockStatement().size());
+    }
+  }
+
+  @Override
+  public void enterSwitchRule(final Java20Parser.SwitchRuleContext ctx) {
+    count(1);
+  }
+
+  @Override
+  public void enterCatchClause(final Java20Parser.CatchClauseContext ctx) {
+    count(1);
+  }
+
+  @Override
+  public void enterThrowStatement(final Java20Parser.ThrowStatementContext ctx) {
+    count(1);
+  }
+
+  @Override
+  public void enterTryStatement(final Java20Parser.TryStatementContext ctx) {
+    count(1);
+  }
+}
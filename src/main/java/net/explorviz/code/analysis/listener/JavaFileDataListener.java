@@ -1,8 +1,10 @@
 package net.explorviz.code.analysis.listener;
 
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 import net.explorviz.code.analysis.antlr.generated.Java20Parser;
 import net.explorviz.code.analysis.antlr.generated.Java20ParserBaseListener;
@@ -20,12 +22,20 @@ public class JavaFileDataListener extends Java20ParserBaseListener implements Co
 
   private static final Logger LOGGER = LoggerFactory.getLogger(JavaFileDataListener.class);
 
+  private static final Set<String> PRIMITIVE_TYPES = Set.of("byte", "short", "int", "long",
+      "float", "double", "boolean", "char", "void");
+  private static final Set<String> JAVA_LANG_TYPES = Set.of(
+      "String", "Integer", "Long", "Double", "Float", "Boolean", "Character",
+      "Byte", "Short", "Object", "Class", "System", "Math", "Thread",
+      "Runnable", "Exception", "RuntimeException", "Error");
+
   private final JavaFileDataHandler fileDataHandler;
   private final boolean wildcardImportProperty;
-  private int wildcardImportCount;
-  private String wildcardImport;
+  private final JavaImportTable importTable = new JavaImportTable();
+  /** Resolved type names of this file, keyed by the type name as written in the source. */
+  private final Map<String, String> resolvedTypes = new HashMap<>();
   private String currentPackage = "";
-  private final org.antlr.v4.runtime.CommonTokenStream tokens;
+  private final LineIndex lineIndex;
   private int functionCount = 0;
   private int variableCount = 0;
 
@@ -34,16 +44,14 @@ public class JavaFileDataListener extends Java20ParserBaseListener implements Co
       final org.antlr.v4.runtime.CommonTokenStream tokens) {
     this.fileDataHandler = fileDataHandler;
     this.wildcardImportProperty = wildcardImportProperty;
-    this.wildcardImportCount = 0;
-    this.wildcardImport = null;
-    this.tokens = tokens;
+    this.lineIndex = new LineIndex(tokens, "//");
   }
 
   @Override
   public void enterCompilationUnit(final Java20Parser.CompilationUnitContext ctx) {
     // Calculate total source SLOC and CLOC
-    final int sloc = getSloc(tokens);
-    final int cloc = getCloc(ctx);
+    final int sloc = lineIndex.sloc();
+    final int cloc = lineIndex.cloc();
 
     fileDataHandler.addMetric(SLOC, String.valueOf(sloc));
     fileDataHandler.addMetric(CLOC, String.valueOf(cloc));
@@ -69,6 +77,7 @@ public class JavaFileDataListener extends Java20ParserBaseListener implements Co
           .map(Java20Parser.IdentifierContext::getText)
           .collect(Collectors.joining("."));
       fileDataHandler.setPackageName(currentPackage);
+      resolvedTypes.clear();
     }
   }
 
@@ -79,6 +88,8 @@ public class JavaFileDataListener extends Java20ParserBaseListener implements Co
     if (ctx.typeName() != null) {
       final String importName = getFullTypeName(ctx.typeName());
       fileDataHandler.addImport(importName);
+      importTable.addSingleTypeImport(importName);
+      resolvedTypes.clear();
     }
   }
 
@@ -87,13 +98,10 @@ public class JavaFileDataListener extends Java20ParserBaseListener implements Co
       final Java20Parser.TypeImportOnDemandDeclarationContext ctx) {
     // import packageOrTypeName.* ;
     if (ctx.packageOrTypeName() != null) {
-      final String importName = getPackageOrTypeName(ctx.packageOrTypeName()) + ".*";
-      fileDataHandler.addImport(importName);
-
-      if (wildcardImportCount == 0 && wildcardImport == null) {
-        wildcardImport = getPackageOrTypeName(ctx.packageOrTypeName());
-      }
-      wildcardImportCount++;
+      final String packageOrTypeName = getPackageOrTypeName(ctx.packageOrTypeName());
+      fileDataHandler.addImport(packageOrTypeName + ".*");
+      importTable.addOnDemandImport(packageOrTypeName);
+      resolvedTypes.clear();
     }
   }
 
@@ -116,7 +124,7 @@ public class JavaFileDataListener extends Java20ParserBaseListener implements Co
     addModifiers(ctx.classModifier());
 
     // Add SLOC and LOC
-    fileDataHandler.getCurrentClassData().addMetric(SLOC, String.valueOf(getSloc(ctx, tokens)));
+    fileDataHandler.getCurrentClassData().addMetric(SLOC, String.valueOf(lineIndex.sloc(ctx)));
     fileDataHandler.getCurrentClassData().addMetric(LOC, String.valueOf(getLoc(ctx)));
 
     // Handle extends
@@ -155,7 +163,7 @@ public class JavaFileDataListener extends Java20ParserBaseListener implements Co
     addModifiers(ctx.interfaceModifier());
 
     // Add SLOC and LOC
-    fileDataHandler.getCurrentClassData().addMetric(SLOC, String.valueOf(getSloc(ctx, tokens)));
+    fileDataHandler.getCurrentClassData().addMetric(SLOC, String.valueOf(lineIndex.sloc(ctx)));
     fileDataHandler.getCurrentClassData().addMetric(LOC, String.valueOf(getLoc(ctx)));
 
     // Handle extends
@@ -186,7 +194,7 @@ public class JavaFileDataListener extends Java20ParserBaseListener implements Co
     addModifiers(ctx.classModifier());
 
     // Add SLOC and LOC
-    fileDataHandler.getCurrentClassData().addMetric(SLOC, String.valueOf(getSloc(ctx, tokens)));
+    fileDataHandler.getCurrentClassData().addMetric(SLOC, String.valueOf(lineIndex.sloc(ctx)));
     fileDataHandler.getCurrentClassData().addMetric(LOC, String.valueOf(getLoc(ctx)));
   }
 
@@ -266,7 +274,7 @@ public class JavaFileDataListener extends Java20ParserBaseListener implements Co
     }
 
     // Add SLOC and LOC
-    methodData.addMetric(SLOC, String.valueOf(getSloc(ctx, tokens)));
+    methodData.addMetric(SLOC, String.valueOf(lineIndex.sloc(ctx)));
     methodData.addMetric(LOC, String.valueOf(getLoc(ctx)));
   }
 
@@ -323,7 +331,7 @@ public class JavaFileDataListener extends Java20ParserBaseListener implements Co
     }
 
     // Add SLOC and LOC
-    methodData.addMetric(SLOC, String.valueOf(getSloc(ctx, tokens)));
+    methodData.addMetric(SLOC, String.valueOf(lineIndex.sloc(ctx)));
     methodData.addMetric(LOC, String.valueOf(getLoc(ctx)));
   }
 
@@ -367,7 +375,7 @@ public class JavaFileDataListener extends Java20ParserBaseListener implements Co
     }
 
     // Add SLOC and LOC
-    constructor.addMetric(SLOC, String.valueOf(getSloc(ctx, tokens)));
+    constructor.addMetric(SLOC, String.valueOf(lineIndex.sloc(ctx)));
     constructor.addMetric(LOC, String.valueOf(getLoc(ctx)));
   }
 
@@ -595,11 +603,13 @@ public class JavaFileDataListener extends Java20ParserBaseListener implements Co
   }
 
   private String resolveTypeName(final String typeName) {
-    // Try to resolve the type using imports
-    final List<String> imports = fileDataHandler.getImportNames();
+    // Memoized per file, the cache is cleared whenever an import or the package is added
+    return resolvedTypes.computeIfAbsent(typeName, this::computeTypeName);
+  }
 
+  private String computeTypeName(final String typeName) {
     // Handle array types
-    String baseType = typeName.replaceAll("\\[\\]", "");
+    String baseType = typeName.replace("[]", "");
     final String arraySuffix = typeName.substring(baseType.length());
 
     // Handle generics - extract the base type
@@ -611,7 +621,7 @@ public class JavaFileDataListener extends Java20ParserBaseListener implements Co
     }
 
     // Check if it's a primitive type
-    if (isPrimitiveType(baseType)) {
+    if (PRIMITIVE_TYPES.contains(baseType)) {
       return typeName;
     }
 
@@ -621,23 +631,19 @@ public class JavaFileDataListener extends Java20ParserBaseListener implements Co
     }
 
     // Try to find in imports
-    for (final String importName : imports) {
-      if (importName.endsWith("." + baseType)) {
-        return importName + genericsPart + arraySuffix;
-      }
+    final String importName = importTable.lookup(baseType);
+    if (importName != null) {
+      return importName + genericsPart + arraySuffix;
     }
 
     // Try wildcard import if enabled
-    if (wildcardImportProperty && wildcardImportCount == 1 && wildcardImport != null) {
-      return wildcardImport + "." + baseType + genericsPart + arraySuffix;
+    final List<String> onDemandImports = importTable.getOnDemandImports();
+    if (wildcardImportProperty && onDemandImports.size() == 1) {
+      return onDemandImports.get(0) + "." + baseType + genericsPart + arraySuffix;
     }
 
     // Check java.lang package
-    final List<String> javaLangTypes = Arrays.asList(
-        "String", "Integer", "Long", "Double", "Float", "Boolean", "Character",
-        "Byte", "Short", "Object", "Class", "System", "Math", "Thread",
-        "Runnable", "Exception", "RuntimeException", "Error");
-    if (javaLangTypes.contains(baseType)) {
+    if (JAVA_LANG_TYPES.contains(baseType)) {
       return "java.lang." + baseType + genericsPart + arraySuffix;
     }
 
@@ -655,35 +661,4 @@ public class JavaFileDataListener extends Java20ParserBaseListener implements Co
       variableCount += ctx.variableDeclaratorList().variableDeclarator().size();
     }
   }
-
-  private boolean isPrimitiveType(final String type) {
-    return Arrays.asList("byte", "short", "int", "long", "float", "double",
-        "boolean", "char", "void").contains(type);
-  }
-
-  private int getCloc(final ParserRuleContext ctx) {
-    if (ctx == null || tokens == null) {
-      return 0;
-    }
-
-    int commentLines = 0;
-
-    for (int i = 0; i < tokens.size(); i++) {
-      final org.antlr.v4.runtime.Token token = tokens.get(i);
-
-      if (token.getChannel() != 0) {
-        final String tokenText = token.getText();
-        if (tokenText != null) {
-          if (tokenText.trim().startsWith("//")) {
-            commentLines++;
-          } else if (tokenText.trim().startsWith("/*")) {
-            final long newlines = tokenText.chars().filter(ch -> ch == '\n').count();
-            commentLines += (int) newlines + 1;
-          }
-        }
-      }
-    }
-
-    return commentLines;
-  }
 }
@@ -0,0 +1,58 @@
+package net.explorviz.code.analysis.listener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Imports of a Java file, indexed by the simple name of the imported type. Lookups are a single
+ * hash probe instead of a scan over all import names. If two imports share a simple name, the
+ * first one wins, which matches the order in which the compiler would report the clash.
+ */
+final class JavaImportTable {
+
+  private final Map<String, String> singleTypeImports = new HashMap<>();
+  private final List<String> onDemandImports = new ArrayList<>();
+
+  /**
+   * Adds a single-type import such as {@code java.util.List}.
+   *
+   * @param fqn the fully qualified name of the imported type
+   */
+  void addSingleTypeImport(final String fqn) {
+    final int lastDot = fqn.lastIndexOf('.');
+    if (lastDot != -1) {
+      singleTypeImports.putIfAbsent(fqn.substring(lastDot + 1), fqn);
+    }
+  }
+
+  /**
+   * Adds an import on demand such as {@code java.util.*}.
+   *
+   * @param packageOrTypeName the imported package or type, without the trailing {@code .*}
+   */
+  void addOnDemandImport(final String packageOrTypeName) {
+    onDemandImports.add(packageOrTypeName);
+  }
+
+  /**
+   * Returns the fully qualified name of the imported type with the given simple name.
+   *
+   * @param simpleName the simple name of the type
+   * @return the fully qualified name, or {@code null} if no single-type import matches
+   */
+  String lookup(final String simpleName) {
+    return singleTypeImports.get(simpleName);
+  }
+
+  /**
+   * Returns the packages and types imported on demand, in declaration order.
+   *
+   * @return the imports on demand without the trailing {@code .*}
+   */
+  List<String> getOnDemandImports() {
+    return Collections.unmodifiableList(onDemandImports);
+  }
+}
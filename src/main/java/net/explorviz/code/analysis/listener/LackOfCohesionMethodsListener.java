@@ -0,0 +1,289 @@
+package net.explorviz.code.analysis.listener;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import net.explorviz.code.analysis.antlr.generated.Java20Parser;
+import net.explorviz.code.analysis.antlr.generated.Java20ParserBaseListener;
+import net.explorviz.code.analysis.handler.ClassDataHandler;
+import net.explorviz.code.analysis.handler.JavaFileDataHandler;
+import net.explorviz.code.analysis.types.Graph;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+/**
+ * Listener calculating the LCOM4 metric for classes, interfaces and enums with the rules of the
+ * {@code LackOfCohesionMethodsVisitor}: methods are connected if they use the same field or call
+ * each other, overriding and empty methods are ignored. Must be walked after a
+ * {@link JavaFileDataListener}, see {@link CompositeParseTreeListener}.
+ */
+public class LackOfCohesionMethodsListener extends Java20ParserBaseListener { // NOPMD
+
+  public static final String LCOM4 = "LCOM4";
+
+  private final JavaFileDataHandler fileDataHandler;
+  private final Deque<TypeFrame> types = new ArrayDeque<>();
+
+  /**
+   * The cohesion graph of a class, interface or enum.
+   */
+  private static final class TypeFrame {
+
+    private final ClassDataHandler classData;
+    private final ParserRuleContext body;
+    private final Graph graph = new Graph();
+    private final Set<String> fields = new HashSet<>();
+    private final Set<String> methods = new HashSet<>();
+    private final Set<String> locals = new HashSet<>();
+    private ParserRuleContext method;
+    private String methodName;
+
+    private TypeFrame(final ClassDataHandler classData, final ParserRuleContext body) {
+      this.classData = classData;
+      this.body = body;
+    }
+  }
+
+  public LackOfCohesionMethodsListener(final JavaFileDataHandler fileDataHandler) {
+    this.fileDataHandler = fileDataHandler;
+  }
+
+  private void enterType(final ParserRuleContext body) {
+    final TypeFrame type = new TypeFrame(fileDataHandler.findCurrentClassData(), body);
+    if (body != null) {
+      for (final ParseTree member : body.children) {
+        collectMember(type, member);
+      }
+    }
+    for (final String field : type.fields) {
+      type.graph.addVertex(field, true);
+    }
+    for (final String method : type.methods) {
+      type.graph.addVertex(method);
+    }
+    types.push(type);
+  }
+
+  private static void collectMember(final TypeFrame type, final ParseTree member) {
+    if (member instanceof Java20Parser.ClassBodyDeclarationContext declaration
+        && declaration.classMemberDeclaration() != null) {
+      final Java20Parser.ClassMemberDeclarationContext classMember =
+          declaration.classMemberDeclaration();
+      if (classMember.fieldDeclaration() != null) {
+        addVariables(type, classMember.fieldDeclaration().variableDeclaratorList());
+      } else if (classMember.methodDeclaration() != null) {
+        addMethod(type, classMember.methodDeclaration().methodHeader());
+      }
+    } else if (member instanceof Java20Parser.InterfaceMemberDeclarationContext declaration) {
+      if (declaration.constantDeclaration() != null) {
+        addVariables(type, declaration.constantDeclaration().variableDeclaratorList());
+      } else if (declaration.interfaceMethodDeclaration() != null) {
+        addMethod(type, declaration.interfaceMethodDeclaration().methodHeader());
+      }
+    }
+  }
+
+  private static void addVariables(final TypeFrame type,
+      final Java20Parser.VariableDeclaratorListContext variables) {
+    if (variables == null) {
+      return;
+    }
+    for (final Java20Parser.VariableDeclaratorContext variable : variables.variableDeclarator()) {
+      type.fields.add(variable.variableDeclaratorId().identifier().getText());
+    }
+  }
+
+  private static void addMethod(final TypeFrame type,
+      final Java20Parser.MethodHeaderContext header) {
+    if (header != null && header.methodDeclarator() != null) {
+      type.methods.add(header.methodDeclarator().identifier().getText());
+    }
+  }
+
+  private void exitType() {
+    final TypeFrame type = types.pop();
+    if (type.classData != null) {
+      type.classData.addMetric(LCOM4, String.valueOf(type.graph.getGroups().size()));
+    }
+  }
+
+  private void enterMethod(final ParserRuleContext ctx, final ParserRuleContext body,
+      final Java20Parser.MethodHeaderContext header,
+      final List<? extends ParserRuleContext> modifiers, final Java20Parser.MethodBodyContext
+      methodBody) {
+    if (types.isEmpty() || header == null || header.methodDeclarator() == null) {
+      return;
+    }
+    final TypeFrame type = types.peek();
+    if (type.method != null || body != type.body) {
+      // methods of anonymous classes count for the enclosing member
+      return;
+    }
+    type.method = ctx;
+    type.methodName = header.methodDeclarator().identifier().getText();
+    type.locals.clear();
+    if (isOverride(modifiers) || isEmpty(methodBody)) {
+      type.graph.removeVertex(type.methodName);
+    }
+  }
+
+  private void exitMethod(final ParserRuleContext ctx) {
+    if (!types.isEmpty() && types.peek().method == ctx) {
+      types.peek().method = null;
+      types.peek().methodName = null;
+    }
+  }
+
+  private static boolean isOverride(final List<? extends ParserRuleContext> modifiers) {
+    for (final ParserRuleContext modifier : modifiers) {
+      final String text = modifier.getText();
+      if ("@Override".equals(text) || text.endsWith(".Override")) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isEmpty(final Java20Parser.MethodBodyContext methodBody) {
+    return methodBody == null || methodBody.block() == null
+        || methodBody.block().blockStatements() == null;
+  }
+
+  private void useField(final String name) {
+    final TypeFrame type = types.peek();
+    if (type != null && type.methodName != null && type.fields.contains(name)
+        && !type.locals.contains(name)) {
+      type.graph.addEdge(type.methodName, name);
+    }
+  }
+
+  private void callMethod(final String name) {
+    final TypeFrame type = types.peek();
+    if (type != null && type.methodName != null && type.methods.contains(name)) {
+      type.graph.addEdge(type.methodName, name);
+    }
+  }
+
+  @Override
+  public void enterNormalClassDeclaration(final Java20Parser.NormalClassDeclarationContext ctx) {
+    enterType(ctx.classBody());
+  }
+
+  @Override
+  public void exitNormalClassDeclaration(final Java20Parser.NormalClassDeclarationContext ctx) {
+    exitType();
+  }
+
+  @Override
+  public void enterNormalInterfaceDeclaration(
+      final Java20Parser.NormalInterfaceDeclarationContext ctx) {
+    enterType(ctx.interfaceBody());
+  }
+
+  @Override
+  public void exitNormalInterfaceDeclaration(
+      final Java20Parser.NormalInterfaceDeclarationContext ctx) {
+    exitType();
+  }
+
+  @Override
+  public void enterEnumDeclaration(final Java20Parser.EnumDeclarationContext ctx) {
+    enterType(ctx.enumBody() == null ? null : ctx.enumBody().enumBodyDeclarations());
+  }
+
+  @Override
+  public void exitEnumDeclaration(final Java20Parser.EnumDeclarationContext ctx) {
+    exitType();
+  }
+
+  @Override
+  public void enterMethodDeclaration(final Java20Parser.MethodDeclarationContext ctx) {
+    // methodDeclaration -> classMemberDeclaration -> classBodyDeclaration -> body
+    final ParserRuleContext body = ctx.getParent() == null || ctx.getParent().getParent() == null
+        ? null : ctx.getParent().getParent().getParent();
+    enterMethod(ctx, body, ctx.methodHeader(), ctx.methodModifier(), ctx.methodBody());
+  }
+
+  @Override
+  public void exitMethodDeclaration(final Java20Parser.MethodDeclarationContext ctx) {
+    exitMethod(ctx);
+  }
+
+  @Override
+  public void enterInterfaceMethodDeclaration(
+      final Java20Parser.InterfaceMethodDeclarationContext ctx) {
+    // interfaceMethodDeclaration -> interfaceMemberDeclaration -> body
+    final ParserRuleContext body = ctx.getParent() == null ? null : ctx.getParent().getParent();
+    enterMethod(ctx, body, ctx.methodHeader(), ctx.interfaceMethodModifier(), ctx.methodBody());
+  }
+
+  @Override
+  public void exitInterfaceMethodDeclaration(
+      final Java20Parser.InterfaceMethodDeclarationContext ctx) {
+    exitMethod(ctx);
+  }
+
+  @Override
+  public void enterVariableDeclarator(final Java20Parser.VariableDeclaratorContext ctx) {
+    // a local shadows the field from its declaration on
+    if (!types.isEmpty() && types.peek().methodName != null) {
+      types.peek().locals.add(ctx.variableDeclaratorId().identifier().getText());
+    }
+  }
+
+  @Override
+  public void enterExpressionName(final Java20Parser.ExpressionNameContext ctx) {
+    if (ctx.ambiguousName() == null) {
+      useField(ctx.identifier().getText());
+    } else {
+      useField(ctx.ambiguousName().identifier().getText());
+    }
+  }
+
+  @Override
+  public void enterPrimaryNoNewArray(final Java20Parser.PrimaryNoNewArrayContext ctx) {
+    if (ctx.methodName() != null) {
+      callMethod(ctx.methodName().getText());
+    } else if (ctx.typeName() != null && ctx.identifier() != null) {
+      // field.call(), parsed as a type name qualifying a method call
+      useField(ctx.typeName().packageName().identifier().getText());
+    } else if (ctx.THIS() != null && ctx.typeName() == null && ctx.pNNA() != null) {
+      usePnna(ctx.pNNA());
+    }
+  }
+
+  @Override
+  public void enterMethodInvocation(final Java20Parser.MethodInvocationContext ctx) {
+    if (ctx.methodName() != null) {
+      callMethod(ctx.methodName().getText());
+    } else if (ctx.typeName() != null && ctx.SUPER() == null) {
+      useField(ctx.typeName().packageName().identifier().getText());
+    } else if (ctx.primary() != null && isThis(ctx.primary())) {
+      callMethod(ctx.identifier().getText());
+    }
+  }
+
+  @Override
+  public void enterFieldAccess(final Java20Parser.FieldAccessContext ctx) {
+    if (ctx.primary() != null && isThis(ctx.primary())) {
+      useField(ctx.identifier().getText());
+    }
+  }
+
+  private void usePnna(final Java20Parser.PNNAContext pnna) {
+    if (pnna.identifier() == null) {
+      return;
+    }
+    if (pnna.LPAREN() == null) {
+      useField(pnna.identifier().getText());
+    } else {
+      callMethod(pnna.identifier().getText());
+    }
+  }
+
+  private static boolean isThis(final Java20Parser.PrimaryContext primary) {
+    return "this".equals(primary.getText());
+  }
+}
@@ -0,0 +1,158 @@
+package net.explorviz.code.analysis.listener;
+
+import java.util.BitSet;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+
+/**
+ * Index of the code and comment lines of a file, built once from its token stream. Code lines are
+ * the lines of non-blank tokens on the default channel or the {@link #SKIPPED_CODE_CHANNEL},
+ * comment lines are counted for comment tokens on the hidden channels. Prefix sums over the token
+ * indices answer the queries for the whole file or the tokens of a parse tree node in constant
+ * time.
+ */
+public final class LineIndex {
+
+  /**
+   * Channel of code tokens hidden from the parser, e.g. skipped method bodies, above the channels
+   * declared by the grammars.
+   */
+  public static final int SKIPPED_CODE_CHANNEL = 16;
+
+  private final int size;
+  /** Non-blank tokens on the default or the skipped code channel. */
+  private final BitSet code = new BitSet();
+  /** Code tokens that are the first code token on their line. */
+  private final BitSet firstOnLine = new BitSet();
+  /** Number of first code tokens on a line before each token index. */
+  private final int[] codeLines;
+  /** Index of the next code token at or after each token index, {@code size} if none. */
+  private final int[] nextCode;
+  /** Number of comment lines before each token index. */
+  private final int[] commentLines;
+
+  /**
+   * Indexes the tokens read so far.
+   *
+   * @param tokens            the token stream, may be {@code null}
+   * @param lineCommentPrefix the prefix of a line comment of the language, e.g. {@code //}
+   */
+  public LineIndex(final CommonTokenStream tokens, final String lineCommentPrefix) {
+    this.size = tokens == null ? 0 : tokens.size();
+    this.codeLines = new int[size + 1];
+    this.nextCode = new int[size + 1];
+    this.commentLines = new int[size + 1];
+
+    int lastCodeLine = -1;
+    for (int i = 0; i < size; i++) {
+      final Token token = tokens.get(i);
+      final String text = token.getText();
+      codeLines[i + 1] = codeLines[i];
+      commentLines[i + 1] = commentLines[i];
+      if (token.getChannel() == Token.DEFAULT_CHANNEL
+          || token.getChannel() == SKIPPED_CODE_CHANNEL) {
+        // the end of file token is not code, its text is a placeholder
+        if (token.getType() != Token.EOF && !isBlank(text)) {
+          code.set(i);
+        }
+        // token lines never decrease, so a line is counted at its first code token
+        if (code.get(i) && token.getLine() != lastCodeLine) {
+          lastCodeLine = token.getLine();
+          firstOnLine.set(i);
+          codeLines[i + 1]++;
+        }
+      } else if (text != null) {
+        commentLines[i + 1] += countCommentLines(text, lineCommentPrefix);
+      }
+    }
+
+    nextCode[size] = size;
+    for (int i = size - 1; i >= 0; i--) {
+      nextCode[i] = code.get(i) ? i : nextCode[i + 1];
+    }
+  }
+
+  /**
+   * Returns the number of lines containing code in the file.
+   *
+   * @return the number of code lines
+   */
+  public int sloc() {
+    return codeLines[size];
+  }
+
+  /**
+   * Returns the number of lines containing code within the tokens of the node.
+   *
+   * @param ctx the node
+   * @return the number of code lines
+   */
+  public int sloc(final ParserRuleContext ctx) {
+    if (ctx == null || ctx.start == null || ctx.stop == null) {
+      return 0;
+    }
+    final int from = Math.max(ctx.start.getTokenIndex(), 0);
+    final int to = Math.min(ctx.stop.getTokenIndex(), size - 1);
+    if (to < from || nextCode[from] > to) {
+      return 0;
+    }
+    // the line of the first code token may have been counted before the node
+    return codeLines[to + 1] - codeLines[from] + (firstOnLine.get(nextCode[from]) ? 0 : 1);
+  }
+
+  /**
+   * Returns the number of comment lines in the file.
+   *
+   * @return the number of comment lines
+   */
+  public int cloc() {
+    return commentLines[size];
+  }
+
+  /**
+   * Returns the number of comment lines within the tokens of the node.
+   *
+   * @param ctx the node
+   * @return the number of comment lines
+   */
+  public int cloc(final ParserRuleContext ctx) {
+    if (ctx == null || ctx.start == null || ctx.stop == null) {
+      return 0;
+    }
+    final int from = Math.max(ctx.start.getTokenIndex(), 0);
+    final int to = Math.min(ctx.stop.getTokenIndex(), size - 1);
+    return to < from ? 0 : commentLines[to + 1] - commentLines[from];
+  }
+
+  private static int countCommentLines(final String text, final String lineCommentPrefix) {
+    final int start = skipBlanks(text);
+    if (text.startsWith(lineCommentPrefix, start)) {
+      return 1;
+    } else if (text.startsWith("/*", start)) {
+      int lines = 1;
+      for (int i = 0; i < text.length(); i++) {
+        if (text.charAt(i) == '\n') {
+          lines++;
+        }
+      }
+      return lines;
+    }
+    return 0;
+  }
+
+  private static boolean isBlank(final String text) {
+    return text == null || skipBlanks(text) == text.length();
+  }
+
+  /**
+   * Returns the index of the first character not removed by {@link String#trim()}.
+   */
+  private static int skipBlanks(final String text) {
+    int i = 0;
+    while (i < text.length() && text.charAt(i) <= ' ') {
+      i++;
+    }
+    return i;
+  }
+}
@@ -0,0 +1,469 @@
+package net.explorviz.code.analysis.listener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import net.explorviz.code.analysis.antlr.generated.Java20Parser;
+import net.explorviz.code.analysis.antlr.generated.Java20ParserBaseListener;
+import net.explorviz.code.analysis.handler.JavaFileDataHandler;
+import net.explorviz.code.analysis.handler.MethodDataHandler;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+/**
+ * Listener calculating the NPath complexity (Nejmeh) for methods and constructors. Every statement
+ * contributing to the complexity reports its value to the enclosing one when it is exited, which
+ * combines the values by the region they were found in, e.g. the then and else branch of an if.
+ * Values are saturated at {@link Long#MAX_VALUE}. Must be walked after a
+ * {@link JavaFileDataListener}, see {@link CompositeParseTreeListener}.
+ */
+public class NPathListener extends Java20ParserBaseListener { // NOPMD
+
+  public static final String NPATH = "npath";
+
+  private final JavaFileDataHandler fileDataHandler;
+  private final Deque<Frame> frames = new ArrayDeque<>();
+
+  /**
+   * The value of a nested statement and the index of its first token.
+   */
+  private record Value(int index, long value) {
+  }
+
+  /**
+   * A statement or expression collecting the values of its nested statements and the boolean
+   * operators of its conditions.
+   */
+  private static final class Frame {
+
+    private final ParserRuleContext ctx;
+    private final MethodDataHandler methodData;
+    private final List<Value> values = new ArrayList<>();
+    private final List<Integer> operators = new ArrayList<>();
+
+    private Frame(final ParserRuleContext ctx, final MethodDataHandler methodData) {
+      this.ctx = ctx;
+      this.methodData = methodData;
+    }
+  }
+
+  public NPathListener(final JavaFileDataHandler fileDataHandler) {
+    this.fileDataHandler = fileDataHandler;
+  }
+
+  private void enterMethod(final ParserRuleContext ctx) {
+    frames.push(new Frame(ctx, fileDataHandler.getCurrentMethodData()));
+  }
+
+  private void exitMethod() {
+    final Frame frame = frames.pop();
+    if (frame.methodData != null) {
+      frame.methodData.addMetric(NPATH, String.valueOf(product(frame, frame.ctx)));
+    }
+  }
+
+  private void enterFrame(final ParserRuleContext ctx) {
+    if (!frames.isEmpty()) {
+      frames.push(new Frame(ctx, null));
+    }
+  }
+
+  private void enterBarrier(final ParserRuleContext ctx) {
+    // values of lambdas and local or anonymous classes do not add to the enclosing method
+    if (!frames.isEmpty()) {
+      frames.push(new Frame(ctx, null));
+    }
+  }
+
+  private void exitBarrier() {
+    if (!frames.isEmpty()) {
+      frames.pop();
+    }
+  }
+
+  private Frame exitFrame() {
+    return frames.isEmpty() ? null : frames.pop();
+  }
+
+  private void report(final Frame frame, final long value) {
+    if (frame != null && !frames.isEmpty() && frame.ctx.getStart() != null) {
+      frames.peek().values.add(new Value(frame.ctx.getStart().getTokenIndex(), value));
+    }
+  }
+
+  private void addOperator(final ParserRuleContext ctx) {
+    if (!frames.isEmpty() && ctx.getChildCount() == 3
+        && ctx.getChild(1) instanceof TerminalNode operator) {
+      frames.peek().operators.add(operator.getSymbol().getTokenIndex());
+    }
+  }
+
+  private static boolean contains(final ParseTree region, final int index) {
+    if (!(region instanceof ParserRuleContext ctx) || ctx.getStart() == null
+        || ctx.getStop() == null) {
+      return false;
+    }
+    return index >= ctx.getStart().getTokenIndex() && index <= ctx.getStop().getTokenIndex();
+  }
+
+  private static long product(final Frame frame, final ParseTree region) {
+    long product = 1;
+    for (final Value value : frame.values) {
+      if (contains(region, value.index())) {
+        product = multiply(product, value.value());
+      }
+    }
+    return product;
+  }
+
+  private static long booleanComplexity(final Frame frame, final ParseTree region) {
+    long complexity = 0;
+    for (final int operator : frame.operators) {
+      if (contains(region, operator)) {
+        complexity++;
+      }
+    }
+    return complexity;
+  }
+
+  private static long add(final long a, final long b) {
+    final long sum = a + b;
+    return sum < 0 ? Long.MAX_VALUE : sum;
+  }
+
+  private static long multiply(final long a, final long b) {
+    return b != 0 && a > Long.MAX_VALUE / b ? Long.MAX_VALUE : a * b;
+  }
+
+  private void exitIf(final ParseTree condition, final ParseTree thenStatement,
+      final ParseTree elseStatement) {
+    final Frame frame = exitFrame();
+    if (frame == null) {
+      return;
+    }
+    // bool_comp of if + npath of then + npath of else (or 1)
+    long npath = add(booleanComplexity(frame, condition), product(frame, thenStatement));
+    npath = add(npath, elseStatement == null ? 1 : product(frame, elseStatement));
+    report(frame, npath);
+  }
+
+  private void exitLoop(final ParseTree body) {
+    final Frame frame = exitFrame();
+    if (frame == null) {
+      return;
+    }
+    // bool_comp of the loop's expressions + npath of the body + 1
+    final long operators = frame.operators.stream().filter(index -> !contains(body, index))
+        .count();
+    report(frame, add(add(operators, product(frame, body)), 1));
+  }
+
+  private void exitSwitch(final ParseTree selector, final Java20Parser.SwitchBlockContext block) {
+    final Frame frame = exitFrame();
+    if (frame == null) {
+      return;
+    }
+    // bool_comp of the selector + sum of the npath of all cases
+    long npath = booleanComplexity(frame, selector);
+    if (block != null) {
+      for (final Java20Parser.SwitchRuleContext rule : block.switchRule()) {
+        npath = add(npath, product(frame, rule));
+      }
+      for (final Java20Parser.SwitchBlockStatementGroupContext group
+          : block.switchBlockStatementGroup()) {
+        // labels falling through count as cases of their own
+        npath = add(npath, add(group.switchLabel().size() - 1, product(frame, group)));
+      }
+      npath = add(npath, block.switchLabel().size());
+    }
+    report(frame, npath);
+  }
+
+  @Override
+  public void enterMethodDeclaration(final Java20Parser.MethodDeclarationContext ctx) {
+    enterMethod(ctx);
+  }
+
+  @Override
+  public void exitMethodDeclaration(final Java20Parser.MethodDeclarationContext ctx) {
+    exitMethod();
+  }
+
+  @Override
+  public void enterInterfaceMethodDeclaration(
+      final Java20Parser.InterfaceMethodDeclarationContext ctx) {
+    enterMethod(ctx);
+  }
+
+  @Override
+  public void exitInterfaceMethodDeclaration(
+      final Java20Parser.InterfaceMethodDeclarationContext ctx) {
+    exitMethod();
+  }
+
+  @Override
+  public void enterConstructorDeclaration(final Java20Parser.ConstructorDeclarationContext ctx) {
+    enterMethod(ctx);
+  }
+
+  @Override
+  public void exitConstructorDeclaration(final Java20Parser.ConstructorDeclarationContext ctx) {
+    exitMethod();
+  }
+
+  @Override
+  public void enterLambdaExpression(final Java20Parser.LambdaExpressionContext ctx) {
+    enterBarrier(ctx);
+  }
+
+  @Override
+  public void exitLambdaExpression(final Java20Parser.LambdaExpressionContext ctx) {
+    exitBarrier();
+  }
+
+  @Override
+  public void enterClassBody(final Java20Parser.ClassBodyContext ctx) {
+    enterBarrier(ctx);
+  }
+
+  @Override
+  public void exitClassBody(final Java20Parser.ClassBodyContext ctx) {
+    exitBarrier();
+  }
+
+  @Override
+  public void enterInterfaceBody(final Java20Parser.InterfaceBodyContext ctx) {
+    enterBarrier(ctx);
+  }
+
+  @Override
+  public void exitInterfaceBody(final Java20Parser.InterfaceBodyContext ctx) {
+    exitBarrier();
+  }
+
+  @Override
+  public void enterEnumBody(final Java20Parser.EnumBodyContext ctx) {
+    enterBarrier(ctx);
+  }
+
+  @Override
+  public void exitEnumBody(final Java20Parser.EnumBodyContext ctx) {
+    exitBarrier();
+  }
+
+  @Override
+  public void enterConditionalOrExpression(
+      final Java20Parser.ConditionalOrExpressionContext ctx) {
+    addOperator(ctx);
+  }
+
+  @Override
+  public void enterConditionalAndExpression(
+      final Java20Parser.ConditionalAndExpressionContext ctx) {
+    addOperator(ctx);
+  }
+
+  @Override
+  public void enterIfThenStatement(final Java20Parser.IfThenStatementContext ctx) {
+    enterFrame(ctx);
+  }
+
+  @Override
+  public void exitIfThenStatement(final Java20Parser.IfThenStatementContext ctx) {
+    exitIf(ctx.expression(), ctx.statement(), null);
+  }
+
+  @Override
+  public void enterIfThenElseStatement(final Java20Parser.IfThenElseStatementContext ctx) {
+    enterFrame(ctx);
+  }
+
+  @Override
+  public void exitIfThenElseStatement(final Java20Parser.IfThenElseStatementContext ctx) {
+    exitIf(ctx.expression(), ctx.statementNoShortIf(), ctx.statement());
+  }
+
+  @Override
+  public void enterIfThenElseStatementNoShortIf(
+      final Java20Parser.IfThenElseStatementNoShortIfContext ctx) {
+    enterFrame(ctx);
+  }
+
+  @Override
+  public void exitIfThenElseStatementNoShortIf(
+      final Java20Parser.IfThenElseStatementNoShortIfContext ctx) {
+    exitIf(ctx.expression(), ctx.statementNoShortIf(0), ctx.statementNoShortIf(1));
+  }
+
+  @Override
+  public void enterWhileStatement(final Java20Parser.WhileStatementContext ctx) {
+    enterFrame(ctx);
+  }
+
+  @Override
+  public void exitWhileStatement(final Java20Parser.WhileStatementContext ctx) {
+    exitLoop(ctx.statement());
+  }
+
+  @Override
+  public void enterWhileStatementNoShortIf(
+      final Java20Parser.WhileStatementNoShortIfContext ctx) {
+    enterFrame(ctx);
+  }
+
+  @Override
+  public void exitWhileStatementNoShortIf(
+      final Java20Parser.WhileStatementNoShortIfContext ctx) {
+    exitLoop(ctx.statementNoShortIf());
+  }
+
+  @Override
+  public void enterDoStatement(final Java20Parser.DoStatementContext ctx) {
+    enterFrame(ctx);
+  }
+
+  @Override
+  public void exitDoStatement(final Java20Parser.DoStatementContext ctx) {
+    exitLoop(ctx.statement());
+  }
+
+  @Override
+  public void enterBasicForStatement(final Java20Parser.BasicForStatementContext ctx) {
+    enterFrame(ctx);
+  }
+
+  @Override
+  public void exitBasicForStatement(final Java20Parser.BasicForStatementContext ctx) {
+    exitLoop(ctx.statement());
+  }
+
+  @Override
+  public void enterBasicForStatementNoShortIf(
+      final Java20Parser.BasicForStatementNoShortIfContext ctx) {
+    enterFrame(ctx);
+  }
+
+  @Override
+  public void exitBasicForStatementNoShortIf(
+      final Java20Parser.BasicForStatementNoShortIfContext ctx) {
+    exitLoop(ctx.statementNoShortIf());
+  }
+
+  @Override
+  public void enterEnhancedForStatement(final Java20Parser.EnhancedForStatementContext ctx) {
+    enterFrame(ctx);
+  }
+
+  @Override
+  public void exitEnhancedForStatement(final Java20Parser.EnhancedForStatementContext ctx) {
+    exitLoop(ctx.statement());
+  }
+
+  @Override
+  public void enterEnhancedForStatementNoShortIf(
+      final Java20Parser.EnhancedForStatementNoShortIfContext ctx) {
+    enterFrame(ctx);
+  }
+
+  @Override
+  public void exitEnhancedForStatementNoShortIf(
+      final Java20Parser.EnhancedForStatementNoShortIfContext ctx) {
+    exitLoop(ctx.statementNoShortIf());
+  }
+
+  @Override
+  public void enterSwitchStatement(final Java20Parser.SwitchStatementContext ctx) {
+    enterFrame(ctx);
+  }
+
+  @Override
+  public void exitSwitchStatement(final Java20Parser.SwitchStatementContext ctx) {
+    exitSwitch(ctx.expression(), ctx.switchBlock());
+  }
+
+  @Override
+  public void enterSwitchExpression(final Java20Parser.SwitchExpressionContext ctx) {
+    enterFrame(ctx);
+  }
+
+  @Override
+  public void exitSwitchExpression(final Java20Parser.SwitchExpressionContext ctx) {
+    exitSwitch(ctx.expression(), ctx.switchBlock());
+  }
+
+  @Override
+  public void enterTryStatement(final Java20Parser.TryStatementContext ctx) {
+    enterFrame(ctx);
+  }
+
+  @Override
+  public void exitTryStatement(final Java20Parser.TryStatementContext ctx) {
+    final Frame frame = exitFrame();
+    if (frame == null) {
+      return;
+    }
+    // npath of the try block + npath of all catch blocks + npath of the finally block
+    final Java20Parser.TryWithResourcesStatementContext resources =
+        ctx.tryWithResourcesStatement();
+    final Java20Parser.CatchesContext catches =
+        resources == null ? ctx.catches() : resources.catches();
+    final Java20Parser.FinallyBlockContext finallyBlock =
+        resources == null ? ctx.finallyBlock() : resources.finallyBlock();
+    long npath = product(frame, resources == null ? ctx.block() : resources.block());
+    if (catches != null) {
+      for (final Java20Parser.CatchClauseContext catchClause : catches.catchClause()) {
+        npath = add(npath, product(frame, catchClause));
+      }
+    }
+    if (finallyBlock != null) {
+      npath = add(npath, product(frame, finallyBlock));
+    }
+    report(frame, npath);
+  }
+
+  @Override
+  public void enterReturnStatement(final Java20Parser.ReturnStatementContext ctx) {
+    enterFrame(ctx);
+  }
+
+  @Override
+  public void exitReturnStatement(final Java20Parser.ReturnStatementContext ctx) {
+    final Frame frame = exitFrame();
+    if (frame == null) {
+      return;
+    }
+    // bool_comp of the expression + npath of its conditional expressions, at least 1
+    final long conditionals = product(frame, ctx.expression());
+    long npath = booleanComplexity(frame, ctx.expression());
+    if (conditionals > 1) {
+      npath = add(npath, conditionals);
+    }
+    report(frame, Math.max(1, npath));
+  }
+
+  @Override
+  public void enterConditionalExpression(final Java20Parser.ConditionalExpressionContext ctx) {
+    if (ctx.QUESTION() != null) {
+      enterFrame(ctx);
+    }
+  }
+
+  @Override
+  public void exitConditionalExpression(final Java20Parser.ConditionalExpressionContext ctx) {
+    if (ctx.QUESTION() == null) {
+      return;
+    }
+    final Frame frame = exitFrame();
+    if (frame == null) {
+      return;
+    }
+    // bool_comp of the condition + npath of both alternatives
+    final ParseTree elseExpression = ctx.getChild(ctx.getChildCount() - 1);
+    long npath = booleanComplexity(frame, ctx.conditionalOrExpression());
+    npath = add(npath, product(frame, ctx.expression()));
+    npath = add(npath, product(frame, elseExpression));
+    report(frame, npath);
+  }
+}
@@ -0,0 +1,276 @@
+package net.explorviz.code.analysis.listener;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import net.explorviz.code.analysis.antlr.generated.Java20Parser;
+import net.explorviz.code.analysis.antlr.generated.Java20ParserBaseListener;
+import net.explorviz.code.analysis.handler.JavaFileDataHandler;
+import net.explorviz.code.analysis.handler.MethodDataHandler;
+
+/**
+ * Listener calculating the nested block depth for methods, counting the same blocks as the
+ * {@code NestedBlockDepthVisitor} does on the JavaParser tree. The method itself is the first
+ * level. Must be walked after a {@link JavaFileDataListener}, see
+ * {@link CompositeParseTreeListener}.
+ */
+public class NestedBlockDepthListener extends Java20ParserBaseListener { // NOPMD
+
+  public static final String NESTED_BLOCK_DEPTH = "nestedBlockDepth";
+
+  private final JavaFileDataHandler fileDataHandler;
+  private final Deque<MethodFrame> methods = new ArrayDeque<>();
+
+  /**
+   * A method and its current and maximum depth.
+   */
+  private static final class MethodFrame {
+
+    private final MethodDataHandler methodData;
+    private int depth = 1;
+    private int maxDepth = 1;
+
+    private MethodFrame(final MethodDataHandler methodData) {
+      this.methodData = methodData;
+    }
+  }
+
+  public NestedBlockDepthListener(final JavaFileDataHandler fileDataHandler) {
+    this.fileDataHandler = fileDataHandler;
+  }
+
+  private void enterMethod() {
+    methods.push(new MethodFrame(fileDataHandler.getCurrentMethodData()));
+  }
+
+  private void exitMethod() {
+    final MethodFrame method = methods.pop();
+    if (method.methodData != null) {
+      method.methodData.addMetric(NESTED_BLOCK_DEPTH, String.valueOf(method.maxDepth));
+    }
+  }
+
+  private void enterBlock() {
+    if (!methods.isEmpty()) {
+      final MethodFrame method = methods.peek();
+      method.depth++;
+      method.maxDepth = Math.max(method.maxDepth, method.depth);
+    }
+  }
+
+  private void exitBlock() {
+    if (!methods.isEmpty()) {
+      methods.peek().depth--;
+    }
+  }
+
+  @Override
+  public void enterMethodDeclaration(final Java20Parser.MethodDeclarationContext ctx) {
+    enterMethod();
+  }
+
+  @Override
+  public void exitMethodDeclaration(final Java20Parser.MethodDeclarationContext ctx) {
+    exitMethod();
+  }
+
+  @Override
+  public void enterInterfaceMethodDeclaration(
+      final Java20Parser.InterfaceMethodDeclarationContext ctx) {
+    enterMethod();
+  }
+
+  @Override
+  public void exitInterfaceMethodDeclaration(
+      final Java20Parser.InterfaceMethodDeclarationContext ctx) {
+    exitMethod();
+  }
+
+  @Override
+  public void enterConstructorDeclaration(final Java20Parser.ConstructorDeclarationContext ctx) {
+    enterMethod();
+  }
+
+  @Override
+  public void exitConstructorDeclaration(final Java20Parser.ConstructorDeclarationContext ctx) {
+    exitMethod();
+  }
+
+  @Override
+  public void enterIfThenStatement(final Java20Parser.IfThenStatementContext ctx) {
+    enterBlock();
+  }
+
+  @Override
+  public void exitIfThenStatement(final Java20Parser.IfThenStatementContext ctx) {
+    exitBlock();
+  }
+
+  @Override
+  public void enterIfThenElseStatement(final Java20Parser.IfThenElseStatementContext ctx) {
+    enterBlock();
+  }
+
+  @Override
+  public void exitIfThenElseStatement(final Java20Parser.IfThenElseStatementContext ctx) {
+    exitBlock();
+  }
+
+  @Override
+  public void enterIfThenElseStatementNoShortIf(
+      final Java20Parser.IfThenElseStatementNoShortIfContext ctx) {
+    enterBlock();
+  }
+
+  @Override
+  public void exitIfThenElseStatementNoShortIf(
+      final Java20Parser.IfThenElseStatementNoShortIfContext ctx) {
+    exitBlock();
+  }
+
+  @Override
+  public void enterWhileStatement(final Java20Parser.WhileStatementContext ctx) {
+    enterBlock();
+  }
+
+  @Override
+  public void exitWhileStatement(final Java20Parser.WhileStatementContext ctx) {
+    exitBlock();
+  }
+
+  @Override
+  public void enterWhileStatementNoShortIf(
+      final Java20Parser.WhileStatementNoShortIfContext ctx) {
+    enterBlock();
+  }
+
+  @Override
+  public void exitWhileStatementNoShortIf(
+      final Java20Parser.WhileStatementNoShortIfContext ctx) {
+    exitBlock();
+  }
+
+  @Override
+  public void enterDoStatement(final Java20Parser.DoStatementContext ctx) {
+    enterBlock();
+  }
+
+  @Override
+  public void exitDoStatement(final Java20Parser.DoStatementContext ctx) {
+    exitBlock();
+  }
+
+  @Override
+  public void enterBasicForStatement(final Java20Parser.BasicForStatementContext ctx) {
+    enterBlock();
+  }
+
+  @Override
+  public void exitBasicForStatement(final Java20Parser.BasicForStatementContext ctx) {
+    exitBlock();
+  }
+
+  @Override
+  public void enterBasicForStatementNoShortIf(
+      final Java20Parser.BasicForStatementNoShortIfContext ctx) {
+    enterBlock();
+  }
+
+  @Override
+  public void exitBasicForStatementNoShortIf(
+      final Java20Parser.BasicForStatementNoShortIfContext ctx) {
+    exitBlock();
+  }
+
+  @Override
+  public void enterEnhancedForStatement(final Java20Parser.EnhancedForStatementContext ctx) {
+    enterBlock();
+  }
+
+  @Override
+  public void exitEnhancedForStatement(final Java20Parser.EnhancedForStatementContext ctx) {
+    exitBlock();
+  }
+
+  @Override
+  public void enterEnhancedForStatementNoShortIf(
+      final Java20Parser.EnhancedForStatementNoShortIfContext ctx) {
+    enterBlock();
+  }
+
+  @Override
+  public void exitEnhancedForStatementNoShortIf(
+      final Java20Parser.EnhancedForStatementNoShortIfContext ctx) {
+    exitBlock();
+  }
+
+  @Override
+  public void enterTryStatement(final Java20Parser.TryStatementContext ctx) {
+    enterBlock();
+  }
+
+  @Override
+  public void exitTryStatement(final Java20Parser.TryStatementContext ctx) {
+    exitBlock();
+  }
+
+  @Override
+  public void enterSwitchStatement(final Java20Parser.SwitchStatementContext ctx) {
+    enterBlock();
+  }
+
+  @Override
+  public void exitSwitchStatement(final Java20Parser.SwitchStatementContext ctx) {
+    exitBlock();
+  }
+
+  @Override
+  public void enterSwitchBlockStatementGroup(
+      final Java20Parser.SwitchBlockStatementGroupContext ctx) {
+    enterBlock();
+  }
+
+  @Override
+  public void exitSwitchBlockStatementGroup(
+      final Java20Parser.SwitchBlockStatementGroupContext ctx) {
+    exitBlock();
+  }
+
+  @Override
+  public void enterSwitchRule(final Java20Parser.SwitchRuleContext ctx) {
+    enterBlock();
+  }
+
+  @Override
+  public void exitSwitchRule(final Java20Parser.SwitchRuleContext ctx) {
+    exitBlock();
+  }
+
+  @Override
+  public void enterSwitchLabel(final Java20Parser.SwitchLabelContext ctx) {
+    // labels without statements at the end of a switch are an empty case of their own
+    if (ctx.getParent() instanceof Java20Parser.SwitchBlockContext) {
+      enterBlock();
+      exitBlock();
+    }
+  }
+
+  @Override
+  public void enterSynchronizedStatement(final Java20Parser.SynchronizedStatementContext ctx) {
+    enterBlock();
+  }
+
+  @Override
+  public void exitSynchronizedStatement(final Java20Parser.SynchronizedStatementContext ctx) {
+    exitBlock();
+  }
+
+  @Override
+  public void enterLambdaExpression(final Java20Parser.LambdaExpressionContext ctx) {
+    enterBlock();
+  }
+
+  @Override
+  public void exitLambdaExpression(final Java20Parser.LambdaExpressionContext ctx) {
+    exitBlock();
+  }
+}
@@ -18,6 +18,7 @@ public class PythonFileDataListener extends PythonParserBaseListener implements
 
   private final PythonFileDataHandler fileDataHandler;
   private final CommonTokenStream tokens;
+  private final LineIndex lineIndex;
   private int functionCount = 0;
   private int variableCount = 0;
 
@@ -25,13 +26,14 @@ public class PythonFileDataListener extends PythonParserBaseListener implements
       final CommonTokenStream tokens) {
     this.fileDataHandler = fileDataHandler;
     this.tokens = tokens;
+    this.lineIndex = new LineIndex(tokens, "#");
   }
 
   @Override
   public void enterFile_input(final PythonParser.File_inputContext ctx) {
     // Calculate total source SLOC and CLOC
-    final int sloc = getSloc(tokens);
-    final int cloc = getCloc(ctx);
+    final int sloc = lineIndex.sloc();
+    final int cloc = lineIndex.cloc();
 
     fileDataHandler.addMetric(SLOC, String.valueOf(sloc));
     fileDataHandler.addMetric(CLOC, String.valueOf(cloc));
@@ -77,7 +79,7 @@ public class PythonFileDataListener extends PythonParserBaseListener implements
       final int classLoc = calculateLoc(ctx);
       final var classData = fileDataHandler.getCurrentClassData();
       if (classData != null) {
-        classData.addMetric(SLOC, String.valueOf(getSloc(ctx, tokens)));
+        classData.addMetric(SLOC, String.valueOf(lineIndex.sloc(ctx)));
         classData.addMetric(LOC, String.valueOf(classLoc));
 
         // Extract superclasses
@@ -118,6 +120,7 @@ public class PythonFileDataListener extends PythonParserBaseListener implements
 
       final var methodData = fileDataHandler.getCurrentClassData()
           .addMethod(functionName, functionFqn, "None"); // Python default return is None
+      fileDataHandler.bindFunction(ctx, methodData);
 
       LOGGER.atTrace()
           .addArgument(functionName)
@@ -125,7 +128,7 @@ public class PythonFileDataListener extends PythonParserBaseListener implements
 
       // Calculate function SLOC and LOC
       final int functionLoc = calculateLoc(ctx);
-      methodData.addMetric(SLOC, String.valueOf(getSloc(ctx, tokens)));
+      methodData.addMetric(SLOC, String.valueOf(lineIndex.sloc(ctx)));
       methodData.addMetric(LOC, String.valueOf(functionLoc));
 
       // Check for async - commented out for now
@@ -136,6 +139,7 @@ public class PythonFileDataListener extends PythonParserBaseListener implements
           functionName,
           "None" // TODO: Extract actual return type from type hints
       );
+      fileDataHandler.bindFunction(ctx, funcBuilder);
 
       // Set function location - find actual start/end lines
       int startLine = ctx.start != null ? ctx.start.getLine() : 0;
@@ -178,7 +182,7 @@ public class PythonFileDataListener extends PythonParserBaseListener implements
 
       // Calculate function SLOC and LOC using actual start and end lines
       final int functionLoc = (endLine >= startLine) ? (endLine - startLine + 1) : 0;
-      funcBuilder.addMetric(SLOC, String.valueOf(getSloc(ctx, tokens)));
+      funcBuilder.addMetric(SLOC, String.valueOf(lineIndex.sloc(ctx)));
       funcBuilder.addMetric(LOC, String.valueOf(functionLoc));
 
       LOGGER.atTrace()
@@ -198,30 +202,4 @@ public class PythonFileDataListener extends PythonParserBaseListener implements
       }
     }
   }
-
-  private int getCloc(final org.antlr.v4.runtime.ParserRuleContext ctx) {
-    if (ctx == null || tokens == null) {
-      return 0;
-    }
-
-    int commentLines = 0;
-
-    for (int i = 0; i < tokens.size(); i++) {
-      final Token token = tokens.get(i);
-
-      if (token.getChannel() != 0) {
-        final String tokenText = token.getText();
-        if (tokenText != null) {
-          if (tokenText.trim().startsWith("#")) {
-            commentLines++;
-          } else if (tokenText.trim().startsWith("/*")) {
-            final long newlines = tokenText.chars().filter(ch -> ch == '\n').count();
-            commentLines += (int) newlines + 1;
-          }
-        }
-      }
-    }
-
-    return commentLines;
-  }
 }
@@ -18,7 +18,7 @@ public class TypeScriptFileDataListener extends TypeScriptParserBaseListener imp
 
   private final TypeScriptFileDataHandler fileDataHandler;
   private final String fileExtension;
-  private final CommonTokenStream tokens;
+  private final LineIndex lineIndex;
   private int functionCount = 0;
   private int variableCount = 0;
 
@@ -26,14 +26,14 @@ public class TypeScriptFileDataListener extends TypeScriptParserBaseListener imp
       final String fileExtension, final CommonTokenStream tokens) {
     this.fileDataHandler = fileDataHandler;
     this.fileExtension = fileExtension;
-    this.tokens = tokens;
+    this.lineIndex = new LineIndex(tokens, "//");
   }
 
   @Override
   public void enterProgram(final TypeScriptParser.ProgramContext ctx) {
     // Calculate total source SLOC and CLOC
-    final int sloc = getSloc(tokens);
-    final int cloc = getCloc(ctx);
+    final int sloc = lineIndex.sloc();
+    final int cloc = lineIndex.cloc();
 
     fileDataHandler.addMetric(SLOC, String.valueOf(sloc));
     fileDataHandler.addMetric(CLOC, String.valueOf(cloc));
@@ -80,7 +80,7 @@ public class TypeScriptFileDataListener extends TypeScriptParserBaseListener imp
       final int classLoc = calculateLoc(ctx);
       final var classData = fileDataHandler.getCurrentClassData();
       if (classData != null) {
-        classData.addMetric(SLOC, String.valueOf(getSloc(ctx, tokens)));
+        classData.addMetric(SLOC, String.valueOf(lineIndex.sloc(ctx)));
         classData.addMetric(LOC, String.valueOf(classLoc));
 
         if (ctx.classHeritage() != null && ctx.classHeritage().classExtendsClause() != null) {
@@ -112,7 +112,7 @@ public class TypeScriptFileDataListener extends TypeScriptParserBaseListener imp
 
         // Calculate interface SLOC and LOC
         final int interfaceLoc = calculateLoc(ctx);
-        classData.addMetric(SLOC, String.valueOf(getSloc(ctx, tokens)));
+        classData.addMetric(SLOC, String.valueOf(lineIndex.sloc(ctx)));
         classData.addMetric(LOC, String.valueOf(interfaceLoc));
 
         if (ctx.interfaceExtendsClause() != null) {
@@ -151,6 +151,7 @@ public class TypeScriptFileDataListener extends TypeScriptParserBaseListener imp
       final var classData = fileDataHandler.getCurrentClassData();
       if (classData != null) {
         final var methodData = classData.addMethod(methodName, methodFqn, "void"); // TODO: Extract actual return type
+        fileDataHandler.bindFunction(ctx, methodData);
 
         // Set method location
         if (ctx.start != null && ctx.stop != null) {
@@ -159,7 +160,7 @@ public class TypeScriptFileDataListener extends TypeScriptParserBaseListener imp
 
         // Calculate method SLOC and LOC
         final int methodLoc = calculateLoc(ctx);
-        methodData.addMetric(SLOC, String.valueOf(getSloc(ctx, tokens)));
+        methodData.addMetric(SLOC, String.valueOf(lineIndex.sloc(ctx)));
         methodData.addMetric(LOC, String.valueOf(methodLoc));
 
         LOGGER.atTrace()
@@ -179,6 +180,7 @@ public class TypeScriptFileDataListener extends TypeScriptParserBaseListener imp
       if (classData != null) {
         final String constructorFqn = "constructor#1"; // TODO: Add proper parameter hashing
         final var methodData = classData.addConstructor("constructor", constructorFqn);
+        fileDataHandler.bindFunction(ctx, methodData);
 
         // Set constructor location
         if (ctx.start != null && ctx.stop != null) {
@@ -187,7 +189,7 @@ public class TypeScriptFileDataListener extends TypeScriptParserBaseListener imp
 
         // Calculate constructor SLOC and LOC
         final int constructorLoc = calculateLoc(ctx);
-        methodData.addMetric(SLOC, String.valueOf(getSloc(ctx, tokens)));
+        methodData.addMetric(SLOC, String.valueOf(lineIndex.sloc(ctx)));
         methodData.addMetric(LOC, String.valueOf(constructorLoc));
 
         LOGGER.atTrace()
@@ -210,6 +212,7 @@ public class TypeScriptFileDataListener extends TypeScriptParserBaseListener imp
 
         final var methodData = fileDataHandler.getCurrentClassData()
             .addMethod(functionName, functionFqn, "void"); // TODO: Extract actual return type
+        fileDataHandler.bindFunction(ctx, methodData);
 
         LOGGER.atTrace()
             .addArgument(functionName)
@@ -217,7 +220,7 @@ public class TypeScriptFileDataListener extends TypeScriptParserBaseListener imp
 
         // Calculate function SLOC and LOC
         final int functionLoc = calculateLoc(ctx);
-        methodData.addMetric(SLOC, String.valueOf(getSloc(ctx, tokens)));
+        methodData.addMetric(SLOC, String.valueOf(lineIndex.sloc(ctx)));
         methodData.addMetric(LOC, String.valueOf(functionLoc));
       } else {
         // Global function - track it separately!
@@ -225,6 +228,7 @@ public class TypeScriptFileDataListener extends TypeScriptParserBaseListener imp
             functionName,
             "void" // TODO: Extract actual return type
         );
+        fileDataHandler.bindFunction(ctx, methodHandler);
 
         // Set function location
         if (ctx.start != null && ctx.stop != null) {
@@ -233,7 +237,7 @@ public class TypeScriptFileDataListener extends TypeScriptParserBaseListener imp
 
         // Calculate LOC and SLOC
         final int functionLoc = calculateLoc(ctx);
-        methodHandler.addMetric(SLOC, String.valueOf(getSloc(ctx, tokens)));
+        methodHandler.addMetric(SLOC, String.valueOf(lineIndex.sloc(ctx)));
         methodHandler.addMetric(LOC, String.valueOf(functionLoc));
 
         // Check for async
@@ -270,10 +274,11 @@ public class TypeScriptFileDataListener extends TypeScriptParserBaseListener imp
 
         final var methodData = fileDataHandler.getCurrentClassData()
             .addMethod(functionName, functionFqn, "void");
+        fileDataHandler.bindFunction(ctx, methodData);
 
         // Calculate method SLOC and LOC
         final int methodLoc = calculateLoc(ctx);
-        methodData.addMetric(SLOC, String.valueOf(getSloc(ctx, tokens)));
+        methodData.addMetric(SLOC, String.valueOf(lineIndex.sloc(ctx)));
         methodData.addMetric(LOC, String.valueOf(methodLoc));
 
         LOGGER.atTrace()
@@ -284,6 +289,7 @@ public class TypeScriptFileDataListener extends TypeScriptParserBaseListener imp
         final var methodHandler = fileDataHandler.addGlobalFunction(
             functionName,
             "void");
+        fileDataHandler.bindFunction(ctx, methodHandler);
 
         // Set function location
         if (ctx.start != null && ctx.stop != null) {
@@ -292,7 +298,7 @@ public class TypeScriptFileDataListener extends TypeScriptParserBaseListener imp
 
         // Calculate SLOC and LOC
         final int functionLoc = calculateLoc(ctx);
-        methodHandler.addMetric(SLOC, String.valueOf(getSloc(ctx, tokens)));
+        methodHandler.addMetric(SLOC, String.valueOf(lineIndex.sloc(ctx)));
         methodHandler.addMetric(LOC, String.valueOf(functionLoc));
 
         LOGGER.atTrace()
@@ -340,39 +346,4 @@ public class TypeScriptFileDataListener extends TypeScriptParserBaseListener imp
   public void enterVariableDeclaration(final TypeScriptParser.VariableDeclarationContext ctx) {
     variableCount++;
   }
-
-  /**
-   * Get comment lines of code by counting tokens on the hidden channel. ANTLR
-   * places comments on a hidden channel, so we need to extract them from there.
-   */
-  private int getCloc(final ParserRuleContext ctx) {
-    if (ctx == null || tokens == null) {
-      return 0;
-    }
-
-    int commentLines = 0;
-
-    // Iterate through all tokens to find comments on the hidden channel
-    for (int i = 0; i < tokens.size(); i++) {
-      final var token = tokens.get(i);
-
-      // Comments are typically on channel 1 (hidden channel)
-      if (token.getChannel() != 0) {
-        final String tokenText = token.getText();
-
-        if (tokenText != null) {
-          // Count lines in single-line comments (//)
-          if (tokenText.trim().startsWith("//")) {
-            commentLines++;
-          } else if (tokenText.trim().startsWith("/*")) {
-            // Count the number of newlines in the comment
-            final long newlines = tokenText.chars().filter(ch -> ch == '\n').count();
-            commentLines += (int) newlines + 1; // +1 for the first line
-          }
-        }
-      }
-    }
-
-    return commentLines;
-  }
 }
@@ -3,13 +3,17 @@ package net.explorviz.code.analysis.parser;
 import jakarta.enterprise.context.ApplicationScoped;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
 import net.explorviz.code.analysis.antlr.generated.CPP14Lexer;
 import net.explorviz.code.analysis.antlr.generated.CPP14Parser;
+import net.explorviz.code.analysis.collector.FusedCollectorListener;
+import net.explorviz.code.analysis.collector.GrammarProfiles;
+import net.explorviz.code.analysis.exceptions.ParseBudgetExceededException;
 import net.explorviz.code.analysis.handler.CppFileDataHandler;
 import net.explorviz.code.analysis.listener.CppFileDataListener;
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CharStreams;
-import org.antlr.v4.runtime.CommonTokenStream;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,12 +26,50 @@ public class AntlrCppParserService {
 
   public static final Logger LOGGER = LoggerFactory.getLogger(AntlrCppParserService.class);
 
+  private final TwoStageParsing twoStageParsing = new TwoStageParsing();
+  private final ReusableParsers<CPP14Lexer, CPP14Parser> parsers =
+      new ReusableParsers<>(CPP14Lexer::new, CPP14Parser::new);
+
   public CppFileDataHandler parseFileContent(final String fileContent, final String fileName,
       final String fileHash) {
+    return parseFileContent(CharStreams.fromString(fileContent, fileName), fileName, fileHash,
+        ParseGuard.NONE);
+  }
+
+  /**
+   * Parses the content of a file within the limits of the given guard.
+   *
+   * @param charStream the content of the file
+   * @param fileName   the name or path of the file
+   * @param fileHash   the object id of the file
+   * @param guard      the guard limiting the parse
+   * @return the file data, {@code null} if the file could not be parsed
+   * @throws ParseBudgetExceededException if the parse exceeds the limits of the guard
+   */
+  public CppFileDataHandler parseFileContent(final CharStream charStream, final String fileName,
+      final String fileHash, final ParseGuard guard) {
+    return parseFileContent(charStream, fileName, fileHash, guard, Set.of());
+  }
+
+  /**
+   * Parses the content of a file within the limits of the given guard and calculates the
+   * metrics of the given collectors in the same walk of the parse tree.
+   *
+   * @param charStream       the content of the file
+   * @param fileName         the name or path of the file
+   * @param fileHash         the object id of the file
+   * @param guard            the guard limiting the parse
+   * @param metricCollectors the names of the metric collectors, none to skip the metrics
+   * @return the file data, {@code null} if the file could not be parsed
+   * @throws ParseBudgetExceededException if the parse exceeds the limits of the guard
+   */
+  public CppFileDataHandler parseFileContent(final CharStream charStream, final String fileName,
+      final String fileHash, final ParseGuard guard, final Set<String> metricCollectors) {
     try {
       LOGGER.trace("Parsing C/C++ file content for {}", fileName);
-      final CharStream charStream = CharStreams.fromString(fileContent);
-      return parse(charStream, fileName, fileHash);
+      return parse(charStream, fileName, fileHash, guard, metricCollectors);
+    } catch (ParseBudgetExceededException e) { // NOPMD
+      throw e;
     } catch (Exception e) {
       LOGGER.error("Failed to parse C/C++ file content for {}: {}", fileName, e.getMessage(), e);
       return null;
@@ -40,7 +82,8 @@ public class AntlrCppParserService {
       final Path path = Path.of(pathToFile);
       LOGGER.trace("Parsing C/C++ file for {}", pathToFile);
       final CharStream charStream = CharStreams.fromPath(path);
-      return parse(charStream, path.getFileName().toString(), fileHash);
+      return parse(charStream, path.getFileName().toString(), fileHash, ParseGuard.NONE,
+          Set.of());
     } catch (IOException e) {
       LOGGER.error("Failed to read C/C++ file {}: {}", pathToFile, e.getMessage());
       throw e;
@@ -51,28 +94,43 @@ public class AntlrCppParserService {
   }
 
   private CppFileDataHandler parse(final CharStream charStream, final String fileName,
-      final String fileHash) {
-    // Create lexer and parser
-    final CPP14Lexer lexer = new CPP14Lexer(charStream);
-    final CommonTokenStream tokens = new CommonTokenStream(lexer);
-    final CPP14Parser parser = new CPP14Parser(tokens);
+      final String fileHash, final ParseGuard guard, final Set<String> metricCollectors) {
+    // Reuse the lexer and parser of this thread
+    try (ReusableParsers.Lease<CPP14Lexer, CPP14Parser> lease =
+        parsers.acquire(charStream, guard)) {
+      final CPP14Parser parser = lease.parser();
+
+      // Parse the translation unit (entry point for C/C++)
+      final CPP14Parser.TranslationUnitContext translationUnit = twoStageParsing.parse(parser,
+          parser::translationUnit);
 
-    // Parse the translation unit (entry point for C/C++)
-    final CPP14Parser.TranslationUnitContext translationUnit = parser.translationUnit();
+      // Create C/C++ file data handler
+      final CppFileDataHandler fileDataHandler = new CppFileDataHandler(fileName);
+      fileDataHandler.setFileHash(fileHash);
 
-    // Create C/C++ file data handler
-    final CppFileDataHandler fileDataHandler = new CppFileDataHandler(fileName);
-    fileDataHandler.setFileHash(fileHash);
+      // Create and execute the listener
+      final CppFileDataListener listener = new CppFileDataListener(fileDataHandler, lease.tokens());
+      ParseTreeWalker.DEFAULT.walk(FusedCollectorListener.withCollectors(listener,
+          GrammarProfiles.CPP, metricCollectors, fileDataHandler), translationUnit);
 
-    // Create and execute the listener
-    final CppFileDataListener listener = new CppFileDataListener(fileDataHandler, tokens);
-    final ParseTreeWalker walker = new ParseTreeWalker();
-    walker.walk(listener, translationUnit);
+      return fileDataHandler;
+    }
+  }
 
-    return fileDataHandler;
+  /**
+   * Returns how often parsing needed the full LL prediction.
+   *
+   * @return the statistics of the two parse stages
+   */
+  public Map<String, Long> getPredictionStats() {
+    return twoStageParsing.getStats();
   }
 
+  /**
+   * Discards the lexers and parsers reused by the parsing threads.
+   */
   public void reset() {
     LOGGER.trace("Reset called..");
+    parsers.invalidate();
   }
 }
@@ -3,13 +3,22 @@ package net.explorviz.code.analysis.parser;
 import jakarta.enterprise.context.ApplicationScoped;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
 import net.explorviz.code.analysis.antlr.generated.Java20Lexer;
 import net.explorviz.code.analysis.antlr.generated.Java20Parser;
+import net.explorviz.code.analysis.exceptions.ParseBudgetExceededException;
 import net.explorviz.code.analysis.handler.JavaFileDataHandler;
+import net.explorviz.code.analysis.listener.CompositeParseTreeListener;
+import net.explorviz.code.analysis.listener.CyclomaticComplexityListener;
 import net.explorviz.code.analysis.listener.JavaFileDataListener;
+import net.explorviz.code.analysis.listener.LackOfCohesionMethodsListener;
+import net.explorviz.code.analysis.listener.NPathListener;
+import net.explorviz.code.analysis.listener.NestedBlockDepthListener;
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CharStreams;
-import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
@@ -23,15 +32,75 @@ public class AntlrParserService {
 
   public static final Logger LOGGER = LoggerFactory.getLogger(AntlrParserService.class);
 
+  private final TwoStageParsing twoStageParsing = new TwoStageParsing();
+  private final ReusableParsers<Java20Lexer, Java20Parser> parsers =
+      new ReusableParsers<>(Java20Lexer::new, Java20Parser::new);
+
   @ConfigProperty(name = "explorviz.gitanalysis.assume-unresolved-types-from-wildcard-imports")
   /* default */ boolean wildcardImportProperty; // NOCS
 
   public JavaFileDataHandler parseFileContent(final String fileContent, final String fileName,
       final String fileHash) {
+    return parseFileContent(CharStreams.fromString(fileContent, fileName), fileName, fileHash,
+        ParseGuard.NONE);
+  }
+
+  /**
+   * Parses the content of a file within the limits of the given guard.
+   *
+   * @param charStream the content of the file
+   * @param fileName   the name or path of the file
+   * @param fileHash   the object id of the file
+   * @param guard      the guard limiting the parse
+   * @return the file data, {@code null} if the file could not be parsed
+   * @throws ParseBudgetExceededException if the parse exceeds the limits of the guard
+   */
+  public JavaFileDataHandler parseFileContent(final CharStream charStream, final String fileName,
+      final String fileHash, final ParseGuard guard) {
+    return parseFileContent(charStream, fileName, fileHash, guard, false);
+  }
+
+  /**
+   * Parses the content of a file within the limits of the given guard and optionally calculates
+   * the complexity metrics of its classes and methods in the same walk of the parse tree.
+   *
+   * @param charStream       the content of the file
+   * @param fileName         the name or path of the file
+   * @param fileHash         the object id of the file
+   * @param guard            the guard limiting the parse
+   * @param calculateMetrics whether to calculate the complexity metrics
+   * @return the file data, {@code null} if the file could not be parsed
+   * @throws ParseBudgetExceededException if the parse exceeds the limits of the guard
+   */
+  public JavaFileDataHandler parseFileContent(final CharStream charStream, final String fileName,
+      final String fileHash, final ParseGuard guard, final boolean calculateMetrics) {
+    return parseFileContent(charStream, fileName, fileHash, guard, calculateMetrics, false);
+  }
+
+  /**
+   * Parses the content of a file within the limits of the given guard. In declaration-only mode
+   * the bodies of methods, constructors and initializers are skipped, the classes and methods are
+   * collected with their lines but without the data and metrics of their bodies.
+   *
+   * @param charStream       the content of the file
+   * @param fileName         the name or path of the file
+   * @param fileHash         the object id of the file
+   * @param guard            the guard limiting the parse
+   * @param calculateMetrics whether to calculate the complexity metrics, ignored for declarations
+   *                         only
+   * @param declarationsOnly whether to skip the bodies
+   * @return the file data, {@code null} if the file could not be parsed
+   * @throws ParseBudgetExceededException if the parse exceeds the limits of the guard
+   */
+  public JavaFileDataHandler parseFileContent(final CharStream charStream, final String fileName,
+      final String fileHash, final ParseGuard guard, final boolean calculateMetrics,
+      final boolean declarationsOnly) {
     try {
       LOGGER.trace("Parsing file content for {}", fileName);
-      final CharStream charStream = CharStreams.fromString(fileContent);
-      return parse(charStream, fileName, fileHash);
+      return parse(charStream, fileName, fileHash, guard, calculateMetrics && !declarationsOnly,
+          declarationsOnly);
+    } catch (ParseBudgetExceededException e) { // NOPMD
+      throw e;
     } catch (Exception e) {
       LOGGER.error("Failed to parse file content for {}: {}", fileName, e.getMessage(), e);
       return null;
@@ -44,7 +113,8 @@ public class AntlrParserService {
       final Path path = Path.of(pathToFile);
       LOGGER.trace("Parsing file for {}", pathToFile);
       final CharStream charStream = CharStreams.fromPath(path);
-      return parse(charStream, path.getFileName().toString(), fileHash);
+      return parse(charStream, path.getFileName().toString(), fileHash, ParseGuard.NONE, false,
+          false);
     } catch (IOException e) {
       LOGGER.error("Failed to read file {}: {}", pathToFile, e.getMessage());
       throw e;
@@ -55,29 +125,55 @@ public class AntlrParserService {
   }
 
   private JavaFileDataHandler parse(final CharStream charStream, final String fileName,
-      final String fileHash) {
-    // Create lexer and parser
-    final Java20Lexer lexer = new Java20Lexer(charStream);
-    final CommonTokenStream tokens = new CommonTokenStream(lexer);
-    final Java20Parser parser = new Java20Parser(tokens);
+      final String fileHash, final ParseGuard guard, final boolean calculateMetrics,
+      final boolean declarationsOnly) {
+    // Reuse the lexer and parser of this thread
+    try (ReusableParsers.Lease<Java20Lexer, Java20Parser> lease = parsers.acquire(charStream,
+        guard, declarationsOnly ? BodySkippingTokenSource::java : UnaryOperator.identity())) {
+      final Java20Parser parser = lease.parser();
 
-    // Parse the compilation unit
-    final Java20Parser.CompilationUnitContext compilationUnit = parser.compilationUnit();
+      // Parse the compilation unit
+      final Java20Parser.CompilationUnitContext compilationUnit = twoStageParsing.parse(parser,
+          parser::compilationUnit);
 
-    // Create Java file data handler
-    final JavaFileDataHandler fileDataHandler = new JavaFileDataHandler(fileName);
-    fileDataHandler.setFileHash(fileHash);
+      // Create Java file data handler
+      final JavaFileDataHandler fileDataHandler = new JavaFileDataHandler(fileName);
+      fileDataHandler.setFileHash(fileHash);
 
-    // Create and execute the listener
-    final JavaFileDataListener listener = new JavaFileDataListener(fileDataHandler,
-        wildcardImportProperty, tokens);
-    final ParseTreeWalker walker = new ParseTreeWalker();
-    walker.walk(listener, compilationUnit);
+      // Create and execute the listener
+      final JavaFileDataListener listener = new JavaFileDataListener(fileDataHandler,
+          wildcardImportProperty, lease.tokens());
+      ParseTreeWalker.DEFAULT.walk(calculateMetrics
+          ? withMetrics(listener, fileDataHandler) : listener, compilationUnit);
+
+      return fileDataHandler;
+    }
+  }
+
+  private static ParseTreeListener withMetrics(final JavaFileDataListener listener,
+      final JavaFileDataHandler fileDataHandler) {
+    // The metric listeners read the current class and method from the file data handler
+    return new CompositeParseTreeListener(listener, List.of(
+        new CyclomaticComplexityListener(fileDataHandler),
+        new NestedBlockDepthListener(fileDataHandler),
+        new LackOfCohesionMethodsListener(fileDataHandler),
+        new NPathListener(fileDataHandler)));
+  }
 
-    return fileDataHandler;
+  /**
+   * Returns how often parsing needed the full LL prediction.
+   *
+   * @return the statistics of the two parse stages
+   */
+  public Map<String, Long> getPredictionStats() {
+    return twoStageParsing.getStats();
   }
 
+  /**
+   * Discards the lexers and parsers reused by the parsing threads.
+   */
   public void reset() {
     LOGGER.trace("Reset called..");
+    parsers.invalidate();
   }
 }
@@ -3,13 +3,17 @@ package net.explorviz.code.analysis.parser;
 import jakarta.enterprise.context.ApplicationScoped;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
 import net.explorviz.code.analysis.antlr.generated.PythonLexer;
 import net.explorviz.code.analysis.antlr.generated.PythonParser;
+import net.explorviz.code.analysis.collector.FusedCollectorListener;
+import net.explorviz.code.analysis.collector.GrammarProfiles;
+import net.explorviz.code.analysis.exceptions.ParseBudgetExceededException;
 import net.explorviz.code.analysis.handler.PythonFileDataHandler;
 import net.explorviz.code.analysis.listener.PythonFileDataListener;
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CharStreams;
-import org.antlr.v4.runtime.CommonTokenStream;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
@@ -23,15 +27,53 @@ public class AntlrPythonParserService {
 
   public static final Logger LOGGER = LoggerFactory.getLogger(AntlrPythonParserService.class);
 
+  private final TwoStageParsing twoStageParsing = new TwoStageParsing();
+  private final ReusableParsers<PythonLexer, PythonParser> parsers =
+      new ReusableParsers<>(PythonLexer::new, PythonParser::new);
+
   @ConfigProperty(name = "explorviz.gitanalysis.assume-unresolved-types-from-wildcard-imports")
   /* default */ boolean wildcardImportProperty; // NOCS
 
   public PythonFileDataHandler parseFileContent(final String fileContent, final String fileName,
       final String fileHash) {
+    return parseFileContent(CharStreams.fromString(fileContent, fileName), fileName, fileHash,
+        ParseGuard.NONE);
+  }
+
+  /**
+   * Parses the content of a file within the limits of the given guard.
+   *
+   * @param charStream the content of the file
+   * @param fileName   the name or path of the file
+   * @param fileHash   the object id of the file
+   * @param guard      the guard limiting the parse
+   * @return the file data, {@code null} if the file could not be parsed
+   * @throws ParseBudgetExceededException if the parse exceeds the limits of the guard
+   */
+  public PythonFileDataHandler parseFileContent(final CharStream charStream, final String fileName,
+      final String fileHash, final ParseGuard guard) {
+    return parseFileContent(charStream, fileName, fileHash, guard, Set.of());
+  }
+
+  /**
+   * Parses the content of a file within the limits of the given guard and calculates the
+   * metrics of the given collectors in the same walk of the parse tree.
+   *
+   * @param charStream       the content of the file
+   * @param fileName         the name or path of the file
+   * @param fileHash         the object id of the file
+   * @param guard            the guard limiting the parse
+   * @param metricCollectors the names of the metric collectors, none to skip the metrics
+   * @return the file data, {@code null} if the file could not be parsed
+   * @throws ParseBudgetExceededException if the parse exceeds the limits of the guard
+   */
+  public PythonFileDataHandler parseFileContent(final CharStream charStream, final String fileName,
+      final String fileHash, final ParseGuard guard, final Set<String> metricCollectors) {
     try {
       LOGGER.trace("Parsing Python file content for {}", fileName);
-      final CharStream charStream = CharStreams.fromString(fileContent);
-      return parse(charStream, fileName, fileHash);
+      return parse(charStream, fileName, fileHash, guard, metricCollectors);
+    } catch (ParseBudgetExceededException e) { // NOPMD
+      throw e;
     } catch (Exception e) {
       LOGGER.error("Failed to parse Python file content for {}: {}", fileName, e.getMessage(), e);
       return null;
@@ -44,7 +86,8 @@ public class AntlrPythonParserService {
       final Path path = Path.of(pathToFile);
       LOGGER.trace("Parsing Python file for {}", pathToFile);
       final CharStream charStream = CharStreams.fromPath(path);
-      return parse(charStream, path.getFileName().toString(), fileHash);
+      return parse(charStream, path.getFileName().toString(), fileHash, ParseGuard.NONE,
+          Set.of());
     } catch (IOException e) {
       LOGGER.error("Failed to read Python file {}: {}", pathToFile, e.getMessage());
       throw e;
@@ -55,28 +98,44 @@ public class AntlrPythonParserService {
   }
 
   private PythonFileDataHandler parse(final CharStream charStream, final String fileName,
-      final String fileHash) {
-    // Create lexer and parser
-    final PythonLexer lexer = new PythonLexer(charStream);
-    final CommonTokenStream tokens = new CommonTokenStream(lexer);
-    final PythonParser parser = new PythonParser(tokens);
+      final String fileHash, final ParseGuard guard, final Set<String> metricCollectors) {
+    // Reuse the lexer and parser of this thread
+    try (ReusableParsers.Lease<PythonLexer, PythonParser> lease =
+        parsers.acquire(charStream, guard)) {
+      final PythonParser parser = lease.parser();
+
+      // Parse the file
+      final PythonParser.File_inputContext fileInput = twoStageParsing.parse(parser,
+          parser::file_input);
 
-    // Parse the file
-    final PythonParser.File_inputContext fileInput = parser.file_input();
+      // Create Python file data handler
+      final PythonFileDataHandler fileDataHandler = new PythonFileDataHandler(fileName);
+      fileDataHandler.setFileHash(fileHash);
 
-    // Create Python file data handler
-    final PythonFileDataHandler fileDataHandler = new PythonFileDataHandler(fileName);
-    fileDataHandler.setFileHash(fileHash);
+      // Create and execute the listener (pass token stream for DEDENT detection)
+      final PythonFileDataListener listener = new PythonFileDataListener(fileDataHandler,
+          lease.tokens());
+      ParseTreeWalker.DEFAULT.walk(FusedCollectorListener.withCollectors(listener,
+          GrammarProfiles.PYTHON, metricCollectors, fileDataHandler), fileInput);
 
-    // Create and execute the listener (pass token stream for DEDENT detection)
-    final PythonFileDataListener listener = new PythonFileDataListener(fileDataHandler, tokens);
-    final ParseTreeWalker walker = new ParseTreeWalker();
-    walker.walk(listener, fileInput);
+      return fileDataHandler;
+    }
+  }
 
-    return fileDataHandler;
+  /**
+   * Returns how often parsing needed the full LL prediction.
+   *
+   * @return the statistics of the two parse stages
+   */
+  public Map<String, Long> getPredictionStats() {
+    return twoStageParsing.getStats();
   }
 
+  /**
+   * Discards the lexers and parsers reused by the parsing threads.
+   */
   public void reset() {
     LOGGER.trace("Reset called..");
+    parsers.invalidate();
   }
 }
@@ -3,13 +3,18 @@ package net.explorviz.code.analysis.parser;
 import jakarta.enterprise.context.ApplicationScoped;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
 import net.explorviz.code.analysis.antlr.generated.TypeScriptLexer;
 import net.explorviz.code.analysis.antlr.generated.TypeScriptParser;
+import net.explorviz.code.analysis.collector.FusedCollectorListener;
+import net.explorviz.code.analysis.collector.GrammarProfiles;
+import net.explorviz.code.analysis.exceptions.ParseBudgetExceededException;
 import net.explorviz.code.analysis.handler.TypeScriptFileDataHandler;
 import net.explorviz.code.analysis.listener.TypeScriptFileDataListener;
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CharStreams;
-import org.antlr.v4.runtime.CommonTokenStream;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,13 +27,73 @@ public class AntlrTypeScriptParserService {
 
   public static final Logger LOGGER = LoggerFactory.getLogger(AntlrTypeScriptParserService.class);
 
+  private final TwoStageParsing twoStageParsing = new TwoStageParsing();
+  private final ReusableParsers<TypeScriptLexer, TypeScriptParser> parsers =
+      new ReusableParsers<>(TypeScriptLexer::new, TypeScriptParser::new);
+
   public TypeScriptFileDataHandler parseFileContent(final String fileContent, final String fileName,
       final String fileHash) {
+    return parseFileContent(CharStreams.fromString(fileContent, fileName), fileName, fileHash,
+        ParseGuard.NONE);
+  }
+
+  /**
+   * Parses the content of a file within the limits of the given guard.
+   *
+   * @param charStream the content of the file
+   * @param fileName   the name or path of the file
+   * @param fileHash   the object id of the file
+   * @param guard      the guard limiting the parse
+   * @return the file data, {@code null} if the file could not be parsed
+   * @throws ParseBudgetExceededException if the parse exceeds the limits of the guard
+   */
+  public TypeScriptFileDataHandler parseFileContent(final CharStream charStream,
+      final String fileName, final String fileHash, final ParseGuard guard) {
+    return parseFileContent(charStream, fileName, fileHash, guard, Set.of());
+  }
+
+  /**
+   * Parses the content of a file within the limits of the given guard and calculates the
+   * metrics of the given collectors in the same walk of the parse tree.
+   *
+   * @param charStream       the content of the file
+   * @param fileName         the name or path of the file
+   * @param fileHash         the object id of the file
+   * @param guard            the guard limiting the parse
+   * @param metricCollectors the names of the metric collectors, none to skip the metrics
+   * @return the file data, {@code null} if the file could not be parsed
+   * @throws ParseBudgetExceededException if the parse exceeds the limits of the guard
+   */
+  public TypeScriptFileDataHandler parseFileContent(final CharStream charStream,
+      final String fileName, final String fileHash, final ParseGuard guard,
+      final Set<String> metricCollectors) {
+    return parseFileContent(charStream, fileName, fileHash, guard, metricCollectors, false);
+  }
+
+  /**
+   * Parses the content of a file within the limits of the given guard. In declaration-only mode
+   * the bodies of functions, methods and arrow functions are skipped, the classes and functions
+   * are collected with their lines but without the data and metrics of their bodies.
+   *
+   * @param charStream       the content of the file
+   * @param fileName         the name or path of the file
+   * @param fileHash         the object id of the file
+   * @param guard            the guard limiting the parse
+   * @param metricCollectors the names of the metric collectors, ignored for declarations only
+   * @param declarationsOnly whether to skip the bodies
+   * @return the file data, {@code null} if the file could not be parsed
+   * @throws ParseBudgetExceededException if the parse exceeds the limits of the guard
+   */
+  public TypeScriptFileDataHandler parseFileContent(final CharStream charStream,
+      final String fileName, final String fileHash, final ParseGuard guard,
+      final Set<String> metricCollectors, final boolean declarationsOnly) {
     try {
       LOGGER.trace("Parsing TS/JS file content for {}", fileName);
-      final CharStream charStream = CharStreams.fromString(fileContent);
       final String extension = getFileExtension(fileName);
-      return parse(charStream, fileName, fileHash, extension);
+      return parse(charStream, fileName, fileHash, extension, guard,
+          declarationsOnly ? Set.of() : metricCollectors, declarationsOnly);
+    } catch (ParseBudgetExceededException e) { // NOPMD
+      throw e;
     } catch (Exception e) {
       LOGGER.error("Failed to parse TS/JS file content for {}: {}", fileName, e.getMessage(), e);
       return null;
@@ -43,7 +108,7 @@ public class AntlrTypeScriptParserService {
       final CharStream charStream = CharStreams.fromPath(path);
       final String fileName = path.getFileName().toString();
       final String extension = getFileExtension(fileName);
-      return parse(charStream, fileName, fileHash, extension);
+      return parse(charStream, fileName, fileHash, extension, ParseGuard.NONE, Set.of(), false);
     } catch (IOException e) {
       LOGGER.error("Failed to read TS/JS file {}: {}", pathToFile, e.getMessage());
       throw e;
@@ -54,28 +119,32 @@ public class AntlrTypeScriptParserService {
   }
 
   private TypeScriptFileDataHandler parse(final CharStream charStream, final String fileName,
-      final String fileHash, final String extension) {
-    // Create lexer and parser
-    final TypeScriptLexer lexer = new TypeScriptLexer(charStream);
-    final CommonTokenStream tokens = new CommonTokenStream(lexer);
-    final TypeScriptParser parser = new TypeScriptParser(tokens);
-
-    // Parse the program (entry point for TS/JS)
-    final TypeScriptParser.ProgramContext program = parser.program();
-
-    // Create TypeScript file data handler
-    final TypeScriptFileDataHandler fileDataHandler = new TypeScriptFileDataHandler(fileName);
-    fileDataHandler.setFileHash(fileHash);
-
-    // Create and execute the listener
-    final TypeScriptFileDataListener listener = new TypeScriptFileDataListener(
-        fileDataHandler,
-        extension,
-        tokens);
-    final ParseTreeWalker walker = new ParseTreeWalker();
-    walker.walk(listener, program);
-
-    return fileDataHandler;
+      final String fileHash, final String extension, final ParseGuard guard,
+      final Set<String> metricCollectors, final boolean declarationsOnly) {
+    // Reuse the lexer and parser of this thread
+    try (ReusableParsers.Lease<TypeScriptLexer, TypeScriptParser> lease = parsers.acquire(
+        charStream, guard,
+        declarationsOnly ? BodySkippingTokenSource::typeScript : UnaryOperator.identity())) {
+      final TypeScriptParser parser = lease.parser();
+
+      // Parse the program (entry point for TS/JS)
+      final TypeScriptParser.ProgramContext program = twoStageParsing.parse(parser,
+          parser::program);
+
+      // Create TypeScript file data handler
+      final TypeScriptFileDataHandler fileDataHandler = new TypeScriptFileDataHandler(fileName);
+      fileDataHandler.setFileHash(fileHash);
+
+      // Create and execute the listener
+      final TypeScriptFileDataListener listener = new TypeScriptFileDataListener(
+          fileDataHandler,
+          extension,
+          lease.tokens());
+      ParseTreeWalker.DEFAULT.walk(FusedCollectorListener.withCollectors(listener,
+          GrammarProfiles.TYPESCRIPT, metricCollectors, fileDataHandler), program);
+
+      return fileDataHandler;
+    }
   }
 
   private String getFileExtension(final String fileName) {
@@ -83,7 +152,20 @@ public class AntlrTypeScriptParserService {
     return lastDot > 0 ? fileName.substring(lastDot) : "";
   }
 
+  /**
+   * Returns how often parsing needed the full LL prediction.
+   *
+   * @return the statistics of the two parse stages
+   */
+  public Map<String, Long> getPredictionStats() {
+    return twoStageParsing.getStats();
+  }
+
+  /**
+   * Discards the lexers and parsers reused by the parsing threads.
+   */
   public void reset() {
     LOGGER.trace("Reset called..");
+    parsers.invalidate();
   }
 }
@@ -0,0 +1,189 @@
+package net.explorviz.code.analysis.parser;
+
+import java.util.Set;
+import net.explorviz.code.analysis.antlr.generated.Java20Lexer;
+import net.explorviz.code.analysis.antlr.generated.TypeScriptLexer;
+import net.explorviz.code.analysis.listener.LineIndex;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenFactory;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.WritableToken;
+
+/**
+ * Token source hiding the content of function bodies from the parser, so only the declarations of
+ * a file are parsed. The braces of a skipped body stay on the default channel and the parser sees
+ * an empty body {@code {}}, which is valid wherever a body, block or literal in braces is. The
+ * tokens in between are moved to the {@link LineIndex#SKIPPED_CODE_CHANNEL}, so the token stream
+ * keeps them for the line counts and all start and end lines are unchanged. <br>
+ * A brace opens a body if it follows the declaration's parameter list or an arrow, braces opening
+ * the body of a class, interface, enum or namespace are passed on.
+ */
+final class BodySkippingTokenSource implements TokenSource {
+
+  private static final Grammar JAVA = new Grammar(Java20Lexer.LPAREN, Java20Lexer.RPAREN,
+      Java20Lexer.LBRACE, Java20Lexer.RBRACE, Java20Lexer.SEMI, Java20Lexer.DOT,
+      Java20Lexer.ARROW,
+      Set.of(Java20Lexer.CLASS, Java20Lexer.INTERFACE, Java20Lexer.ENUM, Java20Lexer.RECORD),
+      // initializers and anonymous classes of fields are skipped as well
+      false, Set.of());
+  private static final Grammar TYPESCRIPT = new Grammar(TypeScriptLexer.OpenParen,
+      TypeScriptLexer.CloseParen, TypeScriptLexer.OpenBrace, TypeScriptLexer.CloseBrace,
+      TypeScriptLexer.SemiColon, TypeScriptLexer.Dot, TypeScriptLexer.ARROW,
+      Set.of(TypeScriptLexer.Class, TypeScriptLexer.Interface, TypeScriptLexer.Enum,
+          TypeScriptLexer.Namespace, TypeScriptLexer.Module),
+      // object literals and statements are kept, type literals as return types are kept
+      true, Set.of(TypeScriptLexer.Colon, TypeScriptLexer.Comma, TypeScriptLexer.Assign,
+          TypeScriptLexer.OpenParen, TypeScriptLexer.OpenBracket, TypeScriptLexer.BitOr,
+          TypeScriptLexer.BitAnd, TypeScriptLexer.QuestionMark, TypeScriptLexer.LessThan));
+
+  private final TokenSource source;
+  private final Grammar grammar;
+
+  private int parenDepth;
+  private int skipDepth;
+  private int previousType = Token.INVALID_TYPE;
+  /** Paren depth at the start of the current declaration or statement. */
+  private int headerParenDepth;
+  /** Whether a parameter list was closed since the start of the declaration. */
+  private boolean closedList;
+  /** Whether the declaration is a class, interface, enum or namespace. */
+  private boolean typeHeader;
+
+  private BodySkippingTokenSource(final TokenSource source, final Grammar grammar) {
+    this.source = source;
+    this.grammar = grammar;
+  }
+
+  /**
+   * Wraps the Java lexer, skipping the bodies of methods, constructors and initializers.
+   *
+   * @param source the lexer
+   * @return the token source to create the token stream from
+   */
+  static TokenSource java(final TokenSource source) {
+    return new BodySkippingTokenSource(source, JAVA);
+  }
+
+  /**
+   * Wraps the TypeScript lexer, skipping the bodies of functions, methods and arrow functions.
+   *
+   * @param source the lexer
+   * @return the token source to create the token stream from
+   */
+  static TokenSource typeScript(final TokenSource source) {
+    return new BodySkippingTokenSource(source, TYPESCRIPT);
+  }
+
+  @Override
+  public Token nextToken() {
+    final Token token = source.nextToken();
+    if (token.getType() == Token.EOF) {
+      return token;
+    }
+    if (skipDepth > 0) {
+      skip(token);
+    } else if (token.getChannel() == Token.DEFAULT_CHANNEL) {
+      track(token.getType());
+    }
+    return token;
+  }
+
+  private void skip(final Token token) {
+    final int type = token.getType();
+    if (type == grammar.openBrace) {
+      skipDepth++;
+    } else if (type == grammar.closeBrace) {
+      skipDepth--;
+      if (skipDepth == 0) {
+        // the closing brace ends the body for the parser
+        startHeader();
+        previousType = type;
+        return;
+      }
+    }
+    if (token.getChannel() == Token.DEFAULT_CHANNEL && token instanceof WritableToken writable) {
+      writable.setChannel(LineIndex.SKIPPED_CODE_CHANNEL);
+    }
+  }
+
+  private void track(final int type) {
+    if (type == grammar.openParen) {
+      parenDepth++;
+    } else if (type == grammar.closeParen) {
+      parenDepth--;
+      if (parenDepth <= headerParenDepth) {
+        headerParenDepth = parenDepth;
+        closedList = true;
+      }
+    } else if (type == grammar.openBrace) {
+      if (isBody()) {
+        skipDepth = 1;
+      }
+      startHeader();
+    } else if (type == grammar.closeBrace || type == grammar.semi) {
+      startHeader();
+    } else if (grammar.typeKeywords.contains(type) && previousType != grammar.dot) {
+      typeHeader = true;
+    }
+    previousType = type;
+  }
+
+  private boolean isBody() {
+    if (previousType == grammar.arrow) {
+      return true;
+    }
+    return parenDepth == headerParenDepth && !typeHeader
+        && (!grammar.requiresList || closedList && !grammar.notAfter.contains(previousType));
+  }
+
+  private void startHeader() {
+    headerParenDepth = parenDepth;
+    closedList = false;
+    typeHeader = false;
+  }
+
+  @Override
+  public int getLine() {
+    return source.getLine();
+  }
+
+  @Override
+  public int getCharPositionInLine() {
+    return source.getCharPositionInLine();
+  }
+
+  @Override
+  public CharStream getInputStream() {
+    return source.getInputStream();
+  }
+
+  @Override
+  public String getSourceName() {
+    return source.getSourceName();
+  }
+
+  @Override
+  public void setTokenFactory(final TokenFactory<?> factory) {
+    source.setTokenFactory(factory);
+  }
+
+  @Override
+  public TokenFactory<?> getTokenFactory() {
+    return source.getTokenFactory();
+  }
+
+  /**
+   * Token types of a grammar used to find the bodies.
+   *
+   * @param typeKeywords keywords of declarations whose body is kept
+   * @param requiresList whether only braces after a parameter list open a body, otherwise every
+   *                     brace outside of a type declaration's header does
+   * @param notAfter     tokens that mark a brace after a parameter list as a literal, e.g. the
+   *                     {@code :} of a return type
+   */
+  private record Grammar(int openParen, int closeParen, int openBrace, int closeBrace, int semi,
+                         int dot, int arrow, Set<Integer> typeKeywords, boolean requiresList,
+                         Set<Integer> notAfter) {
+  }
+}
@@ -0,0 +1,319 @@
+package net.explorviz.code.analysis.parser;
+
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import net.explorviz.code.analysis.antlr.generated.CPP14Lexer;
+import net.explorviz.code.analysis.antlr.generated.CPP14Parser;
+import net.explorviz.code.analysis.antlr.generated.Java20Lexer;
+import net.explorviz.code.analysis.antlr.generated.Java20Parser;
+import net.explorviz.code.analysis.antlr.generated.PythonLexer;
+import net.explorviz.code.analysis.antlr.generated.PythonParser;
+import net.explorviz.code.analysis.antlr.generated.TypeScriptLexer;
+import net.explorviz.code.analysis.antlr.generated.TypeScriptParser;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.atn.ATNSimulator;
+import org.antlr.v4.runtime.atn.LexerATNSimulator;
+import org.antlr.v4.runtime.atn.ParserATNSimulator;
+import org.antlr.v4.runtime.atn.PredictionContextCache;
+import org.antlr.v4.runtime.dfa.DFA;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the DFA caches of the ANTLR grammars in check. The generated lexers and parsers share their
+ * DFA and prediction context caches in static fields, which only ever grow while the process runs.
+ * The manager tracks the amount of DFA states per grammar and clears the caches of a grammar once
+ * it exceeds its limit, all caches once the heap is filled beyond a threshold after a garbage
+ * collection, and optionally after every analysis. <br>
+ * Clearing is safe while files are parsed, running parses keep using the DFA they started with.
+ * Optionally, the caches are warmed up by parsing a small bundled corpus, at startup and after
+ * clearing between analyses, so the first files do not pay the full cost of ATN simulation.
+ */
+@ApplicationScoped
+public class DfaCacheManager {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(DfaCacheManager.class);
+  private static final String CORPUS_DIRECTORY = "/dfa-warmup/";
+  private static final Field CONTEXT_CACHE_FIELD = contextCacheField();
+
+  @ConfigProperty(name = "explorviz.gitanalysis.dfa.max-states", defaultValue = "0")
+  /* default */ long maxStatesProperty; // NOCS
+
+  @ConfigProperty(name = "explorviz.gitanalysis.dfa.heap-threshold", defaultValue = "0.9")
+  /* default */ double heapThresholdProperty; // NOCS
+
+  @ConfigProperty(name = "explorviz.gitanalysis.dfa.clear-between-analyses",
+      defaultValue = "false")
+  /* default */ boolean clearBetweenAnalysesProperty; // NOCS
+
+  @ConfigProperty(name = "explorviz.gitanalysis.dfa.warmup", defaultValue = "false")
+  /* default */ boolean warmupProperty; // NOCS
+
+  private final List<Grammar> grammars = List.of(
+      new Grammar("java", "Warmup.java", Java20Lexer::new, Java20Parser::new,
+          parser -> ((Java20Parser) parser).compilationUnit()),
+      new Grammar("typescript", "warmup.ts", TypeScriptLexer::new, TypeScriptParser::new,
+          parser -> ((TypeScriptParser) parser).program()),
+      new Grammar("python", "warmup.py", PythonLexer::new, PythonParser::new,
+          parser -> ((PythonParser) parser).file_input()),
+      new Grammar("cpp", "warmup.cpp", CPP14Lexer::new, CPP14Parser::new,
+          parser -> ((CPP14Parser) parser).translationUnit()));
+  private final Map<String, LongAdder> clears = new ConcurrentHashMap<>();
+  private long collectionsAtLastClear = -1;
+
+  /**
+   * A grammar with a simulator of its lexer and parser. As the simulators of a grammar share the
+   * static caches, these instances are enough to inspect and clear them.
+   */
+  private static final class Grammar {
+
+    private final String name;
+    private final String corpus;
+    private final Function<CharStream, Lexer> lexerFactory;
+    private final Function<TokenStream, Parser> parserFactory;
+    private final Function<Parser, ParserRuleContext> startRule;
+    private final ATNSimulator lexerSimulator;
+    private final ATNSimulator parserSimulator;
+
+    private Grammar(final String name, final String corpus,
+        final Function<CharStream, Lexer> lexerFactory,
+        final Function<TokenStream, Parser> parserFactory,
+        final Function<Parser, ParserRuleContext> startRule) {
+      this.name = name;
+      this.corpus = corpus;
+      this.lexerFactory = lexerFactory;
+      this.parserFactory = parserFactory;
+      this.startRule = startRule;
+      final Lexer lexer = lexerFactory.apply(CharStreams.fromString(""));
+      this.lexerSimulator = lexer.getInterpreter();
+      this.parserSimulator = parserFactory.apply(new CommonTokenStream(lexer)).getInterpreter();
+    }
+
+    private long states() {
+      return states(lexerSimulator) + states(parserSimulator);
+    }
+
+    private static long states(final ATNSimulator simulator) {
+      long states = 0;
+      for (final DFA dfa : decisionToDfa(simulator)) {
+        states += dfa.states.size();
+      }
+      return states;
+    }
+
+    private static DFA[] decisionToDfa(final ATNSimulator simulator) {
+      return simulator instanceof LexerATNSimulator lexer ? lexer.decisionToDFA
+          : ((ParserATNSimulator) simulator).decisionToDFA;
+    }
+
+    private void clear() {
+      lexerSimulator.clearDFA();
+      parserSimulator.clearDFA();
+      clearContextCache(lexerSimulator.getSharedContextCache());
+      clearContextCache(parserSimulator.getSharedContextCache());
+    }
+  }
+
+  /**
+   * Creates a manager configured by the application properties.
+   */
+  public DfaCacheManager() {
+    // configured by field injection
+  }
+
+  /**
+   * Creates a manager with the given settings.
+   *
+   * @param maxStates            the maximum amount of DFA states per grammar, 0 or less for no
+   *                             limit
+   * @param heapThreshold        the fraction of the heap filled after a garbage collection from
+   *                             which on all caches are cleared, 0 or less to never clear
+   * @param clearBetweenAnalyses whether all caches are cleared after every analysis
+   * @param warmup               whether the caches are warmed up after startup and clearing
+   */
+  public DfaCacheManager(final long maxStates, final double heapThreshold,
+      final boolean clearBetweenAnalyses, final boolean warmup) {
+    this.maxStatesProperty = maxStates;
+    this.heapThresholdProperty = heapThreshold;
+    this.clearBetweenAnalysesProperty = clearBetweenAnalyses;
+    this.warmupProperty = warmup;
+  }
+
+  /* package */ void onStart(@Observes final StartupEvent event) {
+    if (warmupProperty) {
+      Thread.ofVirtual().name("dfa-warmup").start(this::warmUp);
+    }
+  }
+
+  /**
+   * Parses the bundled corpus of every grammar to fill its caches.
+   */
+  public void warmUp() {
+    for (final Grammar grammar : grammars) {
+      warmUp(grammar);
+    }
+  }
+
+  private void warmUp(final Grammar grammar) {
+    final long start = System.nanoTime();
+    try (InputStream corpus = DfaCacheManager.class.getResourceAsStream(
+        CORPUS_DIRECTORY + grammar.corpus)) {
+      if (corpus == null) {
+        LOGGER.atWarn().addArgument(grammar.corpus).log("Warmup corpus {} not found");
+        return;
+      }
+      final Lexer lexer = grammar.lexerFactory.apply(
+          CharStreams.fromStream(corpus, StandardCharsets.UTF_8));
+      lexer.removeErrorListeners();
+      final Parser parser = grammar.parserFactory.apply(new CommonTokenStream(lexer));
+      parser.removeErrorListeners();
+      new TwoStageParsing().parse(parser, () -> grammar.startRule.apply(parser));
+      LOGGER.atDebug().addArgument(grammar.name).addArgument(grammar.states())
+          .addArgument((System.nanoTime() - start) / 1_000_000)
+          .log("Warmed up DFA cache of {} with {} states in {} ms");
+    } catch (IOException | RuntimeException e) {
+      LOGGER.atWarn().addArgument(grammar.name).setCause(e).log("Warmup of {} failed");
+    }
+  }
+
+  /**
+   * Clears caches that exceed their limit. Meant to be called after every analyzed commit.
+   */
+  public void checkMemory() {
+    if (maxStatesProperty > 0) {
+      for (final Grammar grammar : grammars) {
+        final long states = grammar.states();
+        if (states > maxStatesProperty) {
+          LOGGER.atInfo().addArgument(grammar.name).addArgument(states)
+              .log("Clearing DFA cache of {} with {} states");
+          clear(grammar, "maxStates");
+        }
+      }
+    }
+    if (heapThresholdProperty > 0) {
+      checkHeap();
+    }
+  }
+
+  private synchronized void checkHeap() {
+    // the usage after the last collection only contains live objects
+    long used = 0;
+    for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      final MemoryUsage usage = pool.getCollectionUsage();
+      if (pool.getType() == MemoryType.HEAP && usage != null) {
+        used += usage.getUsed();
+      }
+    }
+    final long max = Runtime.getRuntime().maxMemory();
+    final long collections = collectionCount();
+    // measured again only after the next collection, so one measurement clears only once
+    if (collections != collectionsAtLastClear && used > max * heapThresholdProperty) {
+      collectionsAtLastClear = collections;
+      LOGGER.atInfo().addArgument(used * 100 / max)
+          .log("Heap filled to {}% after garbage collection, clearing all DFA caches");
+      clearAll("heapThreshold");
+    }
+  }
+
+  private static long collectionCount() {
+    long collections = 0;
+    for (final GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+      collections += Math.max(0, collector.getCollectionCount());
+    }
+    return collections;
+  }
+
+  /**
+   * Clears all caches if configured to do so between analyses, and warms them up again.
+   */
+  public void analysisFinished() {
+    if (clearBetweenAnalysesProperty) {
+      clearAll("analysisFinished");
+      if (warmupProperty) {
+        warmUp();
+      }
+    }
+  }
+
+  /**
+   * Clears the caches of all grammars.
+   *
+   * @param reason the reason to report in the statistics
+   */
+  public void clearAll(final String reason) {
+    for (final Grammar grammar : grammars) {
+      clear(grammar, reason);
+    }
+  }
+
+  private void clear(final Grammar grammar, final String reason) {
+    grammar.clear();
+    clears.computeIfAbsent(reason, key -> new LongAdder()).increment();
+  }
+
+  private static Field contextCacheField() {
+    try {
+      final Field field = PredictionContextCache.class.getDeclaredField("cache");
+      field.setAccessible(true);
+      return field;
+    } catch (NoSuchFieldException | RuntimeException e) {
+      LOGGER.atDebug().setCause(e).log("Prediction context caches can not be cleared");
+      return null;
+    }
+  }
+
+  private static void clearContextCache(final PredictionContextCache contextCache) {
+    if (CONTEXT_CACHE_FIELD == null || contextCache == null) {
+      return;
+    }
+    // ANTLR accesses the cache while holding its monitor
+    synchronized (contextCache) {
+      try {
+        ((Map<?, ?>) CONTEXT_CACHE_FIELD.get(contextCache)).clear();
+      } catch (IllegalAccessException e) {
+        LOGGER.atDebug().setCause(e).log("Prediction context cache can not be cleared");
+      }
+    }
+  }
+
+  /**
+   * Returns the amount of DFA states per grammar and how often the caches were cleared.
+   *
+   * @return the current statistics
+   */
+  public Map<String, Object> getStats() {
+    final Map<String, Object> stats = new TreeMap<>();
+    final Map<String, Long> states = new TreeMap<>();
+    for (final Grammar grammar : grammars) {
+      states.put(grammar.name, grammar.states());
+    }
+    stats.put("states", states);
+    final Map<String, Long> clearCounts = new TreeMap<>();
+    clears.forEach((reason, count) -> clearCounts.put(reason, count.sum()));
+    stats.put("clears", clearCounts);
+    return stats;
+  }
+}
@@ -0,0 +1,65 @@
+package net.explorviz.code.analysis.parser;
+
+import java.util.List;
+import java.util.Optional;
+import net.explorviz.code.analysis.types.TextStats;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.misc.Interval;
+
+/**
+ * Heuristics for source files that were produced by a tool instead of written by hand, like
+ * minified bundles or generated parsers. Such files are often large and barely structured, so
+ * parsing them is expensive while their metrics say little about the project.
+ */
+public final class GeneratedFileDetector {
+
+  /* package */ static final String GENERATED = "generated";
+  /* package */ static final String MINIFIED = "minified";
+  /* package */ static final String SOURCE_MAP = "sourceMap";
+
+  private static final int HEADER_LENGTH = 2048;
+  private static final int TRAILER_LENGTH = 512;
+  private static final int MINIFIED_MIN_LENGTH = 4096;
+  private static final int MINIFIED_AVERAGE_LINE_LENGTH = 250;
+  private static final List<String> GENERATED_MARKERS = List.of("@generated", "DO NOT EDIT",
+      "Code generated by");
+  private static final String SOURCE_MAP_MARKER = "sourceMappingURL=";
+
+  private GeneratedFileDetector() {
+    // utility class
+  }
+
+  /**
+   * Checks whether the file looks generated or minified.
+   *
+   * @param fileName the name or path of the file
+   * @param source   the content of the file
+   * @param stats    the text metrics of the content
+   * @return the heuristic that matched, empty if the file looks hand-written
+   */
+  public static Optional<String> detect(final String fileName, final CharStream source,
+      final TextStats stats) {
+    if (fileName.contains(".min.")) {
+      return Optional.of(MINIFIED);
+    }
+    final int length = source.size();
+    // blank lines would hide a long line within an otherwise empty file
+    final long lines = stats.lines() - stats.blankLines();
+    if (stats.size() >= MINIFIED_MIN_LENGTH
+        && stats.size() / Math.max(1, lines) > MINIFIED_AVERAGE_LINE_LENGTH) {
+      return Optional.of(MINIFIED);
+    }
+    final String header = source.getText(Interval.of(0, Math.min(length, HEADER_LENGTH) - 1));
+    for (final String marker : GENERATED_MARKERS) {
+      if (header.contains(marker)) {
+        return Optional.of(GENERATED);
+      }
+    }
+    final String trailer = source.getText(
+        Interval.of(Math.max(0, length - TRAILER_LENGTH), length - 1));
+    if (trailer.contains(SOURCE_MAP_MARKER)) {
+      return Optional.of(SOURCE_MAP);
+    }
+    return Optional.empty();
+  }
+}
@@ -0,0 +1,368 @@
+package net.explorviz.code.analysis.parser;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import net.explorviz.code.analysis.antlr.generated.CPP14Lexer;
+import net.explorviz.code.analysis.antlr.generated.CPP14Parser;
+import net.explorviz.code.analysis.antlr.generated.Java20Lexer;
+import net.explorviz.code.analysis.antlr.generated.Java20Parser;
+import net.explorviz.code.analysis.antlr.generated.PythonLexer;
+import net.explorviz.code.analysis.antlr.generated.PythonParser;
+import net.explorviz.code.analysis.antlr.generated.TypeScriptLexer;
+import net.explorviz.code.analysis.antlr.generated.TypeScriptParser;
+import net.explorviz.code.analysis.exceptions.ParseBudgetExceededException;
+import net.explorviz.code.analysis.handler.TextFileDataHandler;
+import net.explorviz.code.analysis.listener.CommonFileDataListener;
+import net.explorviz.code.analysis.listener.LineIndex;
+import net.explorviz.code.proto.Language;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Token;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Lexer-only analysis of Java, TypeScript/JavaScript, Python and C/C++ files. Only the tokens of a
+ * file are produced, no parse tree is built. The line counts are exact, the function count and
+ * the imports are derived from the token sequence: a function is a name followed by a
+ * parenthesized list and a body (Python: {@code def}, TypeScript additionally {@code function}
+ * and {@code =>}), imports are collected like the listeners of the full analysis do. <br>
+ * Meant for vendored, test or generated directories where the structure of the files is not
+ * needed, see {@code AnalysisTierPolicy}.
+ */
+@ApplicationScoped
+public class LexicalAnalyzer {
+
+  /**
+   * Metric flagging files analyzed by the lexer only.
+   */
+  public static final String LEX_ONLY = "lexOnly";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(LexicalAnalyzer.class);
+
+  private static final Vocabulary JAVA = new Vocabulary(Java20Lexer.Identifier,
+      Java20Lexer.LPAREN, Java20Lexer.RPAREN, Java20Lexer.LBRACE, Java20Lexer.RBRACE,
+      Java20Lexer.SEMI, Java20Lexer.ASSIGN,
+      Set.of(Java20Lexer.NEW, Java20Lexer.RECORD, Java20Lexer.AT), Set.of(), Set.of());
+  private static final Vocabulary TYPESCRIPT = new Vocabulary(TypeScriptLexer.Identifier,
+      TypeScriptLexer.OpenParen, TypeScriptLexer.CloseParen, TypeScriptLexer.OpenBrace,
+      TypeScriptLexer.CloseBrace, TypeScriptLexer.SemiColon, TypeScriptLexer.Assign,
+      Set.of(TypeScriptLexer.New, TypeScriptLexer.At, TypeScriptLexer.Function_), Set.of(),
+      Set.of(TypeScriptLexer.Function_, TypeScriptLexer.ARROW));
+  private static final Vocabulary CPP = new Vocabulary(CPP14Lexer.Identifier,
+      CPP14Lexer.LeftParen, CPP14Lexer.RightParen, CPP14Lexer.LeftBrace, CPP14Lexer.RightBrace,
+      CPP14Lexer.Semi, CPP14Lexer.Assign,
+      // members in initializer lists look like functions as well
+      Set.of(CPP14Lexer.New, CPP14Lexer.Comma), Set.of(CPP14Lexer.Colon), Set.of());
+
+  private static final String INCLUDE = "#include";
+
+  private final ReusableParsers<Java20Lexer, Java20Parser> javaParsers =
+      new ReusableParsers<>(Java20Lexer::new, Java20Parser::new);
+  private final ReusableParsers<TypeScriptLexer, TypeScriptParser> typeScriptParsers =
+      new ReusableParsers<>(TypeScriptLexer::new, TypeScriptParser::new);
+  private final ReusableParsers<PythonLexer, PythonParser> pythonParsers =
+      new ReusableParsers<>(PythonLexer::new, PythonParser::new);
+  private final ReusableParsers<CPP14Lexer, CPP14Parser> cppParsers =
+      new ReusableParsers<>(CPP14Lexer::new, CPP14Parser::new);
+
+  /**
+   * Returns true if files of the language can be analyzed by the lexer only.
+   *
+   * @param language the language of the file
+   * @return if the language is supported
+   */
+  public static boolean supports(final Language language) {
+    return language == Language.JAVA || language == Language.TYPESCRIPT
+        || language == Language.JAVASCRIPT || language == Language.PYTHON
+        || language == Language.CPP;
+  }
+
+  /**
+   * Runs the lexer on the content of a file within the limits of the given guard.
+   *
+   * @param charStream the content of the file
+   * @param fileName   the name or path of the file
+   * @param fileHash   the object id of the file
+   * @param language   the language of the file, see {@link #supports(Language)}
+   * @param guard      the guard limiting the lexer
+   * @return the file data with line counts, function count and imports
+   * @throws ParseBudgetExceededException if the lexer exceeds the limits of the guard
+   */
+  public TextFileDataHandler analyze(final CharStream charStream, final String fileName,
+      final String fileHash, final Language language, final ParseGuard guard) {
+    LOGGER.atTrace().addArgument(fileName).log("Lexing file content for {}");
+    final TextFileDataHandler fileDataHandler = new TextFileDataHandler(fileName, language);
+    fileDataHandler.setFileHash(fileHash);
+
+    if (language == Language.JAVA) {
+      try (ReusableParsers.Lease<Java20Lexer, Java20Parser> lease =
+          javaParsers.acquire(charStream, guard)) {
+        final List<Token> tokens = fill(lease.tokens(), "//", fileDataHandler);
+        addFunctionCount(fileDataHandler, countFunctions(tokens, JAVA));
+        addJavaImports(tokens, fileDataHandler);
+      }
+    } else if (language == Language.TYPESCRIPT || language == Language.JAVASCRIPT) {
+      try (ReusableParsers.Lease<TypeScriptLexer, TypeScriptParser> lease =
+          typeScriptParsers.acquire(charStream, guard)) {
+        final List<Token> tokens = fill(lease.tokens(), "//", fileDataHandler);
+        addFunctionCount(fileDataHandler, countFunctions(tokens, TYPESCRIPT));
+        addTypeScriptImports(tokens, fileDataHandler);
+      }
+    } else if (language == Language.PYTHON) {
+      try (ReusableParsers.Lease<PythonLexer, PythonParser> lease =
+          pythonParsers.acquire(charStream, guard)) {
+        final List<Token> tokens = fill(lease.tokens(), "#", fileDataHandler);
+        addFunctionCount(fileDataHandler, countType(tokens, PythonLexer.DEF));
+        addPythonImports(tokens, fileDataHandler);
+      }
+    } else if (language == Language.CPP) {
+      try (ReusableParsers.Lease<CPP14Lexer, CPP14Parser> lease =
+          cppParsers.acquire(charStream, guard)) {
+        final List<Token> tokens = fill(lease.tokens(), "//", fileDataHandler);
+        addFunctionCount(fileDataHandler, countFunctions(tokens, CPP));
+        addIncludes(lease.tokens(), fileDataHandler);
+      }
+    } else {
+      throw new IllegalArgumentException("Language not supported: " + language);
+    }
+    fileDataHandler.addMetric(LEX_ONLY, "1");
+    return fileDataHandler;
+  }
+
+  /**
+   * Discards the lexers reused by the analyzing threads.
+   */
+  public void reset() {
+    javaParsers.invalidate();
+    typeScriptParsers.invalidate();
+    pythonParsers.invalidate();
+    cppParsers.invalidate();
+  }
+
+  /**
+   * Runs the lexer to the end, adds the line counts and returns the tokens on the default channel.
+   */
+  private static List<Token> fill(final CommonTokenStream tokenStream,
+      final String lineCommentPrefix, final TextFileDataHandler fileDataHandler) {
+    tokenStream.fill();
+    final LineIndex lineIndex = new LineIndex(tokenStream, lineCommentPrefix);
+    fileDataHandler.addMetric(CommonFileDataListener.SLOC, String.valueOf(lineIndex.sloc()));
+    fileDataHandler.addMetric(CommonFileDataListener.CLOC, String.valueOf(lineIndex.cloc()));
+
+    final List<Token> tokens = new ArrayList<>(tokenStream.size());
+    for (final Token token : tokenStream.getTokens()) {
+      if (token.getChannel() == Token.DEFAULT_CHANNEL && token.getType() != Token.EOF) {
+        tokens.add(token);
+      }
+    }
+    return tokens;
+  }
+
+  private static void addFunctionCount(final TextFileDataHandler fileDataHandler,
+      final int functionCount) {
+    fileDataHandler.addMetric(CommonFileDataListener.FUNCTION_COUNT,
+        String.valueOf(functionCount));
+  }
+
+  private static int countType(final List<Token> tokens, final int type) {
+    int count = 0;
+    for (final Token token : tokens) {
+      if (token.getType() == type) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Counts the function keywords and the names followed by a parenthesized list and a body. The
+   * tokens between the list and the body (return types, {@code throws} clauses, initializer
+   * lists) are skipped, a statement end or an assignment in between marks a call instead.
+   */
+  private static int countFunctions(final List<Token> tokens, final Vocabulary vocabulary) {
+    int count = 0;
+    for (int i = 0; i < tokens.size(); i++) {
+      final int type = tokens.get(i).getType();
+      if (vocabulary.functionKeywords.contains(type)) {
+        count++;
+      } else if (type == vocabulary.identifier && i + 1 < tokens.size()
+          && tokens.get(i + 1).getType() == vocabulary.openParen
+          && !isExcluded(tokens, i, vocabulary)
+          && hasBody(tokens, i + 1, vocabulary)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private static boolean isExcluded(final List<Token> tokens, final int name,
+      final Vocabulary vocabulary) {
+    if (name == 0) {
+      return false;
+    }
+    final int previous = tokens.get(name - 1).getType();
+    return vocabulary.notBeforeName.contains(previous)
+        || name > 1 && vocabulary.notAfterList.contains(previous)
+        && tokens.get(name - 2).getType() == vocabulary.closeParen;
+  }
+
+  private static boolean hasBody(final List<Token> tokens, final int openParen,
+      final Vocabulary vocabulary) {
+    int depth = 0;
+    boolean afterList = false;
+    for (int i = openParen; i < tokens.size(); i++) {
+      final int type = tokens.get(i).getType();
+      if (type == vocabulary.openParen) {
+        depth++;
+      } else if (type == vocabulary.closeParen) {
+        depth--;
+        if (depth < 0) {
+          return false;
+        }
+        afterList = true;
+      } else if (depth == 0 && afterList) {
+        if (type == vocabulary.openBrace) {
+          return true;
+        } else if (type == vocabulary.semi || type == vocabulary.closeBrace
+            || type == vocabulary.assign) {
+          return false;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Adds single-type and on-demand imports as {@code a.b.C} and {@code a.b.*}, static imports are
+   * skipped like in the full analysis.
+   */
+  private static void addJavaImports(final List<Token> tokens,
+      final TextFileDataHandler fileDataHandler) {
+    for (int i = 0; i < tokens.size(); i++) {
+      if (tokens.get(i).getType() != Java20Lexer.IMPORT || i + 1 >= tokens.size()
+          || tokens.get(i + 1).getType() == Java20Lexer.STATIC) {
+        continue;
+      }
+      final StringBuilder importName = new StringBuilder();
+      int end = i + 1;
+      while (end < tokens.size() && tokens.get(end).getType() != Java20Lexer.SEMI) {
+        importName.append(tokens.get(end).getText());
+        end++;
+      }
+      if (importName.length() > 0) {
+        fileDataHandler.addImport(importName.toString());
+      }
+      i = end;
+    }
+  }
+
+  /**
+   * Adds the text of import statements without whitespace, as the full analysis does. A statement
+   * ends with its module specifier or semicolon, dynamic imports and {@code import.meta} are
+   * skipped.
+   */
+  private static void addTypeScriptImports(final List<Token> tokens,
+      final TextFileDataHandler fileDataHandler) {
+    for (int i = 0; i < tokens.size(); i++) {
+      if (tokens.get(i).getType() != TypeScriptLexer.Import || i + 1 >= tokens.size()
+          || tokens.get(i + 1).getType() == TypeScriptLexer.OpenParen
+          || tokens.get(i + 1).getType() == TypeScriptLexer.Dot) {
+        continue;
+      }
+      final StringBuilder importText = new StringBuilder();
+      int depth = 0;
+      int end = i;
+      for (; end < tokens.size(); end++) {
+        final Token token = tokens.get(end);
+        importText.append(token.getText());
+        if (token.getType() == TypeScriptLexer.OpenParen) {
+          depth++;
+        } else if (token.getType() == TypeScriptLexer.CloseParen) {
+          depth--;
+        } else if (token.getType() == TypeScriptLexer.SemiColon) {
+          break;
+        } else if (token.getType() == TypeScriptLexer.StringLiteral && depth <= 0) {
+          if (end + 1 < tokens.size()
+              && tokens.get(end + 1).getType() == TypeScriptLexer.SemiColon) {
+            end++;
+            importText.append(tokens.get(end).getText());
+          }
+          break;
+        }
+      }
+      fileDataHandler.addImport(importText.toString());
+      i = end;
+    }
+  }
+
+  /**
+   * Adds the text of {@code import} and {@code from} statements without whitespace, as the full
+   * analysis does. Statements start after a line break, an indentation change or a semicolon, the
+   * lexer emits no line breaks within parentheses.
+   */
+  private static void addPythonImports(final List<Token> tokens,
+      final TextFileDataHandler fileDataHandler) {
+    boolean statementStart = true;
+    for (int i = 0; i < tokens.size(); i++) {
+      final int startType = tokens.get(i).getType();
+      if (isPythonStatementEnd(startType)) {
+        statementStart = true;
+        continue;
+      }
+      if (!statementStart
+          || startType != PythonLexer.IMPORT && startType != PythonLexer.FROM) {
+        statementStart = false;
+        continue;
+      }
+      final StringBuilder importText = new StringBuilder();
+      int end = i;
+      while (end < tokens.size() && !isPythonStatementEnd(tokens.get(end).getType())) {
+        importText.append(tokens.get(end).getText());
+        end++;
+      }
+      fileDataHandler.addImport(importText.toString());
+      i = end - 1;
+      statementStart = false;
+    }
+  }
+
+  private static boolean isPythonStatementEnd(final int type) {
+    return type == PythonLexer.LINE_BREAK || type == PythonLexer.SEMI_COLON
+        || type == PythonLexer.INDENT || type == PythonLexer.DEDENT;
+  }
+
+  /**
+   * Adds the {@code #include} directives, which the lexer puts on the hidden channel.
+   */
+  private static void addIncludes(final CommonTokenStream tokenStream,
+      final TextFileDataHandler fileDataHandler) {
+    for (final Token token : tokenStream.getTokens()) {
+      if (token.getChannel() != Token.DEFAULT_CHANNEL && token.getText() != null) {
+        final String trimmed = token.getText().trim();
+        if (trimmed.startsWith(INCLUDE)) {
+          final String includeName = trimmed.substring(INCLUDE.length()).trim();
+          if (!includeName.isEmpty()) {
+            fileDataHandler.addImport(includeName);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Token types of a grammar used to find functions.
+   *
+   * @param notBeforeName    tokens that mark a name as something else than a function, e.g.
+   *                         {@code new} or {@code @}
+   * @param notAfterList     tokens that do so if they follow a parenthesized list, e.g. the
+   *                         {@code :} starting a C++ initializer list
+   * @param functionKeywords tokens that start a function on their own, e.g. {@code function}
+   */
+  private record Vocabulary(int identifier, int openParen, int closeParen, int openBrace,
+                            int closeBrace, int semi, int assign, Set<Integer> notBeforeName,
+                            Set<Integer> notAfterList, Set<Integer> functionKeywords) {
+  }
+}
@@ -0,0 +1,154 @@
+package net.explorviz.code.analysis.parser;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import net.explorviz.code.analysis.types.TextStats;
+import org.antlr.v4.runtime.CharStream;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Limits the cost of analyzing a single file, so one minified bundle or huge generated source can
+ * not stall a whole commit. Files are checked for their size, their longest line and whether they
+ * look generated before parsing; the token count and the parse time are enforced during parsing
+ * by a {@link ParseGuard}. Files exceeding the budget are only measured in size and lines. <br>
+ * A limit of 0 or less disables it.
+ */
+@ApplicationScoped
+public class ParseBudget {
+
+  /**
+   * Metric flagging a file that exceeded the budget.
+   */
+  public static final String BUDGET_EXCEEDED = "budgetExceeded";
+
+  public static final String MAX_BYTES = "maxBytes";
+  public static final String MAX_LINE_LENGTH = "maxLineLength";
+  public static final String MAX_TOKENS = "maxTokens";
+  public static final String PARSE_TIMEOUT = "parseTimeout";
+
+  @ConfigProperty(name = "explorviz.gitanalysis.budget.max-bytes", defaultValue = "2097152")
+  /* default */ long maxBytesProperty; // NOCS
+
+  @ConfigProperty(name = "explorviz.gitanalysis.budget.max-line-length", defaultValue = "10000")
+  /* default */ int maxLineLengthProperty; // NOCS
+
+  @ConfigProperty(name = "explorviz.gitanalysis.budget.max-tokens", defaultValue = "2000000")
+  /* default */ long maxTokensProperty; // NOCS
+
+  @ConfigProperty(name = "explorviz.gitanalysis.budget.parse-timeout-ms", defaultValue = "30000")
+  /* default */ long parseTimeoutProperty; // NOCS
+
+  @ConfigProperty(name = "explorviz.gitanalysis.budget.skip-generated", defaultValue = "true")
+  /* default */ boolean skipGeneratedProperty; // NOCS
+
+  private final Map<String, LongAdder> exceeded = new ConcurrentHashMap<>();
+
+  /**
+   * Creates a budget limited by the application properties.
+   */
+  public ParseBudget() {
+    // configured by field injection
+  }
+
+  /**
+   * Creates a budget with the given limits.
+   *
+   * @param maxBytes      the maximum size of a file in bytes
+   * @param maxLineLength the maximum length of a line in bytes
+   * @param maxTokens     the maximum amount of tokens of a file
+   * @param timeoutMillis the time parsing a file may take in milliseconds
+   * @param skipGenerated whether generated and minified files are only measured
+   */
+  public ParseBudget(final long maxBytes, final int maxLineLength, final long maxTokens,
+      final long timeoutMillis, final boolean skipGenerated) {
+    this.maxBytesProperty = maxBytes;
+    this.maxLineLengthProperty = maxLineLength;
+    this.maxTokensProperty = maxTokens;
+    this.parseTimeoutProperty = timeoutMillis;
+    this.skipGeneratedProperty = skipGenerated;
+  }
+
+  /**
+   * Checks the size of a file, which is known from the object header before its content is read.
+   *
+   * @param size the size of the file in bytes
+   * @return the exceeded limit, empty if the file may be read
+   */
+  public Optional<String> checkSize(final long size) {
+    return maxBytesProperty > 0 && size > maxBytesProperty ? Optional.of(MAX_BYTES)
+        : Optional.empty();
+  }
+
+  /**
+   * Checks the limits that are known from the text metrics, before the content is decoded.
+   *
+   * @param stats the text metrics of the content
+   * @return the exceeded limit, empty if the content may be decoded
+   */
+  public Optional<String> checkStats(final TextStats stats) {
+    final Optional<String> exceededSize = checkSize(stats.size());
+    if (exceededSize.isPresent()) {
+      return exceededSize;
+    }
+    return maxLineLengthProperty > 0 && stats.longestLine() > maxLineLengthProperty
+        ? Optional.of(MAX_LINE_LENGTH) : Optional.empty();
+  }
+
+  /**
+   * Checks whether a file looks generated or minified, if such files are skipped.
+   *
+   * @param fileName the name or path of the file
+   * @param source   the decoded content of the file
+   * @param stats    the text metrics of the content
+   * @return the matched heuristic, empty if the file may be parsed
+   */
+  public Optional<String> checkGenerated(final String fileName, final CharStream source,
+      final TextStats stats) {
+    return skipGeneratedProperty ? GeneratedFileDetector.detect(fileName, source, stats)
+        : Optional.empty();
+  }
+
+  /**
+   * Starts the budget of a single parse.
+   *
+   * @return the guard to attach to the lexer and parser
+   */
+  public ParseGuard startParse() {
+    return new ParseGuard(maxTokensProperty, parseTimeoutProperty);
+  }
+
+  /**
+   * Counts a file that exceeded the budget.
+   *
+   * @param reason the exceeded limit or matched heuristic
+   */
+  public void recordExceeded(final String reason) {
+    exceeded.computeIfAbsent(reason, key -> new LongAdder()).increment();
+  }
+
+  /**
+   * Returns the limits that change the analysis result, to be part of the analyzer profile. The
+   * parse timeout is left out, as it depends on the machine rather than the file.
+   *
+   * @return the limits as string
+   */
+  public String getProfile() {
+    return "budget:" + maxBytesProperty + "/" + maxLineLengthProperty + "/" + maxTokensProperty
+        + (skipGeneratedProperty ? "/generated" : "");
+  }
+
+  /**
+   * Returns the amount of files that exceeded the budget, grouped by the exceeded limit.
+   *
+   * @return the current statistics
+   */
+  public Map<String, Object> getStats() {
+    final Map<String, Object> stats = new TreeMap<>();
+    exceeded.forEach((reason, count) -> stats.put(reason, count.sum()));
+    return stats;
+  }
+}
@@ -0,0 +1,158 @@
+package net.explorviz.code.analysis.parser;
+
+import net.explorviz.code.analysis.exceptions.ParseBudgetExceededException;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenFactory;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+/**
+ * Enforces the token and time limit of a single parse. The guard counts the tokens handed from the
+ * lexer to the parser and periodically compares the clock with the deadline, both while lexing and
+ * while the parser enters rules, so an ANTLR parse stuck in prediction is cancelled as well. A
+ * guard must only be used for one parse.
+ */
+public final class ParseGuard {
+
+  /**
+   * Guard without any limit.
+   */
+  public static final ParseGuard NONE = new ParseGuard(0, 0);
+
+  private static final int CLOCK_INTERVAL = 256;
+
+  private final long maxTokens;
+  private final long deadline;
+  private long tokens;
+  private int events;
+
+  /**
+   * Creates a guard starting now.
+   *
+   * @param maxTokens     the maximum amount of tokens, 0 or less for no limit
+   * @param timeoutMillis the time the parse may take in milliseconds, 0 or less for no limit
+   */
+  public ParseGuard(final long maxTokens, final long timeoutMillis) {
+    this.maxTokens = maxTokens;
+    this.deadline = timeoutMillis > 0 ? System.nanoTime() + timeoutMillis * 1_000_000 : 0;
+  }
+
+  private boolean isUnlimited() {
+    return maxTokens <= 0 && deadline == 0;
+  }
+
+  /**
+   * Wraps the lexer, so every token it produces is counted.
+   *
+   * @param source the lexer
+   * @return the token source to create the token stream from
+   */
+  public TokenSource limit(final TokenSource source) {
+    return isUnlimited() ? source : new LimitedTokenSource(source);
+  }
+
+  /**
+   * Lets the parser check the deadline whenever it enters a rule.
+   *
+   * @param parser the parser
+   */
+  public void limit(final Parser parser) {
+    if (deadline != 0) {
+      parser.addParseListener(new DeadlineListener());
+    }
+  }
+
+  private void countToken() {
+    tokens++;
+    if (maxTokens > 0 && tokens > maxTokens) {
+      throw new ParseBudgetExceededException(ParseBudget.MAX_TOKENS,
+          "More than " + maxTokens + " tokens");
+    }
+    tick();
+  }
+
+  private void tick() {
+    if (deadline != 0 && ++events % CLOCK_INTERVAL == 0 && System.nanoTime() - deadline > 0) {
+      throw new ParseBudgetExceededException(ParseBudget.PARSE_TIMEOUT, "Parse timed out");
+    }
+  }
+
+  /**
+   * Token source counting the tokens of the wrapped lexer.
+   */
+  private final class LimitedTokenSource implements TokenSource {
+
+    private final TokenSource source;
+
+    private LimitedTokenSource(final TokenSource source) {
+      this.source = source;
+    }
+
+    @Override
+    public Token nextToken() {
+      countToken();
+      return source.nextToken();
+    }
+
+    @Override
+    public int getLine() {
+      return source.getLine();
+    }
+
+    @Override
+    public int getCharPositionInLine() {
+      return source.getCharPositionInLine();
+    }
+
+    @Override
+    public CharStream getInputStream() {
+      return source.getInputStream();
+    }
+
+    @Override
+    public String getSourceName() {
+      return source.getSourceName();
+    }
+
+    @Override
+    public void setTokenFactory(final TokenFactory<?> factory) {
+      source.setTokenFactory(factory);
+    }
+
+    @Override
+    public TokenFactory<?> getTokenFactory() {
+      return source.getTokenFactory();
+    }
+  }
+
+  /**
+   * Parse listener checking the deadline while the parser makes progress.
+   */
+  private final class DeadlineListener implements ParseTreeListener {
+
+    @Override
+    public void enterEveryRule(final ParserRuleContext ctx) {
+      tick();
+    }
+
+    @Override
+    public void visitTerminal(final TerminalNode node) {
+      // tokens are checked by the token source
+    }
+
+    @Override
+    public void visitErrorNode(final ErrorNode node) {
+      // nothing to check
+    }
+
+    @Override
+    public void exitEveryRule(final ParserRuleContext ctx) {
+      // checked on entering
+    }
+  }
+}
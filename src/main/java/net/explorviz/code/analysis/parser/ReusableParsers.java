@@ -0,0 +1,149 @@
+package net.explorviz.code.analysis.parser;
+
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.TokenStream;
+
+/**
+ * Lexer, token stream and parser of a grammar, reused for all files parsed by the same thread.
+ * Creating them per file allocates the lexer's and parser's simulators, the token buffer and the
+ * default listeners again, which adds up for commits with thousands of small files. <br>
+ * The instances are thread-confined and reset between files via {@code setInputStream} and
+ * {@code setTokenStream}, grammar specific state is reset by the {@code reset()} methods of the
+ * lexer and parser base classes. A thread that acquires instances while it still holds a lease
+ * gets fresh ones.
+ *
+ * @param <L> the type of the lexer
+ * @param <P> the type of the parser
+ */
+public final class ReusableParsers<L extends Lexer, P extends Parser> {
+
+  private final Function<CharStream, L> lexerFactory;
+  private final Function<TokenStream, P> parserFactory;
+  private final ThreadLocal<Lease<L, P>> leases;
+  private volatile int generation;
+
+  /**
+   * Creates reusable instances of a grammar.
+   *
+   * @param lexerFactory  creates the grammar's lexer
+   * @param parserFactory creates the grammar's parser
+   */
+  public ReusableParsers(final Function<CharStream, L> lexerFactory,
+      final Function<TokenStream, P> parserFactory) {
+    this.lexerFactory = lexerFactory;
+    this.parserFactory = parserFactory;
+    this.leases = ThreadLocal.withInitial(this::create);
+  }
+
+  private Lease<L, P> create() {
+    final L lexer = lexerFactory.apply(empty());
+    final CommonTokenStream tokens = new CommonTokenStream(lexer);
+    return new Lease<>(lexer, tokens, parserFactory.apply(tokens), generation);
+  }
+
+  /**
+   * Lets every thread create new instances for its next file, dropping the buffers the old ones
+   * grew for large files.
+   */
+  public void invalidate() {
+    generation++; // NOPMD only written by the thread starting an analysis
+  }
+
+  private static CharStream empty() {
+    // streams keep their position, so every lexer needs its own
+    return CharStreams.fromString("");
+  }
+
+  /**
+   * Prepares the instances of the current thread for parsing the given input. The lease must be
+   * closed once the parse tree is no longer walked.
+   *
+   * @param input the content of the file
+   * @param guard the guard limiting the parse
+   * @return the lease of the instances
+   */
+  public Lease<L, P> acquire(final CharStream input, final ParseGuard guard) {
+    return acquire(input, guard, UnaryOperator.identity());
+  }
+
+  /**
+   * Prepares the instances of the current thread for parsing the given input, passing the tokens
+   * through the given filter between the lexer and the parser. The lease must be closed once the
+   * parse tree is no longer walked.
+   *
+   * @param input       the content of the file
+   * @param guard       the guard limiting the parse
+   * @param tokenFilter wraps the guarded lexer, e.g. to hide tokens from the parser
+   * @return the lease of the instances
+   */
+  public Lease<L, P> acquire(final CharStream input, final ParseGuard guard,
+      final UnaryOperator<TokenSource> tokenFilter) {
+    Lease<L, P> lease = leases.get();
+    if (lease.generation != generation) {
+      lease = create();
+      leases.set(lease);
+    } else if (lease.inUse) {
+      lease = create();
+    }
+    lease.inUse = true;
+    lease.lexer.setInputStream(input);
+    lease.tokens.setTokenSource(tokenFilter.apply(guard.limit(lease.lexer)));
+    lease.parser.setTokenStream(lease.tokens);
+    guard.limit(lease.parser);
+    return lease;
+  }
+
+  /**
+   * Lexer, token stream and parser leased for a single file.
+   *
+   * @param <L> the type of the lexer
+   * @param <P> the type of the parser
+   */
+  public static final class Lease<L extends Lexer, P extends Parser> implements AutoCloseable {
+
+    private final L lexer;
+    private final CommonTokenStream tokens;
+    private final P parser;
+    private final int generation;
+    private boolean inUse;
+
+    private Lease(final L lexer, final CommonTokenStream tokens, final P parser,
+        final int generation) {
+      this.lexer = lexer;
+      this.tokens = tokens;
+      this.parser = parser;
+      this.generation = generation;
+    }
+
+    public L lexer() {
+      return lexer;
+    }
+
+    public CommonTokenStream tokens() {
+      return tokens;
+    }
+
+    public P parser() {
+      return parser;
+    }
+
+    /**
+     * Releases the instances and drops their references to the file.
+     */
+    @Override
+    public void close() {
+      parser.removeParseListeners();
+      lexer.setInputStream(empty());
+      tokens.setTokenSource(lexer);
+      parser.setTokenStream(tokens);
+      inUse = false;
+    }
+  }
+}
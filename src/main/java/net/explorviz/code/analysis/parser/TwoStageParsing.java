@@ -0,0 +1,87 @@
+package net.explorviz.code.analysis.parser;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import net.explorviz.code.analysis.exceptions.ParseBudgetExceededException;
+import org.antlr.v4.runtime.ANTLRErrorListener;
+import org.antlr.v4.runtime.ANTLRErrorStrategy;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+
+/**
+ * Parses in two stages, as recommended for ANTLR 4: first with the fast SLL prediction and an error
+ * strategy that bails out on the first syntax error, and only if that fails again with full LL
+ * prediction and the parser's regular error recovery. SLL succeeds for almost all valid input and
+ * then yields the same tree as LL, so the expensive full-context prediction is only paid for files
+ * that are ambiguous for SLL or contain syntax errors. <br>
+ * The tokens are not lexed again for the second stage, the token stream is rewound instead.
+ */
+public final class TwoStageParsing {
+
+  private final LongAdder sllParses = new LongAdder();
+  private final LongAdder llFallbacks = new LongAdder();
+  private final LongAdder fallbackNanos = new LongAdder();
+
+  /**
+   * Parses the parser's input with the given start rule.
+   *
+   * @param parser    the parser, configured with its token stream
+   * @param startRule the start rule of the grammar, invoked on the parser
+   * @param <T>       the type of the start rule's context
+   * @return the parse tree
+   * @throws ParseBudgetExceededException if the parse exceeds its budget
+   */
+  public <T extends ParserRuleContext> T parse(final Parser parser, final Supplier<T> startRule) {
+    final ANTLRErrorStrategy errorHandler = parser.getErrorHandler();
+    final List<? extends ANTLRErrorListener> errorListeners = List.copyOf(
+        parser.getErrorListeners());
+    parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+    parser.setErrorHandler(new BailErrorStrategy());
+    parser.removeErrorListeners();
+    try {
+      final T tree = startRule.get();
+      sllParses.increment();
+      return tree;
+    } catch (ParseBudgetExceededException e) { // NOPMD
+      throw e;
+    } catch (ParseCancellationException e) {
+      // syntax error or SLL conflict, retry with full LL from the first token
+      final long start = System.nanoTime();
+      llFallbacks.increment();
+      parser.reset();
+      restore(parser, errorHandler, errorListeners);
+      parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+      try {
+        return startRule.get();
+      } finally {
+        fallbackNanos.add(System.nanoTime() - start);
+      }
+    } finally {
+      // reused parsers must start the next file in their original configuration
+      restore(parser, errorHandler, errorListeners);
+    }
+  }
+
+  private static void restore(final Parser parser, final ANTLRErrorStrategy errorHandler,
+      final List<? extends ANTLRErrorListener> errorListeners) {
+    parser.setErrorHandler(errorHandler);
+    parser.removeErrorListeners();
+    errorListeners.forEach(parser::addErrorListener);
+  }
+
+  /**
+   * Returns how often the SLL stage sufficed and how often full LL was needed.
+   *
+   * @return the current statistics
+   */
+  public Map<String, Long> getStats() {
+    return Map.of("sll", sllParses.sum(), "llFallbacks", llFallbacks.sum(), "llFallbackMillis",
+        TimeUnit.NANOSECONDS.toMillis(fallbackNanos.sum()));
+  }
+}
@@ -13,7 +13,8 @@ public record AnalysisConfig(Optional<String> repoPath, Optional<String> repoRem
     Optional<String> gitPassword, Optional<String> branch,
     Optional<String> includeInAnalysisExpressions,
     Optional<String> excludeFromAnalysisExpressions, Optional<String> applicationRoot,
-    boolean calculateMetrics,
+    boolean calculateMetrics, Optional<String> metricCollectors, Optional<String> analysisTiers,
+    boolean declarationsOnly, boolean checkoutFree,
     Optional<String> startCommit, Optional<String> endCommit,
     Optional<Integer> commitAnalysisLimit,
     String landscapeToken, String applicationName) {
@@ -32,6 +33,10 @@ public record AnalysisConfig(Optional<String> repoPath, Optional<String> repoRem
     private Optional<String> excludeFromAnalysisExpressions = Optional.empty();
     private Optional<String> applicationRoot = Optional.empty();
     private boolean calculateMetrics = true;
+    private Optional<String> metricCollectors = Optional.empty();
+    private Optional<String> analysisTiers = Optional.empty();
+    private boolean declarationsOnly;
+    private boolean checkoutFree;
     private Optional<String> startCommit = Optional.empty();
     private Optional<String> endCommit = Optional.empty();
     private Optional<Integer> commitAnalysisLimit = Optional.empty();
@@ -83,6 +88,26 @@ public record AnalysisConfig(Optional<String> repoPath, Optional<String> repoRem
       return this;
     }
 
+    public Builder metricCollectors(final Optional<String> metricCollectors) {
+      this.metricCollectors = metricCollectors;
+      return this;
+    }
+
+    public Builder analysisTiers(final Optional<String> analysisTiers) {
+      this.analysisTiers = analysisTiers;
+      return this;
+    }
+
+    public Builder declarationsOnly(final boolean declarationsOnly) {
+      this.declarationsOnly = declarationsOnly;
+      return this;
+    }
+
+    public Builder checkoutFree(final boolean checkoutFree) {
+      this.checkoutFree = checkoutFree;
+      return this;
+    }
+
     public Builder startCommit(final Optional<String> startCommit) {
       this.startCommit = startCommit;
       return this;
@@ -119,6 +144,10 @@ public record AnalysisConfig(Optional<String> repoPath, Optional<String> repoRem
           excludeFromAnalysisExpressions,
           applicationRoot,
           calculateMetrics,
+          metricCollectors,
+          analysisTiers,
+          declarationsOnly,
+          checkoutFree,
           startCommit,
           endCommit,
           commitAnalysisLimit,
@@ -9,5 +9,6 @@ public record AnalysisProgressState(
     int analyzedCommits,
     int totalFiles,
     int analyzedFiles,
+    int skippedFiles,
     String currentAnalysingFile) {
 }
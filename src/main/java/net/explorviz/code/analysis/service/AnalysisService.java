@@ -3,25 +3,34 @@ package net.explorviz.code.analysis.service;
 import com.google.protobuf.Timestamp;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.FileSystems;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import net.explorviz.code.analysis.cache.FileDataCache;
+import net.explorviz.code.analysis.cache.FileDataCacheKey;
+import net.explorviz.code.analysis.cache.HeaderCache;
+import net.explorviz.code.analysis.collector.MetricCollectors;
 import net.explorviz.code.analysis.exceptions.DebugFileWriter;
 import net.explorviz.code.analysis.exceptions.NotFoundException;
+import net.explorviz.code.analysis.exceptions.ParseBudgetExceededException;
 import net.explorviz.code.analysis.exceptions.PropertyNotDefinedException;
 import net.explorviz.code.analysis.export.DataExporter;
-import net.explorviz.code.analysis.git.DirectoryFinder;
 import net.explorviz.code.analysis.git.GitMetricCollector;
 import net.explorviz.code.analysis.git.GitRepositoryHandler;
+import net.explorviz.code.analysis.git.GlobTreeFilter;
+import net.explorviz.code.analysis.git.TagIndex;
 import net.explorviz.code.analysis.handler.AbstractFileDataHandler;
+import net.explorviz.code.analysis.handler.CachedFileDataHandler;
 import net.explorviz.code.analysis.handler.CommitReportHandler;
 import net.explorviz.code.analysis.handler.TextFileDataHandler;
 import net.explorviz.code.analysis.listener.CommonFileDataListener;
@@ -29,18 +38,30 @@ import net.explorviz.code.analysis.parser.AntlrCppParserService;
 import net.explorviz.code.analysis.parser.AntlrParserService;
 import net.explorviz.code.analysis.parser.AntlrPythonParserService;
 import net.explorviz.code.analysis.parser.AntlrTypeScriptParserService;
+import net.explorviz.code.analysis.parser.DfaCacheManager;
+import net.explorviz.code.analysis.parser.LexicalAnalyzer;
+import net.explorviz.code.analysis.parser.ParseBudget;
+import net.explorviz.code.analysis.types.BlobContent;
 import net.explorviz.code.analysis.types.FileDescriptor;
+import net.explorviz.code.analysis.types.TextStats;
 import net.explorviz.code.analysis.types.Triple;
 import net.explorviz.code.analysis.visitor.FileDataVisitor;
+import net.explorviz.code.proto.CommitData;
+import net.explorviz.code.proto.FileData;
 import net.explorviz.code.proto.Language;
 import net.explorviz.code.proto.StateData;
+import org.antlr.v4.runtime.CharStream;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.errors.LargeObjectException;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevSort;
 import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -93,9 +114,29 @@ public class AnalysisService {
   @Inject
   /* package */ AntlrCppParserService cppParserService;
   @Inject
+  /* package */ LexicalAnalyzer lexicalAnalyzer;
+  @Inject
   /* package */ AnalysisStatusService analysisStatusService;
+  @Inject
+  /* package */ FileDataCache fileDataCache;
+  @Inject
+  /* package */ HeaderCache headerCache;
+  @Inject
+  /* package */ ParserPool parserPool;
+  @Inject
+  /* package */ IoExecutor ioExecutor;
+  @Inject
+  /* package */ ParseBudget parseBudget;
+  @Inject
+  /* package */ DfaCacheManager dfaCacheManager;
   @ConfigProperty(name = "explorviz.gitanalysis.save-crashed_files")
   /* default */ boolean saveCrashedFilesProperty;
+  @ConfigProperty(name = "explorviz.gitanalysis.assume-unresolved-types-from-wildcard-imports")
+  /* default */ boolean wildcardImportProperty;
+  @ConfigProperty(name = "explorviz.gitanalysis.pipeline.queue-capacity", defaultValue = "4")
+  /* default */ int pipelineQueueCapacity;
+  @ConfigProperty(name = "explorviz.gitanalysis.pipeline.commit-window", defaultValue = "4")
+  /* default */ int commitWindowSize;
 
   private static String toErrorText(final String position, final String commitId,
       final String branchName) {
@@ -118,8 +159,22 @@ public class AnalysisService {
 
     try (Repository repository = this.gitRepositoryHandler.getGitRepository(config)) {
 
-      final String fullBranch = repository.getFullBranch();
-      final String branch = repository.getBranch();
+      final boolean checkoutFree = this.gitRepositoryHandler.isCheckoutFree();
+      final String fullBranch;
+      final String branch;
+      if (checkoutFree) {
+        // HEAD might not point to the analyzed branch, as nothing gets checked out
+        fullBranch = GitRepositoryHandler.resolveBranchRef(repository,
+            config.branch().orElse(""));
+        if (fullBranch == null) {
+          throw new NotFoundException(
+              "The branch <" + config.branch().orElse("HEAD") + "> could not be resolved");
+        }
+        branch = GitRepositoryHandler.getShortBranchName(fullBranch);
+      } else {
+        fullBranch = repository.getFullBranch();
+        branch = repository.getBranch();
+      }
 
       // get fetch data from remote
       final Optional<String> startCommit = findStartCommit(config, exporter, branch);
@@ -127,8 +182,14 @@ public class AnalysisService {
 
       checkIfCommitsAreReachable(startCommit, endCommit, fullBranch);
 
-      final int totalCommitsInRange = countCommitsInRange(repository, fullBranch, startCommit, endCommit,
-          exporter.isRemote());
+      // the range is walked only once, progress and analysis are both driven by the list
+      final List<ObjectId> commitsInRange = listCommitsInRange(repository, fullBranch, startCommit,
+          endCommit);
+      // when continuing a remote analysis, the start commit was already analyzed and only acts as
+      // the base of the first commit
+      final int alreadyAnalyzed = exporter.isRemote() && !commitsInRange.isEmpty()
+          && startCommit.isPresent() && !"".equals(startCommit.get()) ? 1 : 0;
+      final int totalCommitsInRange = commitsInRange.size() - alreadyAnalyzed;
 
       int commitsToAnalyze = totalCommitsInRange;
 
@@ -146,38 +207,43 @@ public class AnalysisService {
       LOGGER.info("Total commits to analyze: {}", commitsToAnalyze);
       analysisStatusService.markRunning(config.landscapeToken(), commitsToAnalyze, 0);
 
-      try (RevWalk revWalk = new RevWalk(repository)) {
-        prepareRevWalk(repository, revWalk, fullBranch);
-
+      antlrParserService.reset();
+      tsParserService.reset();
+      pythonParserService.reset();
+      cppParserService.reset();
+      lexicalAnalyzer.reset();
+
+      // compiled once, evaluated for every analyzed file
+      final AnalysisTierPolicy tierPolicy = AnalysisTierPolicy.compile(config.analysisTiers());
+      // resolved once, so unknown names are reported once per analysis instead of once per file
+      final Set<String> metricCollectors = config.calculateMetrics()
+          ? MetricCollectors.select(config.metricCollectors()) : Set.of();
+
+      // limits how many commits are analyzed at the same time, the export stage acts as
+      // reorder buffer and emits them in commit order
+      final Semaphore commitWindow = new Semaphore(Math.max(1, commitWindowSize));
+
+      try (RevWalk revWalk = new RevWalk(repository);
+          TagIndex tagIndex = new TagIndex(repository);
+          CommitPipeline pipeline = new CommitPipeline(pipelineQueueCapacity,
+              work -> commitAnalysis(config, tierPolicy, metricCollectors, repository, work,
+                  commitWindow),
+              work -> exportCommit(config, exporter, work))) {
         int commitCount = 0;
         int skippedInPreAnalysis = 0;
         final int commitsToSkipBeforeAnalyzing = totalCommitsInRange - commitsToAnalyze;
 
-        RevCommit lastCheckedCommit = null;
-        boolean inAnalysisRange = startCommit.isEmpty() || "".equals(startCommit.get());
+        RevCommit lastCheckedCommit = alreadyAnalyzed == 0 ? null
+            : revWalk.parseCommit(commitsInRange.get(0));
 
-        // Pre-compile patterns
-        final List<java.nio.file.PathMatcher> restrictMatchers = compileMatchers(
-            config.includeInAnalysisExpressions());
-        final List<java.nio.file.PathMatcher> excludeMatchers = compileMatchers(
+        // compiled once, applied during the tree walk of every commit
+        final TreeFilter globFilter = GlobTreeFilter.create(config.includeInAnalysisExpressions(),
             config.excludeFromAnalysisExpressions());
 
-        for (final RevCommit commit : revWalk) {
-
-          if (!inAnalysisRange) {
-            if (commit.name().equals(startCommit.get())) {
-              inAnalysisRange = true;
-              if (exporter.isRemote()) {
-                lastCheckedCommit = commit;
-                continue;
-              }
-            } else {
-              if (exporter.isRemote()) {
-                lastCheckedCommit = commit;
-              }
-              continue;
-            }
-          }
+        for (final ObjectId commitId : commitsInRange.subList(alreadyAnalyzed,
+            commitsInRange.size())) {
+          final RevCommit commit = revWalk.parseCommit(commitId);
+
           if (skippedInPreAnalysis < commitsToSkipBeforeAnalyzing) {
             skippedInPreAnalysis++;
             lastCheckedCommit = commit;
@@ -194,62 +260,47 @@ public class AnalysisService {
           final RevCommit baseCommit = (isFirstAnalyzedCommit && (!exporter.isRemote()
               || startCommit.isEmpty())) ? null : lastCheckedCommit;
 
+          if (!checkoutFree) {
+            Git.wrap(repository).checkout().setName(commit.getName()).call();
+          }
+
           final var descTriple = gitRepositoryHandler
               .listDiff(
                   repository,
                   Optional.ofNullable(baseCommit),
                   commit,
-                  config.applicationRoot().orElse(config.includeInAnalysisExpressions().orElse("")));
+                  config.applicationRoot().orElse(config.includeInAnalysisExpressions().orElse("")),
+                  globFilter);
 
           final List<FileDescriptor> descriptorAddedList = descTriple.right(); // NOPMD
           final List<FileDescriptor> descriptorModifiedList = descTriple.left();
           final List<FileDescriptor> descriptorDeletedList = descTriple.middle();
 
-          applyGlobFiltering(descriptorAddedList, restrictMatchers, excludeMatchers);
-          applyGlobFiltering(descriptorModifiedList, restrictMatchers, excludeMatchers);
-          applyGlobFiltering(descriptorDeletedList, restrictMatchers, excludeMatchers);
-
           LOGGER.atDebug().addArgument(descriptorAddedList.size())
               .addArgument(descriptorModifiedList.size())
               .log("Files added: {}, files modified: {}");
 
-          analysisStatusService.setCurrentCommitFiles(config.landscapeToken(),
-              descriptorAddedList.size() + descriptorModifiedList.size());
-
-          if (descriptorAddedList.isEmpty() && descriptorModifiedList.isEmpty()) {
-            createCommitReport(config, repository, commit, baseCommit, exporter, branch, descTriple,
-                restrictMatchers, excludeMatchers);
-
-            commitCount++;
-            analysisStatusService.incrementAnalyzedCommit(config.landscapeToken());
-            lastCheckedCommit = commit;
-            if (endCommit.isPresent() && commit.name().equals(endCommit.get())) {
-              break;
-            }
-            continue;
-          }
-
           final List<FileDescriptor> descriptorList = new ArrayList<FileDescriptor>(); // NOPMD
           descriptorList.addAll(descriptorAddedList);
           descriptorList.addAll(descriptorModifiedList);
 
-          commitAnalysis(config, repository, commit, baseCommit, descriptorList, exporter,
-              branch, descTriple, restrictMatchers, excludeMatchers);
+          pipeline.submit(new CommitWork(CommitAnalysisContext.of(config, commit), // NOPMD
+              createCommitReport(config, tagIndex, commit, baseCommit, branch, descTriple),
+              descriptorList));
 
           commitCount++;
-          analysisStatusService.incrementAnalyzedCommit(config.landscapeToken());
-
           lastCheckedCommit = commit;
-          // break if endCommit is reached, if endCommit is empty, run for all commits
-          if (endCommit.isPresent() && commit.name().equals(endCommit.get())) {
-            break;
-          }
         }
 
+        pipeline.finish();
         LOGGER.atTrace().addArgument(commitCount).log("Analyzed {} commits");
       }
       // checkout the branch, so not a single commit is checked out after the run
-      Git.wrap(repository).checkout().setName(fullBranch).call();
+      if (!checkoutFree) {
+        Git.wrap(repository).checkout().setName(fullBranch).call();
+      }
+    } finally {
+      dfaCacheManager.analysisFinished();
     }
   }
 
@@ -289,120 +340,168 @@ public class AnalysisService {
     }
   }
 
-  private int countCommitsInRange(final Repository repository, final String fullBranch,
-      final Optional<String> startCommit, final Optional<String> endCommit,
-      final boolean remoteExport) throws IOException {
+  /**
+   * Resolves the commits of the branch from the start commit up to and including the end commit in
+   * analysis order. The walk neither keeps the commit bodies nor the commits themselves, only their
+   * ids, so it stays cheap for long histories. If the repository provides a commit-graph, it is
+   * used for the walk.
+   */
+  /* package */ static List<ObjectId> listCommitsInRange(final Repository repository,
+      final String fullBranch, final Optional<String> startCommit,
+      final Optional<String> endCommit) throws IOException {
+    // JGit only reads the commit-graph if enabled explicitly, use the default of the git CLI
+    // unless the repository disables it (in memory only, the configuration file is not changed)
+    if (repository.getConfig().getBoolean(ConfigConstants.CONFIG_CORE_SECTION,
+        ConfigConstants.CONFIG_COMMIT_GRAPH, true)) {
+      repository.getConfig().setBoolean(ConfigConstants.CONFIG_CORE_SECTION, null,
+          ConfigConstants.CONFIG_COMMIT_GRAPH, true);
+    }
+
+    final List<ObjectId> commits = new ArrayList<>();
     try (RevWalk revWalk = new RevWalk(repository)) {
+      revWalk.setRetainBody(false);
       prepareRevWalk(repository, revWalk, fullBranch);
 
-      int totalCommits = 0;
       boolean inAnalysisRange = startCommit.isEmpty() || "".equals(startCommit.get());
-
       for (final RevCommit commit : revWalk) {
         if (!inAnalysisRange) {
-          if (commit.name().equals(startCommit.get())) {
-            inAnalysisRange = true;
-            if (remoteExport) {
-              continue;
-            }
-          } else {
+          if (!commit.name().equals(startCommit.get())) {
             continue;
           }
+          inAnalysisRange = true;
         }
-        totalCommits++;
+        commits.add(commit.copy());
         if (endCommit.isPresent() && commit.name().equals(endCommit.get())) {
           break;
         }
       }
-
-      return totalCommits;
+      LOGGER.atDebug().addArgument(commits.size())
+          .addArgument(revWalk.getObjectReader().getCommitGraph().isPresent())
+          .log("Resolved {} commits in range, commit-graph used: {}");
     }
+    return commits;
   }
 
-  private void prepareRevWalk(final Repository repository, final RevWalk revWalk,
+  private static void prepareRevWalk(final Repository repository, final RevWalk revWalk,
       final String branch) throws IOException {
     revWalk.sort(RevSort.COMMIT_TIME_DESC, true);
     revWalk.sort(RevSort.REVERSE, true);
 
     LOGGER.atTrace().addArgument(branch).log("Analyzing branch: {}");
 
-    // get a list of all known heads, tags, remotes, ...
-    final Collection<Ref> allRefs = repository.getRefDatabase().getRefs();
-    for (final Ref ref : allRefs) {
-      if (ref.getName().equals(branch)) {
-        revWalk.markStart(revWalk.parseCommit(ref.getObjectId()));
-        break;
-      }
+    final Ref ref = repository.getRefDatabase().exactRef(branch);
+    if (ref != null) {
+      revWalk.markStart(revWalk.parseCommit(ref.getObjectId()));
     }
   }
 
-  private void commitAnalysis(final AnalysisConfig config, final Repository repository,
-      final RevCommit commit, final RevCommit lastCommit, final List<FileDescriptor> descriptorList,
-      final DataExporter exporter, final String branchName,
-      final Triple<List<FileDescriptor>, List<FileDescriptor>, List<FileDescriptor>> descriptorTriple,
-      final List<java.nio.file.PathMatcher> restrictMatchers,
-      final List<java.nio.file.PathMatcher> excludeMatchers)
-      throws GitAPIException, NotFoundException, IOException {
-
-    Git.wrap(repository).checkout().setName(commit.getName()).call();
-    createCommitReport(config, repository, commit, lastCommit, exporter, branchName, descriptorTriple,
-        restrictMatchers, excludeMatchers);
+  /**
+   * Parse stage of the {@link CommitPipeline}, schedules the analysis of all files of a commit
+   * without waiting for them. Blocks while the window of concurrently analyzed commits is full, so
+   * the window also bounds the blobs being read.
+   */
+  private void commitAnalysis(final AnalysisConfig config, final AnalysisTierPolicy tierPolicy,
+      final Set<String> metricCollectors, final Repository repository, final CommitWork work,
+      final Semaphore commitWindow) throws InterruptedException {
+    commitWindow.acquire();
 
-    antlrParserService.reset();
-    GitMetricCollector.resetAuthor();
+    analysisStatusService.setCurrentCommitFiles(config.landscapeToken(), work.files.size());
 
-    LOGGER.atTrace().addArgument(descriptorList.toString()).log("Files: {}");
+    LOGGER.atTrace().addArgument(work.files.toString()).log("Files: {}");
 
-    descriptorList.parallelStream().forEach(fileDescriptor -> {
-      try {
-        analysisStatusService.setCurrentAnalyzingFile(config.landscapeToken(),
-            fileDescriptor.reportedPath);
+    final CompletableFuture<?>[] fileTasks = new CompletableFuture<?>[work.files.size()];
+    for (int index = 0; index < fileTasks.length; index++) {
+      final FileDescriptor fileDescriptor = work.files.get(index);
+      fileTasks[index] = analyzeFile(config, metricCollectors, repository, work, fileDescriptor,
+          tierPolicy.tierOf(fileDescriptor.reportedPath));
+    }
+    work.completion = CompletableFuture.allOf(fileTasks);
+    work.completion.whenComplete((ignored, throwable) -> commitWindow.release());
+  }
 
-        LOGGER.atInfo()
-            .addArgument(fileDescriptor.reportedPath)
-            .log("📄 Analyzing file: {}");
+  /**
+   * Analyzes a single file. The cache lookup and the read of the content run on the
+   * {@link IoExecutor}, only the analysis of a cache miss runs on the {@link ParserPool}.
+   */
+  private CompletableFuture<Void> analyzeFile(final AnalysisConfig config,
+      final Set<String> metricCollectors, final Repository repository, final CommitWork work,
+      final FileDescriptor fileDescriptor, final AnalysisTier tier) {
+    return ioExecutor.supply(() -> {
+      analysisStatusService.setCurrentAnalyzingFile(config.landscapeToken(),
+          fileDescriptor.reportedPath);
 
-        final AbstractFileDataHandler fileDataHandler = fileAnalysis(config, repository, fileDescriptor,
-            commit.getName());
+      LOGGER.atInfo()
+          .addArgument(fileDescriptor.reportedPath)
+          .log("📄 Analyzing file: {}");
 
-        if (fileDataHandler == null) {
-          LOGGER.atError()
-              .addArgument(fileDescriptor.relativePath)
-              .log("❌ Analysis of file {} failed - handler is NULL");
-        } else {
-          LOGGER.atInfo()
-              .addArgument(fileDescriptor.relativePath)
-              .log("✅ Analysis of file {} succeeded - sending to exporter");
-          try {
-            File file = new File(GitRepositoryHandler.getCurrentRepositoryPath() + "/"
-                + fileDescriptor.relativePath);
-            fileDataHandler.addMetric(CommonFileDataListener.FILE_SIZE, String.valueOf(file.length()));
-          } catch (NullPointerException e) {
-            LOGGER.error("File size of file " + fileDescriptor.relativePath
-                + " could not be analyzed." + e.getMessage());
-          }
-          // Add Git metrics for all files
-          GitMetricCollector.addCommitGitMetrics(fileDataHandler, commit);
-          fileDataHandler.setLandscapeToken(config.landscapeToken());
-          fileDataHandler.setRepositoryName(config.getRepositoryName());
-          exporter.persistFile(fileDataHandler.getProtoBufObject());
-        }
+      try {
+        // the content is only read from the object database if the analysis is not cached
+        return cachedFileAnalysis(config, metricCollectors, fileDescriptor,
+            new LazyBlob(repository, fileDescriptor, parseBudget), tier);
       } catch (IOException e) {
-        LOGGER.error("Failed to analyze file {}: {}", fileDescriptor.reportedPath, e.getMessage());
+        throw new UncheckedIOException(e);
+      }
+    }).thenCompose(Function.identity()).handle((fileDataHandler, throwable) -> {
+      try {
+        collectResult(work, fileDescriptor, fileDataHandler, throwable);
       } finally {
         analysisStatusService.incrementAnalyzedFile(config.landscapeToken());
       }
+      return null;
     });
+  }
 
+  private static void collectResult(final CommitWork work, final FileDescriptor fileDescriptor,
+      final AbstractFileDataHandler fileDataHandler, final Throwable throwable) {
+    if (throwable != null) {
+      final Throwable cause = throwable instanceof CompletionException
+          && throwable.getCause() != null ? throwable.getCause() : throwable;
+      if (!(cause instanceof UncheckedIOException)) {
+        // anything but an unreadable file fails the commit
+        throw throwable instanceof CompletionException completionException
+            ? completionException : new CompletionException(cause);
+      }
+      LOGGER.error("Failed to analyze file {}: {}", fileDescriptor.reportedPath,
+          cause.getCause().getMessage());
+    } else if (fileDataHandler == null) {
+      LOGGER.atError()
+          .addArgument(fileDescriptor.relativePath)
+          .log("❌ Analysis of file {} failed - handler is NULL");
+    } else {
+      LOGGER.atInfo()
+          .addArgument(fileDescriptor.relativePath)
+          .log("✅ Analysis of file {} succeeded - sending to exporter");
+      // Add Git metrics for all files
+      GitMetricCollector.addCommitGitMetrics(fileDataHandler, work.context);
+      fileDataHandler.setLandscapeToken(work.context.landscapeToken());
+      fileDataHandler.setRepositoryName(work.context.repositoryName());
+      work.results.add(fileDataHandler.getProtoBufObject());
+    }
   }
 
-  private void createCommitReport(final AnalysisConfig config, final Repository repository,
-      final RevCommit commit, final RevCommit lastCommit, final DataExporter exporter,
-      final String branchName,
-      final Triple<List<FileDescriptor>, List<FileDescriptor>, List<FileDescriptor>> descriptorTriple,
-      final List<java.nio.file.PathMatcher> restrictMatchers,
-      final List<java.nio.file.PathMatcher> excludeMatchers)
-      throws NotFoundException, IOException, GitAPIException {
+  /**
+   * Export stage of the {@link CommitPipeline}, waits until all files of the commit are analyzed
+   * and sends the commit report followed by its files. As the commits arrive in order, they are
+   * emitted in order, even if the files of later commits finish first.
+   */
+  private void exportCommit(final AnalysisConfig config, final DataExporter exporter,
+      final CommitWork work) {
+    work.completion.join();
+    exporter.persistCommit(work.commitData);
+    // the files of a commit are sent concurrently, but all of them before the next commit
+    final List<CompletableFuture<Void>> sentFiles = new ArrayList<>(work.results.size());
+    for (final FileData fileData : work.results) {
+      sentFiles.add(ioExecutor.run(() -> exporter.persistFile(fileData)));
+    }
+    CompletableFuture.allOf(sentFiles.toArray(new CompletableFuture<?>[0])).join();
+    analysisStatusService.incrementAnalyzedCommit(config.landscapeToken());
+    dfaCacheManager.checkMemory();
+  }
+
+  private CommitData createCommitReport(final AnalysisConfig config, final TagIndex tagIndex,
+      final RevCommit commit, final RevCommit lastCommit, final String branchName,
+      final Triple<List<FileDescriptor>, List<FileDescriptor>, List<FileDescriptor>> descriptorTriple)
+      throws IOException {
     final CommitReportHandler commitReportHandler = new CommitReportHandler();
 
     if (lastCommit == null) {
@@ -432,30 +531,22 @@ public class AnalysisService {
       commitReportHandler.addAdded(addedFile);
     }
 
-    final List<Ref> list = Git.wrap(repository).tagList().call();
-    final List<String> tags = new ArrayList<>();
-    for (final Ref tag : list) {
-      if (tag.getObjectId().equals(commit.getId())) {
-        tags.add(tag.getName());
-      }
-    }
-    commitReportHandler.addTags(tags);
+    commitReportHandler.addTags(tagIndex.getTags(commit));
     commitReportHandler.addToken(config.landscapeToken());
     commitReportHandler.setRepositoryName(config.getRepositoryName());
 
-    exporter.persistCommit(commitReportHandler.getCommitData());
+    return commitReportHandler.getCommitData();
   }
 
-
   /**
-   * Checks if a file is a text file by checking its MIME type. Detects text/*,
-   * application/json, and application/yaml
-   * files.
+   * Checks if a file is a text file by checking its extension and, for unknown extensions, its
+   * content. The content check works on the blob itself, so no working tree is needed.
    *
    * @param file the file descriptor
+   * @param blob the content of the file
    * @return true if it's a readable text file
    */
-  /* package */ boolean isTextFile(final FileDescriptor file) {
+  /* package */ boolean isTextFile(final FileDescriptor file, final Supplier<BlobContent> blob) {
     final String fileName = file.fileName.toLowerCase();
 
     if (fileName.lastIndexOf('.') == -1) {
@@ -466,60 +557,241 @@ public class AnalysisService {
       return true;
     }
 
-    // Detect MIME type using file path
-    try {
-      Path path = FileSystems.getDefault()
-          .getPath(GitRepositoryHandler.getCurrentRepositoryPath() + "/" + file.relativePath);
-      return Files.probeContentType(path).startsWith("text");
-    } catch (Exception e) {
-      LOGGER.atTrace()
-          .addArgument(file.relativePath)
-          .addArgument(e.getMessage())
-          .log("Could not detect MIME type for {}: {}");
+    final BlobContent content = blob.get();
+    if (content == null) {
+      return false;
     }
+    final boolean binary = content.isBinary();
+    LOGGER.atTrace()
+        .addArgument(file.relativePath)
+        .addArgument(binary)
+        .log("Content of {} detected as binary: {}");
+    return !binary;
+  }
 
-    return false;
+  /**
+   * Detects the language of a file by its extension. Files with unknown extensions are classified
+   * as plain text or unspecified based on their content.
+   *
+   * @param file the file descriptor
+   * @param blob the content of the file, only read for unknown extensions
+   * @return the detected language
+   */
+  /* package */ Language detectLanguage(final FileDescriptor file,
+      final Supplier<BlobContent> blob) {
+    final String fileName = file.fileName.toLowerCase();
+    if (fileName.endsWith(".ts") || fileName.endsWith(".tsx")) {
+      return Language.TYPESCRIPT;
+    } else if (fileName.endsWith(".js") || fileName.endsWith(".jsx")) {
+      return Language.JAVASCRIPT;
+    } else if (fileName.endsWith(".java")) {
+      return Language.JAVA;
+    } else if (fileName.endsWith(".py")) {
+      return Language.PYTHON;
+    } else if (fileName.endsWith(".c") || fileName.endsWith(".cpp")
+        || fileName.endsWith(".cxx") || fileName.endsWith(".cc")
+        || fileName.endsWith(".h") || fileName.endsWith(".hpp")
+        || fileName.endsWith(".hxx")) {
+      return Language.CPP;
+    } else if (isTextFile(file, blob)) {
+      return Language.PLAINTEXT;
+    }
+    return Language.LANGUAGE_UNSPECIFIED;
   }
 
   /**
-   * Analyzes a file and returns the appropriate handler based on file extension.
+   * Returns the analyzer version combined with all settings that change the analysis result of a
+   * file, as results are shared with later runs through the persistent store.
+   */
+  private String getAnalyzerProfile(final AnalysisConfig config,
+      final Set<String> metricCollectors, final Language language, final AnalysisTier tier) {
+    if (tier != AnalysisTier.FULL) {
+      return FileDataCache.ANALYZER_VERSION + "+" + tier.getConfigName() + "+"
+          + parseBudget.getProfile();
+    }
+    final boolean declarationsOnly = config.declarationsOnly() && (language == Language.JAVA
+        || language == Language.TYPESCRIPT || language == Language.JAVASCRIPT);
+    String metrics = "";
+    if (declarationsOnly) {
+      // the bodies are skipped, so are the metrics calculated from them
+      metrics = "+declarations";
+    } else if (config.calculateMetrics() && language == Language.JAVA) {
+      metrics = "+metrics";
+    } else if (config.calculateMetrics() && (language == Language.TYPESCRIPT
+        || language == Language.JAVASCRIPT || language == Language.PYTHON
+        || language == Language.CPP)) {
+      metrics = "+metrics=" + String.join(",", metricCollectors);
+    }
+    return FileDataCache.ANALYZER_VERSION + (wildcardImportProperty ? "+wildcard" : "")
+        + metrics + "+" + parseBudget.getProfile();
+  }
+
+  /**
+   * Looks up the analysis result of the file's blob in the {@link FileDataCache} and only analyzes
+   * the file on a miss. The result of a hit gets the commit-specific data of the current file. The
+   * content is only read on a miss, or to detect the language of a file with unknown extension.
+   * Runs on the {@link IoExecutor}, the returned future completes once the analysis is done.
+   */
+  private CompletableFuture<AbstractFileDataHandler> cachedFileAnalysis(final AnalysisConfig config,
+      final Set<String> metricCollectors, final FileDescriptor file, final LazyBlob blob,
+      final AnalysisTier tier) throws IOException {
+    final Language language = detectLanguage(file, blob);
+    // Java, TypeScript and Python resolve names relative to the file's path
+    final boolean pathDependent = language == Language.JAVA || language == Language.TYPESCRIPT
+        || language == Language.JAVASCRIPT || language == Language.PYTHON;
+    final FileDataCacheKey key = new FileDataCacheKey(file.objectId, language,
+        getAnalyzerProfile(config, metricCollectors, language, tier),
+        pathDependent && tier == AnalysisTier.FULL ? file.reportedPath : "");
+
+    if (language == Language.CPP && tier == AnalysisTier.FULL && headerCache.isEnabled()
+        && HeaderCache.isHeader(file.fileName)) {
+      return headerFileAnalysis(config, metricCollectors, file, blob, key);
+    }
+
+    final Optional<FileData> cached = fileDataCache.get(key);
+    if (cached.isPresent()) {
+      return CompletableFuture.completedFuture(reuseCachedAnalysis(config, file, cached.get()));
+    }
+
+    // the persistent store is written on an I/O thread, never on the parser thread
+    return readAndAnalyze(config, metricCollectors, file, blob, language, tier)
+        .thenApplyAsync(fileDataHandler -> {
+          if (fileDataHandler != null) {
+            fileDataCache.put(key, fileDataHandler.getProtoBufObject());
+          }
+          return fileDataHandler;
+        }, ioExecutor);
+  }
+
+  /**
+   * Looks up the analysis result of a C/C++ header in the {@link HeaderCache}, which parses each
+   * header blob at most once, even if several commits analyzed in parallel contain it. A lookup of
+   * a header being analyzed shares the running analysis and occupies no thread while waiting.
+   */
+  private CompletableFuture<AbstractFileDataHandler> headerFileAnalysis(
+      final AnalysisConfig config, final Set<String> metricCollectors, final FileDescriptor file,
+      final LazyBlob blob, final FileDataCacheKey key) {
+    final AtomicReference<AbstractFileDataHandler> analyzed = new AtomicReference<>();
+    return headerCache.getOrAnalyze(key, () -> {
+      try {
+        return readAndAnalyze(config, metricCollectors, file, blob, Language.CPP,
+            AnalysisTier.FULL).thenApply(fileDataHandler -> {
+              analyzed.set(fileDataHandler);
+              return fileDataHandler == null ? null : fileDataHandler.getProtoBufObject();
+            });
+      } catch (IOException e) {
+        return CompletableFuture.failedFuture(new UncheckedIOException(e));
+      }
+    }, ioExecutor).thenApply(fileData -> analyzed.get() != null || fileData == null
+        ? analyzed.get() : reuseCachedAnalysis(config, file, fileData));
+  }
+
+  /**
+   * Reads the content of a file on the calling I/O thread and analyzes it on the
+   * {@link ParserPool}. Files exceeding the size limit of the {@link ParseBudget} are measured from
+   * the object header only, whatever their tier or language, their content is never read. While
+   * the pool's queue is full, the caller waits and reads no further blobs.
+   */
+  private CompletableFuture<AbstractFileDataHandler> readAndAnalyze(final AnalysisConfig config,
+      final Set<String> metricCollectors, final FileDescriptor file, final LazyBlob blob,
+      final Language language, final AnalysisTier tier) throws IOException {
+    final long size = blob.size();
+    final Optional<String> exceededSize = parseBudget.checkSize(size);
+    if (exceededSize.isPresent()) {
+      return CompletableFuture.completedFuture(
+          budgetFallback(config, file, size, language, exceededSize.get()));
+    }
+    final BlobContent content = blob.get();
+    if (content == null) {
+      return CompletableFuture.completedFuture(null);
+    }
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        return fileAnalysis(config, metricCollectors, file, content, language, tier);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }, parserPool);
+  }
+
+  /**
+   * Creates the handler of a file from a cached analysis result of its blob, adding the
+   * commit-specific data of the current file.
+   */
+  private AbstractFileDataHandler reuseCachedAnalysis(final AnalysisConfig config,
+      final FileDescriptor file, final FileData cached) {
+    LOGGER.atDebug().addArgument(file.reportedPath).log("Reusing cached analysis of file {}");
+    if (cached.containsMetrics(ParseBudget.BUDGET_EXCEEDED)) {
+      analysisStatusService.incrementSkippedFile(config.landscapeToken());
+    }
+    final AbstractFileDataHandler fileDataHandler = new CachedFileDataHandler(file.reportedPath,
+        cached);
+    GitMetricCollector.addFileGitMetrics(fileDataHandler, file);
+    return fileDataHandler;
+  }
+
+  /**
+   * Analyzes a file and returns the appropriate handler based on its language.
    * Routes code files to parsers and text
    * files to basic metric collection.
    *
-   * @param config     the analysis configuration
-   * @param repository the git repository
-   * @param file       the file descriptor
-   * @param commitSha  the commit SHA
+   * @param config           the analysis configuration
+   * @param metricCollectors the metric collectors selected for the analysis
+   * @param file             the file descriptor
+   * @param blob             the content of the file
+   * @param language         the language detected by
+   *                         {@link #detectLanguage(FileDescriptor, Supplier)}
+   * @param tier             the tier of the file selected by the {@link AnalysisTierPolicy}
    * @return the file data handler
    * @throws IOException if file content cannot be read
    */
   private AbstractFileDataHandler fileAnalysis(final AnalysisConfig config,
-      final Repository repository, final FileDescriptor file, final String commitSha)
-      throws IOException {
-    final String fileContent;
-    try {
-      fileContent = GitRepositoryHandler.getContent(file.objectId, repository);
-    } catch (Exception e) {
-      // skipping unreadable files
-      return null;
+      final Set<String> metricCollectors, final FileDescriptor file, final BlobContent blob,
+      final Language language, final AnalysisTier tier) throws IOException {
+    final TextStats stats = blob.stats();
+    if (tier == AnalysisTier.SIZE_ONLY) {
+      return sizeOnlyAnalysis(file, blob, stats, language);
+    }
+    if (isParsed(language)) {
+      // size and line length are known without decoding the content
+      final Optional<String> exceededLimit = parseBudget.checkStats(stats);
+      if (exceededLimit.isPresent()) {
+        return budgetFallback(config, file, blob, stats, language, exceededLimit.get());
+      }
     }
+    final CharStream source = blob.asCharStream(file.reportedPath);
 
-    final String fileName = file.fileName.toLowerCase();
+    if (isParsed(language)) {
+      final Optional<String> generated = parseBudget.checkGenerated(file.reportedPath, source,
+          stats);
+      if (generated.isPresent()) {
+        return budgetFallback(config, file, blob, stats, language, generated.get());
+      }
+    }
 
     try {
       AbstractFileDataHandler fileDataHandler = null;
 
-      // Route to appropriate parser based on file extension
-      if (fileName.endsWith(".ts") || fileName.endsWith(".tsx")
-          || fileName.endsWith(".js") || fileName.endsWith(".jsx")) {
+      // Route to appropriate parser based on the detected language
+      if (tier == AnalysisTier.LEX_ONLY && LexicalAnalyzer.supports(language)) {
+        LOGGER.atInfo()
+            .addArgument(file.reportedPath)
+            .addArgument(blob.size())
+            .log("Lexing file without parsing: {} (size: {} bytes)");
+
+        fileDataHandler = lexicalAnalyzer.analyze(source, file.reportedPath,
+            file.objectId.getName(), language, parseBudget.startParse());
+        GitMetricCollector.addFileGitMetrics(fileDataHandler, file);
+      } else if (language == Language.TYPESCRIPT || language == Language.JAVASCRIPT) {
         // TypeScript/JavaScript file
         LOGGER.atInfo()
             .addArgument(file.reportedPath)
-            .addArgument(fileContent.length())
+            .addArgument(blob.size())
             .log("Parsing TypeScript/JavaScript file: {} (size: {} bytes)");
 
-        fileDataHandler = tsParserService.parseFileContent(fileContent,
-            file.reportedPath, file.objectId.getName());
+        fileDataHandler = tsParserService.parseFileContent(source, file.reportedPath,
+            file.objectId.getName(), parseBudget.startParse(), metricCollectors,
+            config.declarationsOnly());
 
         if (fileDataHandler != null) {
           // Add git metrics to the TypeScript/JavaScript file handler
@@ -532,16 +804,17 @@ public class AnalysisService {
               .addArgument(file.reportedPath)
               .log("❌ TypeScript parser returned NULL for file: {}");
         }
-      } else if (fileName.endsWith(".java")) {
+      } else if (language == Language.JAVA) {
         // Java file - using ANTLR parser
         LOGGER.atInfo()
             .addArgument(file.reportedPath)
-            .addArgument(fileContent.length())
+            .addArgument(blob.size())
             .log("Parsing Java file with ANTLR: {} (size: {} bytes)");
 
         // Pass reportedPath instead of fileName to preserve directory structure
-        fileDataHandler = antlrParserService.parseFileContent(fileContent, file.reportedPath,
-            file.objectId.getName());
+        fileDataHandler = antlrParserService.parseFileContent(source, file.reportedPath,
+            file.objectId.getName(), parseBudget.startParse(), config.calculateMetrics(),
+            config.declarationsOnly());
 
         if (fileDataHandler != null) {
           // Add git metrics to the Java file handler
@@ -554,16 +827,16 @@ public class AnalysisService {
               .addArgument(file.reportedPath)
               .log("❌ ANTLR Java parser returned NULL for file: {}");
         }
-      } else if (fileName.endsWith(".py")) {
+      } else if (language == Language.PYTHON) {
         // Python file - using ANTLR parser
         LOGGER.atInfo()
             .addArgument(file.reportedPath)
-            .addArgument(fileContent.length())
+            .addArgument(blob.size())
             .log("Parsing Python file with ANTLR: {} (size: {} bytes)");
 
         // Pass reportedPath instead of fileName to preserve directory structure
-        fileDataHandler = pythonParserService.parseFileContent(fileContent, file.reportedPath,
-            file.objectId.getName());
+        fileDataHandler = pythonParserService.parseFileContent(source, file.reportedPath,
+            file.objectId.getName(), parseBudget.startParse(), metricCollectors);
 
         if (fileDataHandler != null) {
           // Add git metrics to the Python file handler
@@ -576,18 +849,15 @@ public class AnalysisService {
               .addArgument(file.reportedPath)
               .log("❌ ANTLR Python parser returned NULL for file: {}");
         }
-      } else if (fileName.endsWith(".c") || fileName.endsWith(".cpp")
-          || fileName.endsWith(".cxx") || fileName.endsWith(".cc")
-          || fileName.endsWith(".h") || fileName.endsWith(".hpp")
-          || fileName.endsWith(".hxx")) {
+      } else if (language == Language.CPP) {
         // C/C++ file - using ANTLR CPP14 parser
         LOGGER.atInfo()
             .addArgument(file.reportedPath)
-            .addArgument(fileContent.length())
+            .addArgument(blob.size())
             .log("Parsing C/C++ file with ANTLR: {} (size: {} bytes)");
 
-        fileDataHandler = cppParserService.parseFileContent(fileContent, file.reportedPath,
-            file.objectId.getName());
+        fileDataHandler = cppParserService.parseFileContent(source, file.reportedPath,
+            file.objectId.getName(), parseBudget.startParse(), metricCollectors);
 
         if (fileDataHandler != null) {
           GitMetricCollector.addFileGitMetrics(fileDataHandler, file);
@@ -599,16 +869,16 @@ public class AnalysisService {
               .addArgument(file.reportedPath)
               .log("❌ ANTLR C/C++ parser returned NULL for file: {}");
         }
-      } else if (isTextFile(file)) {
+      } else if (language == Language.PLAINTEXT) {
         LOGGER.atInfo()
             .addArgument(file.reportedPath)
-            .addArgument(fileContent.length())
+            .addArgument(blob.size())
             .log("📄 Processing detected text file: {} (size: {} bytes)");
 
         final TextFileDataHandler textHandler = new TextFileDataHandler(file.reportedPath,
             Language.PLAINTEXT);
         textHandler.setFileHash(file.objectId.getName());
-        textHandler.calculateMetrics(fileContent);
+        textHandler.calculateMetrics(stats);
 
         // Add git metrics
         GitMetricCollector.addFileGitMetrics(textHandler, file);
@@ -634,16 +904,18 @@ public class AnalysisService {
 
       if (fileDataHandler == null) {
         if (saveCrashedFilesProperty) {
-          DebugFileWriter.saveDebugFile("/logs/crashedfiles/", fileContent,
-              file.fileName);
+          ioExecutor.run(() -> DebugFileWriter.saveDebugFile("/logs/crashedfiles/", blob.asString(),
+              file.fileName));
         }
       } else {
-        final long loc = fileContent.lines().count();
-        fileDataHandler.addMetric(CommonFileDataListener.LOC, String.valueOf(loc));
+        fileDataHandler.addMetric(CommonFileDataListener.LOC, String.valueOf(stats.lines()));
+        fileDataHandler.addMetric(CommonFileDataListener.FILE_SIZE, String.valueOf(blob.size()));
       }
 
       return fileDataHandler;
 
+    } catch (ParseBudgetExceededException e) {
+      return budgetFallback(config, file, blob, stats, language, e.getReason());
     } catch (NoSuchElementException | NoSuchFieldError e) {
       if (LOGGER.isWarnEnabled()) {
         LOGGER.warn(e.toString());
@@ -652,65 +924,104 @@ public class AnalysisService {
     }
   }
 
-  void applyGlobFiltering(final List<FileDescriptor> descriptors,
-      final List<java.nio.file.PathMatcher> restrictMatchers,
-      final List<java.nio.file.PathMatcher> excludeMatchers) {
-    if (descriptors == null || descriptors.isEmpty()) {
-      return;
-    }
-
-    descriptors.removeIf(desc -> {
-      final java.nio.file.Path path = java.nio.file.Paths.get(desc.relativePath);
+  private static boolean isParsed(final Language language) {
+    return language == Language.JAVA || language == Language.TYPESCRIPT
+        || language == Language.JAVASCRIPT || language == Language.PYTHON
+        || language == Language.CPP;
+  }
 
-      // Restriction (Inclusion) - if specified, it must match one of them
-      if (restrictMatchers != null && !restrictMatchers.isEmpty()) {
-        boolean matchesRestrict = false;
-        for (final java.nio.file.PathMatcher matcher : restrictMatchers) {
-          if (matcher.matches(path)) {
-            matchesRestrict = true;
-            break;
-          }
-        }
-        if (!matchesRestrict) {
-          LOGGER.atDebug().addArgument(desc.relativePath).log("File {} does not match any restrict pattern. Skipping.");
-          return true; // remove because it doesn't match restriction
-        }
-      }
+  /**
+   * Measures a file of the {@link AnalysisTier#SIZE_ONLY} tier only in size and lines, its
+   * content is neither parsed nor lexed.
+   */
+  private static AbstractFileDataHandler sizeOnlyAnalysis(final FileDescriptor file,
+      final BlobContent blob, final TextStats stats, final Language language) {
+    LOGGER.atDebug().addArgument(file.reportedPath).log("Measuring size only of file {}");
+    final TextFileDataHandler textHandler = new TextFileDataHandler(file.reportedPath, language);
+    textHandler.setFileHash(file.objectId.getName());
+    textHandler.addMetric(CommonFileDataListener.LOC, String.valueOf(stats.lines()));
+    textHandler.addMetric(CommonFileDataListener.FILE_SIZE, String.valueOf(blob.size()));
+    GitMetricCollector.addFileGitMetrics(textHandler, file);
+    return textHandler;
+  }
 
-      // Exclusion - if it matches any, remove it
-      if (excludeMatchers != null && !excludeMatchers.isEmpty()) {
-        for (final java.nio.file.PathMatcher matcher : excludeMatchers) {
-          if (matcher.matches(path)) {
-            LOGGER.atDebug().addArgument(desc.relativePath).log("File {} matches an exclude pattern. Skipping.");
-            return true; // remove because it matches exclusion
-          }
-        }
-      }
+  /**
+   * Measures a file that exceeded the {@link ParseBudget} only in size and lines. The file keeps
+   * its language and is flagged, so it is distinguishable from a file without any structure.
+   */
+  private AbstractFileDataHandler budgetFallback(final AnalysisConfig config,
+      final FileDescriptor file, final BlobContent blob, final TextStats stats,
+      final Language language, final String exceededLimit) {
+    final AbstractFileDataHandler fileDataHandler = budgetFallback(config, file, blob.size(),
+        language, exceededLimit);
+    fileDataHandler.addMetric(CommonFileDataListener.LOC, String.valueOf(stats.lines()));
+    return fileDataHandler;
+  }
 
-      return false; // keep it
-    });
+  /**
+   * Measures a file that exceeded the {@link ParseBudget} before its content was read, so only its
+   * size is known.
+   */
+  private AbstractFileDataHandler budgetFallback(final AnalysisConfig config,
+      final FileDescriptor file, final long size, final Language language,
+      final String exceededLimit) {
+    LOGGER.atWarn()
+        .addArgument(file.reportedPath)
+        .addArgument(exceededLimit)
+        .log("File {} exceeds the parse budget ({}), only measuring size and lines");
+    parseBudget.recordExceeded(exceededLimit);
+    analysisStatusService.incrementSkippedFile(config.landscapeToken());
+
+    final TextFileDataHandler textHandler = new TextFileDataHandler(file.reportedPath, language);
+    textHandler.setFileHash(file.objectId.getName());
+    textHandler.addMetric(CommonFileDataListener.FILE_SIZE, String.valueOf(size));
+    textHandler.addMetric(ParseBudget.BUDGET_EXCEEDED, "1");
+    GitMetricCollector.addFileGitMetrics(textHandler, file);
+    return textHandler;
   }
 
-  private List<java.nio.file.PathMatcher> compileMatchers(final Optional<String> patternsString) {
-    if (patternsString.isEmpty() || patternsString.get().isBlank()) {
-      return new java.util.ArrayList<>();
+
+  /**
+   * Content of a file, read from the object database on first use. Unreadable files and files
+   * exceeding the size limit of the {@link ParseBudget} are never read and supply {@code null}.
+   */
+  private static final class LazyBlob implements Supplier<BlobContent> {
+
+    private final Repository repository;
+    private final FileDescriptor file;
+    private final ParseBudget parseBudget;
+    private boolean loaded;
+    private BlobContent content;
+
+    private LazyBlob(final Repository repository, final FileDescriptor file,
+        final ParseBudget parseBudget) {
+      this.repository = repository;
+      this.file = file;
+      this.parseBudget = parseBudget;
     }
-    final String[] globs = patternsString.get().split(",");
-    final List<java.nio.file.PathMatcher> matchers = new java.util.ArrayList<>();
-    for (final String glob : globs) {
-      if (!glob.trim().isEmpty()) {
+
+    /**
+     * Returns the size of the blob, read from the object header if the content is not loaded.
+     */
+    private long size() throws IOException {
+      return content == null ? GitRepositoryHandler.getBlobSize(file.objectId, repository)
+          : content.size();
+    }
+
+    @Override
+    public BlobContent get() {
+      if (!loaded) {
+        loaded = true;
         try {
-          String pattern = glob.trim();
-          if (!pattern.startsWith("glob:") && !pattern.startsWith("regex:")) {
-            pattern = "glob:" + pattern;
+          if (parseBudget.checkSize(size()).isEmpty()) {
+            content = GitRepositoryHandler.getBlob(file.objectId, repository);
           }
-          matchers.add(java.nio.file.FileSystems.getDefault().getPathMatcher(pattern));
-        } catch (final Exception e) {
-          LOGGER.atError().addArgument(glob).log("Malformed glob/regex expression: {}");
+        } catch (IOException | LargeObjectException e) {
+          LOGGER.atWarn().addArgument(file.relativePath).addArgument(e.getMessage())
+              .log("Skipping unreadable file {}: {}");
         }
       }
+      return content;
     }
-    return matchers;
   }
-
 }
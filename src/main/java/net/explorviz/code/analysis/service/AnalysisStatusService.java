@@ -38,7 +38,8 @@ public class AnalysisStatusService {
     upsertStateAndNotify(landscapeToken, current -> {
       final AnalysisProgressState previous = current == null ? emptyState(STATUS_PENDING) : current;
       return new AnalysisProgressState(STATUS_RUNNING, totalCommits, previous.analyzedCommits(),
-          totalFiles, previous.analyzedFiles(), previous.currentAnalysingFile());
+          totalFiles, previous.analyzedFiles(), previous.skippedFiles(),
+          previous.currentAnalysingFile());
     });
   }
 
@@ -46,27 +47,39 @@ public class AnalysisStatusService {
     updateExistingStateAndNotify(landscapeToken,
         state -> new AnalysisProgressState(state.status(), state.totalCommits(),
             state.analyzedCommits() + 1, state.totalFiles(), state.analyzedFiles(),
-            state.currentAnalysingFile()));
+            state.skippedFiles(), state.currentAnalysingFile()));
   }
 
   public void setCurrentCommitFiles(final String landscapeToken, final int totalFiles) {
     updateExistingStateAndNotify(landscapeToken,
         state -> new AnalysisProgressState(state.status(), state.totalCommits(),
-            state.analyzedCommits(), Math.max(0, totalFiles), 0, null));
+            state.analyzedCommits(), Math.max(0, totalFiles), 0, state.skippedFiles(), null));
   }
 
   public void setCurrentAnalyzingFile(final String landscapeToken, final String currentAnalysingFile) {
     updateExistingStateAndNotify(landscapeToken,
         state -> new AnalysisProgressState(state.status(), state.totalCommits(),
             state.analyzedCommits(), state.totalFiles(), state.analyzedFiles(),
-            currentAnalysingFile));
+            state.skippedFiles(), currentAnalysingFile));
   }
 
   public void incrementAnalyzedFile(final String landscapeToken) {
     updateExistingStateAndNotify(landscapeToken,
         state -> new AnalysisProgressState(state.status(), state.totalCommits(),
             state.analyzedCommits(), state.totalFiles(), state.analyzedFiles() + 1,
-            state.currentAnalysingFile()));
+            state.skippedFiles(), state.currentAnalysingFile()));
+  }
+
+  /**
+   * Counts a file that exceeded the parse budget and was only measured in size and lines.
+   *
+   * @param landscapeToken the token of the analysis
+   */
+  public void incrementSkippedFile(final String landscapeToken) {
+    updateExistingStateAndNotify(landscapeToken,
+        state -> new AnalysisProgressState(state.status(), state.totalCommits(),
+            state.analyzedCommits(), state.totalFiles(), state.analyzedFiles(),
+            state.skippedFiles() + 1, state.currentAnalysingFile()));
   }
 
   public void markFinished(final String landscapeToken) {
@@ -75,7 +88,8 @@ public class AnalysisStatusService {
         return emptyState(STATUS_FINISHED);
       }
       return new AnalysisProgressState(STATUS_FINISHED, current.totalCommits(),
-          current.totalCommits(), current.totalFiles(), current.totalFiles(), null);
+          current.totalCommits(), current.totalFiles(), current.totalFiles(),
+          current.skippedFiles(), null);
     });
   }
 
@@ -86,7 +100,7 @@ public class AnalysisStatusService {
       }
       return new AnalysisProgressState(STATUS_FAILED, current.totalCommits(),
           current.analyzedCommits(), current.totalFiles(), current.analyzedFiles(),
-          current.currentAnalysingFile());
+          current.skippedFiles(), current.currentAnalysingFile());
     });
   }
 
@@ -137,7 +151,7 @@ public class AnalysisStatusService {
   }
 
   private AnalysisProgressState emptyState(final String status) {
-    return new AnalysisProgressState(status, 0, 0, 0, 0, null);
+    return new AnalysisProgressState(status, 0, 0, 0, 0, 0, null);
   }
 
   private String normalizeToken(final String landscapeToken) {
@@ -0,0 +1,56 @@
+package net.explorviz.code.analysis.service;
+
+import java.util.Locale;
+
+/**
+ * How thoroughly a file is analyzed, selected per path by the {@link AnalysisTierPolicy}.
+ */
+public enum AnalysisTier {
+
+  /**
+   * Parses the file and collects its full structure.
+   */
+  FULL("full"),
+
+  /**
+   * Only runs the lexer and derives the line counts, function count and imports from the tokens.
+   */
+  LEX_ONLY("lex-only"),
+
+  /**
+   * Only measures the size and the lines of the file.
+   */
+  SIZE_ONLY("size-only");
+
+  private final String configName;
+
+  AnalysisTier(final String configName) {
+    this.configName = configName;
+  }
+
+  /**
+   * Returns the name of the tier used in the configuration.
+   *
+   * @return the name, e.g. {@code lex-only}
+   */
+  public String getConfigName() {
+    return configName;
+  }
+
+  /**
+   * Returns the tier with the given configuration name.
+   *
+   * @param configName the name, e.g. {@code lex-only}
+   * @return the tier
+   * @throws IllegalArgumentException if no tier has the given name
+   */
+  public static AnalysisTier fromConfigName(final String configName) {
+    final String name = configName.trim().toLowerCase(Locale.ROOT);
+    for (final AnalysisTier tier : values()) {
+      if (tier.configName.equals(name)) {
+        return tier;
+      }
+    }
+    throw new IllegalArgumentException("Unknown analysis tier: " + configName);
+  }
+}
@@ -0,0 +1,88 @@
+package net.explorviz.code.analysis.service;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Maps the paths of an analysis to {@link AnalysisTier tiers}. The policy is given as comma
+ * separated {@code expression=tier} entries, e.g. {@code vendor/**=size-only,test/**=lex-only}.
+ * Expressions without a {@code glob:} or {@code regex:} prefix are used as glob. The first matching
+ * entry wins, paths matching none are fully analyzed.
+ */
+public final class AnalysisTierPolicy {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AnalysisTierPolicy.class);
+
+  private static final AnalysisTierPolicy FULL = new AnalysisTierPolicy(List.of());
+
+  private static final String GLOB_PREFIX = "glob:";
+  private static final String REGEX_PREFIX = "regex:";
+
+  private final List<Rule> rules;
+
+  private AnalysisTierPolicy(final List<Rule> rules) {
+    this.rules = rules;
+  }
+
+  /**
+   * Creates the policy for the given entries, malformed entries are ignored.
+   *
+   * @param policyString the comma separated {@code expression=tier} entries
+   * @return the policy, analyzing every path fully if no entry is given
+   */
+  public static AnalysisTierPolicy compile(final Optional<String> policyString) {
+    if (policyString.isEmpty() || policyString.get().isBlank()) {
+      return FULL;
+    }
+    final List<Rule> rules = new ArrayList<>();
+    for (final String entry : policyString.get().split(",")) {
+      if (entry.isBlank()) {
+        continue;
+      }
+      final int separator = entry.lastIndexOf('=');
+      try {
+        if (separator == -1) {
+          throw new IllegalArgumentException("missing '=tier'");
+        }
+        final String expression = entry.substring(0, separator).trim();
+        final AnalysisTier tier = AnalysisTier.fromConfigName(entry.substring(separator + 1));
+        rules.add(new Rule(FileSystems.getDefault().getPathMatcher(
+            expression.startsWith(GLOB_PREFIX) || expression.startsWith(REGEX_PREFIX)
+                ? expression : GLOB_PREFIX + expression), tier));
+      } catch (final IllegalArgumentException e) { // NOPMD
+        LOGGER.atError().addArgument(entry).addArgument(e.getMessage())
+            .log("Malformed analysis tier entry: {} ({})");
+      }
+    }
+    return rules.isEmpty() ? FULL : new AnalysisTierPolicy(List.copyOf(rules));
+  }
+
+  /**
+   * Returns the tier of the file at the given path.
+   *
+   * @param path the path of the file relative to the repository
+   * @return the tier of the first matching entry, {@link AnalysisTier#FULL} if none matches
+   */
+  public AnalysisTier tierOf(final String path) {
+    if (rules.isEmpty()) {
+      return AnalysisTier.FULL;
+    }
+    final Path filePath = Paths.get(path);
+    for (final Rule rule : rules) {
+      if (rule.matcher.matches(filePath)) {
+        return rule.tier;
+      }
+    }
+    return AnalysisTier.FULL;
+  }
+
+  private record Rule(PathMatcher matcher, AnalysisTier tier) {
+  }
+}
@@ -0,0 +1,28 @@
+package net.explorviz.code.analysis.service;
+
+import org.eclipse.jgit.revwalk.RevCommit;
+
+/**
+ * Immutable, commit-scoped data needed while analyzing the files of a single commit. Replaces
+ * per-thread and static state, so files of different commits can be analyzed at the same time.
+ *
+ * @param commit         the analyzed commit
+ * @param author         the email address of the commit's author
+ * @param landscapeToken the landscape token of the analysis
+ * @param repositoryName the name of the analyzed repository
+ */
+public record CommitAnalysisContext(RevCommit commit, String author, String landscapeToken,
+                                    String repositoryName) {
+
+  /**
+   * Creates the context for a commit of the given analysis.
+   *
+   * @param config the analysis configuration
+   * @param commit the analyzed commit
+   * @return the context of the commit
+   */
+  public static CommitAnalysisContext of(final AnalysisConfig config, final RevCommit commit) {
+    return new CommitAnalysisContext(commit, commit.getAuthorIdent().getEmailAddress(),
+        config.landscapeToken(), config.getRepositoryName());
+  }
+}
@@ -0,0 +1,162 @@
+package net.explorviz.code.analysis.service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Staged pipeline for the analysis of a commit range. The caller acts as the diff stage and
+ * submits {@link CommitWork} in commit order, the parse and export stages each run on their own
+ * thread and are connected by bounded queues. This way the diff of the next commits overlaps the
+ * parsing of the current one, while every stage still handles the commits in the order they were
+ * submitted. The file contents are not part of the queued work, each file of a scheduled commit is
+ * read on the {@link IoExecutor} right before it is parsed, and only if its analysis is not
+ * cached.
+ */
+/* package */ final class CommitPipeline implements AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CommitPipeline.class);
+
+  private static final CommitWork END = new CommitWork(null, null, List.of());
+  private static final long POLL_TIMEOUT_MS = 100;
+
+  private final BlockingQueue<CommitWork> input;
+  private final List<Thread> threads = new ArrayList<>();
+  private final AtomicReference<Exception> failure = new AtomicReference<>();
+
+  /**
+   * A single step of the pipeline.
+   */
+  @FunctionalInterface
+  /* package */ interface Stage {
+
+    void process(CommitWork work) throws Exception; // NOPMD
+  }
+
+  /**
+   * Creates and starts the pipeline.
+   *
+   * @param capacity    the maximum amount of commits waiting in front of each stage
+   * @param parseStage  schedules the analysis of the files
+   * @param exportStage waits for the analysis and sends the commit and file data
+   */
+  /* default */ CommitPipeline(final int capacity, final Stage parseStage,
+      final Stage exportStage) {
+    this.input = new ArrayBlockingQueue<>(Math.max(1, capacity));
+    final BlockingQueue<CommitWork> parsed = new ArrayBlockingQueue<>(Math.max(1, capacity));
+    startStage("code-analysis-parse", parseStage, this.input, parsed);
+    startStage("code-analysis-export", exportStage, parsed, null);
+  }
+
+  private void startStage(final String name, final Stage stage,
+      final BlockingQueue<CommitWork> from, final BlockingQueue<CommitWork> to) {
+    final Thread thread = new Thread(() -> runStage(stage, from, to), name);
+    thread.setDaemon(true);
+    threads.add(thread);
+    thread.start();
+  }
+
+  private void runStage(final Stage stage, final BlockingQueue<CommitWork> from,
+      final BlockingQueue<CommitWork> to) {
+    try {
+      while (true) {
+        final CommitWork work = from.take();
+        if (work != END && failure.get() == null) { // NOPMD
+          stage.process(work);
+        }
+        if (to != null) {
+          to.put(work);
+        }
+        if (work == END) { // NOPMD
+          return;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (Exception e) { // NOPMD
+      LOGGER.atError().addArgument(Thread.currentThread().getName()).addArgument(e.getMessage())
+          .log("Pipeline stage {} failed: {}");
+      failure.compareAndSet(null, e);
+      // keep draining, so the upstream stages never block on a full queue
+      drain(from, to);
+    }
+  }
+
+  private static void drain(final BlockingQueue<CommitWork> from,
+      final BlockingQueue<CommitWork> to) {
+    try {
+      CommitWork work;
+      do {
+        work = from.take();
+      } while (work != END); // NOPMD
+      if (to != null) {
+        to.put(END);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Hands the next commit to the pipeline. Blocks while the parse stage is saturated.
+   *
+   * @param work the work for the next commit in order
+   * @throws IOException if a stage failed or the caller was interrupted
+   */
+  /* default */ void submit(final CommitWork work) throws IOException {
+    rethrowFailure();
+    try {
+      while (!input.offer(work, POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+        rethrowFailure();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while submitting commit to the pipeline");
+    }
+  }
+
+  /**
+   * Signals that no more commits will follow and waits until every submitted commit is exported.
+   *
+   * @throws IOException if a stage failed or the caller was interrupted
+   */
+  /* default */ void finish() throws IOException {
+    try {
+      input.put(END);
+      for (final Thread thread : threads) {
+        thread.join();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for the pipeline");
+    }
+    rethrowFailure();
+  }
+
+  private void rethrowFailure() throws IOException {
+    final Exception exception = failure.get();
+    if (exception instanceof IOException ioException) {
+      throw ioException;
+    } else if (exception instanceof RuntimeException runtimeException) {
+      throw runtimeException;
+    } else if (exception != null) {
+      throw new IOException("Analysis pipeline failed", exception);
+    }
+  }
+
+  @Override
+  public void close() {
+    for (final Thread thread : threads) {
+      if (thread.isAlive()) {
+        thread.interrupt();
+      }
+    }
+  }
+}
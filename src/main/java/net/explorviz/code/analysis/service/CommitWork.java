@@ -0,0 +1,37 @@
+package net.explorviz.code.analysis.service;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import net.explorviz.code.analysis.types.FileDescriptor;
+import net.explorviz.code.proto.CommitData;
+import net.explorviz.code.proto.FileData;
+
+/**
+ * Unit of work that travels through the {@link CommitPipeline}. Created by the diff stage, the
+ * parse stage fills in the results, which the export stage sends once {@link #completion} is
+ * done.
+ */
+/* package */ final class CommitWork {
+
+  /* default */ final CommitAnalysisContext context; // NOCS
+  /* default */ final CommitData commitData; // NOCS
+  /* default */ final List<FileDescriptor> files; // NOCS
+  /* default */ final Queue<FileData> results = new ConcurrentLinkedQueue<>(); // NOCS
+  /* default */ CompletableFuture<Void> completion = CompletableFuture.completedFuture(null); // NOCS
+
+  /**
+   * Creates a new unit of work.
+   *
+   * @param context    the context of the analyzed commit
+   * @param commitData the commit report, already complete
+   * @param files      the added and modified files to analyze
+   */
+  /* default */ CommitWork(final CommitAnalysisContext context, final CommitData commitData,
+      final List<FileDescriptor> files) {
+    this.context = context;
+    this.commitData = commitData;
+    this.files = files;
+  }
+}
@@ -0,0 +1,152 @@
+package net.explorviz.code.analysis.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the blocking work of the analysis, i.e. loading blobs, exporting and writing debug files,
+ * on virtual threads, so waiting for the network or the disk never occupies a parser thread. The
+ * amount of tasks in flight is bounded. Tasks beyond the limit wait on their own virtual thread, so
+ * submitting never blocks the caller.
+ */
+@ApplicationScoped
+public class IoExecutor implements Executor {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(IoExecutor.class);
+  private static final String THREAD_PREFIX = "code-analysis-io-";
+
+  @ConfigProperty(name = "explorviz.gitanalysis.io.max-in-flight", defaultValue = "64")
+  /* default */ int maxInFlightProperty; // NOCS
+
+  private final LongAdder completed = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+  private volatile ExecutorService executor;
+  private volatile Semaphore inFlight;
+
+  /**
+   * Creates an executor limited by the application properties.
+   */
+  public IoExecutor() {
+    // configured by field injection
+  }
+
+  /**
+   * Creates an executor with the given limit.
+   *
+   * @param maxInFlight the maximum amount of tasks running at the same time
+   */
+  public IoExecutor(final int maxInFlight) {
+    this.maxInFlightProperty = maxInFlight;
+  }
+
+  private ExecutorService getExecutor() {
+    final ExecutorService current = executor;
+    return current == null ? startExecutor() : current;
+  }
+
+  private synchronized ExecutorService startExecutor() {
+    if (executor == null) {
+      inFlight = new Semaphore(Math.max(1, maxInFlightProperty));
+      executor = Executors.newThreadPerTaskExecutor(
+          Thread.ofVirtual().name(THREAD_PREFIX, 0).factory());
+      LOGGER.atDebug().addArgument(maxInFlightProperty)
+          .log("Started I/O executor with at most {} tasks in flight");
+    }
+    return executor;
+  }
+
+  /**
+   * Runs the given blocking task on a virtual thread.
+   *
+   * @param task the task to run
+   * @return a future completing with the task
+   */
+  public CompletableFuture<Void> run(final Runnable task) {
+    return supply(() -> {
+      task.run();
+      return null;
+    });
+  }
+
+  /**
+   * Runs the given blocking task on a virtual thread and returns its result.
+   *
+   * @param task the task to run
+   * @param <T>  the type of the result
+   * @return a future completing with the task's result
+   */
+  public <T> CompletableFuture<T> supply(final Supplier<T> task) {
+    final ExecutorService currentExecutor = getExecutor();
+    final Semaphore permits = inFlight;
+    return CompletableFuture.supplyAsync(() -> {
+      // waiting for a permit parks the virtual thread, the submitting thread is never blocked
+      try {
+        permits.acquire();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        failed.increment();
+        throw new CompletionException(e);
+      }
+      try {
+        final T result = task.get();
+        completed.increment();
+        return result;
+      } catch (RuntimeException e) {
+        failed.increment();
+        throw e;
+      } finally {
+        permits.release();
+      }
+    }, currentExecutor);
+  }
+
+  /**
+   * Runs the given blocking task on a virtual thread, so asynchronous stages can be chained onto
+   * the executor.
+   *
+   * @param task the task to run
+   */
+  @Override
+  public void execute(final Runnable task) {
+    run(task);
+  }
+
+  /**
+   * Returns the counters of the executor.
+   *
+   * @return the current statistics
+   */
+  public Map<String, Object> getStats() {
+    final Map<String, Object> stats = new TreeMap<>();
+    final Semaphore currentInFlight = inFlight;
+    stats.put("inFlight", currentInFlight == null ? 0
+        : Math.max(1, maxInFlightProperty) - currentInFlight.availablePermits());
+    stats.put("completed", completed.sum());
+    stats.put("failed", failed.sum());
+    return stats;
+  }
+
+  /**
+   * Stops accepting tasks, running tasks are interrupted.
+   */
+  @PreDestroy
+  public synchronized void shutdown() {
+    if (executor != null) {
+      executor.shutdownNow();
+      executor = null;
+    }
+  }
+}
@@ -0,0 +1,148 @@
+package net.explorviz.code.analysis.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Dedicated pool for the CPU-bound analysis of files. Replaces the JVM-wide common pool, which is
+ * shared with the rest of the process and can not be sized per application. Only parsing runs
+ * here; blocking work like loading blobs, accessing the persistent cache or exporting runs on the
+ * {@link IoExecutor}. <br>
+ * The queue is bounded, submitting blocks while it is full.
+ */
+@ApplicationScoped
+public class ParserPool implements Executor {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ParserPool.class);
+  private static final String THREAD_PREFIX = "code-analysis-parser-";
+  private static final int QUEUED_TASKS_PER_THREAD = 64;
+
+  @ConfigProperty(name = "explorviz.gitanalysis.parser.threads", defaultValue = "0")
+  /* default */ int threadsProperty; // NOCS
+
+  private final Map<String, ThreadStats> threadStats = new ConcurrentHashMap<>();
+  private volatile ThreadPoolExecutor executor;
+
+  /**
+   * Counters of a single parser thread.
+   *
+   * @param tasks     the amount of analyzed files
+   * @param busyNanos the time spent analyzing in nanoseconds
+   */
+  public record ThreadStats(LongAdder tasks, LongAdder busyNanos) {
+
+    /**
+     * Returns the counters as plain values.
+     *
+     * @return the amount of tasks and the busy time in milliseconds
+     */
+    public Map<String, Long> snapshot() {
+      return Map.of("tasks", tasks.sum(), "busyMillis",
+          TimeUnit.NANOSECONDS.toMillis(busyNanos.sum()));
+    }
+  }
+
+  /**
+   * Creates a pool sized by the application properties.
+   */
+  public ParserPool() {
+    // configured by field injection
+  }
+
+  /**
+   * Creates a pool with the given amount of threads.
+   *
+   * @param threads the amount of threads, 0 or less for one per available processor
+   */
+  public ParserPool(final int threads) {
+    this.threadsProperty = threads;
+  }
+
+  private ThreadPoolExecutor getExecutor() {
+    final ThreadPoolExecutor current = executor;
+    return current == null ? startExecutor() : current;
+  }
+
+  private synchronized ThreadPoolExecutor startExecutor() {
+    if (executor == null) {
+      final int threads = threadsProperty > 0 ? threadsProperty
+          : Runtime.getRuntime().availableProcessors();
+      final AtomicInteger threadNumber = new AtomicInteger();
+      executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+          new ArrayBlockingQueue<>(threads * QUEUED_TASKS_PER_THREAD), runnable -> {
+            final Thread thread = new Thread(runnable,
+                THREAD_PREFIX + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+          }, (runnable, pool) -> {
+            // backpressure instead of running the task on the submitting thread
+            if (pool.isShutdown()) {
+              throw new RejectedExecutionException("Parser pool is shut down");
+            }
+            try {
+              pool.getQueue().put(runnable);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+              throw new RejectedExecutionException("Interrupted while queueing analysis", e);
+            }
+          });
+      LOGGER.atInfo().addArgument(threads).log("Started parser pool with {} threads");
+    }
+    return executor;
+  }
+
+  @Override
+  public void execute(final Runnable task) {
+    getExecutor().execute(() -> {
+      final ThreadStats stats = threadStats.computeIfAbsent(Thread.currentThread().getName(),
+          name -> new ThreadStats(new LongAdder(), new LongAdder()));
+      final long start = System.nanoTime();
+      try {
+        task.run();
+      } finally {
+        stats.busyNanos().add(System.nanoTime() - start);
+        stats.tasks().increment();
+      }
+    });
+  }
+
+  /**
+   * Returns the size, the queue length and the counters of every thread of the pool.
+   *
+   * @return the current statistics
+   */
+  public synchronized Map<String, Object> getStats() {
+    final Map<String, Object> stats = new TreeMap<>();
+    stats.put("threads", executor == null ? 0 : executor.getPoolSize());
+    stats.put("activeThreads", executor == null ? 0 : executor.getActiveCount());
+    stats.put("queued", executor == null ? 0 : executor.getQueue().size());
+    final Map<String, Map<String, Long>> perThread = new TreeMap<>();
+    threadStats.forEach((name, threadStat) -> perThread.put(name, threadStat.snapshot()));
+    stats.put("perThread", perThread);
+    return stats;
+  }
+
+  /**
+   * Stops the threads of the pool.
+   */
+  @PreDestroy
+  public synchronized void shutdown() {
+    if (executor != null) {
+      executor.shutdownNow();
+      executor = null;
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package net.explorviz.code.analysis.types;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CodePointBuffer;
+import org.antlr.v4.runtime.CodePointCharStream;
+import org.eclipse.jgit.lib.ObjectId;
+
+/**
+ * Content of a single blob read from the object database, without touching the working tree.
+ *
+ * @param objectId the id of the blob
+ * @param size     the size of the blob as stated in the object header
+ * @param bytes    the raw content of the blob
+ * @param stats    the text metrics of the content
+ */
+public record BlobContent(ObjectId objectId, long size, byte[] bytes, TextStats stats) { // NOPMD
+
+  private static final byte[] UTF_8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+  private static final byte[] UTF_16BE_BOM = {(byte) 0xFE, (byte) 0xFF};
+  private static final byte[] UTF_16LE_BOM = {(byte) 0xFF, (byte) 0xFE};
+
+  /**
+   * Creates the content of a blob and scans its text metrics.
+   *
+   * @param objectId the id of the blob
+   * @param size     the size of the blob as stated in the object header
+   * @param bytes    the raw content of the blob
+   */
+  public BlobContent(final ObjectId objectId, final long size, final byte[] bytes) {
+    this(objectId, size, bytes, TextStats.of(bytes));
+  }
+
+  /**
+   * Returns true if the content looks like binary data, using the same heuristic as git itself.
+   *
+   * @return true if the blob contains binary data
+   */
+  public boolean isBinary() {
+    return stats.binary();
+  }
+
+  /**
+   * Returns the content decoded as UTF-8.
+   *
+   * @return the stringified content
+   */
+  public String asString() {
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Returns the content as input for an ANTLR lexer without creating a {@link String} first. A
+   * byte order mark selects UTF-16 and is skipped, otherwise the content is decoded as UTF-8 with
+   * malformed input replaced like {@link #asString()} does. Pure ASCII content is not copied at
+   * all, the stream reads the blob's bytes directly.
+   *
+   * @param sourceName the name of the source, used in error messages
+   * @return the decoded content
+   */
+  public CharStream asCharStream(final String sourceName) {
+    if (startsWith(UTF_16BE_BOM)) {
+      return decode(StandardCharsets.UTF_16BE, UTF_16BE_BOM.length, sourceName);
+    }
+    if (startsWith(UTF_16LE_BOM)) {
+      return decode(StandardCharsets.UTF_16LE, UTF_16LE_BOM.length, sourceName);
+    }
+    final int offset = startsWith(UTF_8_BOM) ? UTF_8_BOM.length : 0;
+    if (isAscii(offset)) {
+      // ANTLR requires the stream to start at index 0 of the array
+      final byte[] ascii = offset == 0 ? bytes : Arrays.copyOfRange(bytes, offset, bytes.length);
+      return CodePointCharStream.fromBuffer(CodePointBuffer.withBytes(ByteBuffer.wrap(ascii)),
+          sourceName);
+    }
+    return decode(StandardCharsets.UTF_8, offset, sourceName);
+  }
+
+  private CharStream decode(final Charset charset, final int offset, final String sourceName) {
+    final CharBuffer chars;
+    try {
+      chars = charset.newDecoder()
+          .onMalformedInput(CodingErrorAction.REPLACE)
+          .onUnmappableCharacter(CodingErrorAction.REPLACE)
+          .decode(ByteBuffer.wrap(bytes, offset, bytes.length - offset));
+    } catch (CharacterCodingException e) {
+      // not thrown while replacing malformed input
+      throw new IllegalStateException(e);
+    }
+    final CodePointBuffer.Builder codePoints = CodePointBuffer.builder(chars.remaining());
+    codePoints.append(chars);
+    return CodePointCharStream.fromBuffer(codePoints.build(), sourceName);
+  }
+
+  private boolean startsWith(final byte[] prefix) {
+    return bytes.length >= prefix.length
+        && Arrays.equals(bytes, 0, prefix.length, prefix, 0, prefix.length);
+  }
+
+  private boolean isAscii(final int offset) {
+    for (int i = offset; i < bytes.length; i++) {
+      if (bytes[i] < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
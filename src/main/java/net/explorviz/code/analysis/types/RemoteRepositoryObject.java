@@ -13,6 +13,7 @@ public class RemoteRepositoryObject {
   private String storagePath;
   private String branchName;
   private Integer cloneDepth;
+  private boolean noCheckout;
   private CredentialsProvider credentialsProvider;
 
   /**
@@ -96,4 +97,12 @@ public class RemoteRepositoryObject {
   public void setCloneDepth(final Integer cloneDepth) {
     this.cloneDepth = cloneDepth;
   }
+
+  public boolean isNoCheckout() {
+    return noCheckout;
+  }
+
+  public void setNoCheckout(final boolean noCheckout) {
+    this.noCheckout = noCheckout;
+  }
 }
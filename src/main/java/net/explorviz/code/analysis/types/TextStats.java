@@ -0,0 +1,69 @@
+package net.explorviz.code.analysis.types;
+
+import org.eclipse.jgit.diff.RawText;
+
+/**
+ * Text metrics of a blob, computed in a single pass over its bytes without any allocation. Lines
+ * are counted like {@link String#lines()} does, i.e. a line ends with {@code \n}, {@code \r} or
+ * {@code \r\n}, and a trailing line terminator does not start another line. Lengths are counted in
+ * bytes, which only differs from characters for lines containing non-ASCII characters.
+ *
+ * @param size        the size in bytes
+ * @param lines       the amount of lines
+ * @param blankLines  the amount of lines containing nothing but whitespace
+ * @param longestLine the length of the longest line in bytes
+ * @param binary      whether the content looks like binary data, using the same heuristic as
+ *                    {@link RawText#isBinary(byte[])}
+ */
+public record TextStats(int size, long lines, long blankLines, int longestLine, boolean binary) {
+
+  /**
+   * Scans the given content.
+   *
+   * @param bytes the raw content
+   * @return the metrics of the content
+   */
+  public static TextStats of(final byte[] bytes) {
+    final int size = bytes.length;
+    // git only inspects the beginning of a blob to decide whether it is binary
+    final int binaryLimit = Math.min(size, RawText.getBufferSize());
+    boolean binary = false;
+    long lines = 0;
+    long blankLines = 0;
+    int longestLine = 0;
+    int lineStart = 0;
+    boolean blank = true;
+    for (int i = 0; i < size; i++) {
+      final byte current = bytes[i];
+      if (current == '\n' || current == '\r') {
+        final boolean crlf = current == '\r' && i + 1 < size && bytes[i + 1] == '\n';
+        if (current == '\r' && !crlf && i + 1 < binaryLimit) {
+          binary = true;
+        }
+        longestLine = Math.max(longestLine, i - lineStart);
+        lines++;
+        if (blank) {
+          blankLines++;
+        }
+        if (crlf) {
+          i++; // NOPMD
+        }
+        lineStart = i + 1;
+        blank = true;
+      } else if (current != ' ' && current != '\t' && current != '\f') {
+        blank = false;
+        if (current == 0 && i < binaryLimit) {
+          binary = true;
+        }
+      }
+    }
+    if (lineStart < size) {
+      longestLine = Math.max(longestLine, size - lineStart);
+      lines++;
+      if (blank) {
+        blankLines++;
+      }
+    }
+    return new TextStats(size, lines, blankLines, longestLine, binary);
+  }
+}
@@ -32,6 +32,7 @@ function collectPayload(formData) {
 
   payload.calculateMetrics = formData.get("calculateMetrics") !== null;
   payload.sendToRemote = formData.get("sendToRemote") !== null;
+  payload.checkoutFree = formData.get("checkoutFree") !== null;
 
   if (payload.commitAnalysisLimit) {
     payload.commitAnalysisLimit = parseInt(payload.commitAnalysisLimit);
@@ -0,0 +1,90 @@
+package net.explorviz.warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Corpus for warming up the DFA cache of the Java grammar.
+ */
+@SuppressWarnings("unused")
+public class Warmup<T extends Comparable<T>> extends Object implements Runnable {
+
+  private static final int LIMIT = 10;
+  private final List<T> items = new ArrayList<>();
+  protected Map<String, List<Integer>> index;
+
+  public Warmup(final List<T> initial) {
+    super();
+    this.items.addAll(initial);
+  }
+
+  @Override
+  public void run() {
+    int sum = 0;
+    for (int i = 0; i < LIMIT; i++) {
+      if (i % 2 == 0 && sum < 100 || i > 5) {
+        sum += i * 2;
+      } else {
+        sum -= i;
+      }
+    }
+    while (sum > 0) {
+      sum >>= 1;
+    }
+    final String text = switch (sum) {
+      case 0 -> "zero";
+      case 1, 2 -> "small";
+      default -> {
+        yield "large";
+      }
+    };
+    try {
+      items.stream().map(Object::toString).filter(s -> !s.isEmpty()).forEach(System.out::println);
+    } catch (IllegalStateException | NullPointerException e) {
+      throw new RuntimeException(text, e);
+    } finally {
+      index = null;
+    }
+  }
+
+  public <R> List<R> map(final Function<? super T, ? extends R> mapper) {
+    final List<R> result = new ArrayList<>(items.size());
+    for (final T item : items) {
+      result.add(mapper.apply(item));
+    }
+    return result;
+  }
+
+  public T max() {
+    T best = null;
+    for (final T item : items) {
+      best = best == null || item.compareTo(best) > 0 ? item : best;
+    }
+    return best;
+  }
+
+  private record Pair(String key, int value) {
+  }
+
+  enum Kind {
+    FIRST, SECOND;
+
+    boolean isFirst() {
+      return this == FIRST;
+    }
+  }
+
+  interface Visitor<R> {
+    R visit(Pair pair);
+
+    default R visitAll(final List<Pair> pairs) {
+      R last = null;
+      for (final Pair pair : pairs) {
+        last = visit(pair);
+      }
+      return last;
+    }
+  }
+}
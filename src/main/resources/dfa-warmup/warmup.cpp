@@ -0,0 +1,89 @@
+#include <iostream>
+#include <map>
+#include <memory>
+#include <string>
+#include <vector>
+
+#define LIMIT 10
+
+namespace warmup {
+
+enum class Color { Red, Green, Blue };
+
+struct Point {
+  int x;
+  int y;
+};
+
+template <typename T>
+class Container {
+ public:
+  Container() = default;
+  explicit Container(const std::vector<T>& items) : items_(items) {}
+  virtual ~Container() {}
+
+  void add(const T& item) { items_.push_back(item); }
+
+  T sum() const {
+    T total{};
+    for (const auto& item : items_) {
+      total += item;
+    }
+    return total;
+  }
+
+  std::size_t size() const noexcept { return items_.size(); }
+
+ protected:
+  std::vector<T> items_;
+};
+
+class Warmup : public Container<int> {
+ public:
+  using Container<int>::Container;
+
+  int run(int limit) override;
+
+  static int counter;
+
+ private:
+  std::map<std::string, std::unique_ptr<Point>> points_;
+};
+
+int Warmup::counter = 0;
+
+int Warmup::run(int limit) {
+  int result = 0;
+  for (int i = 0; i < limit && i < LIMIT; ++i) {
+    if (i % 2 == 0 || i > 5) {
+      result += i * 2;
+    } else {
+      result -= i;
+    }
+  }
+  while (result > 100) {
+    result >>= 1;
+  }
+  switch (result) {
+    case 0:
+      return -1;
+    default:
+      break;
+  }
+  auto lambda = [&result](int value) -> int { return value + result; };
+  try {
+    points_["origin"] = std::make_unique<Point>(Point{0, 0});
+  } catch (const std::exception& e) {
+    std::cerr << e.what() << std::endl;
+  }
+  return lambda(counter);
+}
+
+}  // namespace warmup
+
+int main(int argc, char** argv) {
+  warmup::Warmup w(std::vector<int>{1, 2, 3});
+  const char* name = argc > 1 ? argv[1] : "warmup";
+  std::cout << name << ": " << w.run(5) << std::endl;
+  return 0;
+}
@@ -0,0 +1,64 @@
+"""Corpus for warming up the DFA cache of the Python grammar."""
+import os
+from collections import defaultdict
+from typing import Dict, List, Optional
+
+
+class Base:
+    counter: int = 0
+
+    def __init__(self, name: str, *args, **kwargs) -> None:
+        self.name = name
+        self.items: List[int] = list(args)
+        self.options = dict(**kwargs)
+
+    def describe(self) -> str:
+        return f"{self.name}: {len(self.items)} items"
+
+
+class Warmup(Base):
+    @staticmethod
+    def create(name):
+        return Warmup(name, 1, 2, 3, verbose=True)
+
+    @property
+    def total(self):
+        return sum(item * 2 for item in self.items if item % 2 == 0)
+
+    def run(self, limit: Optional[int] = None) -> Dict[str, int]:
+        result = defaultdict(int)
+        for index, item in enumerate(self.items):
+            if limit is not None and index >= limit:
+                break
+            elif item < 0:
+                continue
+            else:
+                result[str(item)] += 1
+        while limit and limit > 0:
+            limit -= 1
+        try:
+            with open(os.path.join("a", "b")) as handle:
+                lines = [line.strip() for line in handle]
+        except (OSError, ValueError) as error:
+            lines = []
+            raise RuntimeError("failed") from error
+        finally:
+            Base.counter += 1
+        squares = {key: value ** 2 for key, value in result.items()}
+        return lambda x: squares.get(x, lines)
+
+
+async def fetch(session, url):
+    async with session.get(url) as response:
+        return await response.text()
+
+
+def generator(values):
+    yield from values
+    assert values, "values must not be empty"
+    global counter
+    del values[0]
+
+
+if __name__ == "__main__":
+    print(Warmup.create("warmup").run(limit=3))
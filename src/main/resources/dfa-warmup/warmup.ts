@@ -0,0 +1,81 @@
+import { Component, OnInit } from '@angular/core';
+import * as path from 'path';
+import defaultExport, { named as alias } from './module';
+
+export interface Item {
+  id: number;
+  name?: string;
+  readonly tags: string[];
+}
+
+type Mapper<T, R> = (value: T, index: number) => R;
+
+enum Color {
+  Red = 1,
+  Green,
+  Blue,
+}
+
+export abstract class Base<T> {
+  protected items: T[] = [];
+
+  constructor(private readonly label: string) {}
+
+  abstract describe(item: T): string;
+
+  map<R>(mapper: Mapper<T, R>): R[] {
+    return this.items.map((item, index) => mapper(item, index));
+  }
+}
+
+@Component({ selector: 'app-warmup', template: '<div></div>' })
+export class Warmup extends Base<Item> implements OnInit {
+  static count = 0;
+  private cache = new Map<string, Item>();
+
+  describe(item: Item): string {
+    return `${item.id}: ${item.name ?? 'unnamed'}`;
+  }
+
+  async ngOnInit(): Promise<void> {
+    const response = await fetch('/api/items');
+    const data = (await response.json()) as Item[];
+    for (const item of data) {
+      if (item.tags.length > 0 && !this.cache.has(item.name!)) {
+        this.cache.set(item.name!, { ...item });
+      } else {
+        Warmup.count++;
+      }
+    }
+    try {
+      this.items = data.filter((item) => item.id % 2 === 0);
+    } catch (e: unknown) {
+      console.error(e);
+    } finally {
+      Warmup.count = 0;
+    }
+  }
+
+  get size(): number {
+    return this.cache.size;
+  }
+}
+
+function sum(...values: number[]): number {
+  let total = 0;
+  for (let i = 0; i < values.length; i += 1) {
+    total += values[i];
+  }
+  switch (total) {
+    case 0:
+      return -1;
+    default:
+      return total;
+  }
+}
+
+const handler = function (this: any, event: { type: string }) {
+  return event.type === 'click' ? sum(1, 2, 3) : null;
+};
+
+export default { sum, handler, Color, path, defaultExport, alias };
@@ -0,0 +1,78 @@
+package net.explorviz.code.analysis.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import net.explorviz.code.proto.FileData;
+import net.explorviz.code.proto.Language;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.jupiter.api.Test;
+
+public class FileDataCacheTest {
+
+  private static FileDataCacheKey key(final String hash) {
+    return new FileDataCacheKey(ObjectId.fromString(hash), Language.JAVA,
+        FileDataCache.ANALYZER_VERSION, "");
+  }
+
+  private static FileData fileData(final String path) {
+    return FileData.newBuilder()
+        .setFilePath(path)
+        .setPackageName("net.explorviz")
+        .setLastEditor("someone@example.org")
+        .setAddedLines(3)
+        .setLandscapeToken("token")
+        .putMetrics("loc", 42.0)
+        .build();
+  }
+
+  @Test
+  public void testHitReturnsEntryWithoutCommitFields() {
+    final FileDataCache cache = new FileDataCache(10, Long.MAX_VALUE);
+    cache.put(key("0123456789012345678901234567890123456789"), fileData("a/B.java"));
+
+    final FileData cached = cache.get(key("0123456789012345678901234567890123456789"))
+        .orElseThrow();
+    assertEquals("net.explorviz", cached.getPackageName());
+    assertEquals(42.0, cached.getMetricsOrThrow("loc"));
+    assertEquals("", cached.getFilePath());
+    assertEquals("", cached.getLastEditor());
+    assertEquals(0, cached.getAddedLines());
+    assertEquals("", cached.getLandscapeToken());
+
+    assertFalse(cache.get(key("1123456789012345678901234567890123456789")).isPresent());
+
+    final CacheStats stats = cache.getStats();
+    assertEquals(1, stats.hits());
+    assertEquals(1, stats.misses());
+    assertEquals(1, stats.entries());
+  }
+
+  @Test
+  public void testLeastRecentlyUsedEntryIsEvicted() {
+    final FileDataCache cache = new FileDataCache(2, Long.MAX_VALUE);
+    cache.put(key("0000000000000000000000000000000000000001"), fileData("1"));
+    cache.put(key("0000000000000000000000000000000000000002"), fileData("2"));
+    // touch the first entry, so the second one is the eldest
+    assertTrue(cache.get(key("0000000000000000000000000000000000000001")).isPresent());
+    cache.put(key("0000000000000000000000000000000000000003"), fileData("3"));
+
+    assertTrue(cache.get(key("0000000000000000000000000000000000000001")).isPresent());
+    assertFalse(cache.get(key("0000000000000000000000000000000000000002")).isPresent());
+    assertTrue(cache.get(key("0000000000000000000000000000000000000003")).isPresent());
+    assertEquals(1, cache.getStats().evictions());
+  }
+
+  @Test
+  public void testSizeLimitIsRespected() {
+    final long entrySize = FileDataCache.stripCommitFields(fileData("x")).getSerializedSize();
+    final FileDataCache cache = new FileDataCache(100, entrySize * 2);
+    cache.put(key("0000000000000000000000000000000000000001"), fileData("1"));
+    cache.put(key("0000000000000000000000000000000000000002"), fileData("2"));
+    cache.put(key("0000000000000000000000000000000000000003"), fileData("3"));
+
+    assertEquals(2, cache.getStats().entries());
+    assertTrue(cache.getStats().bytes() <= entrySize * 2);
+  }
+}
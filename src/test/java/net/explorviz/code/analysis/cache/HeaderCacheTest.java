@@ -0,0 +1,130 @@
+package net.explorviz.code.analysis.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.explorviz.code.proto.FileData;
+import net.explorviz.code.proto.Language;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class HeaderCacheTest {
+
+  private static final FileDataCacheKey KEY = new FileDataCacheKey(
+      ObjectId.fromString("0123456789012345678901234567890123456789"), Language.CPP,
+      FileDataCache.ANALYZER_VERSION, "");
+  private static final Executor IO = Runnable::run;
+
+  private static FileData header(final String path) {
+    return FileData.newBuilder()
+        .setFilePath(path)
+        .setLastEditor("someone@example.org")
+        .addImportNames("<vector>")
+        .putMetrics("loc", 42.0)
+        .build();
+  }
+
+  @Test
+  public void testHeaderIsAnalyzedOnce() {
+    final HeaderCache cache = new HeaderCache(10, Long.MAX_VALUE, null);
+    final AtomicInteger analyses = new AtomicInteger();
+
+    final FileData first = cache.getOrAnalyze(KEY, () -> {
+      analyses.incrementAndGet();
+      return CompletableFuture.completedFuture(header("a/b.h"));
+    }, IO).join();
+    final FileData second = cache.getOrAnalyze(KEY, () -> {
+      analyses.incrementAndGet();
+      return CompletableFuture.completedFuture(header("c/b.h"));
+    }, IO).join();
+
+    assertEquals(1, analyses.get());
+    assertEquals("a/b.h", first.getFilePath());
+    assertEquals("", second.getFilePath());
+    assertEquals("", second.getLastEditor());
+    assertEquals("<vector>", second.getImportNames(0));
+    assertEquals(1, cache.getStats().hits());
+    assertEquals(1, cache.getStats().misses());
+  }
+
+  @Test
+  public void testConcurrentLookupsShareRunningAnalysis() {
+    final HeaderCache cache = new HeaderCache(10, Long.MAX_VALUE, null);
+    final AtomicInteger analyses = new AtomicInteger();
+    final CompletableFuture<FileData> running = new CompletableFuture<>();
+
+    final CompletableFuture<FileData> first = cache.getOrAnalyze(KEY, () -> {
+      analyses.incrementAndGet();
+      return running;
+    }, IO);
+    // returns while the first analysis is still running, no thread waits for it
+    final CompletableFuture<FileData> second = cache.getOrAnalyze(KEY, () -> {
+      analyses.incrementAndGet();
+      return CompletableFuture.completedFuture(header("c/b.h"));
+    }, IO);
+    assertFalse(second.isDone());
+
+    running.complete(header("a/b.h"));
+
+    assertEquals("a/b.h", first.join().getFilePath());
+    assertEquals(42.0, second.join().getMetricsOrThrow("loc"));
+    assertEquals("", second.join().getFilePath());
+    assertEquals(1, analyses.get());
+  }
+
+  @Test
+  public void testFailedConcurrentAnalysisIsRetried() {
+    final HeaderCache cache = new HeaderCache(10, Long.MAX_VALUE, null);
+    final CompletableFuture<FileData> running = new CompletableFuture<>();
+
+    final CompletableFuture<FileData> first = cache.getOrAnalyze(KEY, () -> running, IO);
+    final CompletableFuture<FileData> second = cache.getOrAnalyze(KEY,
+        () -> CompletableFuture.completedFuture(header("c/b.h")), IO);
+    running.completeExceptionally(new IllegalStateException("parser failed"));
+
+    assertTrue(first.isCompletedExceptionally());
+    assertEquals("c/b.h", second.join().getFilePath());
+  }
+
+  @Test
+  public void testFailedAnalysisIsNotCached() {
+    final HeaderCache cache = new HeaderCache(10, Long.MAX_VALUE, null);
+
+    assertNull(cache.getOrAnalyze(KEY, () -> CompletableFuture.completedFuture(null), IO).join());
+    assertEquals("b.h", cache.getOrAnalyze(KEY,
+        () -> CompletableFuture.completedFuture(header("b.h")), IO).join().getFilePath());
+    assertEquals(0, cache.getStats().hits());
+  }
+
+  @Test
+  public void testHeaderSurvivesRestartInStore(@TempDir final Path directory) {
+    final PersistentFileDataStore store = new PersistentFileDataStore(directory);
+    new HeaderCache(10, Long.MAX_VALUE, store).getOrAnalyze(KEY,
+        () -> CompletableFuture.completedFuture(header("a/b.h")), IO).join();
+    store.close();
+
+    final PersistentFileDataStore reopened = new PersistentFileDataStore(directory);
+    final FileData stored = new HeaderCache(10, Long.MAX_VALUE, reopened).getOrAnalyze(KEY,
+        () -> {
+          throw new AssertionError("stored header must not be analyzed again");
+        }, IO).join();
+    assertEquals("<vector>", stored.getImportNames(0));
+    reopened.close();
+  }
+
+  @Test
+  public void testDetectsHeaders() {
+    assertTrue(HeaderCache.isHeader("include/a.h"));
+    assertTrue(HeaderCache.isHeader("B.HPP"));
+    assertTrue(HeaderCache.isHeader("c.hxx"));
+    assertFalse(HeaderCache.isHeader("a.cpp"));
+    assertFalse(HeaderCache.isHeader("a.hs"));
+  }
+}
@@ -0,0 +1,141 @@
+package net.explorviz.code.analysis.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import net.explorviz.code.proto.FileData;
+import net.explorviz.code.proto.Language;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PersistentFileDataStoreTest {
+
+  @TempDir
+  /* default */ Path directory; // NOCS
+
+  private static FileDataCacheKey key(final String hash, final String path) {
+    return new FileDataCacheKey(ObjectId.fromString(hash), Language.JAVA,
+        FileDataCache.ANALYZER_VERSION, path);
+  }
+
+  private static FileData fileData(final double loc) {
+    return FileData.newBuilder().setPackageName("net.explorviz").putMetrics("loc", loc).build();
+  }
+
+  @Test
+  public void testEntriesSurviveReopening() {
+    final PersistentFileDataStore store = new PersistentFileDataStore(directory);
+    store.put(key("0123456789012345678901234567890123456789", "a/B.java"), fileData(42.0));
+    store.close();
+
+    final PersistentFileDataStore reopened = new PersistentFileDataStore(directory);
+    final FileData stored = reopened
+        .get(key("0123456789012345678901234567890123456789", "a/B.java")).orElseThrow();
+    assertEquals(42.0, stored.getMetricsOrThrow("loc"));
+    assertFalse(reopened.get(key("0123456789012345678901234567890123456789", "a/C.java"))
+        .isPresent());
+    reopened.close();
+  }
+
+  @Test
+  public void testNonBmpAndLongPathsSurviveReopening() {
+    final String emojiPath = "src/😀/Smile.java";
+    final String longPath = "a/".repeat(40_000) + "Deep.java";
+    final PersistentFileDataStore store = new PersistentFileDataStore(directory);
+    store.put(key("3333333333333333333333333333333333333333", emojiPath), fileData(1.0));
+    store.put(key("3333333333333333333333333333333333333333", longPath), fileData(2.0));
+    store.close();
+
+    final PersistentFileDataStore reopened = new PersistentFileDataStore(directory);
+    assertEquals(1.0, reopened.get(key("3333333333333333333333333333333333333333", emojiPath))
+        .orElseThrow().getMetricsOrThrow("loc"));
+    assertEquals(2.0, reopened.get(key("3333333333333333333333333333333333333333", longPath))
+        .orElseThrow().getMetricsOrThrow("loc"));
+    assertEquals(2, reopened.getStats().entries());
+    reopened.close();
+  }
+
+  @Test
+  public void testEntriesOfOtherInstanceAreFoundOnMiss() {
+    final PersistentFileDataStore reader = new PersistentFileDataStore(directory);
+    final PersistentFileDataStore writer = new PersistentFileDataStore(directory);
+    assertFalse(reader.get(key("1111111111111111111111111111111111111111", "")).isPresent());
+
+    writer.put(key("1111111111111111111111111111111111111111", ""), fileData(7.0));
+    writer.put(key("2222222222222222222222222222222222222222", ""), fileData(8.0));
+
+    assertEquals(8.0, reader.get(key("2222222222222222222222222222222222222222", ""))
+        .orElseThrow().getMetricsOrThrow("loc"));
+    assertEquals(2, reader.getStats().entries());
+    reader.close();
+    writer.close();
+  }
+
+  @Test
+  public void testIncompleteIndexEntryIsIgnored() throws IOException {
+    final PersistentFileDataStore store = new PersistentFileDataStore(directory);
+    store.put(key("0123456789012345678901234567890123456789", ""), fileData(1.0));
+    store.close();
+    Files.write(directory.resolve("filedata-v2.idx"), new byte[] {0, 0, 0, 42, 1, 2},
+        StandardOpenOption.APPEND);
+
+    final PersistentFileDataStore reopened = new PersistentFileDataStore(directory);
+    assertTrue(reopened.get(key("0123456789012345678901234567890123456789", "")).isPresent());
+    reopened.put(key("3333333333333333333333333333333333333333", ""), fileData(3.0));
+    reopened.close();
+
+    final PersistentFileDataStore again = new PersistentFileDataStore(directory);
+    assertEquals(3.0, again.get(key("3333333333333333333333333333333333333333", ""))
+        .orElseThrow().getMetricsOrThrow("loc"));
+    assertEquals(2, again.getStats().entries());
+    again.close();
+  }
+
+  @Test
+  public void testEntryWrittenByOtherProcessSurvivesLockedPut() throws IOException {
+    final PersistentFileDataStore store = new PersistentFileDataStore(directory);
+    store.put(key("0123456789012345678901234567890123456789", ""), fileData(1.0));
+
+    // another process appended the data and the first bytes of its index entry
+    final FileDataCacheKey otherKey = key("4444444444444444444444444444444444444444", "");
+    final byte[] data = fileData(4.0).toByteArray();
+    final Path dataFile = directory.resolve("filedata-v2.dat");
+    final long offset = Files.size(dataFile);
+    Files.write(dataFile, data, StandardOpenOption.APPEND);
+    final ByteBuffer entry = PersistentFileDataStore.encodeIndexEntry(otherKey, offset,
+        data.length, PersistentFileDataStore.checksum(data));
+    final byte[] entryBytes = new byte[entry.remaining()];
+    entry.get(entryBytes);
+    final Path indexFile = directory.resolve("filedata-v2.idx");
+    Files.write(indexFile, Arrays.copyOf(entryBytes, 6), StandardOpenOption.APPEND);
+
+    // a lock-free reader sees the half-written entry
+    final PersistentFileDataStore reader = new PersistentFileDataStore(directory);
+    assertFalse(reader.get(otherKey).isPresent());
+    assertFalse(store.get(otherKey).isPresent());
+
+    // the other process completes its entry
+    Files.write(indexFile, Arrays.copyOfRange(entryBytes, 6, entryBytes.length),
+        StandardOpenOption.APPEND);
+
+    store.put(key("5555555555555555555555555555555555555555", ""), fileData(5.0));
+    assertEquals(4.0, reader.get(otherKey).orElseThrow().getMetricsOrThrow("loc"));
+    reader.close();
+    store.close();
+
+    final PersistentFileDataStore again = new PersistentFileDataStore(directory);
+    assertEquals(4.0, again.get(otherKey).orElseThrow().getMetricsOrThrow("loc"));
+    assertEquals(5.0, again.get(key("5555555555555555555555555555555555555555", ""))
+        .orElseThrow().getMetricsOrThrow("loc"));
+    assertEquals(3, again.getStats().entries());
+    again.close();
+  }
+}
@@ -0,0 +1,147 @@
+package net.explorviz.code.analysis.collector;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.util.Optional;
+import java.util.Set;
+import net.explorviz.code.analysis.handler.AbstractFileDataHandler;
+import net.explorviz.code.analysis.parser.AntlrCppParserService;
+import net.explorviz.code.analysis.parser.AntlrPythonParserService;
+import net.explorviz.code.analysis.parser.AntlrTypeScriptParserService;
+import net.explorviz.code.analysis.parser.ParseGuard;
+import net.explorviz.code.proto.ClassData;
+import net.explorviz.code.proto.FileData;
+import net.explorviz.code.proto.FunctionData;
+import org.antlr.v4.runtime.CharStreams;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the metric collectors walked along with the TypeScript, Python and C++ listeners.
+ */
+public class MetricCollectorsTest { // NOCS
+
+  private static final Set<String> ALL = MetricCollectors.select(Optional.empty());
+  private static final String CC = "cyclomatic_complexity";
+  private static final String DEPTH = "nestedBlockDepth";
+
+  private static FunctionData function(final AbstractFileDataHandler handler,
+      final String name) {
+    assertNotNull(handler);
+    final FileData fileData = handler.getProtoBufObject();
+    for (final FunctionData function : fileData.getFunctionsList()) {
+      if (function.getName().equals(name)) {
+        return function;
+      }
+    }
+    for (final ClassData classData : fileData.getClassesList()) {
+      for (final FunctionData function : classData.getFunctionsList()) {
+        if (function.getName().equals(name)) {
+          return function;
+        }
+      }
+    }
+    throw new AssertionError("No function " + name);
+  }
+
+  @Test
+  void typeScript() {
+    final AbstractFileDataHandler handler = new AntlrTypeScriptParserService().parseFileContent(
+        CharStreams.fromString("""
+            export class Greeter {
+              greet(name: string, loud: boolean): string {
+                if (name && loud) {
+                  for (const c of name) {
+                    if (c === ' ') { return name; }
+                  }
+                }
+                return loud ? name.toUpperCase() : name;
+              }
+            }
+            function check(a: number): number {
+              switch (a) {
+                case 1: return 1;
+                case 2: return 2;
+                default: return 0;
+              }
+            }
+            """), "greeter.ts", "0", ParseGuard.NONE, ALL);
+
+    assertEquals(6.0, function(handler, "greet").getMetricsOrThrow(CC));
+    assertEquals(4.0, function(handler, "greet").getMetricsOrThrow(DEPTH));
+    assertEquals(3.0, function(handler, "check").getMetricsOrThrow(CC));
+    assertEquals(3.0, function(handler, "check").getMetricsOrThrow(DEPTH));
+    assertEquals("9.0", handler.getMetricValue(CC));
+  }
+
+  @Test
+  void python() {
+    final AbstractFileDataHandler handler = new AntlrPythonParserService().parseFileContent(
+        CharStreams.fromString("""
+            def classify(n):
+                if n < 0:
+                    return "negative"
+                elif n == 0 or n is None:
+                    return "zero"
+                for i in range(n):
+                    while i > 0:
+                        i -= 1
+                return "positive" if n > 1 else "one"
+
+            class Shape:
+                def area(self):
+                    try:
+                        return self.w * self.h
+                    except AttributeError:
+                        return 0
+            """), "shapes.py", "0", ParseGuard.NONE, ALL);
+
+    assertEquals(7.0, function(handler, "classify").getMetricsOrThrow(CC));
+    assertEquals(3.0, function(handler, "classify").getMetricsOrThrow(DEPTH));
+    assertEquals(2.0, function(handler, "area").getMetricsOrThrow(CC));
+    assertEquals(2.0, function(handler, "area").getMetricsOrThrow(DEPTH));
+  }
+
+  @Test
+  void cpp() {
+    final AbstractFileDataHandler handler = new AntlrCppParserService().parseFileContent(
+        CharStreams.fromString("""
+            int clamp(int v, int lo, int hi) {
+              if (v < lo || v > hi) {
+                return v < lo ? lo : hi;
+              }
+              return v;
+            }
+            void move(int&& value) {
+              for (int i = 0; i < value; i++) {
+                switch (i) {
+                  case 0: break;
+                  case 1: break;
+                }
+              }
+            }
+            """), "clamp.cpp", "0", ParseGuard.NONE, ALL);
+
+    assertEquals(4.0, function(handler, "clamp").getMetricsOrThrow(CC));
+    assertEquals(2.0, function(handler, "clamp").getMetricsOrThrow(DEPTH));
+    // the rvalue reference is no decision
+    assertEquals(4.0, function(handler, "move").getMetricsOrThrow(CC));
+    assertEquals(4.0, function(handler, "move").getMetricsOrThrow(DEPTH));
+  }
+
+  @Test
+  void selection() {
+    assertEquals(Set.of(MetricCollectors.CYCLOMATIC_COMPLEXITY, MetricCollectors.NESTING_DEPTH),
+        ALL);
+    assertEquals(Set.of(MetricCollectors.NESTING_DEPTH),
+        MetricCollectors.select(Optional.of(" nesting-depth, unknown")));
+
+    final AbstractFileDataHandler handler = new AntlrPythonParserService().parseFileContent(
+        CharStreams.fromString("def f(a):\n    if a:\n        return 1\n"), "f.py", "0",
+        ParseGuard.NONE, Set.of(MetricCollectors.NESTING_DEPTH));
+    assertEquals(2.0, function(handler, "f").getMetricsOrThrow(DEPTH));
+    assertFalse(function(handler, "f").containsMetrics(CC));
+    assertFalse(handler.getProtoBufObject().containsMetrics(CC));
+  }
+}
@@ -0,0 +1,231 @@
+package net.explorviz.code.analysis.git;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import net.explorviz.code.analysis.exceptions.NotFoundException;
+import net.explorviz.code.analysis.types.BlobContent;
+import net.explorviz.code.analysis.types.FileDescriptor;
+import net.explorviz.code.analysis.types.Triple;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Diffs and blob reads against a small local repository, compared with the results of the
+ * porcelain diff the analysis used before.
+ */
+public class GitRepositoryDiffTest {
+
+  private static final byte[] IMAGE = {(byte) 0x89, 'P', 'N', 'G', 0, 0, 0, 13, 1, 2, 3};
+  private static final byte[] CHANGED_IMAGE = {(byte) 0x89, 'P', 'N', 'G', 0, 0, 0, 13, 4, 5};
+  private static final String RENAMED = "class C {\n  int a;\n  int b;\n  int c;\n}\n";
+
+  @TempDir
+  /* default */ File directory; // NOCS
+
+  @TempDir
+  /* default */ File bareDirectory; // NOCS
+
+  private static RevCommit commit(final Git git, final Map<String, byte[]> files,
+      final List<String> deletedFiles) throws IOException, GitAPIException {
+    final Path workTree = git.getRepository().getWorkTree().toPath();
+    for (final Map.Entry<String, byte[]> file : files.entrySet()) {
+      final Path path = workTree.resolve(file.getKey());
+      Files.createDirectories(path.getParent());
+      Files.write(path, file.getValue());
+    }
+    for (final String deletedFile : deletedFiles) {
+      Files.delete(workTree.resolve(deletedFile));
+    }
+    git.add().addFilepattern(".").call();
+    git.add().addFilepattern(".").setUpdate(true).call();
+    return git.commit().setMessage(files.keySet().toString()).setSign(false).call();
+  }
+
+  private static byte[] text(final String content) {
+    return content.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static RevCommit[] history(final Git git) throws IOException, GitAPIException {
+    final Map<String, byte[]> initial = new TreeMap<>();
+    initial.put("src/main/java/A.java", text("class A {\n  int a;\n}\n"));
+    initial.put("src/main/java/B.java", text("class B {\n}\n"));
+    initial.put("src/main/java/C.java", text(RENAMED));
+    initial.put("logo.png", IMAGE);
+    final RevCommit first = commit(git, initial, List.of());
+
+    final Map<String, byte[]> changes = new TreeMap<>();
+    changes.put("src/main/java/A.java", text("class A {\n  long a;\n}\n// end\n"));
+    changes.put("src/main/java/D.java", text(RENAMED));
+    changes.put("src/main/java/E.java", text("class E {\n}\n"));
+    changes.put("logo.png", CHANGED_IMAGE);
+    final RevCommit second = commit(git, changes,
+        List.of("src/main/java/B.java", "src/main/java/C.java"));
+    return new RevCommit[] {first, second};
+  }
+
+  private static List<String> paths(final List<FileDescriptor> descriptors) {
+    final List<String> paths = new ArrayList<>();
+    for (final FileDescriptor descriptor : descriptors) {
+      paths.add(descriptor.relativePath);
+    }
+    return paths.stream().sorted().toList();
+  }
+
+  private static FileDescriptor find(final List<FileDescriptor> descriptors, final String path) {
+    return descriptors.stream().filter(descriptor -> path.equals(descriptor.relativePath))
+        .findFirst().orElseThrow();
+  }
+
+  /**
+   * Sorts the entries of the porcelain diff into modified, deleted and added paths, like the
+   * analysis did before the diff session was shared.
+   */
+  private static Triple<List<String>, List<String>, List<String>> baselineDiff(final Git git,
+      final RevCommit oldCommit, final RevCommit newCommit) throws IOException, GitAPIException {
+    final List<String> modified = new ArrayList<>();
+    final List<String> deleted = new ArrayList<>();
+    final List<String> added = new ArrayList<>();
+    try (ObjectReader reader = git.getRepository().newObjectReader()) {
+      final List<DiffEntry> diffs = git.diff()
+          .setOldTree(new CanonicalTreeParser(null, reader, oldCommit.getTree()))
+          .setNewTree(new CanonicalTreeParser(null, reader, newCommit.getTree())).call();
+      for (final DiffEntry diff : diffs) {
+        switch (diff.getChangeType()) {
+          case DELETE -> deleted.add(diff.getOldPath());
+          case MODIFY -> modified.add(diff.getNewPath());
+          default -> added.add(diff.getNewPath());
+        }
+      }
+    }
+    return new Triple<>(modified.stream().sorted().toList(), deleted.stream().sorted().toList(),
+        added.stream().sorted().toList());
+  }
+
+  @Test
+  public void testDiffMatchesBaseline()
+      throws IOException, GitAPIException, NotFoundException {
+    try (Git git = Git.init().setDirectory(directory).call()) {
+      final RevCommit[] commits = history(git);
+      final Triple<List<FileDescriptor>, List<FileDescriptor>, List<FileDescriptor>> diff =
+          new GitRepositoryHandler().listDiff(git.getRepository(), Optional.of(commits[0]),
+              commits[1], "");
+
+      final Triple<List<String>, List<String>, List<String>> baseline = baselineDiff(git,
+          commits[0], commits[1]);
+      assertEquals(baseline.left(), paths(diff.left()));
+      assertEquals(baseline.middle(), paths(diff.middle()));
+      assertEquals(baseline.right(), paths(diff.right()));
+
+      // renames are not detected, so they are reported as a deleted and an added file
+      assertEquals(List.of("logo.png", "src/main/java/A.java"), paths(diff.left()));
+      assertEquals(List.of("src/main/java/B.java", "src/main/java/C.java"), paths(diff.middle()));
+      assertEquals(List.of("src/main/java/D.java", "src/main/java/E.java"), paths(diff.right()));
+
+      final FileDescriptor modified = find(diff.left(), "src/main/java/A.java");
+      assertEquals("A.java", modified.fileName);
+      assertEquals(1, modified.modifiedLines);
+      assertEquals(1, modified.addedLines);
+      assertEquals(0, modified.removedLines);
+
+      // binary files carry no line counts
+      final FileDescriptor image = find(diff.left(), "logo.png");
+      assertEquals(0, image.modifiedLines + image.addedLines + image.removedLines);
+
+      // deleted files keep the id of the old blob
+      final FileDescriptor deleted = find(diff.middle(), "src/main/java/C.java");
+      assertEquals(find(diff.right(), "src/main/java/D.java").objectId, deleted.objectId);
+    }
+  }
+
+  @Test
+  public void testFirstCommitListsAllFilesAsAdded()
+      throws IOException, GitAPIException, NotFoundException {
+    try (Git git = Git.init().setDirectory(directory).call()) {
+      final RevCommit[] commits = history(git);
+      final Triple<List<FileDescriptor>, List<FileDescriptor>, List<FileDescriptor>> diff =
+          new GitRepositoryHandler().listDiff(git.getRepository(), Optional.empty(), commits[0],
+              "");
+
+      assertTrue(diff.left().isEmpty());
+      assertTrue(diff.middle().isEmpty());
+      assertEquals(List.of("logo.png", "src/main/java/A.java", "src/main/java/B.java",
+          "src/main/java/C.java"), paths(diff.right()));
+    }
+  }
+
+  @Test
+  public void testBareRepositoryIsReadWithoutCheckout()
+      throws IOException, GitAPIException, NotFoundException {
+    try (Git git = Git.init().setDirectory(directory).call()) {
+      final RevCommit[] commits = history(git);
+      try (Git bare = Git.cloneRepository().setURI(directory.toURI().toString())
+          .setDirectory(bareDirectory).setBare(true).call()) {
+        final Repository repository = bare.getRepository();
+        assertTrue(repository.isBare());
+        try (RevWalk revWalk = new RevWalk(repository)) {
+          final RevCommit first = revWalk.parseCommit(commits[0]);
+          final RevCommit second = revWalk.parseCommit(commits[1]);
+
+          // path restrictions are resolved against the commit's tree, not the working tree
+          final Triple<List<FileDescriptor>, List<FileDescriptor>, List<FileDescriptor>> diff =
+              new GitRepositoryHandler().listDiff(repository, Optional.of(first), second,
+                  "**/main/java");
+          assertEquals(List.of("src/main/java/A.java"), paths(diff.left()));
+          assertEquals(List.of("src/main/java/B.java", "src/main/java/C.java"),
+              paths(diff.middle()));
+          assertEquals(List.of("src/main/java/D.java", "src/main/java/E.java"),
+              paths(diff.right()));
+
+          final ObjectId imageId = find(new GitRepositoryHandler().listFilesInCommit(repository,
+              second, List.of("")), "logo.png").objectId;
+          final BlobContent image = GitRepositoryHandler.getBlob(imageId, repository);
+          assertArrayEquals(CHANGED_IMAGE, image.bytes());
+          assertEquals(CHANGED_IMAGE.length, GitRepositoryHandler.getBlobSize(imageId, repository));
+          assertTrue(image.isBinary());
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testBlobIsReadFromCommitNotWorkingTree() throws IOException, GitAPIException {
+    try (Git git = Git.init().setDirectory(directory).call()) {
+      final RevCommit[] commits = history(git);
+      final Path source = directory.toPath().resolve("src/main/java/A.java");
+      Files.writeString(source, "class A {\n  // uncommitted\n}\n");
+
+      try (TreeWalk treeWalk = TreeWalk.forPath(git.getRepository(), "src/main/java/A.java",
+          commits[0].getTree())) {
+        final ObjectId blobId = treeWalk.getObjectId(0);
+        final BlobContent blob = GitRepositoryHandler.getBlob(blobId, git.getRepository());
+        assertEquals("class A {\n  int a;\n}\n", blob.asString());
+        assertEquals(blob.bytes().length,
+            GitRepositoryHandler.getBlobSize(blobId, git.getRepository()));
+        assertFalse(blob.isBinary());
+      }
+    }
+  }
+}
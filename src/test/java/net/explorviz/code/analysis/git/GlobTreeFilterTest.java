@@ -0,0 +1,112 @@
+package net.explorviz.code.analysis.git;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class GlobTreeFilterTest {
+
+  private static final List<String> FILES = List.of("Main.java", "README.md",
+      "src/main/java/App.java", "src/main/java/util/Strings.java", "src/test/java/AppTest.java",
+      "vendor/lib/Lib.java", "vendor/lib/lib.min.js", "web/app.ts", "web/gen/api.ts");
+
+  @TempDir
+  /* default */ File directory; // NOCS
+
+  private RevCommit commitFiles(final Git git) throws IOException, GitAPIException {
+    for (final String path : FILES) {
+      final Path file = directory.toPath().resolve(path);
+      Files.createDirectories(file.getParent());
+      Files.writeString(file, path);
+    }
+    git.add().addFilepattern(".").call();
+    return git.commit().setMessage("files").setSign(false).call();
+  }
+
+  private static List<String> walk(final Git git, final RevCommit commit, final TreeFilter filter)
+      throws IOException {
+    final List<String> paths = new ArrayList<>();
+    try (TreeWalk treeWalk = new TreeWalk(git.getRepository())) {
+      treeWalk.addTree(commit.getTree());
+      treeWalk.setRecursive(true);
+      treeWalk.setFilter(filter);
+      while (treeWalk.next()) {
+        paths.add(treeWalk.getPathString());
+      }
+    }
+    return paths;
+  }
+
+  private static List<String> expected(final String include, final String exclude) {
+    final List<String> paths = new ArrayList<>();
+    for (final String path : FILES) {
+      if ((include.isEmpty() || anyMatches(include, path)) && !anyMatches(exclude, path)) {
+        paths.add(path);
+      }
+    }
+    return paths;
+  }
+
+  private static boolean anyMatches(final String expressions, final String path) {
+    for (final String expression : expressions.split(",")) {
+      if (expression.isEmpty()) {
+        continue;
+      }
+      final String pattern = expression.startsWith("regex:") ? expression : "glob:" + expression;
+      final PathMatcher matcher = FileSystems.getDefault().getPathMatcher(pattern);
+      if (matcher.matches(Paths.get(path))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Test
+  public void testMatchesLikePathMatcher() throws IOException, GitAPIException {
+    final String[][] cases = {
+        {"**.java", ""},
+        {"**/*.java", ""},
+        {"*.java", ""},
+        {"src/**", "**/test/**"},
+        {"src/main/java/*.java", ""},
+        {"", "vendor/**"},
+        {"", "**/gen/**,*.md"},
+        {"**/*.ts,**.md", "web/gen/*"},
+        {"regex:.*App.*", ""},
+        {"**", "**.min.js"},
+        {"src/*/java/**", ""},
+        {"[MR]*", ""},
+    };
+    try (Git git = Git.init().setDirectory(directory).call()) {
+      final RevCommit commit = commitFiles(git);
+      for (final String[] testCase : cases) {
+        final TreeFilter filter = GlobTreeFilter.create(Optional.of(testCase[0]),
+            Optional.of(testCase[1]));
+        assertEquals(expected(testCase[0], testCase[1]), walk(git, commit, filter),
+            "include " + testCase[0] + ", exclude " + testCase[1]);
+      }
+    }
+  }
+
+  @Test
+  public void testNoExpressionsDoNotFilter() {
+    assertSame(TreeFilter.ALL, GlobTreeFilter.create(Optional.empty(), Optional.of(" ")));
+  }
+}
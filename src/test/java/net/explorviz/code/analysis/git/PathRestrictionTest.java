@@ -0,0 +1,69 @@
+package net.explorviz.code.analysis.git;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PathRestrictionTest {
+
+  @TempDir
+  /* default */ File directory; // NOCS
+
+  private static RevCommit commit(final Git git, final String path)
+      throws IOException, GitAPIException {
+    final Path file = git.getRepository().getWorkTree().toPath().resolve(path);
+    Files.createDirectories(file.getParent());
+    Files.writeString(file, path);
+    git.add().addFilepattern(".").call();
+    return git.commit().setMessage(path).setSign(false).call();
+  }
+
+  @Test
+  public void testDirectoriesAreResolvedFromTree() throws IOException, GitAPIException {
+    try (Git git = Git.init().setDirectory(directory).call()) {
+      commit(git, "src/main/java/A.java");
+      final RevCommit commit = commit(git, "lib/src/main/java/B.java");
+
+      final PathRestriction restriction = new PathRestriction(List.of("**/main/java"));
+      assertEquals(List.of("lib/src/main/java", "src/main/java"),
+          restriction.resolveDirectories(git.getRepository(), commit.getTree()).stream()
+              .sorted().toList());
+    }
+  }
+
+  @Test
+  public void testFilterIsOnlyRebuiltIfDirectoriesChange() throws IOException, GitAPIException {
+    try (Git git = Git.init().setDirectory(directory).call()) {
+      final RevCommit first = commit(git, "src/main/java/A.java");
+      final RevCommit second = commit(git, "src/main/java/B.java");
+      final RevCommit third = commit(git, "lib/src/main/java/C.java");
+
+      final PathRestriction restriction = new PathRestriction(List.of("**/main/java"));
+      final TreeFilter firstFilter = restriction.getTreeFilter(git.getRepository(),
+          first.getTree());
+      assertSame(firstFilter, restriction.getTreeFilter(git.getRepository(), second.getTree()));
+      assertNotSame(firstFilter, restriction.getTreeFilter(git.getRepository(), third.getTree()));
+    }
+  }
+
+  @Test
+  public void testBlankRestrictionDoesNotFilter() throws IOException, GitAPIException {
+    try (Git git = Git.init().setDirectory(directory).call()) {
+      final RevCommit commit = commit(git, "src/A.java");
+      assertSame(TreeFilter.ALL,
+          new PathRestriction(List.of("")).getTreeFilter(git.getRepository(), commit.getTree()));
+    }
+  }
+}
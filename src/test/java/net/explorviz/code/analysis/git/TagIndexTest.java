@@ -0,0 +1,77 @@
+package net.explorviz.code.analysis.git;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TagIndexTest {
+
+  @TempDir
+  /* default */ File directory; // NOCS
+
+  private static RevCommit commit(final Git git, final String content)
+      throws IOException, GitAPIException {
+    Files.writeString(git.getRepository().getWorkTree().toPath().resolve("file.txt"), content);
+    git.add().addFilepattern("file.txt").call();
+    return git.commit().setMessage(content).setSign(false).call();
+  }
+
+  @Test
+  public void testLightweightAndAnnotatedTagsAreFound() throws IOException, GitAPIException {
+    try (Git git = Git.init().setDirectory(directory).call()) {
+      final RevCommit first = commit(git, "first");
+      git.tag().setName("v1").setAnnotated(false).call();
+      final RevCommit second = commit(git, "second");
+      git.tag().setName("v2").setAnnotated(true).setMessage("release").setSigned(false).call();
+      git.tag().setName("v2-alias").setAnnotated(false).call();
+
+      try (TagIndex tagIndex = new TagIndex(git.getRepository())) {
+        assertEquals(List.of("refs/tags/v1"), tagIndex.getTags(first));
+        assertEquals(List.of("refs/tags/v2", "refs/tags/v2-alias"), tagIndex.getTags(second));
+      }
+    }
+  }
+
+  @Test
+  public void testIndexIsRebuiltAfterRefsChanged() throws IOException, GitAPIException {
+    try (Git git = Git.init().setDirectory(directory).call()) {
+      final RevCommit first = commit(git, "first");
+
+      try (TagIndex tagIndex = new TagIndex(git.getRepository())) {
+        assertEquals(List.of(), tagIndex.getTags(first));
+        git.tag().setName("v1").setAnnotated(false).call();
+        assertEquals(List.of("refs/tags/v1"), tagIndex.getTags(first));
+      }
+    }
+  }
+
+  @Test
+  public void testIndexIsNotRebuiltWhenHeadMoves() throws IOException, GitAPIException {
+    try (Git git = Git.init().setDirectory(directory).call()) {
+      final RevCommit first = commit(git, "first");
+      git.tag().setName("v1").setAnnotated(false).call();
+      final RevCommit second = commit(git, "second");
+
+      try (TagIndex tagIndex = new TagIndex(git.getRepository())) {
+        assertEquals(List.of("refs/tags/v1"), tagIndex.getTags(first));
+        git.checkout().setName(first.name()).call();
+        assertEquals(List.of(), tagIndex.getTags(second));
+        git.checkout().setName(second.name()).call();
+        assertEquals(List.of("refs/tags/v1"), tagIndex.getTags(first));
+        assertEquals(1, tagIndex.getRebuilds());
+
+        git.tag().setName("v2").setObjectId(second).setAnnotated(false).call();
+        assertEquals(List.of("refs/tags/v2"), tagIndex.getTags(second));
+        assertEquals(2, tagIndex.getRebuilds());
+      }
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package net.explorviz.code.analysis.listener;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the simple name lookup of the Java import table.
+ */
+public class JavaImportTableTest { // NOCS
+
+  @Test
+  void resolvesSimpleNames() {
+    final JavaImportTable table = new JavaImportTable();
+    table.addSingleTypeImport("java.util.List");
+    table.addSingleTypeImport("java.util.Map.Entry");
+
+    assertEquals("java.util.List", table.lookup("List"));
+    assertEquals("java.util.Map.Entry", table.lookup("Entry"));
+    assertNull(table.lookup("Map"));
+  }
+
+  @Test
+  void keepsFirstImportOfSimpleName() {
+    final JavaImportTable table = new JavaImportTable();
+    table.addSingleTypeImport("java.util.List");
+    table.addSingleTypeImport("java.awt.List");
+
+    assertEquals("java.util.List", table.lookup("List"));
+  }
+
+  @Test
+  void collectsImportsOnDemand() {
+    final JavaImportTable table = new JavaImportTable();
+    table.addOnDemandImport("java.util");
+    table.addOnDemandImport("java.io");
+
+    assertEquals(List.of("java.util", "java.io"), table.getOnDemandImports());
+    assertNull(table.lookup("*"));
+  }
+}
@@ -0,0 +1,113 @@
+package net.explorviz.code.analysis.listener;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.util.List;
+import net.explorviz.code.analysis.handler.ClassDataHandler;
+import net.explorviz.code.analysis.handler.JavaFileDataHandler;
+import net.explorviz.code.analysis.parser.AntlrParserService;
+import net.explorviz.code.analysis.parser.ParseGuard;
+import net.explorviz.code.analysis.types.Verification;
+import org.antlr.v4.runtime.CharStreams;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the metric listeners against the expectations of the JavaParser visitor tests.
+ */
+public class JavaMetricListenersTest { // NOCS
+
+  private final AntlrParserService parserService = new AntlrParserService();
+
+  private JavaFileDataHandler parseFile(final String name) throws IOException {
+    final JavaFileDataHandler handler = parserService.parseFileContent(
+        CharStreams.fromFileName("src/test/resources/files/" + name), name, "0",
+        ParseGuard.NONE, true);
+    assertNotNull(handler);
+    return handler;
+  }
+
+  private JavaFileDataHandler parseSource(final String source) {
+    final JavaFileDataHandler handler = parserService.parseFileContent(
+        CharStreams.fromString(source), "A.java", "0", ParseGuard.NONE, true);
+    assertNotNull(handler);
+    return handler;
+  }
+
+  @Test
+  void cyclomaticComplexity() throws IOException {
+    final ClassDataHandler nested = parseFile("Nested.java").getClassData("com.easy.life.Nested");
+
+    assertEquals("6.0", nested.getMethod("com.easy.life.Nested.heavyNested#1")
+        .getMetricValue("cyclomatic_complexity"));
+    assertEquals("2.0", nested.getMethod("com.easy.life.Nested.heavyNested2#1980e")
+        .getMetricValue("cyclomatic_complexity"));
+    assertEquals("4.0", nested.getMetricValue("cyclomatic_complexity_weighted"));
+  }
+
+  @Test
+  void nestedBlockDepth() throws IOException {
+    final ClassDataHandler nested = parseFile("Nested.java").getClassData("com.easy.life.Nested");
+
+    assertEquals("6.0", nested.getMethod("com.easy.life.Nested.heavyNested#1")
+        .getMetricValue("nestedBlockDepth"));
+    assertEquals("4.0", nested.getMethod("com.easy.life.Nested.heavyNested2#1980e")
+        .getMetricValue("nestedBlockDepth"));
+  }
+
+  @Test
+  void lackOfCohesion() throws IOException {
+    final JavaFileDataHandler handler = parseFile("LCOM4.java");
+
+    assertEquals("1.0", handler.getClassData("com.easy.life.LCOM4").getMetricValue("LCOM4"));
+    assertEquals("1.0",
+        handler.getClassData("com.easy.life.LCOM4Class2").getMetricValue("LCOM4"));
+    assertEquals("1.0",
+        handler.getClassData("com.easy.life.LCOM4Class3").getMetricValue("LCOM4"));
+    assertEquals("0.0",
+        handler.getClassData("com.easy.life.LCOM4Class4").getMetricValue("LCOM4"));
+    assertEquals("1.0",
+        handler.getClassData("com.easy.life.LCOM4Class5").getMetricValue("LCOM4"));
+    assertEquals("6.0",
+        handler.getClassData("com.easy.life.LCOM4Class6").getMetricValue("LCOM4"));
+  }
+
+  @Test
+  void nPath() throws IOException {
+    final ClassDataHandler nested = parseFile("Nested.java").getClassData("com.easy.life.Nested");
+    assertEquals("6.0", nested.getMethod("com.easy.life.Nested.heavyNested#1")
+        .getMetricValue("npath"));
+    assertEquals("2.0", nested.getMethod("com.easy.life.Nested.heavyNested2#1980e")
+        .getMetricValue("npath"));
+
+    final ClassDataHandler sequence = parseSource("""
+        class A {
+          int f(int a, int b) {
+            if (a > 0 && b > 0) {
+              a++;
+            } else {
+              b++;
+            }
+            if (a > b) {
+              a = b;
+            }
+            return a > 0 ? a : b;
+          }
+        }
+        """).getClassData("A");
+    // (1 + 1 + 1) * (1 + 1) * (2)
+    assertEquals("12.0", sequence.getMethod("A.f#" + Verification.parameterHash(
+        List.of("int", "int"))).getMetricValue("npath"));
+  }
+
+  @Test
+  void metricsAreOptional() {
+    final JavaFileDataHandler handler = parserService.parseFileContent(
+        CharStreams.fromString("class A { void f() { if (true) { } } }"), "A.java", "0",
+        ParseGuard.NONE, false);
+    assertNotNull(handler);
+    assertNull(handler.getClassData("A").getMetricValue("cyclomatic_complexity"));
+  }
+}
@@ -0,0 +1,72 @@
+package net.explorviz.code.analysis.listener;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import net.explorviz.code.analysis.antlr.generated.Java20Lexer;
+import net.explorviz.code.analysis.antlr.generated.Java20Parser;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the line index against hand counted code and comment lines.
+ */
+public class LineIndexTest { // NOCS
+
+  private static final String SOURCE = """
+      package a;
+      // line comment
+      public class A {
+        /*
+         * block comment
+         */
+        void m() { int x = 1;
+          x++; // trailing
+        }
+
+        void n() {}
+      }
+      """;
+
+  @Test
+  void countsWholeFile() {
+    final CommonTokenStream tokens = tokenize(SOURCE);
+    final LineIndex index = new LineIndex(tokens, "//");
+
+    assertEquals(7, index.sloc());
+    assertEquals(5, index.cloc());
+  }
+
+  @Test
+  void countsDeclarations() {
+    final CommonTokenStream tokens = tokenize(SOURCE);
+    final LineIndex index = new LineIndex(tokens, "//");
+    final Java20Parser.CompilationUnitContext unit = new Java20Parser(tokens).compilationUnit();
+    final Java20Parser.ClassBodyContext body = unit.ordinaryCompilationUnit()
+        .topLevelClassOrInterfaceDeclaration(0).classDeclaration().normalClassDeclaration()
+        .classBody();
+
+    assertEquals(6, index.sloc(body));
+    assertEquals(4, index.cloc(body));
+    assertEquals(3, index.sloc(body.classBodyDeclaration(0)));
+    assertEquals(1, index.cloc(body.classBodyDeclaration(0)));
+    assertEquals(1, index.sloc(body.classBodyDeclaration(1)));
+    assertEquals(0, index.cloc(body.classBodyDeclaration(1)));
+  }
+
+  @Test
+  void handlesMissingTokens() {
+    final LineIndex index = new LineIndex(null, "//");
+
+    assertEquals(0, index.sloc());
+    assertEquals(0, index.cloc());
+    assertEquals(0, index.sloc(null));
+  }
+
+  private static CommonTokenStream tokenize(final String source) {
+    final CommonTokenStream tokens =
+        new CommonTokenStream(new Java20Lexer(CharStreams.fromString(source)));
+    tokens.fill();
+    return tokens;
+  }
+}
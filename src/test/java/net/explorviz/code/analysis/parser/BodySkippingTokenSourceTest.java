@@ -0,0 +1,198 @@
+package net.explorviz.code.analysis.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import net.explorviz.code.analysis.antlr.generated.Java20Lexer;
+import net.explorviz.code.analysis.antlr.generated.TypeScriptLexer;
+import net.explorviz.code.analysis.listener.LineIndex;
+import net.explorviz.code.proto.ClassData;
+import net.explorviz.code.proto.FileData;
+import net.explorviz.code.proto.FunctionData;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenSource;
+import org.junit.jupiter.api.Test;
+
+public class BodySkippingTokenSourceTest {
+
+  private static final String JAVA = """
+      package a;
+
+      import java.util.List;
+
+      @SuppressWarnings({"unchecked"})
+      public class A implements Runnable {
+        private final int[] values = {1, 2};
+
+        public A(final int x) {
+          // sum up
+          for (int i = 0; i < x; i++) {
+            call(i);
+          }
+        }
+
+        @Override
+        public void run() {
+          List.of(1).forEach(i -> {
+            call(i);
+          });
+        }
+
+        enum Mode { ON, OFF }
+
+        record Point(int x, int y) {
+          Point {
+            check(x);
+          }
+        }
+      }
+      """;
+
+  private static final String TYPESCRIPT = """
+      import { a } from './a';
+
+      export interface Shape {
+        area(): number;
+      }
+
+      export class Square implements Shape {
+        constructor(private side: number) {
+          if (side < 0) {
+            throw new Error('negative');
+          }
+        }
+
+        area(): number {
+          return this.side * this.side;
+        }
+
+        bounds(): { w: number } {
+          return { w: this.side };
+        }
+      }
+
+      export function total(shapes: Shape[]): number {
+        let sum = 0;
+        for (const s of shapes) {
+          sum += s.area();
+        }
+        return sum;
+      }
+
+      export const double = (x: number) => {
+        return x * 2;
+      };
+
+      const options = { verbose: true };
+      """;
+
+  private static String parserText(final TokenSource source) {
+    final CommonTokenStream tokens = new CommonTokenStream(source);
+    tokens.fill();
+    final StringBuilder text = new StringBuilder();
+    for (final Token token : tokens.getTokens()) {
+      if (token.getChannel() == Token.DEFAULT_CHANNEL && token.getType() != Token.EOF) {
+        text.append(token.getText()).append(' ');
+      }
+    }
+    return text.toString().trim();
+  }
+
+  private static List<String> declarations(final FileData fileData) {
+    final List<String> declarations = new ArrayList<>();
+    for (final ClassData classData : fileData.getClassesList()) {
+      addDeclarations(classData, declarations);
+    }
+    for (final FunctionData function : fileData.getFunctionsList()) {
+      declarations.add(function.getName() + ":" + function.getStartLine() + "-"
+          + function.getEndLine());
+    }
+    return declarations;
+  }
+
+  private static void addDeclarations(final ClassData classData,
+      final List<String> declarations) {
+    declarations.add(classData.getName());
+    for (final FunctionData function : classData.getFunctionsList()) {
+      declarations.add(classData.getName() + "." + function.getName() + ":"
+          + function.getStartLine() + "-" + function.getEndLine());
+    }
+    for (final ClassData innerClass : classData.getInnerClassesList()) {
+      addDeclarations(innerClass, declarations);
+    }
+  }
+
+  @Test
+  public void testSkipsJavaBodies() {
+    final String text = parserText(
+        BodySkippingTokenSource.java(new Java20Lexer(CharStreams.fromString(JAVA))));
+
+    assertTrue(text.contains("public class A implements Runnable {"));
+    assertTrue(text.contains("private final int [ ] values = { } ;"));
+    assertTrue(text.contains("public A ( final int x ) { }"));
+    assertTrue(text.contains("public void run ( ) { }"));
+    assertTrue(text.contains("enum Mode { ON , OFF }"));
+    assertTrue(text.contains("record Point ( int x , int y ) { Point { } }"));
+    assertTrue(text.contains("@ SuppressWarnings ( { \"unchecked\" } )"));
+  }
+
+  @Test
+  public void testSkipsTypeScriptBodies() {
+    final String text = parserText(BodySkippingTokenSource.typeScript(
+        new TypeScriptLexer(CharStreams.fromString(TYPESCRIPT))));
+
+    assertTrue(text.contains("import { a } from './a' ;"));
+    assertTrue(text.contains("export interface Shape { area ( ) : number ; }"));
+    assertTrue(text.contains("constructor ( private side : number ) { }"));
+    assertTrue(text.contains("area ( ) : number { }"));
+    assertTrue(text.contains("bounds ( ) : { w : number } {"));
+    assertTrue(text.contains("total ( shapes : Shape [ ] ) : number { }"));
+    assertTrue(text.contains("( x : number ) => { } ;"));
+    assertTrue(text.contains("const options = { verbose : true } ;"));
+  }
+
+  @Test
+  public void testKeepsLinesOfSkippedTokens() {
+    final CommonTokenStream full =
+        new CommonTokenStream(new Java20Lexer(CharStreams.fromString(JAVA)));
+    full.fill();
+    final CommonTokenStream skipped = new CommonTokenStream(
+        BodySkippingTokenSource.java(new Java20Lexer(CharStreams.fromString(JAVA))));
+    skipped.fill();
+
+    assertEquals(new LineIndex(full, "//").sloc(), new LineIndex(skipped, "//").sloc());
+    assertEquals(new LineIndex(full, "//").cloc(), new LineIndex(skipped, "//").cloc());
+  }
+
+  @Test
+  public void testJavaDeclarationsMatchFullParse() {
+    final AntlrParserService parserService = new AntlrParserService();
+    final FileData full = parserService.parseFileContent(CharStreams.fromString(JAVA), "a/A.java",
+        "0", ParseGuard.NONE, false, false).getProtoBufObject();
+    final FileData declarations = parserService.parseFileContent(CharStreams.fromString(JAVA),
+        "a/A.java", "0", ParseGuard.NONE, true, true).getProtoBufObject();
+
+    assertEquals(declarations(full), declarations(declarations));
+    assertEquals(full.getImportNamesList(), declarations.getImportNamesList());
+    assertEquals(full.getMetricsOrThrow("sloc"), declarations.getMetricsOrThrow("sloc"));
+    assertEquals(full.getMetricsOrThrow("cloc"), declarations.getMetricsOrThrow("cloc"));
+  }
+
+  @Test
+  public void testTypeScriptDeclarationsMatchFullParse() {
+    final AntlrTypeScriptParserService parserService = new AntlrTypeScriptParserService();
+    final FileData full = parserService.parseFileContent(CharStreams.fromString(TYPESCRIPT),
+        "shape.ts", "0", ParseGuard.NONE, Set.of(), false).getProtoBufObject();
+    final FileData declarations = parserService.parseFileContent(
+        CharStreams.fromString(TYPESCRIPT), "shape.ts", "0", ParseGuard.NONE, Set.of(), true)
+        .getProtoBufObject();
+
+    assertEquals(declarations(full), declarations(declarations));
+    assertEquals(full.getMetricsOrThrow("sloc"), declarations.getMetricsOrThrow("sloc"));
+  }
+}
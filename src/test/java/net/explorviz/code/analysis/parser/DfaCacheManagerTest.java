@@ -0,0 +1,35 @@
+package net.explorviz.code.analysis.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class DfaCacheManagerTest {
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Long> states(final DfaCacheManager manager) {
+    return (Map<String, Long>) manager.getStats().get("states");
+  }
+
+  @Test
+  public void testWarmUpAndClear() {
+    final DfaCacheManager manager = new DfaCacheManager(0, 0, false, false);
+    manager.warmUp();
+    assertTrue(states(manager).get("java") > 0);
+    assertTrue(states(manager).get("python") > 0);
+
+    manager.clearAll("test");
+    states(manager).values().forEach(count -> assertEquals(0L, count));
+    assertEquals(Map.of("test", 4L), manager.getStats().get("clears"));
+  }
+
+  @Test
+  public void testClearOnlyGrammarsAboveLimit() {
+    final DfaCacheManager manager = new DfaCacheManager(1, 0, false, false);
+    manager.warmUp();
+    manager.checkMemory();
+    states(manager).values().forEach(count -> assertEquals(0L, count));
+  }
+}
@@ -0,0 +1,136 @@
+package net.explorviz.code.analysis.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import net.explorviz.code.proto.FileData;
+import net.explorviz.code.proto.Language;
+import org.antlr.v4.runtime.CharStreams;
+import org.junit.jupiter.api.Test;
+
+public class LexicalAnalyzerTest {
+
+  private final LexicalAnalyzer analyzer = new LexicalAnalyzer();
+
+  private FileData analyze(final String source, final String fileName,
+      final Language language) {
+    return analyzer.analyze(CharStreams.fromString(source), fileName, "0", language,
+        ParseGuard.NONE).getProtoBufObject();
+  }
+
+  @Test
+  public void testJava() {
+    final FileData fileData = analyze("""
+        package a;
+
+        import java.util.List;
+        import static java.lang.Math.max;
+        import java.io.*;
+
+        @SuppressWarnings("unchecked")
+        public class A {
+          // comment
+          A(int x) {
+            this.x = call(x);
+          }
+
+          public List<String> m() throws Exception {
+            return new Runnable() {
+              public void run() {}
+            };
+          }
+
+          abstract void n();
+        }
+        """, "a/A.java", Language.JAVA);
+
+    assertEquals(Language.JAVA, fileData.getLanguage());
+    assertEquals(List.of("java.util.List", "java.io.*"), fileData.getImportNamesList());
+    assertEquals(3.0, fileData.getMetricsOrThrow("functionCount"));
+    assertEquals(16.0, fileData.getMetricsOrThrow("sloc"));
+    assertEquals(1.0, fileData.getMetricsOrThrow("cloc"));
+    assertEquals(1.0, fileData.getMetricsOrThrow(LexicalAnalyzer.LEX_ONLY));
+    assertEquals(0, fileData.getClassesCount());
+  }
+
+  @Test
+  public void testTypeScript() {
+    final FileData fileData = analyze("""
+        import { a } from './a';
+        import * as b from "b"
+        import './side-effect';
+
+        export function f(x: number): number {
+          return x;
+        }
+
+        const g = (y) => y * 2;
+
+        class C {
+          method(): void {
+            f(1);
+          }
+        }
+        const lazy = import('./lazy');
+        """, "a.ts", Language.TYPESCRIPT);
+
+    assertEquals(List.of("import{a}from'./a';", "import*asbfrom\"b\"",
+        "import'./side-effect';"), fileData.getImportNamesList());
+    assertEquals(3.0, fileData.getMetricsOrThrow("functionCount"));
+  }
+
+  @Test
+  public void testPython() {
+    final FileData fileData = analyze("""
+        import os
+        from typing import (
+            List,
+            Dict,
+        )
+        # comment
+
+        def f(x):
+            return x
+
+        async def g():
+            from x import y
+            pass
+
+        class C:
+            def m(self): pass
+        """, "a.py", Language.PYTHON);
+
+    assertEquals(List.of("importos", "fromtypingimport(List,Dict,)", "fromximporty"),
+        fileData.getImportNamesList());
+    assertEquals(3.0, fileData.getMetricsOrThrow("functionCount"));
+    assertEquals(1.0, fileData.getMetricsOrThrow("cloc"));
+  }
+
+  @Test
+  public void testCpp() {
+    final FileData fileData = analyze("""
+        #include <vector>
+        #include "a.h"
+
+        int add(int a, int b) {
+          return a + b;
+        }
+
+        class P {
+        public:
+          P(int x) : x_(x), y_{x} {}
+          void run() const;
+        private:
+          int x_;
+          int y_;
+        };
+
+        void P::run() const {
+          int v = add(1, 2);
+        }
+        """, "a.cpp", Language.CPP);
+
+    assertEquals(List.of("<vector>", "\"a.h\""), fileData.getImportNamesList());
+    assertEquals(3.0, fileData.getMetricsOrThrow("functionCount"));
+  }
+}
@@ -0,0 +1,83 @@
+package net.explorviz.code.analysis.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import net.explorviz.code.analysis.exceptions.ParseBudgetExceededException;
+import net.explorviz.code.analysis.types.TextStats;
+import org.antlr.v4.runtime.CharStreams;
+import org.junit.jupiter.api.Test;
+
+public class ParseBudgetTest {
+
+  private static final String SOURCE = "package a;\n\npublic class A {\n  int x = 1;\n}\n";
+
+  private static TextStats stats(final String content) {
+    return TextStats.of(content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static Optional<String> checkGenerated(final ParseBudget budget, final String fileName,
+      final String content) {
+    return budget.checkGenerated(fileName, CharStreams.fromString(content), stats(content));
+  }
+
+  @Test
+  public void testLimitsCheckedBeforeParsing() {
+    final ParseBudget budget = new ParseBudget(1024, 80, 0, 0, true);
+    assertEquals(Optional.empty(), budget.checkStats(stats(SOURCE)));
+    assertEquals(Optional.of(ParseBudget.MAX_BYTES),
+        budget.checkStats(stats(SOURCE + "// comment\n".repeat(100))));
+    assertEquals(Optional.of(ParseBudget.MAX_LINE_LENGTH),
+        budget.checkStats(stats(SOURCE + "//" + "x".repeat(100))));
+  }
+
+  @Test
+  public void testSizeCheckedBeforeReading() {
+    assertEquals(Optional.empty(), new ParseBudget(1024, 80, 0, 0, true).checkSize(1024));
+    assertEquals(Optional.of(ParseBudget.MAX_BYTES),
+        new ParseBudget(1024, 80, 0, 0, true).checkSize(1025));
+    assertEquals(Optional.empty(), new ParseBudget(0, 80, 0, 0, true).checkSize(Long.MAX_VALUE));
+  }
+
+  @Test
+  public void testGeneratedAndMinifiedFiles() {
+    final ParseBudget budget = new ParseBudget(0, 0, 0, 0, true);
+    assertEquals(Optional.of(GeneratedFileDetector.GENERATED),
+        checkGenerated(budget, "A.java",
+            "// Generated by the protocol buffer compiler.  DO NOT EDIT!\n" + SOURCE));
+    assertEquals(Optional.of(GeneratedFileDetector.MINIFIED),
+        checkGenerated(budget, "lib.min.js", "var a=1;"));
+    assertEquals(Optional.of(GeneratedFileDetector.MINIFIED),
+        checkGenerated(budget, "lib.js", "var a=1;".repeat(1000) + "\n"));
+    assertEquals(Optional.of(GeneratedFileDetector.SOURCE_MAP),
+        checkGenerated(budget, "app.js", "var a = 1;\n//# sourceMappingURL=app.js.map\n"));
+    assertEquals(Optional.empty(),
+        checkGenerated(new ParseBudget(0, 0, 0, 0, false), "lib.min.js", "var a=1;"));
+  }
+
+  @Test
+  public void testTokenLimitCancelsParse() {
+    final AntlrParserService parserService = new AntlrParserService();
+    assertNotNull(parserService.parseFileContent(CharStreams.fromString(SOURCE), "A.java", "0",
+        new ParseGuard(1000, 0)));
+    final ParseBudgetExceededException exception = assertThrows(
+        ParseBudgetExceededException.class,
+        () -> parserService.parseFileContent(CharStreams.fromString(SOURCE), "A.java", "0",
+            new ParseGuard(5, 0)));
+    assertEquals(ParseBudget.MAX_TOKENS, exception.getReason());
+  }
+
+  @Test
+  public void testTimeoutCancelsParse() throws InterruptedException {
+    final ParseGuard guard = new ParseGuard(0, 1);
+    Thread.sleep(10);
+    final ParseBudgetExceededException exception = assertThrows(
+        ParseBudgetExceededException.class,
+        () -> new AntlrCppParserService().parseFileContent(CharStreams.fromString(
+            "int main() { return 0; }\n".repeat(100)), "main.cpp", "0", guard));
+    assertEquals(ParseBudget.PARSE_TIMEOUT, exception.getReason());
+  }
+}
@@ -0,0 +1,63 @@
+package net.explorviz.code.analysis.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import net.explorviz.code.analysis.antlr.generated.PythonLexer;
+import net.explorviz.code.analysis.antlr.generated.PythonParser;
+import net.explorviz.code.analysis.antlr.generated.PythonVersion;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.jupiter.api.Test;
+
+public class ReusableParsersTest {
+
+  @Test
+  public void testInstancesAreReusedPerThread() {
+    final ReusableParsers<PythonLexer, PythonParser> parsers =
+        new ReusableParsers<>(PythonLexer::new, PythonParser::new);
+    final PythonParser first;
+    try (ReusableParsers.Lease<PythonLexer, PythonParser> lease =
+        parsers.acquire(CharStreams.fromString("x = 1\n"), ParseGuard.NONE)) {
+      first = lease.parser();
+      // nested parses on the same thread get their own instances
+      try (ReusableParsers.Lease<PythonLexer, PythonParser> nested =
+          parsers.acquire(CharStreams.fromString("y = 2\n"), ParseGuard.NONE)) {
+        assertNotSame(first, nested.parser());
+      }
+    }
+    try (ReusableParsers.Lease<PythonLexer, PythonParser> lease =
+        parsers.acquire(CharStreams.fromString("z = 3\n"), ParseGuard.NONE)) {
+      assertSame(first, lease.parser());
+    }
+    parsers.invalidate();
+    try (ReusableParsers.Lease<PythonLexer, PythonParser> lease =
+        parsers.acquire(CharStreams.fromString("z = 3\n"), ParseGuard.NONE)) {
+      assertNotSame(first, lease.parser());
+    }
+  }
+
+  @Test
+  public void testGrammarStateIsReset() {
+    final ReusableParsers<PythonLexer, PythonParser> parsers =
+        new ReusableParsers<>(PythonLexer::new, PythonParser::new);
+    // leaves an open parenthesis, indentation and a Python 2 statement behind
+    try (ReusableParsers.Lease<PythonLexer, PythonParser> lease = parsers.acquire(
+        CharStreams.fromString("def g():\n    print 'x'\n    if (a,\n"), ParseGuard.NONE)) {
+      lease.parser().file_input();
+      assertEquals(PythonVersion.Python2, lease.parser().Version);
+    }
+
+    final String content = "x = 1\ny = 2\n";
+    final CommonTokenStream expected = new CommonTokenStream(
+        new PythonLexer(CharStreams.fromString(content)));
+    expected.fill();
+    try (ReusableParsers.Lease<PythonLexer, PythonParser> lease =
+        parsers.acquire(CharStreams.fromString(content), ParseGuard.NONE)) {
+      assertEquals(PythonVersion.Autodetect, lease.parser().Version);
+      lease.tokens().fill();
+      assertEquals(expected.getTokens().toString(), lease.tokens().getTokens().toString());
+    }
+  }
+}
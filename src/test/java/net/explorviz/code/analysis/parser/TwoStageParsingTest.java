@@ -0,0 +1,22 @@
+package net.explorviz.code.analysis.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import org.junit.jupiter.api.Test;
+
+public class TwoStageParsingTest {
+
+  @Test
+  public void testFallbackOnlyForInvalidInput() {
+    final AntlrPythonParserService parserService = new AntlrPythonParserService();
+    assertNotNull(parserService.parseFileContent("def f(x):\n    return x\n", "a.py", "0"));
+    assertEquals(1L, parserService.getPredictionStats().get("sll"));
+    assertEquals(0L, parserService.getPredictionStats().get("llFallbacks"));
+
+    // error recovery of the second stage still yields a result
+    assertNotNull(parserService.parseFileContent("def f(x:\n    return x\n", "b.py", "0"));
+    assertEquals(1L, parserService.getPredictionStats().get("sll"));
+    assertEquals(1L, parserService.getPredictionStats().get("llFallbacks"));
+  }
+}
@@ -0,0 +1,42 @@
+package net.explorviz.code.analysis.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+public class AnalysisTierPolicyTest {
+
+  @Test
+  public void testFirstMatchingEntryWins() {
+    final AnalysisTierPolicy policy = AnalysisTierPolicy.compile(Optional.of(
+        "vendor/**=size-only, **/test/**=lex-only, vendor/keep/**=full, glob:*.min.js=size-only"));
+
+    assertEquals(AnalysisTier.SIZE_ONLY, policy.tierOf("vendor/keep/a.js"));
+    assertEquals(AnalysisTier.LEX_ONLY, policy.tierOf("src/test/java/A.java"));
+    assertEquals(AnalysisTier.SIZE_ONLY, policy.tierOf("app.min.js"));
+    assertEquals(AnalysisTier.FULL, policy.tierOf("src/main/java/A.java"));
+  }
+
+  @Test
+  public void testMalformedEntriesAreIgnored() {
+    final AnalysisTierPolicy policy = AnalysisTierPolicy.compile(Optional.of(
+        "generated/**=skip,test/**,regex:.*Generated\\.java=LEX-ONLY"));
+
+    assertEquals(AnalysisTier.FULL, policy.tierOf("generated/A.java"));
+    assertEquals(AnalysisTier.FULL, policy.tierOf("test/A.java"));
+    assertEquals(AnalysisTier.LEX_ONLY, policy.tierOf("src/AGenerated.java"));
+  }
+
+  @Test
+  public void testEmptyPolicyAnalyzesFully() {
+    assertEquals(AnalysisTier.FULL, AnalysisTierPolicy.compile(Optional.empty()).tierOf("a.java"));
+    assertEquals(AnalysisTier.FULL, AnalysisTierPolicy.compile(Optional.of(" ")).tierOf("a.java"));
+  }
+
+  @Test
+  public void testUnknownTierIsRejected() {
+    assertThrows(IllegalArgumentException.class, () -> AnalysisTier.fromConfigName("parse"));
+  }
+}
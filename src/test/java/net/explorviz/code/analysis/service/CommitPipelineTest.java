@@ -0,0 +1,180 @@
+package net.explorviz.code.analysis.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import net.explorviz.code.proto.CommitData;
+import net.explorviz.code.proto.FileData;
+import org.junit.jupiter.api.Test;
+
+public class CommitPipelineTest {
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(10);
+  private static final int FILES = 3;
+
+  private static CommitWork work(final int index) {
+    return new CommitWork(null, CommitData.newBuilder().setCommitId("c" + index).build(),
+        List.of());
+  }
+
+  private static List<String> exportedIds(final List<CommitWork> exported) {
+    final List<String> ids = new ArrayList<>();
+    for (final CommitWork work : exported) {
+      ids.add(work.commitData.getCommitId());
+    }
+    return ids;
+  }
+
+  @Test
+  public void testExportsInCommitOrderWhenLaterFilesFinishFirst() {
+    final int commits = 4;
+    final List<CompletableFuture<Void>> fileGates = new CopyOnWriteArrayList<>();
+    final CountDownLatch scheduled = new CountDownLatch(commits);
+    final List<String> exported = Collections.synchronizedList(new ArrayList<>());
+    final ExecutorService fileExecutor = Executors.newCachedThreadPool();
+
+    assertTimeoutPreemptively(TIMEOUT, () -> {
+      try (CommitPipeline pipeline = new CommitPipeline(commits, work -> {
+        final CompletableFuture<?>[] fileTasks = new CompletableFuture<?>[FILES];
+        for (int index = 0; index < FILES; index++) {
+          final CompletableFuture<Void> gate = new CompletableFuture<>();
+          fileGates.add(gate);
+          final String path = work.commitData.getCommitId() + "/" + index;
+          fileTasks[index] = gate.thenRunAsync(
+              () -> work.results.add(FileData.newBuilder().setFilePath(path).build()),
+              fileExecutor);
+        }
+        work.completion = CompletableFuture.allOf(fileTasks);
+        scheduled.countDown();
+      }, work -> {
+        work.completion.join();
+        exported.add(work.commitData.getCommitId());
+        for (final FileData fileData : work.results) {
+          exported.add(fileData.getFilePath());
+        }
+      })) {
+        for (int index = 0; index < commits; index++) {
+          pipeline.submit(work(index));
+        }
+        // all commits are analyzed at the same time, the files of the last commit finish first
+        assertTrue(scheduled.await(TIMEOUT.toSeconds(), TimeUnit.SECONDS));
+        for (int index = fileGates.size() - 1; index >= 0; index--) {
+          fileGates.get(index).complete(null);
+        }
+        pipeline.finish();
+      } finally {
+        fileExecutor.shutdownNow();
+      }
+    });
+
+    assertEquals(commits * (FILES + 1), exported.size());
+    for (int index = 0; index < commits; index++) {
+      final int offset = index * (FILES + 1);
+      assertEquals("c" + index, exported.get(offset));
+      for (int file = 1; file <= FILES; file++) {
+        assertTrue(exported.get(offset + file).startsWith("c" + index + "/"));
+      }
+    }
+  }
+
+  @Test
+  public void testFinishWithoutCommits() {
+    final List<CommitWork> exported = new CopyOnWriteArrayList<>();
+
+    assertTimeoutPreemptively(TIMEOUT, () -> {
+      try (CommitPipeline pipeline = new CommitPipeline(1, work -> work.completion.join(),
+          exported::add)) {
+        pipeline.finish();
+      }
+    });
+
+    assertTrue(exported.isEmpty());
+  }
+
+  @Test
+  public void testParseFailureIsRethrownAndLaterCommitsAreDrained() {
+    final IOException failure = new IOException("parser failed");
+    final List<CommitWork> parsed = new CopyOnWriteArrayList<>();
+    final List<CommitWork> exported = new CopyOnWriteArrayList<>();
+
+    final IOException thrown = assertTimeoutPreemptively(TIMEOUT,
+        () -> assertThrows(IOException.class, () -> {
+          try (CommitPipeline pipeline = new CommitPipeline(1, work -> {
+            if ("c1".equals(work.commitData.getCommitId())) {
+              throw failure;
+            }
+            parsed.add(work);
+          }, exported::add)) {
+            // far more commits than the queues hold, submitting must not block forever
+            for (int index = 0; index < 20; index++) {
+              pipeline.submit(work(index));
+            }
+            pipeline.finish();
+          }
+        }));
+
+    assertSame(failure, thrown);
+    assertEquals(List.of("c0"), exportedIds(parsed));
+    // the export of c0 may already be skipped, nothing after the failed commit is exported
+    assertTrue(List.of("c0").containsAll(exportedIds(exported)));
+  }
+
+  @Test
+  public void testExportFailureIsRethrownUnwrapped() {
+    final IllegalStateException failure = new IllegalStateException("exporter failed");
+    final List<CommitWork> parsed = new CopyOnWriteArrayList<>();
+
+    final IllegalStateException thrown = assertTimeoutPreemptively(TIMEOUT,
+        () -> assertThrows(IllegalStateException.class, () -> {
+          try (CommitPipeline pipeline = new CommitPipeline(1, parsed::add, work -> {
+            throw failure;
+          })) {
+            for (int index = 0; index < 20; index++) {
+              pipeline.submit(work(index));
+            }
+            pipeline.finish();
+          }
+        }));
+
+    assertSame(failure, thrown);
+    // the parse stage stops processing once the failure is recorded
+    assertTrue(parsed.size() < 20);
+  }
+
+  @Test
+  public void testFailedFileTaskFailsTheExport() {
+    final List<String> exported = new CopyOnWriteArrayList<>();
+
+    assertTimeoutPreemptively(TIMEOUT, () -> assertThrows(RuntimeException.class, () -> {
+      try (CommitPipeline pipeline = new CommitPipeline(2, work -> {
+        work.completion = "c0".equals(work.commitData.getCommitId())
+            ? CompletableFuture.failedFuture(new IllegalStateException("file failed"))
+            : CompletableFuture.completedFuture(null);
+      }, work -> {
+        work.completion.join();
+        exported.add(work.commitData.getCommitId());
+      })) {
+        pipeline.submit(work(0));
+        pipeline.submit(work(1));
+        pipeline.finish();
+      }
+    }));
+
+    // a later commit is never emitted before an earlier one
+    assertTrue(exported.isEmpty());
+  }
+}
@@ -0,0 +1,128 @@
+package net.explorviz.code.analysis.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevSort;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CommitRangeTest {
+
+  private static final int COMMITS = 5;
+
+  @TempDir
+  /* default */ File directory; // NOCS
+
+  private static List<String> history(final Git git) throws IOException, GitAPIException {
+    final List<String> commits = new ArrayList<>();
+    for (int index = 0; index < COMMITS; index++) {
+      Files.writeString(directory(git).resolve("A.java"), "class A { int a" + index + "; }\n");
+      git.add().addFilepattern(".").call();
+      // distinct commit times, so the time based order of the walk is well defined
+      final PersonIdent ident = new PersonIdent("ExplorViz", "explorviz@example.org",
+          Instant.ofEpochSecond(1_700_000_000L + index * 60L), ZoneOffset.UTC);
+      commits.add(git.commit().setMessage("c" + index).setAuthor(ident).setCommitter(ident)
+          .setSign(false).call().name());
+    }
+    return commits;
+  }
+
+  private static Path directory(final Git git) {
+    return git.getRepository().getWorkTree().toPath();
+  }
+
+  private static List<String> range(final Repository repository, final String start,
+      final String end) throws IOException {
+    final List<String> names = new ArrayList<>();
+    for (final ObjectId commit : AnalysisService.listCommitsInRange(repository,
+        repository.getFullBranch(), Optional.ofNullable(start), Optional.ofNullable(end))) {
+      names.add(commit.name());
+    }
+    return names;
+  }
+
+  /**
+   * Counts the commits of the range the way the analysis did before the range was walked once,
+   * with a separate walk ahead of the analysis.
+   */
+  private static int baselineCount(final Repository repository, final String start,
+      final String end, final boolean remoteExport) throws IOException {
+    try (RevWalk revWalk = new RevWalk(repository)) {
+      revWalk.sort(RevSort.COMMIT_TIME_DESC, true);
+      revWalk.sort(RevSort.REVERSE, true);
+      revWalk.markStart(revWalk.parseCommit(repository.resolve(repository.getFullBranch())));
+      int totalCommits = 0;
+      boolean inAnalysisRange = start == null || start.isEmpty();
+      for (final RevCommit commit : revWalk) {
+        if (!inAnalysisRange) {
+          if (!commit.name().equals(start)) {
+            continue;
+          }
+          inAnalysisRange = true;
+          if (remoteExport) {
+            continue;
+          }
+        }
+        totalCommits++;
+        if (commit.name().equals(end)) {
+          break;
+        }
+      }
+      return totalCommits;
+    }
+  }
+
+  @Test
+  public void testRangeBoundaries() throws IOException, GitAPIException {
+    try (Git git = Git.init().setDirectory(directory).call()) {
+      final List<String> commits = history(git);
+      final Repository repository = git.getRepository();
+
+      assertEquals(commits, range(repository, null, null));
+      assertEquals(commits, range(repository, "", null));
+      assertEquals(commits.subList(1, 4), range(repository, commits.get(1), commits.get(3)));
+      assertEquals(commits.subList(0, 1), range(repository, null, commits.get(0)));
+      assertEquals(commits.subList(4, 5), range(repository, commits.get(4), null));
+      assertEquals(commits.subList(2, 3), range(repository, commits.get(2), commits.get(2)));
+      // an end before the start is never reached, the walk runs to the head of the branch
+      assertEquals(commits.subList(3, 5), range(repository, commits.get(3), commits.get(1)));
+      assertEquals(List.of(), range(repository, ObjectId.zeroId().name(), null));
+    }
+  }
+
+  @Test
+  public void testRangeMatchesBaselineCount() throws IOException, GitAPIException {
+    try (Git git = Git.init().setDirectory(directory).call()) {
+      final List<String> commits = history(git);
+      final Repository repository = git.getRepository();
+      final List<String> starts = new ArrayList<>(commits);
+      starts.add(null);
+
+      for (final String start : starts) {
+        for (final String end : commits) {
+          final int inRange = range(repository, start, end).size();
+          assertEquals(baselineCount(repository, start, end, false), inRange);
+          // a remote analysis skips the start commit, it was analyzed by the previous run
+          final int alreadyAnalyzed = inRange > 0 && start != null ? 1 : 0;
+          assertEquals(baselineCount(repository, start, end, true), inRange - alreadyAnalyzed);
+        }
+      }
+    }
+  }
+}
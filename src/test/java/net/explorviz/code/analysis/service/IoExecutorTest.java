@@ -0,0 +1,55 @@
+package net.explorviz.code.analysis.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class IoExecutorTest {
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+  @Test
+  public void testSubmittingDoesNotBlockWhileSaturated() throws Exception {
+    final IoExecutor executor = new IoExecutor(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger maxRunning = new AtomicInteger();
+    final Runnable task = () -> {
+      maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+      try {
+        release.await(TIMEOUT.toSeconds(), TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      running.decrementAndGet();
+    };
+
+    try {
+      // the first task holds the only permit, the caller must not wait for it
+      final List<CompletableFuture<Void>> tasks = assertTimeoutPreemptively(TIMEOUT, () -> {
+        final List<CompletableFuture<Void>> submitted = new ArrayList<>();
+        for (int index = 0; index < 3; index++) {
+          submitted.add(executor.run(task));
+        }
+        return submitted;
+      });
+      release.countDown();
+      CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0]))
+          .get(TIMEOUT.toSeconds(), TimeUnit.SECONDS);
+
+      assertEquals(1, maxRunning.get());
+      assertEquals(3L, executor.getStats().get("completed"));
+      assertEquals(0, executor.getStats().get("inFlight"));
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package net.explorviz.code.analysis.types;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.misc.Interval;
+import org.eclipse.jgit.diff.RawText;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.jupiter.api.Test;
+
+public class BlobContentTest {
+
+  private static final String SOURCE = "class Grüße {\r\n  String s = \"😀\";\n}";
+
+  private static BlobContent blob(final byte[] bytes) {
+    return new BlobContent(ObjectId.zeroId(), bytes.length, bytes);
+  }
+
+  private static byte[] concat(final byte[] first, final byte[] second) {
+    final byte[] bytes = new byte[first.length + second.length];
+    System.arraycopy(first, 0, bytes, 0, first.length);
+    System.arraycopy(second, 0, bytes, first.length, second.length);
+    return bytes;
+  }
+
+  private static String text(final CharStream stream) {
+    return stream.getText(Interval.of(0, stream.size() - 1));
+  }
+
+  @Test
+  public void testDecodesLikeString() {
+    final byte[] ascii = "class A {}\n".getBytes(StandardCharsets.US_ASCII);
+    assertEquals("class A {}\n", text(blob(ascii).asCharStream("A.java")));
+    final byte[] utf8 = SOURCE.getBytes(StandardCharsets.UTF_8);
+    assertEquals(SOURCE, text(blob(utf8).asCharStream("A.java")));
+    final byte[] malformed = {'a', (byte) 0xC3, 'b'};
+    assertEquals(blob(malformed).asString(), text(blob(malformed).asCharStream("A.java")));
+  }
+
+  @Test
+  public void testByteOrderMarkIsSkipped() {
+    final byte[] utf8 = concat(new byte[] {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF},
+        SOURCE.getBytes(StandardCharsets.UTF_8));
+    assertEquals(SOURCE, text(blob(utf8).asCharStream("A.java")));
+    final byte[] ascii = concat(new byte[] {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF},
+        "class A {}".getBytes(StandardCharsets.US_ASCII));
+    assertEquals("class A {}", text(blob(ascii).asCharStream("A.java")));
+    final byte[] utf16 = concat(new byte[] {(byte) 0xFF, (byte) 0xFE},
+        SOURCE.getBytes(StandardCharsets.UTF_16LE));
+    assertEquals(SOURCE, text(blob(utf16).asCharStream("A.java")));
+  }
+
+  @Test
+  public void testLinesAreCountedLikeString() {
+    for (final String content : new String[] {"", "a", "a\n", "a\r\nb", "a\rb\n\n", SOURCE}) {
+      final TextStats stats = TextStats.of(content.getBytes(StandardCharsets.UTF_8));
+      assertEquals(content.lines().count(), stats.lines(), content);
+    }
+    final TextStats stats = TextStats.of(
+        "a\n  \n\t\r\nlong line\n".getBytes(StandardCharsets.UTF_8));
+    assertEquals(4, stats.lines());
+    assertEquals(2, stats.blankLines());
+    assertEquals(9, stats.longestLine());
+    assertEquals(18, stats.size());
+  }
+
+  @Test
+  public void testBinaryLikeGit() {
+    final byte[][] samples = {{}, {'a', 0, 'b'}, {'a', '\r', 'b'}, {'a', '\r', '\n', 'b'},
+        {'a', '\r'}, {'a', '\n', 0}, {'\r', '\r', '\n'}};
+    for (final byte[] sample : samples) {
+      assertEquals(RawText.isBinary(sample), TextStats.of(sample).binary(),
+          Arrays.toString(sample));
+    }
+    final byte[] large = new byte[RawText.getBufferSize() + 10];
+    Arrays.fill(large, (byte) 'a');
+    large[large.length - 1] = 0;
+    assertEquals(RawText.isBinary(large), TextStats.of(large).binary());
+  }
+}